@@ -0,0 +1,165 @@
+package org.nanopub.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import net.trustyuri.TrustyUriUtils;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.extra.index.NanopubIndex;
+import org.nanopub.extra.index.SimpleIndexCreator;
+import org.nanopub.extra.server.FetchIndex;
+import org.nanopub.extra.server.GetNanopub;
+import org.nanopub.extra.server.NanopubCache;
+import org.nanopub.extra.server.RegistryInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks fetching an index with its content from local stub registries that answer after a fixed delay. The
+ * nanopub cache is disabled, so every iteration fetches all nanopubs again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchIndexBenchmark {
+
+    /**
+     * Number of content nanopubs in the index.
+     */
+    @Param({"200", "2000"})
+    public int elementCount;
+
+    /**
+     * Delay of the stub registries before each response, in milliseconds.
+     */
+    @Param({"0", "20"})
+    public int latencyMillis;
+
+    private static final int registryCount = 3;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private ExecutorService serverExecutor;
+    private List<RegistryInfo> registries;
+    private String indexUri;
+    private NanopubCache cache;
+
+    /**
+     * Creates the index and starts the stub registries.
+     *
+     * @throws java.lang.Exception if the nanopubs cannot be created or the servers cannot be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Map<String, byte[]> content = new HashMap<>();
+        List<NanopubIndex> indexes = new ArrayList<>();
+        SimpleIndexCreator indexCreator = new SimpleIndexCreator(true) {
+
+            @Override
+            public void handleIncompleteIndex(NanopubIndex npi) {
+                indexes.add(npi);
+            }
+
+            @Override
+            public void handleCompleteIndex(NanopubIndex npi) {
+                indexes.add(npi);
+            }
+
+        };
+        indexCreator.setBaseUri("https://example.org/index/");
+        for (int i = 0; i < elementCount; i++) {
+            NanopubCreator creator = new NanopubCreator("http://purl.org/nanopub/temp/np" + i + "/");
+            creator.addAssertionStatement(creator.getNanopubUri(), creator.getNanopubUri(), creator.getNanopubUri());
+            creator.addProvenanceStatement(creator.getNanopubUri(), creator.getNanopubUri());
+            creator.addPubinfoStatement(creator.getNanopubUri(), creator.getNanopubUri());
+            creator.addTimestampNow();
+            Nanopub np = creator.finalizeTrustyNanopub();
+            add(content, np);
+            indexCreator.addElement(np);
+        }
+        indexCreator.finalizeNanopub();
+        for (NanopubIndex npi : indexes) {
+            add(content, npi);
+        }
+        indexUri = indexCreator.getCompleteIndexUri().stringValue();
+
+        serverExecutor = Executors.newCachedThreadPool();
+        registries = new ArrayList<>();
+        for (int i = 0; i < registryCount; i++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/np/", exchange -> {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = content.get(exchange.getRequestURI().getPath().substring(4));
+                if (body == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+                exchange.close();
+            });
+            server.setExecutor(serverExecutor);
+            server.start();
+            servers.add(server);
+            registries.add(new StubRegistryInfo("http://localhost:" + server.getAddress().getPort() + "/"));
+        }
+        cache = GetNanopub.getCache();
+        GetNanopub.setCache(null);
+    }
+
+    private static void add(Map<String, byte[]> content, Nanopub np) throws Exception {
+        content.put(TrustyUriUtils.getArtifactCode(np.getUri().stringValue()), np.writeToString(RDFFormat.TRIG).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stops the stub registries.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        servers.forEach(s -> s.stop(0));
+        serverExecutor.shutdownNow();
+        GetNanopub.setCache(cache);
+    }
+
+    /**
+     * Fetches the index and all its content nanopubs.
+     *
+     * @return the number of fetched nanopubs
+     */
+    @Benchmark
+    public int fetchIndex() {
+        FetchIndex fetchIndex = new FetchIndex(indexUri, OutputStream.nullOutputStream(), RDFFormat.TRIG, true, true, registries);
+        fetchIndex.run();
+        return fetchIndex.getNanopubCount();
+    }
+
+    /**
+     * Registry info for a stub registry, which has no registry info endpoint to load it from.
+     */
+    private static class StubRegistryInfo extends RegistryInfo {
+
+        StubRegistryInfo(String url) {
+            this.url = url;
+        }
+
+    }
+
+}
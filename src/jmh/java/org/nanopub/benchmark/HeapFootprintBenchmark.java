@@ -0,0 +1,117 @@
+package org.nanopub.benchmark;
+
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.nanopub.MultiNanopubRdfHandler;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+import org.nanopub.NanopubValueFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the heap that is retained when many nanopubs are loaded into memory, with the plain
+ * {@link SimpleValueFactory} and with the interning {@link NanopubValueFactory}. The retained bytes per nanopub are
+ * reported as the secondary result "retainedBytesPerNanopub".
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class HeapFootprintBenchmark {
+
+    private static final int NANOPUB_COUNT = 2000;
+
+    /**
+     * Value factory of the parser: "simple" or "interning".
+     */
+    @Param({"simple", "interning"})
+    public String factory;
+
+    private byte[] trigBytes;
+
+    /**
+     * Builds a TriG document with copies of the fixture, each with its own temporary URIs.
+     *
+     * @param fixture the benchmark fixture
+     * @throws java.lang.Exception if the document cannot be built
+     */
+    @Setup(Level.Trial)
+    public void setUp(NanopubFixture fixture) throws Exception {
+        String trig = new String(fixture.trigBytes, StandardCharsets.UTF_8);
+        String tempUri = "http://purl.org/nanopub/temp/benchmark-" + fixture.size + "/";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < NANOPUB_COUNT; i++) {
+            String copy = trig.replace(tempUri, "http://purl.org/nanopub/temp/benchmark-" + fixture.size + "-" + i + "/");
+            out.write(copy.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+        trigBytes = out.toByteArray();
+    }
+
+    /**
+     * Parses all copies and measures the heap they retain.
+     *
+     * @param footprint the counter for the retained heap
+     * @return the number of loaded nanopubs
+     * @throws java.lang.Exception if parsing fails
+     */
+    @Benchmark
+    public int loadAll(Footprint footprint) throws Exception {
+        ValueFactory valueFactory = factory.equals("interning") ? new NanopubValueFactory(NanopubValueFactory.DEFAULT_CACHE_SIZE) : SimpleValueFactory.getInstance();
+        long before = usedHeap();
+
+        List<Nanopub> nanopubs = new ArrayList<>(NANOPUB_COUNT);
+        RDFParser parser = NanopubUtils.getParser(RDFFormat.TRIG, valueFactory);
+        parser.setRDFHandler(new MultiNanopubRdfHandler(nanopubs::add));
+        parser.parse(new ByteArrayInputStream(trigBytes), "");
+
+        long after = usedHeap();
+        Reference.reachabilityFence(nanopubs);
+        footprint.retainedBytesPerNanopub = (after - before) / nanopubs.size();
+        return nanopubs.size();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The retained heap of the last iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        /**
+         * Retained bytes per loaded nanopub.
+         */
+        public long retainedBytesPerNanopub;
+
+        /**
+         * Resets the counter before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytesPerNanopub = 0;
+        }
+
+    }
+
+}
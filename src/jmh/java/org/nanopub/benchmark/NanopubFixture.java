@@ -0,0 +1,106 @@
+package org.nanopub.benchmark;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
+import org.nanopub.extra.security.SignNanopub;
+import org.nanopub.extra.security.SignatureAlgorithm;
+import org.nanopub.extra.security.TransformContext;
+import org.nanopub.trusty.MakeTrustyNanopub;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Shared benchmark state: a fixture nanopub from {@code src/test/resources/benchmark} in its plain, trusty and
+ * signed form.
+ * <p>
+ * The fixtures are stored with temporary URIs; the trusty and signed variants are derived once per trial with a
+ * freshly generated RSA key, so the benchmarks never depend on a key in {@code ~/.nanopub}.
+ */
+@State(Scope.Benchmark)
+public class NanopubFixture {
+
+    /**
+     * Size of the fixture: "small" (12 triples), "typical" (50 triples) or "max" (1200 triples, the limit enforced by
+     * the NanopubVerifier).
+     */
+    @Param({"small", "typical", "max"})
+    public String size;
+
+    /**
+     * Serialized TriG bytes of the plain (temporary URI) nanopub.
+     */
+    public byte[] trigBytes;
+
+    /**
+     * The plain nanopub with temporary URIs.
+     */
+    public Nanopub plain;
+
+    /**
+     * The trusty version of the nanopub.
+     */
+    public Nanopub trusty;
+
+    /**
+     * The signed trusty version of the nanopub.
+     */
+    public Nanopub signed;
+
+    /**
+     * Loads the fixture and derives its trusty and signed versions.
+     *
+     * @throws java.lang.Exception if the fixture cannot be loaded, transformed or signed
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        trigBytes = loadFixture(size);
+        plain = new NanopubImpl(new String(trigBytes, StandardCharsets.UTF_8), RDFFormat.TRIG);
+        trusty = MakeTrustyNanopub.transform(plain);
+        signed = SignNanopub.signAndTransform(plain, createTransformContext());
+    }
+
+    /**
+     * Reads the raw bytes of a fixture file from the test resources.
+     *
+     * @param size the fixture size name
+     * @return the fixture bytes
+     * @throws java.io.IOException if the fixture cannot be read
+     */
+    public static byte[] loadFixture(String size) throws IOException {
+        String resource = "/benchmark/benchmark-" + size + ".trig";
+        try (InputStream in = NanopubFixture.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Benchmark fixture not found: " + resource);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Creates a transform context with a freshly generated 2048 bit RSA key.
+     *
+     * @return the transform context
+     * @throws java.security.NoSuchAlgorithmException if RSA is not available
+     */
+    public static TransformContext createTransformContext() throws NoSuchAlgorithmException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair key = keyPairGenerator.generateKeyPair();
+        IRI signer = SimpleValueFactory.getInstance().createIRI("https://orcid.org/0000-0000-0000-0001");
+        return new TransformContext(SignatureAlgorithm.RSA, key, signer, false, false, false);
+    }
+
+}
@@ -0,0 +1,143 @@
+package org.nanopub.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.nanopub.MalformedNanopubException;
+import org.nanopub.NanopubImpl;
+import org.nanopub.NanopubUtils;
+import org.nanopub.vocabulary.NP;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass graph partitioning of {@link NanopubImpl} with the former three-pass implementation,
+ * which is kept here as {@link #legacyPartition(List)}. The trusty check is skipped so only the partitioning and
+ * validation is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NanopubInitBenchmark {
+
+    private List<Statement> statements;
+
+    /**
+     * Extracts the statements of the fixture once per trial.
+     *
+     * @param fixture the benchmark fixture
+     */
+    @Setup(Level.Trial)
+    public void setUp(NanopubFixture fixture) {
+        statements = NanopubUtils.getStatements(fixture.plain);
+    }
+
+    /**
+     * Builds a nanopub with the single-pass partitioning.
+     *
+     * @return the nanopub
+     * @throws org.nanopub.MalformedNanopubException if the fixture is malformed
+     */
+    @Benchmark
+    public NanopubImpl singlePass() throws MalformedNanopubException {
+        return new NanopubImpl(statements, List.of(), Map.of(), NanopubImpl.TrustyCheck.SKIP);
+    }
+
+    /**
+     * Partitions the statements like the former implementation.
+     *
+     * @return the four graphs
+     * @throws org.nanopub.MalformedNanopubException if the fixture is malformed
+     */
+    @Benchmark
+    public Object threePass() throws MalformedNanopubException {
+        return legacyPartition(statements);
+    }
+
+    /**
+     * The partitioning as done by NanopubImpl before it was reduced to a single pass: the statements are copied,
+     * walked three times and collected in linked hash sets that are then copied into immutable sets.
+     *
+     * @param input the statements
+     * @return the head, assertion, provenance and pubinfo graphs
+     * @throws org.nanopub.MalformedNanopubException if the statements do not form a valid nanopub
+     */
+    static List<Set<Statement>> legacyPartition(List<Statement> input) throws MalformedNanopubException {
+        List<Statement> statements = new ArrayList<>(input);
+        IRI nanopubUri = null, headUri = null;
+        for (Statement st : statements) {
+            if (st.getContext() == null) {
+                throw new MalformedNanopubException("Null value for context URI found.");
+            }
+            if (st.getPredicate().equals(RDF.TYPE) && st.getObject().equals(NP.NANOPUBLICATION)) {
+                if (nanopubUri != null) {
+                    throw new MalformedNanopubException("Two nanopub URIs found");
+                }
+                nanopubUri = (IRI) st.getSubject();
+                headUri = (IRI) st.getContext();
+            }
+        }
+        if (nanopubUri == null) {
+            throw new MalformedNanopubException("No nanopub URI found");
+        }
+        IRI assertionUri = null, provenanceUri = null, pubinfoUri = null;
+        for (Statement st : statements) {
+            if (st.getContext().equals(headUri) && st.getSubject().equals(nanopubUri)) {
+                if (st.getPredicate().equals(NP.HAS_ASSERTION)) {
+                    assertionUri = (IRI) st.getObject();
+                } else if (st.getPredicate().equals(NP.HAS_PROVENANCE)) {
+                    provenanceUri = (IRI) st.getObject();
+                } else if (st.getPredicate().equals(NP.HAS_PUBINFO)) {
+                    pubinfoUri = (IRI) st.getObject();
+                }
+            }
+        }
+        Set<IRI> graphUris = ImmutableSet.copyOf(new HashSet<>(Arrays.asList(headUri, assertionUri, provenanceUri, pubinfoUri)));
+        Set<Statement> head = new LinkedHashSet<>();
+        Set<Statement> assertion = new LinkedHashSet<>();
+        Set<Statement> provenance = new LinkedHashSet<>();
+        Set<Statement> pubinfo = new LinkedHashSet<>();
+        for (Statement st : statements) {
+            checkStatement(st);
+            Resource g = st.getContext();
+            if (g.equals(headUri)) {
+                head.add(st);
+            } else if (g.equals(assertionUri)) {
+                assertion.add(st);
+            } else if (g.equals(provenanceUri)) {
+                provenance.add(st);
+            } else if (g.equals(pubinfoUri)) {
+                pubinfo.add(st);
+            } else {
+                throw new MalformedNanopubException("Disconnected graph: " + g);
+            }
+        }
+        if (graphUris.size() != 4) {
+            throw new MalformedNanopubException("Each graph needs a unique URI");
+        }
+        return List.of(ImmutableSet.copyOf(head), ImmutableSet.copyOf(assertion), ImmutableSet.copyOf(provenance),
+                ImmutableSet.copyOf(pubinfo));
+    }
+
+    private static void checkStatement(Statement st) throws MalformedNanopubException {
+        try {
+            new java.net.URI(st.getContext().stringValue());
+            new java.net.URI(st.getSubject().stringValue());
+            new java.net.URI(st.getPredicate().stringValue());
+            if (st.getObject() instanceof IRI) {
+                new java.net.URI(st.getObject().stringValue());
+            }
+        } catch (URISyntaxException ex) {
+            throw new MalformedNanopubException("Malformed URI: " + ex.getInput());
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.nanopub.benchmark;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing a single nanopub from TriG via {@link NanopubImpl#NanopubImpl(java.io.InputStream, RDFFormat)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NanopubParseBenchmark {
+
+    /**
+     * Parses the fixture from its TriG bytes.
+     *
+     * @param fixture the benchmark fixture
+     * @return the parsed nanopub
+     * @throws java.lang.Exception if parsing fails
+     */
+    @Benchmark
+    public Nanopub parseTrig(NanopubFixture fixture) throws Exception {
+        return new NanopubImpl(new ByteArrayInputStream(fixture.trigBytes), RDFFormat.TRIG);
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.nanopub.benchmark;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+import org.nanopub.jelly.JellyUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing nanopubs to TriG, N-Quads and Jelly, and reading them back from Jelly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private byte[] jellyBytes;
+
+    /**
+     * Serializes the trusty fixture to Jelly once per trial, as input for the read benchmark.
+     *
+     * @param fixture the benchmark fixture
+     */
+    @Setup(Level.Trial)
+    public void setUp(NanopubFixture fixture) {
+        jellyBytes = JellyUtils.writeNanopubForDB(fixture.trusty);
+    }
+
+    /**
+     * Writes the trusty fixture as TriG.
+     *
+     * @param fixture the benchmark fixture
+     * @return the serialized bytes
+     */
+    @Benchmark
+    public byte[] writeTrig(NanopubFixture fixture) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NanopubUtils.writeToStream(fixture.trusty, out, RDFFormat.TRIG);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the trusty fixture as N-Quads.
+     *
+     * @param fixture the benchmark fixture
+     * @return the serialized bytes
+     */
+    @Benchmark
+    public byte[] writeNquads(NanopubFixture fixture) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NanopubUtils.writeToStream(fixture.trusty, out, RDFFormat.NQUADS);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the trusty fixture in the Jelly format used for the database.
+     *
+     * @param fixture the benchmark fixture
+     * @return the serialized bytes
+     */
+    @Benchmark
+    public byte[] writeJelly(NanopubFixture fixture) {
+        return JellyUtils.writeNanopubForDB(fixture.trusty);
+    }
+
+    /**
+     * Reads the trusty fixture from the Jelly format used for the database.
+     *
+     * @return the nanopub
+     * @throws java.lang.Exception if the bytes cannot be read
+     */
+    @Benchmark
+    public Nanopub readJelly() throws Exception {
+        return JellyUtils.readFromDB(jellyBytes);
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.nanopub.benchmark;
+
+import org.nanopub.extra.security.NanopubSignatureElement;
+import org.nanopub.extra.security.SignatureUtils;
+import org.nanopub.extra.security.SignatureVerifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the verification of a batch of signatures with the same public key, as found in a registry dump.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureBatchBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Number of verification threads.
+     */
+    @Param({"1", "4"})
+    public int threads;
+
+    private final SignatureVerifier verifier = new SignatureVerifier();
+    private List<NanopubSignatureElement> elements;
+
+    /**
+     * Extracts the signature elements of the batch once per trial.
+     *
+     * @param fixture the benchmark fixture
+     * @throws java.lang.Exception if a signature element cannot be extracted
+     */
+    @Setup(Level.Trial)
+    public void setUp(NanopubFixture fixture) throws Exception {
+        elements = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            elements.add(SignatureUtils.getSignatureElement(fixture.signed));
+        }
+    }
+
+    /**
+     * Verifies the batch with the given number of threads.
+     *
+     * @return the verification results
+     * @throws java.lang.Exception if the verification fails
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Boolean> verifyAll() throws Exception {
+        return verifier.verifyAll(elements, threads);
+    }
+
+}
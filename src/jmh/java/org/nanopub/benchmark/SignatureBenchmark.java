@@ -0,0 +1,88 @@
+package org.nanopub.benchmark;
+
+import jakarta.xml.bind.DatatypeConverter;
+import net.trustyuri.TrustyUriUtils;
+import net.trustyuri.rdf.RdfHasher;
+import net.trustyuri.rdf.RdfPreprocessor;
+import org.eclipse.rdf4j.model.Statement;
+import org.nanopub.extra.security.NanopubSignatureElement;
+import org.nanopub.extra.security.SignatureUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.KeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks signature verification of signed nanopubs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureBenchmark {
+
+    private NanopubSignatureElement signatureElement;
+
+    /**
+     * Extracts the signature element of the signed fixture once per trial.
+     *
+     * @param fixture the benchmark fixture
+     * @throws java.lang.Exception if the signature element cannot be extracted
+     */
+    @Setup(Level.Trial)
+    public void setUp(NanopubFixture fixture) throws Exception {
+        signatureElement = SignatureUtils.getSignatureElement(fixture.signed);
+    }
+
+    /**
+     * Verifies the signature from a pre-extracted signature element.
+     *
+     * @return whether the signature is valid
+     * @throws java.lang.Exception if the verification fails
+     */
+    @Benchmark
+    public boolean hasValidSignature() throws Exception {
+        return SignatureUtils.hasValidSignature(signatureElement);
+    }
+
+    /**
+     * Verifies the signature like {@link SignatureUtils#hasValidSignature(NanopubSignatureElement)} did before the
+     * public keys were cached, i.e. with a new {@link Signature} and a freshly decoded key for each nanopub. This is
+     * the baseline for {@link #hasValidSignature()}.
+     *
+     * @return whether the signature is valid
+     * @throws java.lang.Exception if the verification fails
+     */
+    @Benchmark
+    public boolean hasValidSignatureWithoutCaching() throws Exception {
+        NanopubSignatureElement se = signatureElement;
+        String artifactCode = TrustyUriUtils.getArtifactCode(se.getTargetNanopubUri().toString());
+        List<Statement> statements = RdfPreprocessor.run(se.getTargetStatements(), artifactCode);
+        Signature signature = Signature.getInstance("SHA256with" + se.getAlgorithm().name());
+        KeySpec publicSpec = new X509EncodedKeySpec(DatatypeConverter.parseBase64Binary(se.getPublicKeyString()));
+        PublicKey publicKey = KeyFactory.getInstance(se.getAlgorithm().name()).generatePublic(publicSpec);
+        signature.initVerify(publicKey);
+        signature.update(RdfHasher.getDigestString(statements).getBytes());
+        return signature.verify(se.getSignature());
+    }
+
+    /**
+     * Extracts the signature element and verifies it, as done when checking a nanopub.
+     *
+     * @param fixture the benchmark fixture
+     * @return whether the signature is valid
+     * @throws java.lang.Exception if the extraction or verification fails
+     */
+    @Benchmark
+    public boolean getSignatureElementAndVerify(NanopubFixture fixture) throws Exception {
+        return SignatureUtils.hasValidSignature(SignatureUtils.getSignatureElement(fixture.signed));
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.nanopub.benchmark;
+
+import org.nanopub.Nanopub;
+import org.nanopub.trusty.MakeTrustyNanopub;
+import org.nanopub.trusty.TrustyNanopubUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks checking and creating trusty nanopubs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrustyCheckBenchmark {
+
+    /**
+     * Verifies the artifact code of the trusty fixture.
+     *
+     * @param fixture the benchmark fixture
+     * @return whether the nanopub is a valid trusty nanopub
+     */
+    @Benchmark
+    public boolean isValidTrustyNanopub(NanopubFixture fixture) {
+        return TrustyNanopubUtils.isValidTrustyNanopub(fixture.trusty);
+    }
+
+    /**
+     * Transforms the plain fixture into a trusty nanopub.
+     *
+     * @param fixture the benchmark fixture
+     * @return the trusty nanopub
+     * @throws java.lang.Exception if the transformation fails
+     */
+    @Benchmark
+    public Nanopub makeTrusty(NanopubFixture fixture) throws Exception {
+        return MakeTrustyNanopub.transform(fixture.plain);
+    }
+
+}
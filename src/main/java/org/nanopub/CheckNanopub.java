@@ -3,9 +3,18 @@ package org.nanopub;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.rdf4j.common.exception.RDF4JException;
 import org.eclipse.rdf4j.model.IRI;
@@ -13,14 +22,18 @@ import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.repository.sparql.SPARQLRepository;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
 import org.nanopub.extra.security.LegacySignatureUtils;
 import org.nanopub.extra.security.MalformedCryptoElementException;
 import org.nanopub.extra.security.NanopubSignatureElement;
 import org.nanopub.extra.security.SignatureUtils;
 import org.nanopub.extra.server.NanopubVerifier;
-import org.nanopub.trusty.TrustyNanopubUtils;
+import org.nanopub.trusty.CanonicalNanopub;
 
 import com.beust.jcommander.ParameterException;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 
 import net.trustyuri.TrustyUriUtils;
 
@@ -38,6 +51,12 @@ public class CheckNanopub extends CliRunner {
     @com.beust.jcommander.Parameter(names = "-s", description = "Load nanopubs from given SPARQL endpoint")
     private String sparqlEndpointUrl;
 
+    @com.beust.jcommander.Parameter(names = {"-t", "--threads"}, description = "Number of threads for checking the nanopubs of a file (default: one after the other)")
+    private int threads = 1;
+
+    @com.beust.jcommander.Parameter(names = "--summary-json", description = "Write a machine-readable summary with throughput and CPU times to this file")
+    private File summaryJsonFile;
+
     /**
      * Main method to run the CheckNanopub tool from the command line.
      *
@@ -49,6 +68,9 @@ public class CheckNanopub extends CliRunner {
             obj.setLogPrintStream(System.out);
             Report report = obj.check();
             System.out.println("Summary: " + report.getSummary());
+            if (obj.summaryJsonFile != null) {
+                Files.writeString(obj.summaryJsonFile.toPath(), report.getJsonSummary(), StandardCharsets.UTF_8);
+            }
         } catch (ParameterException ex) {
             System.exit(1);
         } catch (Exception ex) {
@@ -57,6 +79,8 @@ public class CheckNanopub extends CliRunner {
         }
     }
 
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
     private Report report;
     private int count;
     private SPARQLRepository sparqlRepo;
@@ -101,6 +125,8 @@ public class CheckNanopub extends CliRunner {
      */
     public Report check() throws IOException {
         report = new Report();
+        long startNanos = System.nanoTime();
+        long startCpuTime = getProcessCpuTime();
         for (String s : inputNanopubs) {
             count = 0;
             try {
@@ -110,17 +136,21 @@ public class CheckNanopub extends CliRunner {
                         sparqlRepo.init();
                     }
                     Nanopub np = new NanopubImpl(sparqlRepo, SimpleValueFactory.getInstance().createIRI(s));
-                    check(np);
+                    check(np).print();
                 } else {
                     if (verbose) {
                         log("Reading file: " + s + "\n");
                     }
-                    MultiNanopubRdfHandler.process(new File(s), np -> {
+                    File file = new File(s);
+                    report.addInputBytes(file.length());
+                    RDFFormat format = Rio.getParserFormatForFileName(file.getName()).orElse(RDFFormat.TRIG);
+                    // The nanopubs are checked on the worker threads, but their output is printed in input order:
+                    MultiNanopubRdfHandler.process(format, file, NanopubImpl.TrustyCheck.LAZY, threads, this::check, output -> {
                         count++;
                         if (count % 100 == 0) {
                             log(count + " nanopubs...\r");
                         }
-                        check(np);
+                        output.print();
                     });
                     if (count == 0) {
                         log("NO NANOPUB FOUND: " + s + "\n");
@@ -148,89 +178,50 @@ public class CheckNanopub extends CliRunner {
                 ex.printStackTrace();
             }
         }
+        long cpuTime = startCpuTime < 0 ? -1 : getProcessCpuTime() - startCpuTime;
+        report.finish(System.nanoTime() - startNanos, cpuTime);
         return report;
     }
 
-    private void check(Nanopub np) {
+    /**
+     * Checks a single nanopub. This is called concurrently for the nanopubs of a file if several threads are used,
+     * so the output is collected and only printed afterwards, in input order.
+     */
+    private CheckOutput check(Nanopub np) {
+        CheckOutput output = new CheckOutput();
+        long cpuTime = getThreadCpuTime();
         List<Statement> illTyped = NanopubUtils.getIllTypedLiteralStatements(np);
-        if (TrustyNanopubUtils.isValidTrustyNanopub(np)) {
+        cpuTime = report.addCpuTime(Phase.ILL_TYPED_LITERALS, cpuTime);
+        // Shared by the trusty check and the signature check, so the statements are only preprocessed and sorted once:
+        CanonicalNanopub canonical = new CanonicalNanopub(np);
+        boolean trusty = canonical.isValidTrusty();
+        cpuTime = report.addCpuTime(Phase.TRUSTY, cpuTime);
+        if (trusty) {
             if (!illTyped.isEmpty()) {
-                log("WARNING: TRUSTY NANOPUB WITH ILL-TYPED LITERAL(S): " + np.getUri() + "\n");
+                output.log("WARNING: TRUSTY NANOPUB WITH ILL-TYPED LITERAL(S): " + np.getUri() + "\n");
                 for (Statement st : illTyped) {
-                    log("- " + NanopubUtils.describeIllTypedLiteral(st) + "\n");
+                    output.log("- " + NanopubUtils.describeIllTypedLiteral(st) + "\n");
                 }
             }
-            NanopubSignatureElement se = null;
-            NanopubSignatureElement legacySe = null;
-            try {
-                se = SignatureUtils.getSignatureElement(np);
-                if (se == null) {
-                    legacySe = LegacySignatureUtils.getSignatureElement(np);
-                }
-            } catch (MalformedCryptoElementException ex) {
-                System.out.println("SIGNATURE IS NOT WELL-FORMED (" + ex.getMessage() + "): " + np.getUri());
-                report.countInvalidSignature();
-                return;
-            }
-            if (se == null && legacySe == null) {
-                // no signature
-                if (verbose) {
-                    System.out.println("Trusty (without signature): " + np.getUri());
-                }
-                report.countTrusty();
-            } else if (se != null) {
-                // new signature
-                boolean valid = false;
-                try {
-                    valid = SignatureUtils.hasValidSignature(se);
-                } catch (GeneralSecurityException ex) {
-                    System.out.println("FAILED TO CHECK SIGNATURE: " + np.getUri() + " (" + ex.getMessage() + ")");
-                    report.countError();
-                    return;
-                }
-                if (valid) {
-                    if (verbose) {
-                        System.out.println("Signed and trusty: " + np.getUri());
-                    }
-                    report.countSigned();
-                } else {
-                    System.out.println("INVALID SIGNATURE: " + np.getUri());
-                    report.countInvalidSignature();
-                }
-            } else {
-                // legacy signature
-                boolean valid = false;
-                try {
-                    valid = LegacySignatureUtils.hasValidSignature(legacySe);
-                } catch (GeneralSecurityException ex) {
-                    System.out.println("FAILED TO CHECK LEGACY SIGNATURE: " + np.getUri() + " (" + ex.getMessage() + ")");
-                    report.countError();
-                    return;
-                }
-                if (valid) {
-                    if (verbose) {
-                        System.out.println("Trusty with legacy signature: " + np.getUri());
-                    }
-                    report.countLegacySigned();
-                } else {
-                    System.out.println("INVALID LEGACY SIGNATURE: " + np.getUri());
-                    report.countInvalidSignature();
-                }
+            boolean checked = checkSignature(np, canonical, output);
+            cpuTime = report.addCpuTime(Phase.SIGNATURE, cpuTime);
+            if (!checked) {
+                return output;
             }
         } else if (TrustyUriUtils.isPotentialTrustyUri(np.getUri())) {
-            System.out.println("Looks like a trusty nanopub BUT VERIFICATION FAILED: " + np.getUri());
+            output.println("Looks like a trusty nanopub BUT VERIFICATION FAILED: " + np.getUri());
             report.countNotTrusty();
         } else if (!illTyped.isEmpty()) {
             // Trusty nanopubs with ill-typed literals are only warned about above, but a plain one is not
             // fit to be signed and published, and is therefore reported as invalid.
-            System.out.println("INVALID NANOPUB: " + np.getUri());
+            output.println("INVALID NANOPUB: " + np.getUri());
             for (Statement st : illTyped) {
-                System.out.println("- " + NanopubUtils.describeIllTypedLiteral(st));
+                output.println("- " + NanopubUtils.describeIllTypedLiteral(st));
             }
             report.countInvalid();
         } else {
             if (verbose) {
-                System.out.println("Valid (but not trusty): " + np.getUri());
+                output.println("Valid (but not trusty): " + np.getUri());
             }
             report.countNotTrusty();
         }
@@ -238,31 +229,99 @@ public class CheckNanopub extends CliRunner {
         if (!verifier.verify()) {
             report.countIssues();
         }
+        report.addCpuTime(Phase.VERIFICATION, cpuTime);
 
         if (verbose) {
-            System.out.println("LABEL: " + NanopubUtils.getLabel(np));
-            System.out.println("TYPES:");
+            output.println("LABEL: " + NanopubUtils.getLabel(np));
+            output.println("TYPES:");
             for (IRI typeIri : NanopubUtils.getTypes(np)) {
-                System.out.println("- " + typeIri);
+                output.println("- " + typeIri);
             }
-            System.out.println("DESCRIPTION:\n" + NanopubUtils.getDescription(np));
-            System.out.println("AUTHORS:");
+            output.println("DESCRIPTION:\n" + NanopubUtils.getDescription(np));
+            output.println("AUTHORS:");
             for (IRI authorIri : SimpleCreatorPattern.getAuthors(np)) {
-                System.out.println("- " + authorIri);
+                output.println("- " + authorIri);
             }
-            System.out.println("AUTHOR LIST:");
+            output.println("AUTHOR LIST:");
             for (IRI authorIri : SimpleCreatorPattern.getAuthorList(np)) {
-                System.out.println("- " + authorIri);
+                output.println("- " + authorIri);
             }
-            System.out.println("CREATORS:");
+            output.println("CREATORS:");
             for (IRI creatorIri : SimpleCreatorPattern.getCreators(np)) {
-                System.out.println("- " + creatorIri);
+                output.println("- " + creatorIri);
             }
-            System.out.println("ISSUES:");
+            output.println("ISSUES:");
             for (String issue : verifier.getIssues()) {
-                System.out.println("- " + issue);
+                output.println("- " + issue);
             }
         }
+        return output;
+    }
+
+    /**
+     * Checks the signature of a trusty nanopub, if it has one.
+     *
+     * @return false if the signature could not be checked, in which case the nanopub is not checked any further
+     */
+    private boolean checkSignature(Nanopub np, CanonicalNanopub canonical, CheckOutput output) {
+        NanopubSignatureElement se = null;
+        NanopubSignatureElement legacySe = null;
+        try {
+            se = SignatureUtils.getSignatureElement(np);
+            if (se == null) {
+                legacySe = LegacySignatureUtils.getSignatureElement(np);
+            }
+        } catch (MalformedCryptoElementException ex) {
+            output.println("SIGNATURE IS NOT WELL-FORMED (" + ex.getMessage() + "): " + np.getUri());
+            report.countInvalidSignature();
+            return false;
+        }
+        if (se == null && legacySe == null) {
+            // no signature
+            if (verbose) {
+                output.println("Trusty (without signature): " + np.getUri());
+            }
+            report.countTrusty();
+        } else if (se != null) {
+            // new signature
+            boolean valid = false;
+            try {
+                valid = SignatureUtils.hasValidSignature(se, canonical);
+            } catch (GeneralSecurityException ex) {
+                output.println("FAILED TO CHECK SIGNATURE: " + np.getUri() + " (" + ex.getMessage() + ")");
+                report.countError();
+                return false;
+            }
+            if (valid) {
+                if (verbose) {
+                    output.println("Signed and trusty: " + np.getUri());
+                }
+                report.countSigned();
+            } else {
+                output.println("INVALID SIGNATURE: " + np.getUri());
+                report.countInvalidSignature();
+            }
+        } else {
+            // legacy signature
+            boolean valid = false;
+            try {
+                valid = LegacySignatureUtils.hasValidSignature(legacySe);
+            } catch (GeneralSecurityException ex) {
+                output.println("FAILED TO CHECK LEGACY SIGNATURE: " + np.getUri() + " (" + ex.getMessage() + ")");
+                report.countError();
+                return false;
+            }
+            if (valid) {
+                if (verbose) {
+                    output.println("Trusty with legacy signature: " + np.getUri());
+                }
+                report.countLegacySigned();
+            } else {
+                output.println("INVALID LEGACY SIGNATURE: " + np.getUri());
+                report.countInvalidSignature();
+            }
+        }
+        return true;
     }
 
     /**
@@ -283,24 +342,121 @@ public class CheckNanopub extends CliRunner {
         this.verbose = verbose;
     }
 
+    /**
+     * Sets the number of threads for checking the nanopubs of a file.
+     *
+     * @param threads the number of threads; with less than two, the nanopubs are checked one after the other
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     private void log(String message) {
         if (logOut != null) {
             logOut.print(message);
         }
     }
 
+    private static long getThreadCpuTime() {
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+            return 0;
+        }
+        return threadMXBean.getCurrentThreadCpuTime();
+    }
+
+    private static long getProcessCpuTime() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
     /**
-     * Report class to hold the results of the nanopub checks.
+     * The output of the check of a single nanopub, for the standard output and the log.
+     */
+    private class CheckOutput {
+
+        private final StringBuilder out = new StringBuilder();
+        private final StringBuilder logged = new StringBuilder();
+
+        private void println(String message) {
+            out.append(message).append("\n");
+        }
+
+        private void log(String message) {
+            logged.append(message);
+        }
+
+        private void print() {
+            if (!logged.isEmpty()) {
+                CheckNanopub.this.log(logged.toString());
+            }
+            if (!out.isEmpty()) {
+                System.out.print(out);
+            }
+        }
+
+    }
+
+    /**
+     * The phases of the check of a nanopub, for which the CPU time is reported.
+     */
+    public enum Phase {
+
+        /**
+         * The search for literals that do not match their datatype.
+         */
+        ILL_TYPED_LITERALS,
+
+        /**
+         * The check of the trusty URI, including the preprocessing and sorting of the statements.
+         */
+        TRUSTY,
+
+        /**
+         * The check of the signature.
+         */
+        SIGNATURE,
+
+        /**
+         * The checks of {@link NanopubVerifier}.
+         */
+        VERIFICATION,
+
+        /**
+         * Everything else, like reading and parsing the input, printing the output, and garbage collection.
+         */
+        OTHER
+
+    }
+
+    /**
+     * Report class to hold the results of the nanopub checks. The counters can be updated concurrently by the threads
+     * that check the nanopubs.
      */
     public class Report {
 
-        private int signed, legacySigned, trusty, notTrusty, invalidSignature, invalid, error, issues;
+        private final LongAdder signed = new LongAdder();
+        private final LongAdder legacySigned = new LongAdder();
+        private final LongAdder trusty = new LongAdder();
+        private final LongAdder notTrusty = new LongAdder();
+        private final LongAdder invalidSignature = new LongAdder();
+        private final LongAdder invalid = new LongAdder();
+        private final LongAdder error = new LongAdder();
+        private final LongAdder issues = new LongAdder();
+
+        private final Map<Phase, LongAdder> cpuTimes = new EnumMap<>(Phase.class);
+        private long inputBytes;
+        private long elapsedNanos;
 
         private Report() {
+            for (Phase phase : Phase.values()) {
+                cpuTimes.put(phase, new LongAdder());
+            }
         }
 
         private void countSigned() {
-            signed++;
+            signed.increment();
         }
 
         /**
@@ -309,11 +465,11 @@ public class CheckNanopub extends CliRunner {
          * @return the number of signed nanopubs
          */
         public int getSignedCount() {
-            return signed;
+            return signed.intValue();
         }
 
         private void countLegacySigned() {
-            legacySigned++;
+            legacySigned.increment();
         }
 
         /**
@@ -323,11 +479,11 @@ public class CheckNanopub extends CliRunner {
          * @return the number of legacy signed nanopubs
          */
         public int getLegacySignedCount() {
-            return legacySigned;
+            return legacySigned.intValue();
         }
 
         private void countTrusty() {
-            trusty++;
+            trusty.increment();
         }
 
         /**
@@ -336,22 +492,22 @@ public class CheckNanopub extends CliRunner {
          * @return the number of trusty nanopubs
          */
         public int getTrustyCount() {
-            return trusty;
+            return trusty.intValue();
         }
 
         private void countNotTrusty() {
-            notTrusty++;
+            notTrusty.increment();
         }
 
         /**
          * @return The number of nanopubs having any verification issues
          */
         public int getIssuesCount() {
-            return issues;
+            return issues.intValue();
         }
 
         private void countIssues() {
-            issues++;
+            issues.increment();
         }
 
         /**
@@ -361,11 +517,11 @@ public class CheckNanopub extends CliRunner {
          * @return the number of valid but not trusty nanopubs
          */
         public int getNotTrustyCount() {
-            return notTrusty;
+            return notTrusty.intValue();
         }
 
         private void countInvalidSignature() {
-            invalidSignature++;
+            invalidSignature.increment();
         }
 
         /**
@@ -374,11 +530,11 @@ public class CheckNanopub extends CliRunner {
          * @return the number of nanopubs with an invalid signature
          */
         public int getInvalidSignatureCount() {
-            return invalidSignature;
+            return invalidSignature.intValue();
         }
 
         private void countInvalid() {
-            invalid++;
+            invalid.increment();
         }
 
         /**
@@ -387,11 +543,11 @@ public class CheckNanopub extends CliRunner {
          * @return the number of invalid nanopubs
          */
         public int getInvalidCount() {
-            return invalid;
+            return invalid.intValue();
         }
 
         private void countError() {
-            error++;
+            error.increment();
         }
 
         /**
@@ -401,7 +557,7 @@ public class CheckNanopub extends CliRunner {
          * @return the number of nanopubs with errors
          */
         public int getErrorCount() {
-            return error;
+            return error.intValue();
         }
 
         /**
@@ -411,7 +567,7 @@ public class CheckNanopub extends CliRunner {
          * @return the total count of valid nanopubs
          */
         public int getAllValidCount() {
-            return signed + legacySigned + trusty + notTrusty;
+            return getSignedCount() + getLegacySignedCount() + getTrustyCount() + getNotTrustyCount();
         }
 
         /**
@@ -421,7 +577,7 @@ public class CheckNanopub extends CliRunner {
          * @return the total count of invalid nanopubs
          */
         public int getAllInvalidCount() {
-            return invalidSignature + invalid + error;
+            return getInvalidSignatureCount() + getInvalidCount() + getErrorCount();
         }
 
         /**
@@ -451,7 +607,7 @@ public class CheckNanopub extends CliRunner {
          * @return true if all nanopubs are trusty, false otherwise
          */
         public boolean areAllTrusty() {
-            return trusty + signed + legacySigned == getAllCount();
+            return getTrustyCount() + getSignedCount() + getLegacySignedCount() == getAllCount();
         }
 
         /**
@@ -461,7 +617,7 @@ public class CheckNanopub extends CliRunner {
          * @return true if all nanopubs are signed, false otherwise
          */
         public boolean areAllSigned() {
-            return signed + legacySigned == getAllCount();
+            return getSignedCount() + getLegacySignedCount() == getAllCount();
         }
 
         /**
@@ -471,33 +627,133 @@ public class CheckNanopub extends CliRunner {
          */
         public String getSummary() {
             String s = "";
-            if (signed > 0) {
-                s += " " + signed + " trusty with signature;";
+            if (signed.sum() > 0) {
+                s += " " + signed.sum() + " trusty with signature;";
             }
-            if (legacySigned > 0) {
-                s += " " + legacySigned + " trusty with legacy signature;";
+            if (legacySigned.sum() > 0) {
+                s += " " + legacySigned.sum() + " trusty with legacy signature;";
             }
-            if (trusty > 0) {
-                s += " " + trusty + " trusty (without signature);";
+            if (trusty.sum() > 0) {
+                s += " " + trusty.sum() + " trusty (without signature);";
             }
-            if (notTrusty > 0) {
-                s += " " + notTrusty + " valid (not trusty);";
+            if (notTrusty.sum() > 0) {
+                s += " " + notTrusty.sum() + " valid (not trusty);";
             }
-            if (invalidSignature > 0) {
-                s += " " + invalidSignature + " invalid signature;";
+            if (invalidSignature.sum() > 0) {
+                s += " " + invalidSignature.sum() + " invalid signature;";
             }
-            if (invalid > 0) {
-                s += " " + invalid + " invalid nanopubs;";
+            if (invalid.sum() > 0) {
+                s += " " + invalid.sum() + " invalid nanopubs;";
             }
-            if (error > 0) {
-                s += " " + error + " errors;";
+            if (error.sum() > 0) {
+                s += " " + error.sum() + " errors;";
             }
-            if (issues > 0) {
-                s += " " + issues + " nanopub with issues";
+            if (issues.sum() > 0) {
+                s += " " + issues.sum() + " nanopub with issues";
             }
             s = s.replaceFirst("^ ", "");
             return s;
         }
+
+        private long addCpuTime(Phase phase, long phaseStartCpuTime) {
+            long now = getThreadCpuTime();
+            cpuTimes.get(phase).add(now - phaseStartCpuTime);
+            return now;
+        }
+
+        private void addInputBytes(long bytes) {
+            inputBytes += bytes;
+        }
+
+        private void finish(long elapsedNanos, long processCpuTime) {
+            this.elapsedNanos = elapsedNanos;
+            if (processCpuTime >= 0) {
+                long measured = 0;
+                for (Phase phase : Phase.values()) {
+                    measured += cpuTimes.get(phase).sum();
+                }
+                cpuTimes.get(Phase.OTHER).add(Math.max(0, processCpuTime - measured));
+            }
+        }
+
+        /**
+         * Returns the CPU time spent in the given phase, summed up over all threads. It is zero if the JVM does not
+         * support measuring CPU time.
+         *
+         * @param phase the phase
+         * @return the CPU time in nanoseconds
+         */
+        public long getCpuTimeNanos(Phase phase) {
+            return cpuTimes.get(phase).sum();
+        }
+
+        /**
+         * Returns the size of the input files, which is the compressed size for compressed files.
+         *
+         * @return the number of bytes
+         */
+        public long getInputBytes() {
+            return inputBytes;
+        }
+
+        /**
+         * Returns the wall-clock time of the check.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the number of checked nanopubs per second.
+         *
+         * @return the throughput in nanopubs per second, or zero if no time was measured
+         */
+        public double getNanopubsPerSecond() {
+            return elapsedNanos > 0 ? getAllCount() * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * Returns the number of megabytes (10^6 bytes) of input files checked per second.
+         *
+         * @return the throughput in megabytes per second, or zero if no time was measured
+         */
+        public double getMegabytesPerSecond() {
+            return elapsedNanos > 0 ? inputBytes * 1e3 / elapsedNanos : 0;
+        }
+
+        /**
+         * Returns the counts, the throughput and the CPU time per phase as a JSON object.
+         *
+         * @return the JSON string
+         */
+        public String getJsonSummary() {
+            JsonObject counts = new JsonObject();
+            counts.addProperty("signed", getSignedCount());
+            counts.addProperty("legacySigned", getLegacySignedCount());
+            counts.addProperty("trusty", getTrustyCount());
+            counts.addProperty("notTrusty", getNotTrustyCount());
+            counts.addProperty("invalidSignature", getInvalidSignatureCount());
+            counts.addProperty("invalid", getInvalidCount());
+            counts.addProperty("error", getErrorCount());
+            counts.addProperty("issues", getIssuesCount());
+            JsonObject cpuSeconds = new JsonObject();
+            for (Phase phase : Phase.values()) {
+                cpuSeconds.addProperty(phase.name().toLowerCase(Locale.ROOT), getCpuTimeNanos(phase) / 1e9);
+            }
+            JsonObject json = new JsonObject();
+            json.addProperty("nanopubs", getAllCount());
+            json.addProperty("allValid", areAllValid());
+            json.add("counts", counts);
+            json.addProperty("threads", Math.max(1, threads));
+            json.addProperty("inputBytes", inputBytes);
+            json.addProperty("elapsedSeconds", elapsedNanos / 1e9);
+            json.addProperty("nanopubsPerSecond", getNanopubsPerSecond());
+            json.addProperty("megabytesPerSecond", getMegabytesPerSecond());
+            json.add("cpuSeconds", cpuSeconds);
+            return new GsonBuilder().setPrettyPrinting().create().toJson(json);
+        }
     }
 
 }
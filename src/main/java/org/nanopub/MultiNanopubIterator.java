@@ -0,0 +1,259 @@
+package org.nanopub;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.nanopub.jelly.MaybeNanopub;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pull-based access to a file or stream with a sequence of nanopubs.
+ * <p>
+ * The input is parsed on a background thread, which hands the nanopubs over through a bounded queue. Parsing starts
+ * with the first call to {@link #hasNext()} and never runs more than the queue capacity ahead of the consumer, so
+ * large dumps can be read partially (e.g. with {@link Stream#limit(long)}) without reading them to the end. Closing
+ * the iterator stops the background thread and closes the input.
+ * <p>
+ * Errors are reported per item: a malformed nanopub results in a failed {@link MaybeNanopub} and the iteration
+ * continues with the next nanopub. An error that stops the parser (e.g. a syntax error, an I/O error or a
+ * {@link StackOverflowError} on deeply nested input) results in a failed item that is the last one of the iteration.
+ */
+public class MultiNanopubIterator implements Iterator<MaybeNanopub>, AutoCloseable {
+
+    /**
+     * Default number of nanopubs the parser can be ahead of the consumer.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final MaybeNanopub END = new MaybeNanopub((Exception) null);
+
+    // How often a consumer waiting for the next nanopub checks whether the iterator was closed by another thread:
+    private static final long CLOSED_CHECK_MILLIS = 100;
+
+    private final RDFFormat format;
+    private final InputStream in;
+    private final NanopubImpl.TrustyCheck trustyCheck;
+    private final BlockingQueue<MaybeNanopub> queue;
+
+    private Thread parserThread;
+    private volatile boolean closed = false;
+    private MaybeNanopub next;
+    private boolean finished = false;
+
+    /**
+     * Creates an iterator over the nanopubs in the given stream.
+     *
+     * @param format The RDF format of the nanopubs.
+     * @param in     The input stream containing the nanopubs; it is closed when the iteration ends or the iterator
+     *               is closed.
+     */
+    public MultiNanopubIterator(RDFFormat format, InputStream in) {
+        this(format, in, NanopubImpl.TrustyCheck.EAGER, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates an iterator over the nanopubs in the given stream.
+     *
+     * @param format        The RDF format of the nanopubs.
+     * @param in            The input stream containing the nanopubs; it is closed when the iteration ends or the
+     *                      iterator is closed.
+     * @param trustyCheck   When to check whether the nanopubs are valid trusty nanopubs.
+     * @param queueCapacity The number of nanopubs the parser can be ahead of the consumer.
+     */
+    public MultiNanopubIterator(RDFFormat format, InputStream in, NanopubImpl.TrustyCheck trustyCheck, int queueCapacity) {
+        this.format = format;
+        this.in = in;
+        this.trustyCheck = trustyCheck;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Creates an iterator over the nanopubs in the given file, which can be gzipped.
+     *
+     * @param format The RDF format of the nanopubs.
+     * @param file   The file containing the nanopubs.
+     * @return The iterator.
+     * @throws java.io.IOException If the file cannot be opened.
+     */
+    public static MultiNanopubIterator open(RDFFormat format, File file) throws IOException {
+        return new MultiNanopubIterator(format, MultiNanopubRdfHandler.open(file));
+    }
+
+    /**
+     * Returns a stream of the nanopubs in the given file, which can be gzipped. The stream should be closed (e.g.
+     * with try-with-resources) if it is not consumed to the end.
+     *
+     * @param format The RDF format of the nanopubs.
+     * @param file   The file containing the nanopubs.
+     * @return The stream of nanopubs or errors.
+     * @throws java.io.IOException If the file cannot be opened.
+     */
+    public static Stream<MaybeNanopub> stream(RDFFormat format, File file) throws IOException {
+        return open(format, file).stream();
+    }
+
+    /**
+     * Returns a stream of the nanopubs in the given input stream. The stream should be closed (e.g. with
+     * try-with-resources) if it is not consumed to the end.
+     *
+     * @param format The RDF format of the nanopubs.
+     * @param in     The input stream containing the nanopubs.
+     * @return The stream of nanopubs or errors.
+     */
+    public static Stream<MaybeNanopub> stream(RDFFormat format, InputStream in) {
+        return new MultiNanopubIterator(format, in).stream();
+    }
+
+    /**
+     * Returns the remaining items of this iterator as a sequential stream. Closing the stream closes this iterator.
+     *
+     * @return The stream of nanopubs or errors.
+     */
+    public Stream<MaybeNanopub> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Returns the remaining nanopubs of this iterator as a sequential stream, throwing the error of the first failed
+     * item. A MalformedNanopubException or another checked exception is wrapped in a RuntimeException. Closing the
+     * stream closes this iterator.
+     *
+     * @return The stream of nanopubs.
+     */
+    public Stream<Nanopub> nanopubs() {
+        return stream().map(item -> {
+            if (item.isSuccess()) return item.getNanopub();
+            if (item.getException() instanceof RuntimeException ex) throw ex;
+            throw new RuntimeException(item.getException());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Blocks until the next nanopub is parsed or the end of the input is reached.
+     */
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        if (finished) return false;
+        if (parserThread == null) {
+            startParser();
+        }
+        MaybeNanopub item = null;
+        try {
+            while (item == null && !closed) {
+                item = queue.poll(CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("Interrupted while waiting for the next nanopub", ex);
+        }
+        if (item == null || item == END || closed) {
+            finished = true;
+            return false;
+        }
+        next = item;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MaybeNanopub next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        MaybeNanopub item = next;
+        next = null;
+        return item;
+    }
+
+    /**
+     * Stops the parser thread and releases the input. Further calls to {@link #hasNext()} return false, including a
+     * call that is waiting for the next nanopub on another thread.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        finished = true;
+        next = null;
+        if (parserThread == null) {
+            closeInput();
+        } else {
+            parserThread.interrupt();
+            // unblock a parser waiting for space in the queue, and a consumer waiting for the next nanopub:
+            queue.clear();
+            queue.offer(END);
+        }
+    }
+
+    private void startParser() {
+        if (closed) {
+            finished = true;
+            return;
+        }
+        parserThread = new Thread(this::parse, "nanopub-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
+    }
+
+    private void parse() {
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            RDFParser p = NanopubUtils.getParser(format);
+            p.setRDFHandler(new MultiNanopubRdfHandler((statements, nsPrefixes, ns) -> {
+                if (closed) throw new InterruptedException();
+                MaybeNanopub item;
+                try {
+                    item = new MaybeNanopub(new NanopubImpl(statements, nsPrefixes, ns, trustyCheck));
+                } catch (MalformedNanopubException ex) {
+                    item = new MaybeNanopub(ex);
+                }
+                queue.put(item);
+            }));
+            p.parse(reader, "");
+        } catch (Throwable t) {
+            // Errors are reported too, so they are not mistaken for the end of the input:
+            if (!closed) {
+                offer(new MaybeNanopub(t instanceof Exception ex ? ex : new RuntimeException("The parser stopped with an error", t)));
+            }
+        } finally {
+            if (!closed) {
+                offer(END);
+            }
+        }
+    }
+
+    private void offer(MaybeNanopub item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException ex) {
+            // the iterator was closed
+        }
+    }
+
+    private void closeInput() {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            // nothing left to read anyway
+        }
+    }
+
+}
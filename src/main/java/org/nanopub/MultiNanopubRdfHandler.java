@@ -8,6 +8,7 @@ import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -30,7 +31,24 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
      */
     public static void process(RDFFormat format, InputStream in, NanopubHandler npHandler)
             throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
-        process(format, in, null, npHandler);
+        process(format, in, null, NanopubImpl.TrustyCheck.EAGER, npHandler);
+    }
+
+    /**
+     * Processes a stream of nanopubs in the specified format.
+     *
+     * @param format      The RDF format of the nanopubs.
+     * @param in          The input stream containing the nanopubs.
+     * @param trustyCheck When to check whether the nanopubs are valid trusty nanopubs.
+     * @param npHandler   The handler to process each nanopub.
+     * @throws java.io.IOException                       If an I/O error occurs.
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   If an error occurs while parsing the RDF data.
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException If an error occurs while handling the RDF data.
+     * @throws org.nanopub.MalformedNanopubException     If a nanopub is malformed.
+     */
+    public static void process(RDFFormat format, InputStream in, NanopubImpl.TrustyCheck trustyCheck, NanopubHandler npHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, in, null, trustyCheck, npHandler);
     }
 
     /**
@@ -46,13 +64,129 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
      */
     public static void process(RDFFormat format, File file, NanopubHandler npHandler)
             throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
-        InputStream in;
-        if (file.getName().matches(".*\\.(gz|gzip)")) {
-            in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
+        process(format, file, NanopubImpl.TrustyCheck.EAGER, npHandler);
+    }
+
+    /**
+     * Processes a file containing a sequence of nanopubs.
+     *
+     * @param format      The RDF format of the nanopubs.
+     * @param file        The file containing the nanopubs.
+     * @param trustyCheck When to check whether the nanopubs are valid trusty nanopubs.
+     * @param npHandler   The handler to process each nanopub.
+     * @throws java.io.IOException                       If an I/O error occurs.
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   If an error occurs while parsing the RDF data.
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException If an error occurs while handling the RDF data.
+     * @throws org.nanopub.MalformedNanopubException     If a nanopub is malformed.
+     */
+    public static void process(RDFFormat format, File file, NanopubImpl.TrustyCheck trustyCheck, NanopubHandler npHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, open(file), file, trustyCheck, npHandler);
+    }
+
+    /**
+     * Processes a stream of nanopubs with several threads. The parser splits the stream into the statements of the
+     * individual nanopubs, which are then turned into nanopub objects and passed to the handler by a pool of worker
+     * threads. In ordered mode, the handler is called one nanopub at a time and in input order; otherwise it is
+     * called concurrently and has to be thread-safe. With less than two threads, the stream is processed like with
+     * {@link #process(RDFFormat, InputStream, NanopubImpl.TrustyCheck, NanopubHandler)}.
+     *
+     * @param format      The RDF format of the nanopubs.
+     * @param in          The input stream containing the nanopubs.
+     * @param trustyCheck When to check whether the nanopubs are valid trusty nanopubs.
+     * @param threads     The number of worker threads.
+     * @param ordered     Whether the handler has to get the nanopubs in input order.
+     * @param npHandler   The handler to process each nanopub.
+     * @throws java.io.IOException                       If an I/O error occurs.
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   If an error occurs while parsing the RDF data.
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException If an error occurs while handling the RDF data.
+     * @throws org.nanopub.MalformedNanopubException     If a nanopub is malformed.
+     */
+    public static void process(RDFFormat format, InputStream in, NanopubImpl.TrustyCheck trustyCheck, int threads, boolean ordered, NanopubHandler npHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, in, null, trustyCheck, threads, ordered, npHandler);
+    }
+
+    /**
+     * Processes a file containing a sequence of nanopubs with several threads, as described for
+     * {@link #process(RDFFormat, InputStream, NanopubImpl.TrustyCheck, int, boolean, NanopubHandler)}. Uncompressed
+     * N-Quads files are not parsed as a whole but split into nanopubs with {@link NquadsNanopubSplitter}, so also the
+     * parsing runs on the worker threads.
+     *
+     * @param format      The RDF format of the nanopubs.
+     * @param file        The file containing the nanopubs.
+     * @param trustyCheck When to check whether the nanopubs are valid trusty nanopubs.
+     * @param threads     The number of worker threads.
+     * @param ordered     Whether the handler has to get the nanopubs in input order.
+     * @param npHandler   The handler to process each nanopub.
+     * @throws java.io.IOException                       If an I/O error occurs.
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   If an error occurs while parsing the RDF data.
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException If an error occurs while handling the RDF data.
+     * @throws org.nanopub.MalformedNanopubException     If a nanopub is malformed.
+     */
+    public static void process(RDFFormat format, File file, NanopubImpl.TrustyCheck trustyCheck, int threads, boolean ordered, NanopubHandler npHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, null, file, trustyCheck, threads, ordered, npHandler);
+    }
+
+    /**
+     * Processes a stream of nanopubs with several threads, mapping each nanopub to a result on the worker threads and
+     * handling the results one at a time in input order. This keeps the output of a command deterministic while the
+     * expensive part of the work (e.g. filtering and serializing) runs in parallel. Nanopubs that are mapped to null
+     * produce no result.
+     *
+     * @param format        The RDF format of the nanopubs.
+     * @param in            The input stream containing the nanopubs.
+     * @param trustyCheck   When to check whether the nanopubs are valid trusty nanopubs.
+     * @param threads       The number of worker threads.
+     * @param mapper        The mapper called for each nanopub on the worker threads; it has to be thread-safe.
+     * @param resultHandler The handler for the results, called in input order.
+     * @param <T>           The type of the results.
+     * @throws java.io.IOException                       If an I/O error occurs.
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   If an error occurs while parsing the RDF data.
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException If an error occurs while handling the RDF data.
+     * @throws org.nanopub.MalformedNanopubException     If a nanopub is malformed.
+     */
+    public static <T> void process(RDFFormat format, InputStream in, NanopubImpl.TrustyCheck trustyCheck, int threads,
+                                   NanopubMapper<T> mapper, ParallelTaskRunner.ResultHandler<T> resultHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, in, null, trustyCheck, threads, mapper, resultHandler);
+    }
+
+    /**
+     * Processes a file containing a sequence of nanopubs with several threads, as described for
+     * {@link #process(RDFFormat, InputStream, NanopubImpl.TrustyCheck, int, NanopubMapper, ParallelTaskRunner.ResultHandler)}.
+     * Uncompressed N-Quads files are split into nanopubs with {@link NquadsNanopubSplitter}, so also the parsing runs
+     * on the worker threads.
+     *
+     * @param format        The RDF format of the nanopubs.
+     * @param file          The file containing the nanopubs.
+     * @param trustyCheck   When to check whether the nanopubs are valid trusty nanopubs.
+     * @param threads       The number of worker threads.
+     * @param mapper        The mapper called for each nanopub on the worker threads; it has to be thread-safe.
+     * @param resultHandler The handler for the results, called in input order.
+     * @param <T>           The type of the results.
+     * @throws java.io.IOException                       If an I/O error occurs.
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   If an error occurs while parsing the RDF data.
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException If an error occurs while handling the RDF data.
+     * @throws org.nanopub.MalformedNanopubException     If a nanopub is malformed.
+     */
+    public static <T> void process(RDFFormat format, File file, NanopubImpl.TrustyCheck trustyCheck, int threads,
+                                   NanopubMapper<T> mapper, ParallelTaskRunner.ResultHandler<T> resultHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, null, file, trustyCheck, threads, mapper, resultHandler);
+    }
+
+    static InputStream open(File file) throws IOException {
+        if (isGzipped(file)) {
+            return new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)));
         } else {
-            in = new BufferedInputStream(new FileInputStream(file));
+            return new BufferedInputStream(new FileInputStream(file));
         }
-        process(format, in, file, npHandler);
+    }
+
+    private static boolean isGzipped(File file) {
+        return file.getName().matches(".*\\.(gz|gzip)");
     }
 
     /**
@@ -71,10 +205,10 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
         process(format, file, npHandler);
     }
 
-    private static void process(RDFFormat format, InputStream in, File file, NanopubHandler npHandler)
+    private static void process(RDFFormat format, InputStream in, File file, NanopubImpl.TrustyCheck trustyCheck, NanopubHandler npHandler)
             throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
         RDFParser p = NanopubUtils.getParser(format);
-        p.setRDFHandler(new MultiNanopubRdfHandler(npHandler));
+        p.setRDFHandler(new MultiNanopubRdfHandler(npHandler, trustyCheck));
         try (InputStreamReader is = new InputStreamReader(in, StandardCharsets.UTF_8)) {
             p.parse(is, "");
         } catch (RuntimeException ex) {
@@ -87,7 +221,98 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
         }
     }
 
+    private static void process(RDFFormat format, InputStream in, File file, NanopubImpl.TrustyCheck trustyCheck, int threads,
+                                boolean ordered, NanopubHandler npHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        if (threads < 2) {
+            process(format, in != null ? in : open(file), file, trustyCheck, npHandler);
+        } else if (ordered) {
+            processInParallel(format, in, file, trustyCheck, threads, true, np -> np, npHandler::handleNanopub);
+        } else {
+            processInParallel(format, in, file, trustyCheck, threads, false, np -> {
+                npHandler.handleNanopub(np);
+                return null;
+            }, np -> {
+            });
+        }
+    }
+
+    private static <T> void process(RDFFormat format, InputStream in, File file, NanopubImpl.TrustyCheck trustyCheck, int threads,
+                                    NanopubMapper<T> mapper, ParallelTaskRunner.ResultHandler<T> resultHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        if (threads < 2) {
+            process(format, in != null ? in : open(file), file, trustyCheck, np -> {
+                try {
+                    T result = mapper.map(np);
+                    if (result != null) resultHandler.handle(result);
+                } catch (MalformedNanopubException ex) {
+                    throw new RuntimeException("wrapped MalformedNanopubException", ex);
+                } catch (RuntimeException | NanopubAlreadyFinalizedException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+        } else {
+            processInParallel(format, in, file, trustyCheck, threads, true, mapper, resultHandler);
+        }
+    }
+
+    private static <T> void processInParallel(RDFFormat format, InputStream in, File file, NanopubImpl.TrustyCheck trustyCheck,
+                                              int threads, boolean ordered, NanopubMapper<T> mapper,
+                                              ParallelTaskRunner.ResultHandler<T> resultHandler)
+            throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        // A few batches per thread keep the workers busy without buffering much of the input:
+        try (ParallelTaskRunner<T> runner = new ParallelTaskRunner<>(threads, threads * 4, ordered, resultHandler)) {
+            try {
+                if (in == null && RDFFormat.NQUADS.equals(format) && !isGzipped(file)) {
+                    submitNquadsRanges(file, trustyCheck, mapper, runner);
+                } else {
+                    parseAndSubmit(format, in != null ? in : open(file), trustyCheck, mapper, runner);
+                }
+            } catch (RuntimeException ex) {
+                // If a worker failed, the input processing was stopped because of that; the worker's error is reported below
+                if (runner.getError() == null) throw ex;
+            }
+            runner.finish();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof MalformedNanopubException malformed) throw malformed;
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing nanopubs", ex);
+        }
+    }
+
+    private static <T> void parseAndSubmit(RDFFormat format, InputStream in, NanopubImpl.TrustyCheck trustyCheck,
+                                           NanopubMapper<T> mapper, ParallelTaskRunner<T> runner) throws IOException {
+        RDFParser p = NanopubUtils.getParser(format);
+        p.setRDFHandler(new MultiNanopubRdfHandler((statements, nsPrefixes, ns) -> runner.submit(
+                () -> mapper.map(new NanopubImpl(statements, nsPrefixes, ns, trustyCheck)))));
+        try (InputStreamReader is = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            p.parse(is, "");
+        }
+    }
+
+    private static <T> void submitNquadsRanges(File file, NanopubImpl.TrustyCheck trustyCheck, NanopubMapper<T> mapper,
+                                               ParallelTaskRunner<T> runner)
+            throws IOException, InterruptedException, ExecutionException {
+        NquadsNanopubSplitter splitter = new NquadsNanopubSplitter(file);
+        NquadsNanopubSplitter.Range range;
+        while ((range = splitter.nextRange()) != null) {
+            NquadsNanopubSplitter.Range r = range;
+            runner.submit(() -> mapper.map(new NanopubImpl(
+                    new ByteArrayInputStream(splitter.read(r)), RDFFormat.NQUADS, trustyCheck)));
+        }
+    }
+
     private NanopubHandler npHandler;
+    private NanopubImpl.TrustyCheck trustyCheck;
+    private BatchHandler batchHandler;
 
     private Map<IRI, Boolean> graphs = new HashMap<>();
     private Map<IRI, Map<IRI, Boolean>> members = new HashMap<>();
@@ -104,7 +329,22 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
      * @param npHandler The handler to process each nanopub.
      */
     public MultiNanopubRdfHandler(NanopubHandler npHandler) {
+        this(npHandler, NanopubImpl.TrustyCheck.EAGER);
+    }
+
+    /**
+     * Constructs a new MultiNanopubRdfHandler with the specified nanopub handler.
+     *
+     * @param npHandler   The handler to process each nanopub.
+     * @param trustyCheck When to check whether the nanopubs are valid trusty nanopubs.
+     */
+    public MultiNanopubRdfHandler(NanopubHandler npHandler, NanopubImpl.TrustyCheck trustyCheck) {
         this.npHandler = npHandler;
+        this.trustyCheck = trustyCheck;
+    }
+
+    MultiNanopubRdfHandler(BatchHandler batchHandler) {
+        this.batchHandler = batchHandler;
     }
 
     /**
@@ -165,8 +405,23 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
     }
 
     private void finishAndReset() {
+        if (batchHandler != null) {
+            if (!statements.isEmpty()) {
+                // The batch is handed over to another thread, so it gets its own copies:
+                try {
+                    batchHandler.handleBatch(new ArrayList<>(statements), new ArrayList<>(nsPrefixes), new HashMap<>(ns));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RDFHandlerException("Interrupted while waiting for nanopub workers", ex);
+                } catch (ExecutionException ex) {
+                    throw new RDFHandlerException("Nanopub processing failed", ex.getCause());
+                }
+            }
+            clearAll();
+            return;
+        }
         try {
-            npHandler.handleNanopub(new NanopubImpl(statements, nsPrefixes, ns));
+            npHandler.handleNanopub(new NanopubImpl(statements, nsPrefixes, ns, trustyCheck));
         } catch (MalformedNanopubException ex) {
             if (ex.getMessage().equals("No content received for nanopub")) { // TODO: Improve this check!
                 // ignore (a stream of zero nanopubs is also a valid nanopub stream)
@@ -205,4 +460,29 @@ public class MultiNanopubRdfHandler extends AbstractRDFHandler {
 
     }
 
+    /**
+     * Interface for mapping nanopubs to results on worker threads.
+     *
+     * @param <T> The type of the results.
+     */
+    public interface NanopubMapper<T> {
+
+        /**
+         * Maps a nanopub to a result.
+         *
+         * @param np The nanopub.
+         * @return The result, or null if the nanopub produces no result.
+         * @throws java.lang.Exception If the nanopub cannot be processed, which stops the processing.
+         */
+        T map(Nanopub np) throws Exception;
+
+    }
+
+    interface BatchHandler {
+
+        void handleBatch(List<Statement> statements, List<String> nsPrefixes, Map<String, String> ns)
+                throws InterruptedException, ExecutionException;
+
+    }
+
 }
@@ -86,14 +86,14 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
     private Set<IRI> graphUris;
     private Set<Statement> head, assertion, provenance, pubinfo;
 
-    private List<Statement> statements = new ArrayList<>();
     private List<String> nsPrefixes = new ArrayList<>();
     private Map<String, String> ns = new HashMap<>();
     private boolean unusedPrefixesRemoved = false;
 
     private int tripleCount;
     private long byteCount;
-    private boolean isValidAndTrusty = false;
+    private TrustyCheck trustyCheck = TrustyCheck.EAGER;
+    private volatile Boolean isValidAndTrusty;
 
     /**
      * Creates a new NanopubImpl instance from the given statements, namespaces, and namespace prefixes.
@@ -104,10 +104,23 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      * @throws org.nanopub.MalformedNanopubException if the nanopublication is malformed
      */
     public NanopubImpl(Collection<Statement> statements, List<String> nsPrefixes, Map<String, String> ns) throws MalformedNanopubException {
-        this.statements.addAll(statements);
+        this(statements, nsPrefixes, ns, TrustyCheck.EAGER);
+    }
+
+    /**
+     * Creates a new NanopubImpl instance from the given statements, namespaces, and namespace prefixes.
+     *
+     * @param statements  the statements of the nanopublication
+     * @param nsPrefixes  the namespace prefixes used in the nanopublication
+     * @param ns          the namespaces used in the nanopublication
+     * @param trustyCheck when to check whether this is a valid trusty nanopub
+     * @throws org.nanopub.MalformedNanopubException if the nanopublication is malformed
+     */
+    public NanopubImpl(Collection<Statement> statements, List<String> nsPrefixes, Map<String, String> ns, TrustyCheck trustyCheck) throws MalformedNanopubException {
         this.nsPrefixes.addAll(nsPrefixes);
         this.ns.putAll(ns);
-        init();
+        this.trustyCheck = trustyCheck;
+        init(statements);
     }
 
     /**
@@ -118,12 +131,24 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      * @throws org.nanopub.MalformedNanopubException if the nanopublication is malformed
      */
     public NanopubImpl(Collection<Statement> statements, List<Pair<String, String>> namespaces) throws MalformedNanopubException {
-        this.statements.addAll(statements);
+        this(statements, namespaces, TrustyCheck.EAGER);
+    }
+
+    /**
+     * Creates a new NanopubImpl instance from the given statements and namespaces.
+     *
+     * @param statements  the statements of the nanopublication
+     * @param namespaces  the namespaces used in the nanopublication, as pairs of prefixes and URI
+     * @param trustyCheck when to check whether this is a valid trusty nanopub
+     * @throws org.nanopub.MalformedNanopubException if the nanopublication is malformed
+     */
+    public NanopubImpl(Collection<Statement> statements, List<Pair<String, String>> namespaces, TrustyCheck trustyCheck) throws MalformedNanopubException {
         for (Pair<String, String> p : namespaces) {
             nsPrefixes.add(p.getLeft());
             ns.put(p.getLeft(), p.getRight());
         }
-        init();
+        this.trustyCheck = trustyCheck;
+        init(statements);
     }
 
     /**
@@ -133,8 +158,33 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      * @throws org.nanopub.MalformedNanopubException if the nanopublication is malformed
      */
     public NanopubImpl(Collection<Statement> statements) throws MalformedNanopubException {
-        this.statements.addAll(statements);
-        init();
+        init(statements);
+    }
+
+    /**
+     * Creates a copy of the given nanopub, which can be changed with {@link #removeUnusedPrefixes()} without affecting
+     * the original. The statements cannot be changed and are shared, and so is the result of the trusty check.
+     *
+     * @param nanopub the nanopub to copy
+     */
+    public NanopubImpl(NanopubImpl nanopub) {
+        nanopubUri = nanopub.nanopubUri;
+        headUri = nanopub.headUri;
+        assertionUri = nanopub.assertionUri;
+        provenanceUri = nanopub.provenanceUri;
+        pubinfoUri = nanopub.pubinfoUri;
+        graphUris = nanopub.graphUris;
+        head = nanopub.head;
+        assertion = nanopub.assertion;
+        provenance = nanopub.provenance;
+        pubinfo = nanopub.pubinfo;
+        nsPrefixes.addAll(nanopub.nsPrefixes);
+        ns.putAll(nanopub.ns);
+        unusedPrefixesRemoved = nanopub.unusedPrefixesRemoved;
+        tripleCount = nanopub.tripleCount;
+        byteCount = nanopub.byteCount;
+        trustyCheck = nanopub.trustyCheck;
+        isValidAndTrusty = nanopub.isValidAndTrusty;
     }
 
     private static final String nanopubViaSPARQLQuery =
@@ -167,6 +217,7 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
             throws MalformedNanopubException, RepositoryException {
         if (nsPrefixes != null) this.nsPrefixes.addAll(nsPrefixes);
         if (ns != null) this.ns.putAll(ns);
+        List<Statement> statements = new ArrayList<>();
         try (RepositoryConnection connection = repo.getConnection()) {
             String q = nanopubViaSPARQLQuery.replaceAll("@", nanopubUri.toString());
             TupleQuery tupleQuery = connection.prepareTupleQuery(QueryLanguage.SPARQL, q);
@@ -185,7 +236,7 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
             // The nanopub is left incomplete here; init() below reports it as malformed.
             logger.error("Could not retrieve nanopub {} from the repository", nanopubUri, ex);
         }
-        init();
+        init(statements);
     }
 
     /**
@@ -212,8 +263,7 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      */
     public NanopubImpl(File file, RDFFormat format)
             throws MalformedNanopubException, RDF4JException, IOException {
-        readStatements(new FileInputStream(file), format);
-        init();
+        init(readStatements(new FileInputStream(file), format));
     }
 
     /**
@@ -234,8 +284,7 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
         if (!f.supportsContexts()) {
             f = RDFFormat.TRIG;
         }
-        readStatements(new FileInputStream(file), f);
-        init();
+        init(readStatements(new FileInputStream(file), f));
     }
 
     /**
@@ -249,8 +298,7 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      */
     public NanopubImpl(URL url, RDFFormat format) throws MalformedNanopubException, RDF4JException, IOException {
         HttpResponse response = getNanopub(url);
-        readStatements(response.getEntity().getContent(), format);
-        init();
+        init(readStatements(response.getEntity().getContent(), format));
     }
 
     /**
@@ -275,8 +323,7 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
         if (!f.supportsContexts()) {
             f = RDFFormat.TRIG;
         }
-        readStatements(response.getEntity().getContent(), f);
-        init();
+        init(readStatements(response.getEntity().getContent(), f));
     }
 
     private HttpResponse getNanopub(URL url) throws IOException {
@@ -308,8 +355,22 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      * @throws java.io.IOException                               if there is an error reading from the input stream
      */
     public NanopubImpl(InputStream in, RDFFormat format) throws MalformedNanopubException, RDF4JException, IOException {
-        readStatements(in, format);
-        init();
+        this(in, format, TrustyCheck.EAGER);
+    }
+
+    /**
+     * Creates a new NanopubImpl instance from the given input stream and RDF format.
+     *
+     * @param in          the input stream containing the nanopublication
+     * @param format      the RDF format of the nanopublication
+     * @param trustyCheck when to check whether this is a valid trusty nanopub
+     * @throws org.nanopub.MalformedNanopubException             if the nanopublication is malformed
+     * @throws org.eclipse.rdf4j.common.exception.RDF4JException if there is an error reading the RDF data
+     * @throws java.io.IOException                               if there is an error reading from the input stream
+     */
+    public NanopubImpl(InputStream in, RDFFormat format, TrustyCheck trustyCheck) throws MalformedNanopubException, RDF4JException, IOException {
+        this.trustyCheck = trustyCheck;
+        init(readStatements(in, format));
     }
 
     /**
@@ -321,16 +382,18 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
      * @throws org.eclipse.rdf4j.common.exception.RDF4JException if there is an error reading the RDF data
      */
     public NanopubImpl(String utf8, RDFFormat format) throws MalformedNanopubException, RDF4JException {
+        List<Statement> statements;
         try {
-            readStatements(new ByteArrayInputStream(utf8.getBytes(StandardCharsets.UTF_8)), format);
+            statements = readStatements(new ByteArrayInputStream(utf8.getBytes(StandardCharsets.UTF_8)), format);
         } catch (IOException ex) {
             // We do not expect an IOException here (no file system IO taking place)
             throw new RuntimeException("Unexpected IOException", ex);
         }
-        init();
+        init(statements);
     }
 
-    private void readStatements(InputStream in, RDFFormat format) throws RDF4JException, IOException {
+    private List<Statement> readStatements(InputStream in, RDFFormat format) throws RDF4JException, IOException {
+        List<Statement> statements = new ArrayList<>();
         try (in) {
             RDFParser p = NanopubUtils.getParser(format);
             p.setRDFHandler(new AbstractRDFHandler() {
@@ -349,28 +412,29 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
             });
             p.parse(new InputStreamReader(in, StandardCharsets.UTF_8));
         }
+        return statements;
     }
 
-    private void init() throws MalformedNanopubException {
+    /**
+     * Partitions the statements into the four graphs in a single pass. Graph membership and URI syntax are only
+     * checked afterwards, once the graph URIs are known, reporting the same error that a statement-by-statement
+     * check would have found first.
+     */
+    private void init(Collection<Statement> statements) throws MalformedNanopubException {
         if (statements.isEmpty()) {
             throw new MalformedNanopubException("No content received for nanopub");
         }
-        collectNanopubUri(statements);
-        if (nanopubUri == null || headUri == null) {
-            throw new MalformedNanopubException("No nanopub URI found");
-        }
-        collectGraphs(statements);
-        collectStatements(statements);
-        checkAssertion();
-        checkProvenance();
-        checkPubinfo();
-        isValidAndTrusty = TrustyNanopubUtils.isValidTrustyNanopub(this);
-        logger.debug("Loaded nanopub {} with {} statement(s); trusty: {}", nanopubUri, statements.size(), isValidAndTrusty);
-    }
-
-    private void collectNanopubUri(Collection<Statement> statements) throws MalformedNanopubException {
+        Map<Resource, GraphBucket> buckets = new LinkedHashMap<>(8);
+        Resource lastContext = null;
+        GraphBucket lastBucket = null;
+        int index = 0;
+        int firstMalformedIndex = -1;
+        String firstMalformedUri = null;
+        tripleCount = 0;
+        byteCount = 0;
         for (Statement st : statements) {
-            if (st.getContext() == null) {
+            Resource g = st.getContext();
+            if (g == null) {
                 throw new MalformedNanopubException("Null value for context URI found.");
             }
             if (st.getPredicate().equals(RDF.TYPE) && st.getObject().equals(NP.NANOPUBLICATION)) {
@@ -380,30 +444,72 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
                 nanopubUri = (IRI) st.getSubject();
                 headUri = (IRI) st.getContext();
             }
+            // Statements of the same graph mostly come in a row, so this usually saves the map lookup:
+            if (g != lastContext && !g.equals(lastContext)) {
+                lastContext = g;
+                lastBucket = buckets.get(g);
+                if (lastBucket == null) {
+                    lastBucket = new GraphBucket(index);
+                    buckets.put(g, lastBucket);
+                }
+            }
+            lastBucket.statements.add(st);
+            if (firstMalformedUri == null) {
+                firstMalformedUri = getMalformedUri(st);
+                if (firstMalformedUri != null) firstMalformedIndex = index;
+            }
+            tripleCount++;
+            byteCount += g.stringValue().length();
+            byteCount += st.getSubject().stringValue().length();
+            byteCount += st.getPredicate().stringValue().length();
+            byteCount += st.getObject().stringValue().length();
+            index++;
         }
+        if (tripleCount < 0) tripleCount = Integer.MAX_VALUE;
+        if (byteCount < 0) byteCount = Long.MAX_VALUE;
+        if (nanopubUri == null || headUri == null) {
+            throw new MalformedNanopubException("No nanopub URI found");
+        }
+        head = buildGraph(buckets, headUri);
+        collectGraphs();
+        checkGraphMembership(buckets, firstMalformedIndex, firstMalformedUri);
+        assertion = buildGraph(buckets, assertionUri);
+        provenance = buildGraph(buckets, provenanceUri);
+        pubinfo = buildGraph(buckets, pubinfoUri);
+        checkAssertion();
+        checkProvenance();
+        checkPubinfo();
+        if (trustyCheck == TrustyCheck.EAGER) {
+            isValidAndTrusty = TrustyNanopubUtils.isValidTrustyNanopub(this);
+        }
+        logger.debug("Loaded nanopub {} with {} statement(s); trusty check: {}", nanopubUri, tripleCount, trustyCheck);
     }
 
-    private void collectGraphs(Collection<Statement> statements) throws MalformedNanopubException {
-        for (Statement st : statements) {
-            if (st.getContext().equals(headUri)) {
-                Resource s = st.getSubject();
-                IRI p = st.getPredicate();
-                if (s.equals(nanopubUri) && p.equals(NP.HAS_ASSERTION)) {
-                    if (assertionUri != null) {
-                        throw new MalformedNanopubException("Two assertion URIs found: " + assertionUri + " and " + st.getObject());
-                    }
-                    assertionUri = (IRI) st.getObject();
-                } else if (s.equals(nanopubUri) && p.equals(NP.HAS_PROVENANCE)) {
-                    if (provenanceUri != null) {
-                        throw new MalformedNanopubException("Two provenance URIs found: " + provenanceUri + " and " + st.getObject());
-                    }
-                    provenanceUri = (IRI) st.getObject();
-                } else if (s.equals(nanopubUri) && p.equals(NP.HAS_PUBINFO)) {
-                    if (pubinfoUri != null) {
-                        throw new MalformedNanopubException("Two publication info URIs found: " + pubinfoUri + " and " + st.getObject());
-                    }
-                    pubinfoUri = (IRI) st.getObject();
+    private static Set<Statement> buildGraph(Map<Resource, GraphBucket> buckets, IRI graphUri) {
+        GraphBucket bucket = buckets.get(graphUri);
+        if (bucket == null) return ImmutableSet.of();
+        return bucket.statements.build();
+    }
+
+    private void collectGraphs() throws MalformedNanopubException {
+        for (Statement st : head) {
+            Resource s = st.getSubject();
+            IRI p = st.getPredicate();
+            if (s.equals(nanopubUri) && p.equals(NP.HAS_ASSERTION)) {
+                if (assertionUri != null) {
+                    throw new MalformedNanopubException("Two assertion URIs found: " + assertionUri + " and " + st.getObject());
                 }
+                assertionUri = (IRI) st.getObject();
+            } else if (s.equals(nanopubUri) && p.equals(NP.HAS_PROVENANCE)) {
+                if (provenanceUri != null) {
+                    throw new MalformedNanopubException("Two provenance URIs found: " + provenanceUri + " and " + st.getObject());
+                }
+                provenanceUri = (IRI) st.getObject();
+            } else if (s.equals(nanopubUri) && p.equals(NP.HAS_PUBINFO)) {
+                if (pubinfoUri != null) {
+                    throw new MalformedNanopubException("Two publication info URIs found: " + pubinfoUri + " and " + st.getObject());
+                }
+                pubinfoUri = (IRI) st.getObject();
             }
         }
         if (assertionUri == null) {
@@ -436,45 +542,32 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
         graphUris.add(uri);
     }
 
-    private void collectStatements(Collection<Statement> statements) throws MalformedNanopubException {
-        tripleCount = 0;
-        byteCount = 0;
-        Set<Statement> head = new LinkedHashSet<>();
-        Set<Statement> assertion = new LinkedHashSet<>();
-        Set<Statement> provenance = new LinkedHashSet<>();
-        Set<Statement> pubinfo = new LinkedHashSet<>();
-        for (Statement st : statements) {
-            checkStatement(st);
-            Resource g = st.getContext();
-            if (g.equals(headUri)) {
-                head.add(st);
-            } else if (g.equals(assertionUri)) {
-                assertion.add(st);
-            } else if (g.equals(provenanceUri)) {
-                provenance.add(st);
-            } else if (g.equals(pubinfoUri)) {
-                pubinfo.add(st);
-            } else {
-                throw new MalformedNanopubException("Disconnected graph: " + g);
+    private void checkGraphMembership(Map<Resource, GraphBucket> buckets, int firstMalformedIndex, String firstMalformedUri)
+            throws MalformedNanopubException {
+        Resource firstDisconnected = null;
+        int firstDisconnectedIndex = -1;
+        for (Map.Entry<Resource, GraphBucket> e : buckets.entrySet()) {
+            if (!graphUris.contains(e.getKey())) {
+                // Buckets are in the order of their first statement, so the first one found comes first
+                firstDisconnected = e.getKey();
+                firstDisconnectedIndex = e.getValue().firstIndex;
+                break;
             }
-            tripleCount++;
-            byteCount += st.getContext().stringValue().length();
-            byteCount += st.getSubject().stringValue().length();
-            byteCount += st.getPredicate().stringValue().length();
-            byteCount += st.getObject().stringValue().length();
-            if (tripleCount < 0) tripleCount = Integer.MAX_VALUE;
-            if (byteCount < 0) byteCount = Long.MAX_VALUE;
         }
-        this.head = ImmutableSet.copyOf(head);
-        this.assertion = ImmutableSet.copyOf(assertion);
-        this.provenance = ImmutableSet.copyOf(provenance);
-        this.pubinfo = ImmutableSet.copyOf(pubinfo);
+        if (firstMalformedUri != null && (firstDisconnected == null || firstMalformedIndex <= firstDisconnectedIndex)) {
+            throw new MalformedNanopubException("Malformed URI: " + firstMalformedUri);
+        }
+        if (firstDisconnected != null) {
+            throw new MalformedNanopubException("Disconnected graph: " + firstDisconnected);
+        }
     }
 
-    private void checkStatement(Statement st) throws MalformedNanopubException {
+    /**
+     * Returns the first URI of the statement that is not well-formed, or null if all of them are.
+     */
+    private static String getMalformedUri(Statement st) {
         String uriString = null;
         try {
-            // Throw exceptions if not well-formed:
             uriString = st.getContext().stringValue();
             new java.net.URI(uriString);
             uriString = st.getSubject().stringValue();
@@ -486,8 +579,9 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
                 new java.net.URI(uriString);
             }
         } catch (URISyntaxException ex) {
-            throw new MalformedNanopubException("Malformed URI: " + uriString);
+            return uriString;
         }
+        return null;
     }
 
     private void checkAssertion() throws MalformedNanopubException {
@@ -679,16 +773,43 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
     }
 
     /**
-     * Returns whether this nanopublication is valid and trustworthy.
+     * Returns whether this nanopublication is valid and trustworthy. Unless the check was done at construction time,
+     * it is done on the first call and the result is remembered; it is always false if the check was skipped.
      *
      * @return true if the nanopublication is valid and trustworthy, false otherwise
      */
     public boolean isValidAndTrusty() {
-        return isValidAndTrusty;
+        if (trustyCheck == TrustyCheck.SKIP) {
+            return false;
+        }
+        return checkValidAndTrusty();
+    }
+
+    private boolean checkValidAndTrusty() {
+        Boolean trusty = isValidAndTrusty;
+        if (trusty == null) {
+            // Concurrent first calls may both compute the result, which is harmless as it is deterministic
+            trusty = TrustyNanopubUtils.isValidTrustyNanopub(this);
+            isValidAndTrusty = trusty;
+        }
+        return trusty;
+    }
+
+    /**
+     * Records that this nanopub is a valid trusty nanopub without checking it. Only called through
+     * {@link NanopubRdfHandler#getNanopub(String)}, whose callers have just computed the artifact code from the very
+     * same statements.
+     */
+    void markAsValidAndTrusty() {
+        isValidAndTrusty = true;
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Two nanopubs are equal if they have the same content, or if they are both valid trusty nanopubs with the same
+     * URI. This does not depend on the {@link TrustyCheck} mode: the trusty check is only done, whatever the mode,
+     * for nanopubs with the same URI but different content.
      */
     @Override
     public boolean equals(Object o) {
@@ -698,54 +819,69 @@ public class NanopubImpl implements NanopubWithNs, Serializable {
         if (!(o instanceof NanopubImpl nanopub)) {
             return false;
         }
-        if (isValidAndTrusty && nanopub.isValidAndTrusty()) {
-            return Objects.equals(nanopubUri, nanopub.nanopubUri);
-        } else {
-            return unusedPrefixesRemoved == nanopub.unusedPrefixesRemoved &&
-                   tripleCount == nanopub.tripleCount &&
-                   byteCount == nanopub.byteCount &&
-                   Objects.equals(nanopubUri, nanopub.nanopubUri) &&
-                   Objects.equals(headUri, nanopub.headUri) &&
-                   Objects.equals(assertionUri, nanopub.assertionUri) &&
-                   Objects.equals(provenanceUri, nanopub.provenanceUri) &&
-                   Objects.equals(pubinfoUri, nanopub.pubinfoUri) &&
-                   Objects.equals(graphUris, nanopub.graphUris) &&
-                   Objects.equals(head, nanopub.head) &&
-                   Objects.equals(assertion, nanopub.assertion) &&
-                   Objects.equals(provenance, nanopub.provenance) &&
-                   Objects.equals(pubinfo, nanopub.pubinfo) &&
-                   Objects.equals(statements, nanopub.statements) &&
-                   Objects.equals(nsPrefixes, nanopub.nsPrefixes) &&
-                   Objects.equals(ns, nanopub.ns);
+        if (!Objects.equals(nanopubUri, nanopub.nanopubUri)) {
+            return false;
         }
+        boolean sameContent = unusedPrefixesRemoved == nanopub.unusedPrefixesRemoved &&
+                              tripleCount == nanopub.tripleCount &&
+                              byteCount == nanopub.byteCount &&
+                              Objects.equals(headUri, nanopub.headUri) &&
+                              Objects.equals(assertionUri, nanopub.assertionUri) &&
+                              Objects.equals(provenanceUri, nanopub.provenanceUri) &&
+                              Objects.equals(pubinfoUri, nanopub.pubinfoUri) &&
+                              Objects.equals(graphUris, nanopub.graphUris) &&
+                              Objects.equals(head, nanopub.head) &&
+                              Objects.equals(assertion, nanopub.assertion) &&
+                              Objects.equals(provenance, nanopub.provenance) &&
+                              Objects.equals(pubinfo, nanopub.pubinfo) &&
+                              Objects.equals(nsPrefixes, nanopub.nsPrefixes) &&
+                              Objects.equals(ns, nanopub.ns);
+        return sameContent || (checkValidAndTrusty() && nanopub.checkValidAndTrusty());
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Based on the nanopub URI only, as equal nanopubs always have the same URI.
      */
     @Override
     public int hashCode() {
-        if (isValidAndTrusty) {
-            return Objects.hash(nanopubUri);
-        } else {
-            return Objects.hash(
-                    unusedPrefixesRemoved,
-                    tripleCount,
-                    byteCount,
-                    nanopubUri,
-                    headUri,
-                    assertionUri,
-                    provenanceUri,
-                    pubinfoUri,
-                    graphUris,
-                    head,
-                    assertion,
-                    provenance,
-                    pubinfo,
-                    statements,
-                    nsPrefixes,
-                    ns
-            );
+        return Objects.hash(nanopubUri);
+    }
+
+    private static class GraphBucket {
+
+        final int firstIndex;
+        final ImmutableSet.Builder<Statement> statements = ImmutableSet.builder();
+
+        GraphBucket(int firstIndex) {
+            this.firstIndex = firstIndex;
         }
+
     }
+
+    /**
+     * Determines when a nanopub checks whether it is a valid trusty nanopub. This check hashes all statements and
+     * is by far the most expensive part of loading a nanopub.
+     */
+    public enum TrustyCheck {
+
+        /**
+         * Check during construction. This is the default.
+         */
+        EAGER,
+
+        /**
+         * Check on the first call of {@link NanopubImpl#isValidAndTrusty()}, and remember the result.
+         */
+        LAZY,
+
+        /**
+         * Never check and treat the nanopub as not trusty. Meant for bulk pipelines that only count, filter or
+         * convert nanopubs.
+         */
+        SKIP
+
+    }
+
 }
@@ -1,13 +1,11 @@
 package org.nanopub;
 
+import net.trustyuri.TrustyUriUtils;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * A handler for RDF data that collects statements and namespaces.
@@ -20,8 +18,25 @@ public class NanopubRdfHandler extends AbstractRDFHandler {
     private List<String> nsPrefixes = new ArrayList<>();
     private Map<String, String> ns = new HashMap<>();
 
+    private final NanopubImpl.TrustyCheck trustyCheck;
     private boolean finished = false;
 
+    /**
+     * Creates a handler whose nanopub checks at construction whether it is trusty.
+     */
+    public NanopubRdfHandler() {
+        this(NanopubImpl.TrustyCheck.EAGER);
+    }
+
+    /**
+     * Creates a handler whose nanopub checks whether it is trusty as given.
+     *
+     * @param trustyCheck when the created nanopub checks whether it is a valid trusty nanopub
+     */
+    public NanopubRdfHandler(NanopubImpl.TrustyCheck trustyCheck) {
+        this.trustyCheck = trustyCheck;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -57,7 +72,27 @@ public class NanopubRdfHandler extends AbstractRDFHandler {
         if (!finished) {
             throw new RuntimeException("No complete RDF document received");
         }
-        return new NanopubImpl(statements, nsPrefixes, ns);
+        return new NanopubImpl(statements, nsPrefixes, ns, trustyCheck);
+    }
+
+    /**
+     * Returns a Nanopub object containing the collected statements and namespaces, for code that has just computed
+     * the trusty URI of the nanopub from the statements it passed to this handler, like
+     * {@link org.nanopub.trusty.MakeTrustyNanopub}. If the URI of the nanopub carries the computed artifact code,
+     * the nanopub is treated as a valid trusty nanopub without hashing it again; otherwise, it is checked as usual.
+     * The artifact code must not be taken from the URI of the nanopub itself, as that would skip the check for
+     * nanopubs that are not trusty.
+     *
+     * @param computedArtifactCode the artifact code computed from the statements
+     * @return Nanopub object
+     * @throws org.nanopub.MalformedNanopubException if the RDF document is not complete or malformed
+     */
+    public Nanopub getNanopub(String computedArtifactCode) throws MalformedNanopubException {
+        NanopubImpl nanopub = (NanopubImpl) getNanopub();
+        if (computedArtifactCode != null && computedArtifactCode.equals(TrustyUriUtils.getArtifactCode(nanopub.getUri().stringValue()))) {
+            nanopub.markAsValidAndTrusty();
+        }
+        return nanopub;
     }
 
 }
@@ -201,13 +201,25 @@ public class NanopubUtils {
     }
 
     /**
-     * Creates an RDFParser for the specified RDF format.
+     * Creates an RDFParser for the specified RDF format. The parser creates its values with
+     * {@link NanopubValueFactory#getInstance()}, so IRIs that occur in many nanopubs are shared between them.
      *
      * @param format the RDF format to create a parser for
      * @return an RDFParser configured for the specified format
      */
     public static RDFParser getParser(RDFFormat format) {
-        RDFParser p = Rio.createParser(format);
+        return getParser(format, NanopubValueFactory.getInstance());
+    }
+
+    /**
+     * Creates an RDFParser for the specified RDF format that creates its values with the given value factory.
+     *
+     * @param format       the RDF format to create a parser for
+     * @param valueFactory the value factory for the parsed values
+     * @return an RDFParser configured for the specified format
+     */
+    public static RDFParser getParser(RDFFormat format, ValueFactory valueFactory) {
+        RDFParser p = Rio.createParser(format, valueFactory);
         p.getParserConfig().set(BasicParserSettings.NAMESPACES, new HashSet<>());
         return p;
     }
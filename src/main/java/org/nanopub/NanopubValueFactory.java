@@ -0,0 +1,157 @@
+package org.nanopub;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.DC;
+import org.eclipse.rdf4j.model.vocabulary.DCTERMS;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.PROV;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.model.vocabulary.SKOS;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.nanopub.vocabulary.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A value factory that returns shared instances for IRIs that occur in many nanopubs, instead of creating a new IRI
+ * and string for each occurrence. When hundreds of thousands of nanopubs are kept in memory, these duplicates would
+ * otherwise take up a large part of the heap.
+ * <p>
+ * The IRIs of the vocabularies in {@link org.nanopub.vocabulary} and of common RDF vocabularies like RDF, RDFS, XSD,
+ * DCTERMS and PROV are always shared. Other IRIs in the namespaces of these vocabularies and ORCID identifiers are
+ * shared through a size-bounded cache. All other IRIs, as well as literals and blank nodes, are created like with
+ * {@link SimpleValueFactory}. This class is thread-safe.
+ */
+public class NanopubValueFactory extends SimpleValueFactory {
+
+    /**
+     * Default maximum number of cached IRIs, in addition to the vocabulary IRIs.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 100000;
+
+    private static final List<Class<?>> vocabularies = List.of(
+            NP.class, NPX.class, NPA.class, NPS.class, PAV.class, RDFG.class, NTEMPLATE.class, KPXL.class,
+            KPXL_GRLC.class, FIP.class, FDOF.class, FDOC.class, HDL.class, SCHEMA.class,
+            RDF.class, RDFS.class, XSD.class, OWL.class, DCTERMS.class, DC.class, FOAF.class, PROV.class, SKOS.class);
+
+    private static final List<String> otherNamespaces = List.of("https://orcid.org/", "http://orcid.org/");
+
+    private static final Map<String, IRI> vocabularyIris = new HashMap<>();
+    private static final Set<String> vocabularyNamespaces = new HashSet<>(otherNamespaces);
+
+    static {
+        for (Class<?> vocabulary : vocabularies) {
+            for (Field field : vocabulary.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) continue;
+                try {
+                    if (field.getType() == IRI.class) {
+                        IRI iri = (IRI) field.get(null);
+                        vocabularyIris.putIfAbsent(iri.stringValue(), iri);
+                    } else if (field.getName().equals("NAMESPACE") && field.getType() == String.class) {
+                        vocabularyNamespaces.add((String) field.get(null));
+                    }
+                } catch (IllegalAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+    }
+
+    private static final NanopubValueFactory defaultInstance = new NanopubValueFactory(DEFAULT_CACHE_SIZE);
+
+    private final ConcurrentMap<String, IRI> cache;
+
+    /**
+     * Creates a value factory.
+     *
+     * @param cacheSize the maximum number of cached IRIs, in addition to the vocabulary IRIs
+     */
+    public NanopubValueFactory(long cacheSize) {
+        Cache<String, IRI> c = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+        this.cache = c.asMap();
+    }
+
+    /**
+     * Returns the value factory that is used by {@link NanopubUtils#getParser(org.eclipse.rdf4j.rio.RDFFormat)}.
+     *
+     * @return the shared value factory
+     */
+    public static NanopubValueFactory getInstance() {
+        return defaultInstance;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IRI createIRI(String iri) {
+        IRI shared = vocabularyIris.get(iri);
+        if (shared != null) return shared;
+        if (!isCacheable(iri)) return super.createIRI(iri);
+        shared = cache.get(iri);
+        if (shared != null) return shared;
+        return share(iri, super.createIRI(iri));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IRI createIRI(String namespace, String localName) {
+        return createIRI(namespace + localName);
+    }
+
+    /**
+     * Returns the shared instance of the given IRI if there is one, which is useful for IRIs that were created by
+     * another value factory, e.g. by a decoder that does not accept a value factory.
+     *
+     * @param iri the IRI
+     * @return the shared instance, or the given IRI if it is not shared
+     */
+    public IRI intern(IRI iri) {
+        String s = iri.stringValue();
+        IRI shared = vocabularyIris.get(s);
+        if (shared != null) return shared;
+        if (!isCacheable(s)) return iri;
+        return share(s, iri);
+    }
+
+    /**
+     * Returns the shared instance of the given value if it is an IRI, as described for {@link #intern(IRI)}.
+     *
+     * @param value the value, or null
+     * @return the shared instance, or the given value if it is not shared
+     */
+    public Value intern(Value value) {
+        return value instanceof IRI iri ? intern(iri) : value;
+    }
+
+    /**
+     * Returns the number of IRIs that are currently cached, not counting the vocabulary IRIs.
+     *
+     * @return the number of cached IRIs
+     */
+    public long getCachedIriCount() {
+        return cache.size();
+    }
+
+    private IRI share(String s, IRI iri) {
+        IRI existing = cache.putIfAbsent(s, iri);
+        return existing != null ? existing : iri;
+    }
+
+    private static boolean isCacheable(String iri) {
+        int i = Math.max(iri.lastIndexOf('/'), iri.lastIndexOf('#'));
+        return i > 0 && i < iri.length() - 1 && vocabularyNamespaces.contains(iri.substring(0, i + 1));
+    }
+
+}
@@ -0,0 +1,274 @@
+package org.nanopub;
+
+import org.eclipse.rdf4j.rio.RDFParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Splits an uncompressed N-Quads file with a sequence of nanopubs into the byte ranges of the individual nanopubs,
+ * without parsing the RDF.
+ * <p>
+ * The file is memory-mapped and scanned line by line. Only the terms of each line are delimited, to find its graph
+ * IRI, and a new nanopub starts at the first line with a graph that is not among the four graphs already seen, which
+ * is the same rule as in {@link MultiNanopubRdfHandler#handleStatement(org.eclipse.rdf4j.model.Statement)}. Graph
+ * IRIs are compared in their serialized form, so an IRI written once with and once without character escapes counts
+ * as two graphs. The ranges can then be parsed independently, e.g. on several threads.
+ * <p>
+ * {@link #nextRange()} has to be called from a single thread, whereas {@link #read(Range)} can be called
+ * concurrently.
+ */
+public class NquadsNanopubSplitter {
+
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private static final String DEFAULT_GRAPH = "";
+
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private long pos = 0;
+    private long rangeStart = -1;
+    private final Set<String> graphs = new HashSet<>();
+    private long lastGraphStart = -1;
+    private int lastGraphLength = -1;
+    private String lastGraph;
+
+    // Position right after the last term found by the tokenizer:
+    private long termEnd;
+
+    /**
+     * Maps the given file into memory.
+     *
+     * @param file the N-Quads file
+     * @throws java.io.IOException if the file cannot be read
+     */
+    public NquadsNanopubSplitter(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            size = channel.size();
+            // A single mapping is limited to 2 GB, so larger files are mapped in chunks:
+            int chunkCount = (int) ((size + CHUNK_MASK) >>> CHUNK_BITS);
+            chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long offset = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(CHUNK_MASK + 1, size - offset));
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the file in bytes.
+     *
+     * @return the file size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Finds the byte range of the next nanopub.
+     *
+     * @return the range, or null if the end of the file is reached
+     * @throws org.eclipse.rdf4j.rio.RDFParseException if a line is not a valid N-Quads statement
+     */
+    public Range nextRange() throws RDFParseException {
+        while (pos < size) {
+            long lineStart = pos;
+            long lineEnd = indexOfLineEnd(pos);
+            pos = lineEnd + 1;
+            String graph = findGraph(lineStart, lineEnd);
+            if (graph == null) continue;
+            if (rangeStart < 0) {
+                rangeStart = lineStart;
+            } else if (graphs.size() == 4 && !graphs.contains(graph)) {
+                Range range = new Range(rangeStart, lineStart);
+                rangeStart = lineStart;
+                graphs.clear();
+                graphs.add(graph);
+                return range;
+            }
+            graphs.add(graph);
+        }
+        if (rangeStart >= 0) {
+            Range range = new Range(rangeStart, size);
+            rangeStart = -1;
+            return range;
+        }
+        return null;
+    }
+
+    /**
+     * Copies the bytes of a range.
+     *
+     * @param range the range
+     * @return the bytes
+     */
+    public byte[] read(Range range) {
+        long length = range.getEnd() - range.getStart();
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Range too large: " + length + " bytes");
+        }
+        byte[] bytes = new byte[(int) length];
+        long p = range.getStart();
+        int offset = 0;
+        while (offset < bytes.length) {
+            MappedByteBuffer chunk = chunks[(int) (p >>> CHUNK_BITS)];
+            int index = (int) (p & CHUNK_MASK);
+            int n = Math.min(bytes.length - offset, chunk.limit() - index);
+            chunk.get(index, bytes, offset, n);
+            offset += n;
+            p += n;
+        }
+        return bytes;
+    }
+
+    private byte get(long p) {
+        return chunks[(int) (p >>> CHUNK_BITS)].get((int) (p & CHUNK_MASK));
+    }
+
+    private long indexOfLineEnd(long p) {
+        while (p < size && get(p) != '\n') p++;
+        return p;
+    }
+
+    /**
+     * Returns the graph of the statement in the given line, the empty string for the default graph, or null if the
+     * line has no statement. Consecutive statements mostly share their graph, which is then not copied again.
+     */
+    private String findGraph(long start, long end) {
+        long p = skipWhitespace(start, end);
+        if (p == end || get(p) == '#') return null;
+        p = skipWhitespace(skipTerm(p, end, start), end); // subject
+        p = skipWhitespace(skipTerm(p, end, start), end); // predicate
+        p = skipWhitespace(skipTerm(p, end, start), end); // object
+        if (p == end) throw parseError(start);
+        if (get(p) == '.') return DEFAULT_GRAPH;
+        long graphStart = p;
+        skipTerm(p, end, start);
+        int graphLength = (int) (termEnd - graphStart);
+        if (sameBytes(graphStart, lastGraphStart, graphLength, lastGraphLength)) {
+            return lastGraph;
+        }
+        lastGraphStart = graphStart;
+        lastGraphLength = graphLength;
+        lastGraph = toString(graphStart, graphLength);
+        return lastGraph;
+    }
+
+    private boolean sameBytes(long a, long b, int lengthA, int lengthB) {
+        if (lengthA != lengthB || b < 0) return false;
+        for (int i = 0; i < lengthA; i++) {
+            if (get(a + i) != get(b + i)) return false;
+        }
+        return true;
+    }
+
+    private String toString(long start, int length) {
+        return new String(read(new Range(start, start + length)), StandardCharsets.ISO_8859_1);
+    }
+
+    private long skipWhitespace(long p, long end) {
+        while (p < end) {
+            byte b = get(p);
+            if (b != ' ' && b != '\t' && b != '\r') break;
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Skips an IRI, blank node or literal, sets {@link #termEnd} and returns the position after it.
+     */
+    private long skipTerm(long p, long end, long lineStart) {
+        if (p >= end) throw parseError(lineStart);
+        byte b = get(p);
+        if (b == '<') {
+            p++;
+            while (p < end && get(p) != '>') p++;
+            if (p == end) throw parseError(lineStart);
+            p++;
+        } else if (b == '_') {
+            long labelStart = p;
+            while (p < end) {
+                byte c = get(p);
+                if (c == ' ' || c == '\t' || c == '\r' || c == '<' || c == '"') break;
+                p++;
+            }
+            // blank node labels cannot end with a dot, so a trailing dot is the end of the statement:
+            while (p > labelStart + 2 && get(p - 1) == '.') p--;
+        } else if (b == '"') {
+            p++;
+            while (p < end && get(p) != '"') {
+                if (get(p) == '\\') p++;
+                p++;
+            }
+            if (p >= end) throw parseError(lineStart);
+            p++;
+            if (p < end && get(p) == '@') {
+                p++;
+                while (p < end) {
+                    byte c = get(p);
+                    if (!(c == '-' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) break;
+                    p++;
+                }
+            } else if (p + 1 < end && get(p) == '^' && get(p + 1) == '^') {
+                p = skipTerm(p + 2, end, lineStart);
+            }
+        } else {
+            throw parseError(lineStart);
+        }
+        termEnd = p;
+        return p;
+    }
+
+    private RDFParseException parseError(long lineStart) {
+        return new RDFParseException("Not a valid N-Quads statement in the line starting at byte " + lineStart);
+    }
+
+    /**
+     * Byte range of a nanopub in the file, from the start (inclusive) to the end (exclusive).
+     */
+    public static class Range {
+
+        private final long start;
+        private final long end;
+
+        /**
+         * Creates a new range.
+         *
+         * @param start the position of the first byte
+         * @param end   the position after the last byte
+         */
+        public Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the position of the first byte.
+         *
+         * @return the start position
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the position after the last byte.
+         *
+         * @return the end position
+         */
+        public long getEnd() {
+            return end;
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package org.nanopub;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks on a fixed pool of worker threads and passes their results to a result handler, either in the order
+ * in which the tasks were submitted or in the order in which they complete.
+ * <p>
+ * At most a given number of tasks can be pending (running, queued or waiting for their turn to be handled), so
+ * {@link #submit(Callable)} blocks a fast producer instead of buffering an unbounded amount of work. The first
+ * exception thrown by a task or by the result handler stops the processing: tasks that have not started yet are
+ * skipped, no further results are handled, and the exception is reported by {@link #submit(Callable)} and
+ * {@link #finish()}.
+ *
+ * @param <T> the type of the task results
+ */
+public class ParallelTaskRunner<T> implements AutoCloseable {
+
+    private static final Object NO_RESULT = new Object();
+
+    private final ExecutorService executor;
+    private final Semaphore pendingPermits;
+    private final boolean ordered;
+    private final ResultHandler<T> resultHandler;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private final Object deliveryLock = new Object();
+    private final Map<Long, Object> completed = new HashMap<>();
+    private long nextToDeliver = 0;
+    private long submitted = 0;
+
+    /**
+     * Creates a new task runner.
+     *
+     * @param threads       the number of worker threads
+     * @param maxPending    the maximum number of tasks that can be pending at the same time
+     * @param ordered       whether the results are handled in submission order (otherwise in completion order)
+     * @param resultHandler the handler for the task results; in ordered mode it is never called concurrently,
+     *                      otherwise it has to be thread-safe
+     */
+    public ParallelTaskRunner(int threads, int maxPending, boolean ordered, ResultHandler<T> resultHandler) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + threads);
+        }
+        if (maxPending < threads) {
+            throw new IllegalArgumentException("Maximum of pending tasks cannot be lower than the number of threads: " + maxPending);
+        }
+        this.executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("nanopub-worker-%d").build());
+        this.pendingPermits = new Semaphore(maxPending);
+        this.ordered = ordered;
+        this.resultHandler = resultHandler;
+    }
+
+    /**
+     * Submits a task, waiting if the maximum number of pending tasks is reached. A task returning null produces no
+     * result to be handled. Tasks are expected to be submitted from a single thread.
+     *
+     * @param task the task
+     * @throws java.lang.InterruptedException         if interrupted while waiting
+     * @throws java.util.concurrent.ExecutionException if an earlier task or result handler has failed; the cause is
+     *                                                the first exception that occurred
+     */
+    public void submit(Callable<T> task) throws InterruptedException, ExecutionException {
+        checkError();
+        pendingPermits.acquire();
+        checkError();
+        long sequenceNumber = submitted++;
+        try {
+            executor.execute(() -> run(sequenceNumber, task));
+        } catch (RejectedExecutionException ex) {
+            pendingPermits.release();
+            throw new IllegalStateException("Task runner is already finished", ex);
+        }
+    }
+
+    /**
+     * Waits until all submitted tasks are done and their results are handled, and shuts down the worker threads.
+     *
+     * @throws java.lang.InterruptedException         if interrupted while waiting
+     * @throws java.util.concurrent.ExecutionException if a task or the result handler has failed; the cause is the
+     *                                                first exception that occurred
+     */
+    public void finish() throws InterruptedException, ExecutionException {
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // keep waiting; tasks are bounded by the input
+        }
+        checkError();
+    }
+
+    /**
+     * Returns the first exception thrown by a task or the result handler.
+     *
+     * @return the exception, or null if none occurred so far
+     */
+    public Throwable getError() {
+        return error.get();
+    }
+
+    /**
+     * Stops the worker threads without waiting for pending tasks. This has no effect after {@link #finish()}.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void checkError() throws ExecutionException {
+        Throwable t = error.get();
+        if (t != null) {
+            throw new ExecutionException(t);
+        }
+    }
+
+    private void run(long sequenceNumber, Callable<T> task) {
+        Object outcome = NO_RESULT;
+        if (error.get() == null) {
+            try {
+                T result = task.call();
+                if (result != null) outcome = result;
+            } catch (Throwable t) {
+                error.compareAndSet(null, t);
+            }
+        }
+        if (ordered) {
+            synchronized (deliveryLock) {
+                completed.put(sequenceNumber, outcome);
+                // Whichever worker completes the next task in line hands over all results that are ready by now:
+                while (completed.containsKey(nextToDeliver)) {
+                    deliver(completed.remove(nextToDeliver));
+                    nextToDeliver++;
+                    pendingPermits.release();
+                }
+            }
+        } else {
+            deliver(outcome);
+            pendingPermits.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Object outcome) {
+        if (outcome == NO_RESULT || error.get() != null) return;
+        try {
+            resultHandler.handle((T) outcome);
+        } catch (Throwable t) {
+            error.compareAndSet(null, t);
+        }
+    }
+
+    /**
+     * Handler for the results of the tasks.
+     *
+     * @param <T> the type of the task results
+     */
+    public interface ResultHandler<T> {
+
+        /**
+         * Handles the result of a task.
+         *
+         * @param result the result
+         * @throws java.lang.Exception if the result cannot be handled, which stops the processing
+         */
+        void handle(T result) throws Exception;
+
+    }
+
+}
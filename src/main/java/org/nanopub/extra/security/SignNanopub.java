@@ -10,6 +10,7 @@ import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.rio.*;
 import org.nanopub.*;
+import org.nanopub.trusty.ParallelNanopubTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +57,9 @@ public class SignNanopub extends CliRunner {
     @com.beust.jcommander.Parameter(names = "-s", description = "The IRI of the signer, typically an ORCID IRI. It can also be a sub-IRI of the nanopub being signed, given under its temporary URI (e.g. http://purl.org/nanopub/temp/np001/my-bot), which lets an agent self-sign its own introduction")
     private String signer;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for signing nanopubs (default: one after the other)")
+    private int threads = 1;
+
     @com.beust.jcommander.Parameter(names = "--profile", description = "Profile file for signer iri and key files, " + "defaults to ~/.nanopub/profile.yaml")
     private File profileFile;
 
@@ -154,18 +158,31 @@ public class SignNanopub extends CliRunner {
             final RDFFormat inFormat = new TrustyUriResource(inputFile).getFormat(RDFFormat.TRIG);
             final RDFFormat outFormat = new TrustyUriResource(outputFile).getFormat(RDFFormat.TRIG);
             try (out) {
-                MultiNanopubRdfHandler.process(inFormat, inputFile, np -> {
-                    try {
-                        np = writeAsSignedTrustyNanopub(np, outFormat, c, out);
-                        if (verbose) {
-                            System.out.println("Nanopub URI: " + np.getUri());
-                        }
-                    } catch (RDFHandlerException | SignatureException | InvalidKeyException |
-                             TrustyUriException ex) {
-                        ex.printStackTrace();
-                        throw new RuntimeException(ex);
+                if (threads > 1) {
+                    try (ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(threads, c.getTempRefMap() != null,
+                            np -> signAndTransform(np, c),
+                            np -> {
+                                write(np, outFormat, out);
+                                if (verbose) {
+                                    System.out.println("Nanopub URI: " + np.getUri());
+                                }
+                            })) {
+                        transformer.process(inFormat, inputFile);
                     }
-                });
+                } else {
+                    MultiNanopubRdfHandler.process(inFormat, inputFile, np -> {
+                        try {
+                            np = writeAsSignedTrustyNanopub(np, outFormat, c, out);
+                            if (verbose) {
+                                System.out.println("Nanopub URI: " + np.getUri());
+                            }
+                        } catch (RDFHandlerException | SignatureException | InvalidKeyException |
+                                 TrustyUriException ex) {
+                            ex.printStackTrace();
+                            throw new RuntimeException(ex);
+                        }
+                    });
+                }
             }
         }
     }
@@ -246,6 +263,33 @@ public class SignNanopub extends CliRunner {
         }
     }
 
+    /**
+     * Signs and transforms multiple nanopubs from an input stream on several threads, writing them to the output
+     * stream in input order. When the context resolves cross-nanopub references, only nanopubs that refer to earlier
+     * ones wait for them to be signed, as described for {@link ParallelNanopubTransformer}.
+     *
+     * @param format  the RDF format of the nanopubs
+     * @param in      the input stream containing nanopubs
+     * @param c       the transform context containing signing information
+     * @param out     the output stream to write signed nanopubs
+     * @param threads the number of threads; with less than two, the nanopubs are signed one after the other
+     * @throws java.io.IOException                       if an I/O error occurs
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   if there is an error parsing RDF
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException if there is an error handling RDF
+     * @throws org.nanopub.MalformedNanopubException     if a nanopub is malformed
+     */
+    public static void signAndTransformMultiNanopub(final RDFFormat format, InputStream in, final TransformContext c, final OutputStream out, int threads) throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        if (threads < 2) {
+            signAndTransformMultiNanopub(format, in, c, out);
+            return;
+        }
+        try (in; out; ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(threads, c.getTempRefMap() != null,
+                np -> signAndTransform(np, c),
+                np -> write(np, format, out))) {
+            transformer.process(format, in);
+        }
+    }
+
     /**
      * Writes a signed nanopub to an output stream in the specified RDF format.
      *
@@ -261,9 +305,13 @@ public class SignNanopub extends CliRunner {
      */
     public static Nanopub writeAsSignedTrustyNanopub(Nanopub np, RDFFormat format, TransformContext c, OutputStream out) throws RDFHandlerException, TrustyUriException, InvalidKeyException, SignatureException {
         np = signAndTransform(np, c);
+        write(np, format, out);
+        return np;
+    }
+
+    private static void write(Nanopub np, RDFFormat format, OutputStream out) throws RDFHandlerException {
         RDFWriter w = Rio.createWriter(format, new OutputStreamWriter(out, StandardCharsets.UTF_8));
         NanopubUtils.propagateToHandler(np, w);
-        return np;
     }
 
     /**
@@ -5,7 +5,6 @@ import net.trustyuri.ArtifactCode;
 import net.trustyuri.TrustyUriException;
 import net.trustyuri.TrustyUriUtils;
 import net.trustyuri.rdf.RdfFileContent;
-import net.trustyuri.rdf.RdfHasher;
 import net.trustyuri.rdf.RdfPreprocessor;
 import net.trustyuri.rdf.TransformRdf;
 import org.eclipse.rdf4j.model.*;
@@ -13,6 +12,8 @@ import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.nanopub.*;
+import org.nanopub.trusty.CanonicalNanopub;
+import org.nanopub.trusty.StreamingRdfHasher;
 import org.nanopub.trusty.TempUriReplacer;
 import org.nanopub.trusty.TrustyNanopubUtils;
 import org.nanopub.vocabulary.NPX;
@@ -20,11 +21,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.GeneralSecurityException;
-import java.security.KeyFactory;
 import java.security.PublicKey;
 import java.security.Signature;
-import java.security.spec.KeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -105,29 +103,29 @@ public class SignatureUtils {
     }
 
     /**
-     * Checks if the given signature element has a valid signature.
+     * Checks if the given signature element has a valid signature, using the cached public keys of
+     * {@link SignatureVerifier#getDefault()}.
      *
      * @param se the signature element to check
      * @return true if the signature is valid, false otherwise
      * @throws java.security.GeneralSecurityException if there is an error in the cryptographic operations
      */
     public static boolean hasValidSignature(NanopubSignatureElement se) throws GeneralSecurityException {
-        String artifactCode = TrustyUriUtils.getArtifactCode(se.getTargetNanopubUri().toString());
-        List<Statement> statements = RdfPreprocessor.run(se.getTargetStatements(), artifactCode);
-        Signature signature = Signature.getInstance("SHA256with" + se.getAlgorithm().name());
-        KeySpec publicSpec = new X509EncodedKeySpec(DatatypeConverter.parseBase64Binary(se.getPublicKeyString()));
-        PublicKey publicKey = KeyFactory.getInstance(se.getAlgorithm().name()).generatePublic(publicSpec);
-        signature.initVerify(publicKey);
-
-        String digestString = RdfHasher.getDigestString(statements);
-        if (logger.isTraceEnabled()) {
-            logger.trace("Signature input for {}:\n{}", se.getTargetNanopubUri(), digestString);
-        }
+        return SignatureVerifier.getDefault().verify(se);
+    }
 
-        signature.update(digestString.getBytes());
-        boolean valid = signature.verify(se.getSignature());
-        logger.debug("Signature of nanopub {} is {}", se.getTargetNanopubUri(), valid ? "valid" : "INVALID");
-        return valid;
+    /**
+     * Checks if the given signature element has a valid signature, deriving the signature input from the canonical
+     * form of the signed nanopub, which is shared with the trusty check. See
+     * {@link SignatureVerifier#verify(NanopubSignatureElement, CanonicalNanopub)}.
+     *
+     * @param se        the signature element of the nanopub
+     * @param canonical the canonical form of the nanopub
+     * @return true if the signature is valid, false otherwise
+     * @throws java.security.GeneralSecurityException if there is an error in the cryptographic operations
+     */
+    public static boolean hasValidSignature(NanopubSignatureElement se, CanonicalNanopub canonical) throws GeneralSecurityException {
+        return SignatureVerifier.getDefault().verify(se, canonical);
     }
 
     /**
@@ -179,7 +177,6 @@ public class SignatureUtils {
         }
         r = c.resolveCrossRefs(r);
         preNanopub = new NanopubImpl(r.getStatements(), r.getNamespaces());
-        c.mergeTransformMap(tempUriReplacerMap);
 
         Signature signature = Signature.getInstance("SHA256with" + c.getSignatureAlgorithm().name());
         signature.initSign(c.getKey().getPrivate());
@@ -232,7 +229,7 @@ public class SignatureUtils {
         }
 
         // Create signature:
-        signature.update(RdfHasher.getDigestString(preprocessedContent.getStatements()).getBytes());
+        StreamingRdfHasher.update(preprocessedContent.getStatements(), signature);
         byte[] signatureBytes = signature.sign();
         Literal signatureLiteral = vf.createLiteral(DatatypeConverter.printBase64Binary(signatureBytes));
 
@@ -255,11 +252,11 @@ public class SignatureUtils {
         signedContent.endRDF();
 
         // Create nanopub object:
-        NanopubRdfHandler nanopubHandler = new NanopubRdfHandler();
+        NanopubRdfHandler nanopubHandler = new NanopubRdfHandler(NanopubImpl.TrustyCheck.LAZY);
         IRI trustyUri = TransformRdf.transformPreprocessed(signedContent, npUri, nanopubHandler, TrustyNanopubUtils.transformRdfSetting);
         Map<Resource, IRI> transformMap = TransformRdf.finalizeTransformMap(rp.getTransformMap(), ArtifactCode.of(TrustyUriUtils.getArtifactCode(trustyUri.toString())));
-        c.mergeTransformMap(transformMap);
-        return nanopubHandler.getNanopub();
+        c.mergeTransformMap(tempUriReplacerMap, transformMap);
+        return nanopubHandler.getNanopub(TrustyUriUtils.getArtifactCode(trustyUri.toString()));
     }
 
     /**
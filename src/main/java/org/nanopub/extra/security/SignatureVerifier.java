@@ -0,0 +1,228 @@
+package org.nanopub.extra.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.xml.bind.DatatypeConverter;
+import net.trustyuri.TrustyUriUtils;
+import net.trustyuri.rdf.RdfHasher;
+import net.trustyuri.rdf.RdfPreprocessor;
+import org.eclipse.rdf4j.model.Statement;
+import org.nanopub.ParallelTaskRunner;
+import org.nanopub.trusty.CanonicalNanopub;
+import org.nanopub.trusty.StreamingRdfHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies the signatures of nanopubs. This class is thread-safe.
+ * <p>
+ * Decoding a public key is expensive compared to the verification itself, and the nanopubs of a registry are signed
+ * by relatively few keys. The decoded keys are therefore kept in a size-bounded cache with least-recently-used
+ * eviction, and each thread reuses its own {@link Signature} object per algorithm instead of looking one up for each
+ * nanopub.
+ */
+public class SignatureVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignatureVerifier.class);
+
+    /**
+     * Default maximum number of decoded public keys kept in memory.
+     */
+    public static final int DEFAULT_KEY_CACHE_SIZE = 10000;
+
+    private static final SignatureVerifier defaultVerifier = new SignatureVerifier();
+
+    private static final ThreadLocal<Map<SignatureAlgorithm, Signature>> signatures =
+            ThreadLocal.withInitial(() -> new EnumMap<>(SignatureAlgorithm.class));
+
+    // Keyed by algorithm and base64-encoded key:
+    private final Cache<String, PublicKey> keyCache;
+
+    private final LongAdder keyCacheHits = new LongAdder();
+    private final LongAdder keyCacheMisses = new LongAdder();
+
+    /**
+     * Creates a verifier with the default key cache size.
+     */
+    public SignatureVerifier() {
+        this(DEFAULT_KEY_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a verifier.
+     *
+     * @param keyCacheSize the maximum number of decoded public keys kept in memory
+     */
+    public SignatureVerifier(long keyCacheSize) {
+        this.keyCache = CacheBuilder.newBuilder().maximumSize(keyCacheSize).build();
+    }
+
+    /**
+     * Returns the verifier that is shared by {@link SignatureUtils#hasValidSignature(NanopubSignatureElement)}.
+     *
+     * @return the default verifier
+     */
+    public static SignatureVerifier getDefault() {
+        return defaultVerifier;
+    }
+
+    /**
+     * Checks if the given signature element has a valid signature.
+     *
+     * @param se the signature element to check
+     * @return true if the signature is valid, false otherwise
+     * @throws java.security.GeneralSecurityException if there is an error in the cryptographic operations, e.g. if
+     *                                                the public key cannot be decoded
+     */
+    public boolean verify(NanopubSignatureElement se) throws GeneralSecurityException {
+        String artifactCode = TrustyUriUtils.getArtifactCode(se.getTargetNanopubUri().toString());
+        List<Statement> statements = RdfPreprocessor.run(se.getTargetStatements(), artifactCode);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Signature input for {}:\n{}", se.getTargetNanopubUri(), RdfHasher.getDigestString(statements));
+        }
+
+        Signature signature = getSignature(se.getAlgorithm());
+        signature.initVerify(getPublicKey(se.getAlgorithm(), se.getPublicKeyString()));
+        StreamingRdfHasher.update(statements, signature);
+        boolean valid = signature.verify(se.getSignature());
+        logger.debug("Signature of nanopub {} is {}", se.getTargetNanopubUri(), valid ? "valid" : "INVALID");
+        return valid;
+    }
+
+    /**
+     * Checks if the given signature element has a valid signature, deriving the signature input from the canonical
+     * form of the signed nanopub. If the canonical form has already been used for the trusty check, this skips the
+     * second preprocessing and sorting of the statements. The signature element has to be the one returned by
+     * {@link SignatureUtils#getSignatureElement(org.nanopub.Nanopub)} for the same nanopub; otherwise, or if the
+     * signature input cannot be derived from the canonical form, the signature element is checked on its own.
+     *
+     * @param se        the signature element to check
+     * @param canonical the canonical form of the nanopub with the signature element
+     * @return true if the signature is valid, false otherwise
+     * @throws java.security.GeneralSecurityException if there is an error in the cryptographic operations, e.g. if
+     *                                                the public key cannot be decoded
+     */
+    public boolean verify(NanopubSignatureElement se, CanonicalNanopub canonical) throws GeneralSecurityException {
+        List<Statement> statements = null;
+        if (se.getTargetNanopubUri().equals(canonical.getNanopub().getUri())) {
+            statements = canonical.getSignatureStatements(se.getUri());
+        }
+        if (statements == null || statements.size() != se.getTargetStatements().size()) {
+            return verify(se);
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Signature input for {}:\n{}", se.getTargetNanopubUri(), RdfHasher.getDigestString(statements));
+        }
+
+        Signature signature = getSignature(se.getAlgorithm());
+        signature.initVerify(getPublicKey(se.getAlgorithm(), se.getPublicKeyString()));
+        StreamingRdfHasher.updateSorted(statements, signature);
+        boolean valid = signature.verify(se.getSignature());
+        logger.debug("Signature of nanopub {} is {}", se.getTargetNanopubUri(), valid ? "valid" : "INVALID");
+        return valid;
+    }
+
+    /**
+     * Checks the given signature elements on several threads.
+     *
+     * @param elements the signature elements to check
+     * @param threads  the number of threads
+     * @return whether the signatures are valid, in the order of the given elements
+     * @throws java.security.GeneralSecurityException if there is an error in the cryptographic operations for any
+     *                                                of the elements
+     * @throws java.lang.IllegalArgumentException     if the number of threads is less than one
+     */
+    public List<Boolean> verifyAll(List<NanopubSignatureElement> elements, int threads) throws GeneralSecurityException {
+        List<Boolean> results = new ArrayList<>(elements.size());
+        if (threads == 1) {
+            for (NanopubSignatureElement se : elements) {
+                results.add(verify(se));
+            }
+            return results;
+        }
+        try (ParallelTaskRunner<Boolean> runner = new ParallelTaskRunner<>(threads, threads * 4, true, results::add)) {
+            for (NanopubSignatureElement se : elements) {
+                runner.submit(() -> verify(se));
+            }
+            runner.finish();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof GeneralSecurityException gse) throw gse;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while verifying signatures", ex);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the decoded public key for the given base64-encoded X.509 key, from the cache if possible.
+     *
+     * @param algorithm       the signature algorithm of the key
+     * @param publicKeyString the base64-encoded key
+     * @return the public key
+     * @throws java.security.GeneralSecurityException if the key cannot be decoded
+     */
+    public PublicKey getPublicKey(SignatureAlgorithm algorithm, String publicKeyString) throws GeneralSecurityException {
+        String id = algorithm.name() + " " + publicKeyString;
+        PublicKey publicKey = keyCache.getIfPresent(id);
+        if (publicKey != null) {
+            keyCacheHits.increment();
+            return publicKey;
+        }
+        keyCacheMisses.increment();
+        // Concurrent misses for the same key may both decode it, which is harmless
+        X509EncodedKeySpec publicSpec = new X509EncodedKeySpec(DatatypeConverter.parseBase64Binary(publicKeyString));
+        publicKey = KeyFactory.getInstance(algorithm.name()).generatePublic(publicSpec);
+        keyCache.put(id, publicKey);
+        return publicKey;
+    }
+
+    /**
+     * Returns the number of public keys that were taken from the cache.
+     *
+     * @return the key cache hit count
+     */
+    public long getKeyCacheHitCount() {
+        return keyCacheHits.sum();
+    }
+
+    /**
+     * Returns the number of public keys that had to be decoded.
+     *
+     * @return the key cache miss count
+     */
+    public long getKeyCacheMissCount() {
+        return keyCacheMisses.sum();
+    }
+
+    /**
+     * Removes all public keys from the cache.
+     */
+    public void invalidateKeyCache() {
+        keyCache.invalidateAll();
+    }
+
+    private static Signature getSignature(SignatureAlgorithm algorithm) throws GeneralSecurityException {
+        Map<SignatureAlgorithm, Signature> threadSignatures = signatures.get();
+        Signature signature = threadSignatures.get(algorithm);
+        if (signature == null) {
+            signature = Signature.getInstance("SHA256with" + algorithm.name());
+            threadSignatures.put(algorithm, signature);
+        }
+        return signature;
+    }
+
+}
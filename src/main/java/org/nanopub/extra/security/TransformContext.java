@@ -14,6 +14,7 @@ import java.security.KeyPair;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.nanopub.extra.security.SignatureAlgorithm.RSA;
 
@@ -72,11 +73,12 @@ public class TransformContext {
         this.key = key;
         this.signer = signer;
         this.ignoreSigned = ignoreSigned;
+        // Concurrent maps, as independent nanopubs can be signed in parallel with the same context:
         if (resolveCrossRefsPrefixBased) {
-            tempPrefixMap = new HashMap<>();
-            tempRefMap = new HashMap<>();
+            tempPrefixMap = new ConcurrentHashMap<>();
+            tempRefMap = new ConcurrentHashMap<>();
         } else if (resolveCrossRefs) {
-            tempRefMap = new HashMap<>();
+            tempRefMap = new ConcurrentHashMap<>();
         }
     }
 
@@ -175,4 +177,42 @@ public class TransformContext {
         }
     }
 
+    /**
+     * Merges the transformations of a nanopub into the temporary reference map and prefix map, where the temporary
+     * URIs of the nanopub were first replaced by the placeholder URIs. As all nanopubs share the same placeholder
+     * URIs, the temporary URIs are mapped to their trusty URIs before they are added, so that nanopubs transformed at
+     * the same time cannot pick up each other's mappings.
+     *
+     * @param tempUriReplacerMap the map from the temporary URIs to the placeholder URIs, or null if the nanopub had
+     *                           no temporary URI
+     * @param map                the map from the placeholder URIs to the trusty URIs
+     */
+    public void mergeTransformMap(Map<Resource, IRI> tempUriReplacerMap, Map<Resource, IRI> map) {
+        if (map == null) return;
+        if (tempUriReplacerMap == null) {
+            mergeTransformMap(map);
+            return;
+        }
+        Map<Resource, IRI> finalMap = new HashMap<>();
+        Map<Resource, IRI> remainingMap = new HashMap<>(map);
+        for (Resource r : tempUriReplacerMap.keySet()) {
+            IRI placeholder = tempUriReplacerMap.get(r);
+            if (map.containsKey(placeholder)) {
+                finalMap.put(r, map.get(placeholder));
+                remainingMap.remove(placeholder);
+            }
+        }
+        finalMap.putAll(remainingMap);
+        if (tempRefMap != null) {
+            tempRefMap.putAll(finalMap);
+        }
+        if (tempPrefixMap != null) {
+            for (Resource r : remainingMap.keySet()) {
+                if (r instanceof IRI && TrustyUriUtils.isPotentialTrustyUri(remainingMap.get(r).stringValue())) {
+                    tempPrefixMap.put(r.stringValue(), remainingMap.get(r).stringValue());
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,127 @@
+package org.nanopub.extra.server;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An output file for {@link FetchIndex} with a checkpoint file, which can be cut back to the state of the last
+ * checkpoint when the fetch is resumed. A compressed file is written as a sequence of gzip members, and each
+ * checkpoint ends a member, so the file is valid up to each checkpoint. {@link java.util.zip.GZIPInputStream} reads
+ * such a file like one that consists of a single member.
+ */
+public class CheckpointOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+    private final OutputStream fileOut;
+    private final boolean compressed;
+    private GZIPOutputStream gzipOut;
+
+    /**
+     * Opens the given output file.
+     *
+     * @param file       the output file
+     * @param compressed true to write gzip members
+     * @param append     true to keep the content of an existing file, e.g. to resume a fetch
+     * @throws java.io.IOException if the file cannot be opened
+     */
+    public CheckpointOutputStream(File file, boolean compressed, boolean append) throws IOException {
+        if (append) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } else {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        this.fileOut = new BufferedOutputStream(Channels.newOutputStream(channel));
+        this.compressed = compressed;
+    }
+
+    private OutputStream getCurrentOutputStream() throws IOException {
+        if (!compressed) {
+            return fileOut;
+        }
+        if (gzipOut == null) {
+            // A member is only started when there is something to write. It is finished but never closed, as closing
+            // would close the file:
+            gzipOut = new GZIPOutputStream(fileOut);
+        }
+        return gzipOut;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int b) throws IOException {
+        getCurrentOutputStream().write(b);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        getCurrentOutputStream().write(b, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        if (gzipOut != null) {
+            gzipOut.flush();
+        }
+        fileOut.flush();
+    }
+
+    /**
+     * Finishes the current gzip member, if any, and writes everything to the disk.
+     *
+     * @return the length of the file, to which it can be cut back with {@link #truncate(long)}
+     * @throws java.io.IOException if the data cannot be written
+     */
+    public long checkpoint() throws IOException {
+        if (gzipOut != null) {
+            gzipOut.finish();
+            gzipOut = null;
+        }
+        fileOut.flush();
+        channel.force(false);
+        return channel.position();
+    }
+
+    /**
+     * Cuts the file back to the given length, which was returned by {@link #checkpoint()}, and continues writing
+     * from there. This drops what was written after that checkpoint, including an incomplete gzip member.
+     *
+     * @param length the length of the file at the checkpoint
+     * @throws java.io.IOException if the file is shorter than the given length or cannot be truncated
+     */
+    public void truncate(long length) throws IOException {
+        checkpoint();
+        if (channel.size() < length) {
+            throw new IOException("Output file has " + channel.size() + " bytes, fewer than the " + length + " bytes at the checkpoint");
+        }
+        channel.truncate(length);
+        channel.position(length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (gzipOut != null) {
+            gzipOut.finish();
+            gzipOut = null;
+        }
+        fileOut.close();
+    }
+
+}
@@ -1,24 +1,49 @@
 package org.nanopub.extra.server;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import eu.neverblink.jelly.core.JellyTranscoderFactory;
+import eu.neverblink.jelly.core.ProtoTranscoder;
+import eu.neverblink.jelly.core.proto.v1.RdfStreamFrame;
 import net.trustyuri.ArtifactCode;
 import net.trustyuri.TrustyUriUtils;
 import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.rio.RDFFormat;
-import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.nanopub.MalformedNanopubException;
 import org.nanopub.Nanopub;
 import org.nanopub.NanopubUtils;
 import org.nanopub.extra.index.IndexUtils;
 import org.nanopub.extra.index.NanopubIndex;
+import org.nanopub.jelly.JellyUtils;
 import org.nanopub.extra.server.RegistryInfo.RegistryInfoException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.OutputStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Fetches index.
+ * Fetches an index with its sub-indexes, appended indexes and, optionally, its content from the registries.
+ * <p>
+ * The nanopubs are fetched on a fixed thread pool with at most {@link #maxParallelRequestsPerServer} requests per
+ * registry. Each finished request wakes up the thread that called {@link #run()}, which writes the nanopubs, expands
+ * the indexes and hands the next nanopubs to registries with free capacity; a nanopub that could not be fetched is
+ * tried at the next registry. Indexes are fetched from up to three registries at the same time, as a missing index
+ * blocks the entire process.
+ * <p>
+ * The output is in the order of the index: each index is followed by its elements, then by its sub-indexes and
+ * finally by its appended index, each with their own content. Nanopubs that arrive early wait in a reorder buffer,
+ * already serialized, until all nanopubs before them are written. When the buffer exceeds
+ * {@link #setMaxBufferedBytes(long)}, only the nanopub that blocks the output and further indexes are requested, and
+ * indexes are only expanded when they block the output, until the buffer is written.
  */
 public class FetchIndex {
 
@@ -29,17 +54,45 @@ public class FetchIndex {
      */
     public static final int maxParallelRequestsPerServer = 5;
 
+    // Indexes are only expanded while fewer content nanopubs are waiting, to bound the memory:
+    private static final int maxWaitingTasks = 3000;
+
+    private static final int parallelIndexRequests = 3;
+
+    private static final long checkpointIntervalMillis = 10000;
+
+    /**
+     * The default maximum size of the reorder buffer, in bytes.
+     */
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 256L * 1024 * 1024;
+
     private OutputStream out;
     private RDFFormat format;
     private boolean writeIndex, writeContent;
     private boolean running = false;
-    private List<FetchNanopubTask> fetchTasks;
+    private String indexUri;
     private List<RegistryInfo> registries;
     private RegistryInfo localRegistryInfo;
-    private Map<RegistryInfo, Set<FetchNanopubTask>> serverLoad;
+    private Map<RegistryInfo, Integer> serverLoad;
     private Map<RegistryInfo, Integer> serverUsage;
     private int nanopubCount;
     private Listener listener;
+    private long maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+    private boolean jellyOutput = false;
+    private File checkpointFile;
+    private List<FetchNanopubTask> resumedTasks;
+
+    // Scheduler state, guarded by this:
+    private final Deque<FetchNanopubTask> waitingTasks = new ArrayDeque<>();
+    private final List<FetchNanopubTask> unexpandedIndexes = new ArrayList<>();
+    private int waitingContentCount;
+    private int totalLoad;
+    // The tasks in output order are linked from outputHead, the first one not yet written. Those before
+    // outputCursor are ready to be written:
+    private FetchNanopubTask outputHead;
+    private FetchNanopubTask outputCursor;
+    private long bufferedBytes;
+    private final Random random = new Random();
 
     /**
      * Default constructor for FetchIndex.
@@ -58,43 +111,62 @@ public class FetchIndex {
      * @param localRegistryUrl the URL of a local registry to use, or null if not needed
      */
     public FetchIndex(String indexUri, OutputStream out, RDFFormat format, boolean writeIndex, boolean writeContent, String localRegistryUrl) {
+        this(indexUri, out, format, writeIndex, writeContent, discoverRegistries());
+        if (localRegistryUrl != null) {
+            try {
+                localRegistryInfo = RegistryInfo.load(localRegistryUrl);
+                addRegistry(localRegistryInfo);
+            } catch (RegistryInfoException ex) {
+                logger.error("Could not load the local registry {}; aborting index fetch", localRegistryUrl, ex);
+            }
+        }
+    }
+
+    /**
+     * Creates a new FetchIndex instance that uses the given registries instead of discovering them.
+     *
+     * @param indexUri     the URI of the index to fetch
+     * @param out          the output stream to write the fetched nanopubs to
+     * @param format       the RDF format to use for writing nanopubs
+     * @param writeIndex   true if the index nanopub should be written, false otherwise
+     * @param writeContent true if the content nanopubs should be written, false otherwise
+     * @param registries   the registries to fetch the nanopubs from
+     */
+    public FetchIndex(String indexUri, OutputStream out, RDFFormat format, boolean writeIndex, boolean writeContent, List<RegistryInfo> registries) {
+        this.indexUri = indexUri;
         this.out = out;
         this.format = format;
         this.writeIndex = writeIndex;
         this.writeContent = writeContent;
-        fetchTasks = new ArrayList<>();
-        fetchTasks.add(new FetchNanopubTask(indexUri, true));
-        registries = new ArrayList<>();
+        this.registries = new ArrayList<>();
         serverLoad = new HashMap<>();
         serverUsage = new HashMap<>();
-        ServerIterator serverIterator = new ServerIterator();
-        while (serverIterator.hasNext()) {
-            RegistryInfo registryInfo = serverIterator.next();
-            registries.add(registryInfo);
-            serverLoad.put(registryInfo, new HashSet<>());
-            serverUsage.put(registryInfo, 0);
+        for (RegistryInfo registryInfo : registries) {
+            addRegistry(registryInfo);
         }
+        nanopubCount = 0;
+    }
+
+    private static List<RegistryInfo> discoverRegistries() {
+        List<RegistryInfo> registries = new ArrayList<>();
+        new ServerIterator().forEachRemaining(registries::add);
         try {
             ServerIterator.writeCachedServers(registries);
         } catch (Exception ex) {
             logger.warn("Could not cache the registry list; it will be rebuilt on the next run", ex);
         }
-        if (localRegistryUrl != null) {
-            try {
-                localRegistryInfo = RegistryInfo.load(localRegistryUrl);
-                registries.add(localRegistryInfo);
-                serverLoad.put(localRegistryInfo, new HashSet<>());
-                serverUsage.put(localRegistryInfo, 0);
-            } catch (RegistryInfoException ex) {
-                logger.error("Could not load the local registry {}; aborting index fetch", localRegistryUrl, ex);
-                return;
-            }
-        }
-        nanopubCount = 0;
+        return registries;
+    }
+
+    private void addRegistry(RegistryInfo registryInfo) {
+        registries.add(registryInfo);
+        serverLoad.put(registryInfo, 0);
+        serverUsage.put(registryInfo, 0);
     }
 
     /**
-     * Starts the fetching process.
+     * Starts the fetching process and returns when all nanopubs are written or could not be fetched from any
+     * registry.
      */
     public void run() {
         synchronized (this) {
@@ -103,112 +175,441 @@ public class FetchIndex {
             }
             running = true;
         }
-        while (!fetchTasks.isEmpty()) {
-            checkTasks();
+        if (registries.isEmpty()) {
+            logger.warn("No registries available to fetch {}", indexUri);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, registries.size() * maxParallelRequestsPerServer),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("nanopub-fetch-index-%d").build());
+        // Merges the Jelly frames of the single nanopubs into one stream, as done by NanopubStream:
+        ProtoTranscoder transcoder = jellyOutput ? JellyTranscoderFactory.fastMergingTranscoderUnsafe(JellyUtils.jellyOptionsForTransmission) : null;
+        try {
+            synchronized (this) {
+                List<FetchNanopubTask> initialTasks = resumedTasks;
+                if (initialTasks == null) {
+                    initialTasks = List.of(new FetchNanopubTask(indexUri, true));
+                }
+                FetchNanopubTask previous = null;
+                for (FetchNanopubTask task : initialTasks) {
+                    if (previous == null) {
+                        outputHead = task;
+                    } else {
+                        previous.next = task;
+                    }
+                    previous = task;
+                    addTask(task);
+                }
+                outputCursor = outputHead;
+                dispatch(executor);
+            }
+            long lastCheckpoint = System.currentTimeMillis();
+            while (true) {
+                List<FetchNanopubTask> ready = new ArrayList<>();
+                synchronized (this) {
+                    while (outputHead != null && outputHead == outputCursor && !expandIndexes()) {
+                        wait();
+                    }
+                    if (outputHead == null) break;
+                    for (FetchNanopubTask task = outputHead; task != outputCursor; task = task.next) {
+                        ready.add(task);
+                    }
+                    outputHead = outputCursor;
+                    dispatch(executor);
+                }
+                // Writing happens outside of the lock, so the requests go on in the meantime:
+                for (FetchNanopubTask task : ready) {
+                    if (task.output != null) {
+                        writeOutput(task.output, transcoder);
+                    }
+                }
+                synchronized (this) {
+                    for (FetchNanopubTask task : ready) {
+                        if (task.output != null) {
+                            bufferedBytes -= task.output.length;
+                            task.output = null;
+                        }
+                    }
+                    dispatch(executor);
+                }
+                if (checkpointFile != null && System.currentTimeMillis() - lastCheckpoint >= checkpointIntervalMillis) {
+                    writeCheckpoint();
+                    lastCheckpoint = System.currentTimeMillis();
+                }
+            }
+            if (checkpointFile != null) {
+                out.flush();
+                Files.deleteIfExists(checkpointFile.toPath());
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        } catch (InterruptedException ex) {
+            logger.debug("Interrupted while fetching index; stopping", ex);
+            Thread.currentThread().interrupt();
+        } catch (MalformedNanopubException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets the maximum size of the reorder buffer, which holds the serialized nanopubs that arrived before the ones
+     * that precede them in the output. This limit can be exceeded by the nanopubs whose requests are already running.
+     *
+     * @param maxBufferedBytes the maximum size in bytes
+     */
+    public void setMaxBufferedBytes(long maxBufferedBytes) {
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Sets whether the nanopubs are written as a stream of delimited Jelly frames, one per nanopub, instead of the
+     * RDF format given to the constructor. Such a stream can be read with
+     * {@link org.nanopub.jelly.NanopubStream#fromByteStream(java.io.InputStream)}.
+     *
+     * @param jellyOutput true to write Jelly
+     */
+    public void setJellyOutput(boolean jellyOutput) {
+        this.jellyOutput = jellyOutput;
+    }
+
+    /**
+     * Sets a checkpoint file, to which the remaining work is written every few seconds, so an interrupted fetch can
+     * be resumed. The remaining work consists of the nanopubs that are not written yet and the indexes that are not
+     * expanded yet. It stays small, because indexes are only expanded while not many nanopubs are waiting. The file
+     * is deleted when the fetch completes.
+     * <p>
+     * The output stream should be a {@link CheckpointOutputStream} that appends to the previous output. The length of
+     * the output is then saved with each checkpoint, and the output is cut back to it when resuming, so the nanopubs
+     * that were written after the last checkpoint are dropped before they are written again. With another output
+     * stream, which is only flushed at each checkpoint, these nanopubs can appear twice in the output, and a
+     * partially written one can remain in it.
+     *
+     * @param checkpointFile the checkpoint file
+     * @param resume         true to continue from the checkpoint file instead of starting at the index
+     * @throws java.io.IOException                if the checkpoint file cannot be read or the output cannot be cut
+     *                                            back to it
+     * @throws java.lang.IllegalArgumentException if the checkpoint file belongs to another index
+     */
+    public void setCheckpointFile(File checkpointFile, boolean resume) throws IOException {
+        this.checkpointFile = checkpointFile;
+        if (!resume) {
+            resumedTasks = null;
+            return;
+        }
+        List<FetchNanopubTask> tasks = new ArrayList<>();
+        long outputLength = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(checkpointFile)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(" ", 2);
+                if (parts.length < 2) {
+                    throw new IOException("Invalid line in checkpoint file " + checkpointFile + ": " + line);
+                }
+                switch (parts[0]) {
+                    case "index" -> {
+                        if (!parts[1].equals(indexUri)) {
+                            throw new IllegalArgumentException("Checkpoint file " + checkpointFile + " belongs to index " + parts[1]);
+                        }
+                    }
+                    case "count" -> nanopubCount = Integer.parseInt(parts[1]);
+                    case "output" -> outputLength = Long.parseLong(parts[1]);
+                    case "c" -> tasks.add(new FetchNanopubTask(parts[1], false));
+                    case "i" -> tasks.add(new FetchNanopubTask(parts[1], true));
+                    case "w" -> {
+                        FetchNanopubTask task = new FetchNanopubTask(parts[1], true);
+                        task.expanded = true;
+                        tasks.add(task);
+                    }
+                    default -> throw new IOException("Invalid line in checkpoint file " + checkpointFile + ": " + line);
+                }
+            }
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid number in checkpoint file " + checkpointFile, ex);
+        }
+        if (outputLength >= 0 && out instanceof CheckpointOutputStream checkpointOut) {
+            checkpointOut.truncate(outputLength);
+        }
+        resumedTasks = tasks;
+    }
+
+    /**
+     * Flushes the output and writes the remaining work and the length of the output to the checkpoint file.
+     * Everything before the output head has been written at this point, as the output is only written by the thread
+     * that calls this method.
+     */
+    private void writeCheckpoint() {
+        List<String> lines = new ArrayList<>();
+        int count;
+        synchronized (this) {
+            count = nanopubCount;
+            for (FetchNanopubTask task = outputHead; task != null; task = task.next) {
+                if (!task.isIndex()) {
+                    lines.add("c " + task.getNanopubUri());
+                } else if (!task.expanded) {
+                    lines.add("i " + task.getNanopubUri());
+                } else if (writeIndex) {
+                    // The content of an expanded index is already in the list; only the index itself is missing:
+                    lines.add("w " + task.getNanopubUri());
+                }
+            }
+        }
+        try {
+            long outputLength = -1;
+            if (out instanceof CheckpointOutputStream checkpointOut) {
+                outputLength = checkpointOut.checkpoint();
+            } else {
+                out.flush();
+            }
+            Path file = checkpointFile.toPath().toAbsolutePath();
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
             try {
-                Thread.sleep(5);
-            } catch (InterruptedException ex) {
-                logger.debug("Interrupted while fetching index; stopping", ex);
-                Thread.currentThread().interrupt();
-                return;
+                try (Writer w = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tempFile)), StandardCharsets.UTF_8)) {
+                    w.write("# FetchIndex checkpoint\n");
+                    w.write("index " + indexUri + "\n");
+                    w.write("count " + count + "\n");
+                    if (outputLength >= 0) {
+                        w.write("output " + outputLength + "\n");
+                    }
+                    for (String line : lines) {
+                        w.write(line);
+                        w.write('\n');
+                    }
+                }
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
             }
+        } catch (IOException ex) {
+            logger.warn("Could not write the checkpoint file {}", checkpointFile, ex);
+        }
+    }
+
+    private boolean isBufferFull() {
+        return bufferedBytes >= maxBufferedBytes;
+    }
+
+    /**
+     * Expands the fetched indexes while the number of waiting tasks and the buffer are below their limits, and the
+     * index that blocks the output in any case.
+     *
+     * @return true if an index was expanded
+     */
+    private boolean expandIndexes() throws MalformedNanopubException {
+        boolean expanded = false;
+        Iterator<FetchNanopubTask> it = unexpandedIndexes.iterator();
+        while (it.hasNext()) {
+            FetchNanopubTask task = it.next();
+            if (task != outputCursor && (waitingContentCount >= maxWaitingTasks || isBufferFull())) {
+                continue;
+            }
+            it.remove();
+            expandIndex(task);
+            expanded = true;
+        }
+        if (expanded) {
+            advanceCursor();
+        }
+        return expanded;
+    }
+
+    private void expandIndex(FetchNanopubTask task) throws MalformedNanopubException {
+        Nanopub np = task.nanopub;
+        if (!IndexUtils.isIndex(np)) {
+            throw new RuntimeException("NOT AN INDEX: " + np.getUri());
+        }
+        NanopubIndex npi = IndexUtils.castToIndex(np);
+        FetchNanopubTask last = task;
+        if (writeContent) {
+            for (IRI elementUri : npi.getElements()) {
+                last = insertTask(last, new FetchNanopubTask(elementUri.toString(), false));
+            }
+        }
+        for (IRI subIndexUri : npi.getSubIndexes()) {
+            last = insertTask(last, new FetchNanopubTask(subIndexUri.toString(), true));
+        }
+        if (npi.getAppendedIndex() != null) {
+            insertTask(last, new FetchNanopubTask(npi.getAppendedIndex().toString(), true));
+        }
+        task.expanded = true;
+        task.nanopub = null;
+    }
+
+    private FetchNanopubTask insertTask(FetchNanopubTask previous, FetchNanopubTask task) {
+        task.next = previous.next;
+        previous.next = task;
+        addTask(task);
+        return task;
+    }
+
+    private void addTask(FetchNanopubTask task) {
+        enqueue(task);
+    }
+
+    private void enqueue(FetchNanopubTask task) {
+        task.queued = true;
+        if (task.isIndex()) {
+            // Indexes come first, so the rest of the content is found early:
+            waitingTasks.addFirst(task);
+        } else {
+            waitingTasks.addLast(task);
+            waitingContentCount++;
         }
     }
 
-    private void checkTasks() {
-        for (FetchNanopubTask task : new ArrayList<>(fetchTasks)) {
-            if (task.isRunning()) {
+    /**
+     * Starts requests for waiting tasks as long as there is free capacity.
+     */
+    private void dispatch(ExecutorService executor) {
+        boolean bufferFull = isBufferFull();
+        Iterator<FetchNanopubTask> it = waitingTasks.iterator();
+        while (it.hasNext() && totalLoad < registries.size() * maxParallelRequestsPerServer) {
+            FetchNanopubTask task = it.next();
+            if (bufferFull && !task.isIndex() && task != outputCursor) {
                 continue;
             }
-            if (task.isCancelled()) {
-                fetchTasks.remove(task);
-                serverLoad.get(task.getLastRegistry()).remove(task);
+            int maxRequests = task.isIndex() ? parallelIndexRequests : 1;
+            while (task.runningRequests < maxRequests) {
+                RegistryInfo r = selectRegistry(task);
+                if (r == null) break;
+                startRequest(executor, task, r);
+            }
+            if (task.runningRequests == 0 && task.getTriedServersCount() == registries.size()) {
+                logger.warn("Failed to get {} from any of the {} known registries; giving up on it", task.getNanopubUri(), registries.size());
+                dequeue(it, task);
+                finish(task);
+            } else if (task.runningRequests == maxRequests || task.getTriedServersCount() == registries.size()) {
+                dequeue(it, task);
+            }
+        }
+    }
+
+    private void dequeue(Iterator<FetchNanopubTask> it, FetchNanopubTask task) {
+        it.remove();
+        task.queued = false;
+        if (!task.isIndex()) {
+            waitingContentCount--;
+        }
+    }
+
+    private RegistryInfo selectRegistry(FetchNanopubTask task) {
+        if (localRegistryInfo != null && !task.hasServerBeenTried(localRegistryInfo)) {
+            return serverLoad.get(localRegistryInfo) < maxParallelRequestsPerServer ? localRegistryInfo : null;
+        }
+        // The least loaded registry, starting at a random one to spread the requests:
+        RegistryInfo selected = null;
+        int start = random.nextInt(Math.max(1, registries.size()));
+        for (int i = 0; i < registries.size(); i++) {
+            RegistryInfo r = registries.get((start + i) % registries.size());
+            int load = serverLoad.get(r);
+            if (task.hasServerBeenTried(r) || load >= maxParallelRequestsPerServer) {
                 continue;
             }
-            if (task.getLastRegistry() != null) {
-                serverLoad.get(task.getLastRegistry()).remove(task);
+            if (selected == null || load < serverLoad.get(selected)) {
+                selected = r;
             }
-            if (task.getNanopub() == null) {
-                if (task.getTriedServersCount() == registries.size()) {
-                    logger.warn("Failed to get {} from any of the {} known registries; giving up on it", task.getNanopubUri(), registries.size());
-                    fetchTasks.remove(task);
-                    continue;
-                }
-                if (localRegistryInfo != null && !task.hasServerBeenTried(localRegistryInfo)) {
-                    assignTask(task, localRegistryInfo);
-                    break;
+        }
+        return selected;
+    }
+
+    private void startRequest(ExecutorService executor, FetchNanopubTask task, RegistryInfo r) {
+        task.prepareForTryingServer(r);
+        serverLoad.put(r, serverLoad.get(r) + 1);
+        totalLoad++;
+        executor.execute(() -> {
+            Nanopub np = null;
+            byte[] output = null;
+            boolean serverTried = true;
+            boolean succeeded = false;
+            try {
+                np = GetNanopub.get(TrustyUriUtils.getArtifactCode(task.getNanopubUri()), r);
+                if (!task.isIndex() || writeIndex) {
+                    output = serialize(np);
                 }
-                List<RegistryInfo> shuffledServers = new ArrayList<>(registries);
-                Collections.shuffle(shuffledServers);
-                for (RegistryInfo registryInfo : shuffledServers) {
-                    if (task.hasServerBeenTried(registryInfo)) {
-                        continue;
-                    }
-                    int load = serverLoad.get(registryInfo).size();
-                    if (load >= maxParallelRequestsPerServer) {
-                        continue;
+                succeeded = true;
+            } catch (ConnectionPoolTimeoutException ex) {
+                // too many connection attempts; try again later
+                serverTried = false;
+            } catch (Exception ex) {
+                if (listener != null) {
+                    synchronized (this) {
+                        listener.exceptionHappened(ex, r, ArtifactCode.of(TrustyUriUtils.getArtifactCode(task.getNanopubUri())));
                     }
-                    assignTask(task, registryInfo);
-                    break;
                 }
-            } else if (task.isIndex()) {
-                if (fetchTasks.size() < 3000) {
-                    try {
-                        Nanopub np = task.getNanopub();
-                        if (!IndexUtils.isIndex(np)) {
-                            throw new RuntimeException("NOT AN INDEX: " + np.getUri());
-                        }
-                        NanopubIndex npi = IndexUtils.castToIndex(np);
-                        if (writeIndex) {
-                            writeNanopub(npi);
-                        }
-                        if (writeContent) {
-                            for (IRI elementUri : npi.getElements()) {
-                                fetchTasks.add(new FetchNanopubTask(elementUri.toString(), false));
-                            }
-                        }
-                        for (IRI subIndexUri : npi.getSubIndexes()) {
-                            // Failing to get subindexes can block the entire process, therefore
-                            // we launch three sibling tasks at the same time:
-                            FetchNanopubTask t1 = new FetchNanopubTask(subIndexUri.toString(), true);
-                            fetchTasks.addFirst(t1);
-                            FetchNanopubTask t2 = new FetchNanopubTask(subIndexUri.toString(), true, t1);
-                            fetchTasks.addFirst(t2);
-                            FetchNanopubTask t3 = new FetchNanopubTask(subIndexUri.toString(), true, t1, t2);
-                            fetchTasks.addFirst(t3);
-                        }
-                        if (npi.getAppendedIndex() != null) {
-                            // Failing to get appended indexes can block the entire process, therefore
-                            // we launch three sibling tasks at the same time:
-                            FetchNanopubTask t1 = new FetchNanopubTask(npi.getAppendedIndex().toString(), true);
-                            fetchTasks.addFirst(t1);
-                            FetchNanopubTask t2 = new FetchNanopubTask(npi.getAppendedIndex().toString(), true, t1);
-                            fetchTasks.addFirst(t2);
-                            FetchNanopubTask t3 = new FetchNanopubTask(npi.getAppendedIndex().toString(), true, t1, t2);
-                            fetchTasks.addFirst(t3);
-                        }
-                    } catch (Exception ex) {
-                        throw new RuntimeException(ex);
-                    }
-                    fetchTasks.remove(task);
+            } finally {
+                // Without a complete result, including errors, the task is tried again with another registry:
+                requestDone(executor, task, r, succeeded ? np : null, succeeded ? output : null, serverTried);
+            }
+        });
+    }
+
+    private byte[] serialize(Nanopub np) {
+        if (jellyOutput) {
+            return JellyUtils.writeNanopubForDB(np);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NanopubUtils.writeToStream(np, bytes, format);
+        return bytes.toByteArray();
+    }
+
+    private synchronized void requestDone(ExecutorService executor, FetchNanopubTask task, RegistryInfo r, Nanopub np, byte[] output, boolean serverTried) {
+        serverLoad.put(r, serverLoad.get(r) - 1);
+        totalLoad--;
+        task.runningRequests--;
+        if (!serverTried) {
+            task.registries.remove(r);
+        }
+        if (!task.finished) {
+            if (np != null) {
+                if (task.isIndex() && !task.expanded) {
+                    task.nanopub = np;
+                    unexpandedIndexes.add(task);
                 }
-            } else {
-                try {
-                    writeNanopub(task.getNanopub());
-                } catch (Exception ex) {
-                    throw new RuntimeException(ex);
+                task.output = output;
+                if (output != null) {
+                    bufferedBytes += output.length;
                 }
-                fetchTasks.remove(task);
+                serverUsage.put(r, serverUsage.get(r) + 1);
+                if (task.queued) {
+                    waitingTasks.remove(task);
+                    task.queued = false;
+                    if (!task.isIndex()) waitingContentCount--;
+                }
+                finish(task);
+            } else if (!task.queued) {
+                enqueue(task);
             }
         }
+        dispatch(executor);
     }
 
-    private void writeNanopub(Nanopub np) throws RDFHandlerException {
+    private void finish(FetchNanopubTask task) {
+        task.finished = true;
+        advanceCursor();
+        notifyAll();
+    }
+
+    private void advanceCursor() {
+        while (outputCursor != null && outputCursor.isReady()) {
+            outputCursor = outputCursor.next;
+        }
+    }
+
+    private void writeOutput(byte[] output, ProtoTranscoder transcoder) {
         nanopubCount++;
         if (listener != null && nanopubCount % 100 == 0) {
             listener.progress(nanopubCount);
         }
-        NanopubUtils.writeToStream(np, out, format);
+        try {
+            if (transcoder == null) {
+                out.write(output);
+            } else {
+                transcoder.ingestFrame(RdfStreamFrame.parseFrom(output)).writeDelimitedTo(out);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
     }
 
     /**
@@ -235,7 +636,7 @@ public class FetchIndex {
      * @param r the registry info of the server
      * @return the number of times the server has been used
      */
-    public int getServerUsage(RegistryInfo r) {
+    public synchronized int getServerUsage(RegistryInfo r) {
         return serverUsage.get(r);
     }
 
@@ -248,160 +649,65 @@ public class FetchIndex {
         listener = l;
     }
 
-    private void assignTask(final FetchNanopubTask task, final RegistryInfo r) {
-        task.prepareForTryingServer(r);
-        serverLoad.get(r).add(task);
-        Runnable runFetchTask = () -> task.tryServer(r);
-        Thread thread = new Thread(runFetchTask);
-        thread.start();
-    }
-
-    private class FetchNanopubTask {
+    /**
+     * A nanopub to fetch. Its fields are guarded by the enclosing FetchIndex.
+     */
+    private static class FetchNanopubTask {
 
-        private String npUri;
-        private boolean isIndex;
+        private final String npUri;
+        private final boolean isIndex;
+        // Only kept for indexes, until they are expanded:
         private Nanopub nanopub;
-        private Set<RegistryInfo> registries = new HashSet<>();
-        private boolean running = false;
-        private boolean cancelled = false;
-        private RegistryInfo lastRegistry;
-        private Set<FetchNanopubTask> siblings;
+        private byte[] output;
+        private final Set<RegistryInfo> registries = new HashSet<>();
+        private int runningRequests = 0;
+        private boolean queued = false;
+        private boolean finished = false;
+        private boolean expanded = false;
+        private FetchNanopubTask next;
 
         /**
          * Creates a new task to fetch a nanopub.
          *
-         * @param npUri    the URI of the nanopub to fetch
-         * @param isIndex  true if the nanopub is an index, false otherwise
-         * @param siblings other tasks that are siblings of this task (for sub-indexes)
+         * @param npUri   the URI of the nanopub to fetch
+         * @param isIndex true if the nanopub is an index, false otherwise
          */
-        public FetchNanopubTask(String npUri, boolean isIndex, FetchNanopubTask... siblings) {
+        FetchNanopubTask(String npUri, boolean isIndex) {
             this.npUri = npUri;
             this.isIndex = isIndex;
-            this.siblings = new HashSet<>(Arrays.asList(siblings));
-            for (FetchNanopubTask s : siblings) {
-                s.siblings.add(this);
-            }
         }
 
-        /**
-         * Returns whether the nanopub is an index or not.
-         *
-         * @return true if the nanopub is an index, false otherwise
-         */
-        public boolean isIndex() {
+        boolean isIndex() {
             return isIndex;
         }
 
         /**
-         * Returns the nanopub fetched by this task.
-         *
-         * @return the fetched nanopub, or null if not yet fetched
+         * Returns whether this nanopub can be written, i.e. it was fetched or given up, and in case of an index, the
+         * tasks for its content were added after it.
          */
-        public Nanopub getNanopub() {
-            return nanopub;
+        boolean isReady() {
+            return finished && !(nanopub != null && !expanded);
         }
 
-        /**
-         * Returns the URI of the nanopub to be fetched.
-         *
-         * @return the URI of the nanopub
-         */
-        public String getNanopubUri() {
+        String getNanopubUri() {
             return npUri;
         }
 
-        /**
-         * Returns whether the task is currently running.
-         *
-         * @return true if the task is running, false otherwise
-         */
-        public boolean isRunning() {
-            return running;
-        }
-
-        /**
-         * Returns if the task has been cancelled.
-         */
-        public boolean isCancelled() {
-            return cancelled;
-        }
-
-        /**
-         * Returns whether the server has already been tried for this task.
-         *
-         * @param r the registry info of the server
-         * @return true if the server has been tried, false otherwise
-         */
-        public boolean hasServerBeenTried(RegistryInfo r) {
+        boolean hasServerBeenTried(RegistryInfo r) {
             return registries.contains(r);
         }
 
-        /**
-         * Returns the number of servers that have been tried so far for this task.
-         *
-         * @return the number of tried servers
-         */
-        public int getTriedServersCount() {
+        int getTriedServersCount() {
             return registries.size();
         }
 
-        /**
-         * Returns the last registry that was used for this task.
-         *
-         * @return the last registry info, or null if no server has been tried yet
-         */
-        public RegistryInfo getLastRegistry() {
-            return lastRegistry;
-        }
-
-        /**
-         * Prepares the task for trying a server.
-         *
-         * @param r the registry info of the server to try
-         */
-        public void prepareForTryingServer(RegistryInfo r) {
+        void prepareForTryingServer(RegistryInfo r) {
             registries.add(r);
-            lastRegistry = r;
-            running = true;
-        }
-
-        /**
-         * Attempts to fetch the nanopub from the specified server.
-         *
-         * @param r the registry info of the server to try
-         */
-        public void tryServer(RegistryInfo r) {
-            boolean serverTried = false;
-            try {
-                serverTried = true;
-                nanopub = GetNanopub.get(TrustyUriUtils.getArtifactCode(npUri), r);
-            } catch (ConnectionPoolTimeoutException ex) {
-                serverTried = false;
-                // too many connection attempts; try again later
-            } catch (Exception ex) {
-                if (listener != null) {
-                    listener.exceptionHappened(ex, r, ArtifactCode.of(TrustyUriUtils.getArtifactCode(npUri)));
-                }
-            } finally {
-                running = false;
-                if (serverTried) {
-                    synchronized (FetchIndex.class) {
-                        if (cancelled) {
-                            // Sibling already did the work...
-                        } else {
-                            for (FetchNanopubTask s : siblings) {
-                                s.cancelled = true;
-                            }
-                            serverUsage.put(r, serverUsage.get(r) + 1);
-                        }
-                    }
-                }
-            }
+            runningRequests++;
         }
 
     }
 
-
     /**
      * Listener interface for progress and exception handling.
      */
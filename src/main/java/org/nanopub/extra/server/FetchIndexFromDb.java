@@ -1,18 +1,30 @@
 package org.nanopub.extra.server;
 
+import net.trustyuri.ArtifactCode;
+import net.trustyuri.rdf.RdfModule;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.Nanopub;
 import org.nanopub.NanopubUtils;
+import org.nanopub.ParallelTaskRunner;
 import org.nanopub.extra.index.IndexUtils;
 import org.nanopub.extra.index.NanopubIndex;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Fetches a nanopub index from a database.
+ * <p>
+ * By default, the index is traversed and its content nanopubs are looked up one by one on the calling thread. With
+ * {@link #setThreads(int) more than one thread}, the content nanopubs are looked up in batches, each with a single
+ * query, and the batches are parsed on a pool of worker threads, while the calling thread continues to traverse the
+ * sub-indexes and appended indexes. The output is the same in both cases.
  */
 public class FetchIndexFromDb extends FetchIndex {
 
@@ -21,6 +33,9 @@ public class FetchIndexFromDb extends FetchIndex {
      */
     public static final int maxParallelRequestsPerServer = 5;
 
+    // Number of content nanopubs looked up with a single query in the concurrent mode:
+    private static final int BATCH_SIZE = 100;
+
     private String indexUri;
     private NanopubDb db;
     private OutputStream out;
@@ -28,6 +43,7 @@ public class FetchIndexFromDb extends FetchIndex {
     private boolean writeIndex, writeContent;
     private int nanopubCount;
     private FetchIndex.Listener listener;
+    private int threads = 1;
 
     /**
      * Constructor for fetching an index from a database.
@@ -53,6 +69,10 @@ public class FetchIndexFromDb extends FetchIndex {
      * Fetches the index and its content from the database.
      */
     public void run() {
+        if (threads > 1) {
+            runConcurrently();
+            return;
+        }
         try {
             getIndex(indexUri);
         } catch (RDFHandlerException | MalformedNanopubException ex) {
@@ -60,6 +80,87 @@ public class FetchIndexFromDb extends FetchIndex {
         }
     }
 
+    private void runConcurrently() {
+        // Results are written in submission order; the bound on pending batches keeps the traversal from running
+        // too far ahead of the output:
+        ParallelTaskRunner<List<Nanopub>> runner = new ParallelTaskRunner<>(threads, threads * 4, true, nanopubs -> {
+            for (Nanopub np : nanopubs) {
+                writeNanopub(np);
+            }
+        });
+        try {
+            traverseIndex(indexUri, runner);
+            runner.finish();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching index " + indexUri, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw new RuntimeException(ex.getCause());
+        } catch (MalformedNanopubException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            runner.close();
+        }
+    }
+
+    private void traverseIndex(String indexUri, ParallelTaskRunner<List<Nanopub>> runner)
+            throws MalformedNanopubException, InterruptedException, ExecutionException {
+        NanopubIndex npi = getIndex(indexUri, db);
+        while (npi != null) {
+            if (writeIndex) {
+                NanopubIndex index = npi;
+                runner.submit(() -> List.of(index));
+            }
+            if (writeContent) {
+                List<String> batch = new ArrayList<>(BATCH_SIZE);
+                for (IRI elementUri : npi.getElements()) {
+                    batch.add(getRdfArtifactCode(elementUri.stringValue()));
+                    if (batch.size() == BATCH_SIZE) {
+                        submitBatch(batch, runner);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    submitBatch(batch, runner);
+                }
+            }
+            for (IRI subIndexUri : npi.getSubIndexes()) {
+                traverseIndex(subIndexUri.stringValue(), runner);
+            }
+            if (npi.getAppendedIndex() != null) {
+                npi = getIndex(npi.getAppendedIndex().stringValue(), db);
+            } else {
+                npi = null;
+            }
+        }
+    }
+
+    private void submitBatch(List<String> artifactCodes, ParallelTaskRunner<List<Nanopub>> runner)
+            throws InterruptedException, ExecutionException {
+        runner.submit(() -> {
+            Map<String, Nanopub> found = db.getNanopubs(artifactCodes);
+            List<Nanopub> nanopubs = new ArrayList<>(artifactCodes.size());
+            for (String ac : artifactCodes) {
+                Nanopub np = found.get(ac);
+                if (np == null) {
+                    throw new RuntimeException("Nanopub not found in database: " + ac);
+                }
+                nanopubs.add(np);
+            }
+            return nanopubs;
+        });
+    }
+
+    private static String getRdfArtifactCode(String uriOrArtifactCode) {
+        ArtifactCode ac = GetNanopub.getArtifactCode(uriOrArtifactCode);
+        if (!ac.getModule().getModuleId().equals(RdfModule.MODULE_ID)) {
+            throw new IllegalArgumentException("Not a trusty URI of type " + RdfModule.MODULE_ID);
+        }
+        return ac.toString();
+    }
+
     private void getIndex(String indexUri) throws RDFHandlerException, MalformedNanopubException {
         NanopubIndex npi = getIndex(indexUri, db);
         while (npi != null) {
@@ -116,4 +217,18 @@ public class FetchIndexFromDb extends FetchIndex {
         listener = l;
     }
 
+    /**
+     * Sets the number of threads that look up and parse the content nanopubs. With a single thread (the default),
+     * everything happens on the thread calling {@link #run()}.
+     *
+     * @param threads the number of threads
+     * @throws java.lang.IllegalArgumentException if the number is less than one
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        }
+        this.threads = threads;
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.nanopub.extra.server;
 
 import com.beust.jcommander.ParameterException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.trustyuri.ArtifactCode;
 import net.trustyuri.rdf.RdfModule;
 import org.apache.http.HttpResponse;
@@ -12,13 +13,14 @@ import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.eclipse.rdf4j.rio.Rio;
 import org.nanopub.*;
-import org.nanopub.trusty.TrustyNanopubUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.GZIPOutputStream;
 
 import static org.nanopub.extra.server.NanopubStatus.extractArtifactCode;
@@ -30,8 +32,11 @@ public class GetNanopub extends CliRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(GetNanopub.class);
 
-    @com.beust.jcommander.Parameter(description = "nanopub-uris-or-artifact-codes", required = true)
-    private List<String> nanopubIds;
+    @com.beust.jcommander.Parameter(description = "nanopub-uris-or-artifact-codes")
+    private List<String> nanopubIds = new ArrayList<>();
+
+    @com.beust.jcommander.Parameter(names = "--ids-file", description = "File with further nanopub URIs or artifact codes, one per line")
+    private File idsFile;
 
     @com.beust.jcommander.Parameter(names = "-f", description = "Format of the nanopub: trig, nq, trix, trig.gz, ...")
     private String format;
@@ -48,6 +53,18 @@ public class GetNanopub extends CliRunner {
     @com.beust.jcommander.Parameter(names = "-c", description = "Retrieve the content of the given index")
     private boolean getIndexContent;
 
+    @com.beust.jcommander.Parameter(names = "--jelly", description = "Write the nanopubs of an index (-i/-c) as delimited Jelly frames instead of RDF")
+    private boolean jellyOutput;
+
+    @com.beust.jcommander.Parameter(names = "--max-buffer-mb", description = "Maximum size of the buffer for nanopubs of an index that arrive before the ones preceding them in the output")
+    private long maxBufferMb = FetchIndex.DEFAULT_MAX_BUFFERED_BYTES / (1024 * 1024);
+
+    @com.beust.jcommander.Parameter(names = "--checkpoint", description = "Regularly save the progress of fetching an index (-i/-c) to this file")
+    private File checkpointFile;
+
+    @com.beust.jcommander.Parameter(names = "--resume", description = "Continue fetching an index from the --checkpoint file, appending to the output file")
+    private boolean resume;
+
     @com.beust.jcommander.Parameter(names = "--mongodb-host", description = "Directly contact single MongoDB instance instead of the network (e.g. 'localhost')")
     private String mongoDbHost;
 
@@ -63,6 +80,9 @@ public class GetNanopub extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--mongodb-pw", description = "MongoDB password")
     private String mongoDbPassword;
 
+    @com.beust.jcommander.Parameter(names = "--mongodb-threads", description = "Number of threads for looking up and parsing the content of an index (-i/-c) in MongoDB")
+    private int mongoDbThreads = 1;
+
     @com.beust.jcommander.Parameter(names = "-r", description = "Show a report in the end")
     private boolean showReport;
 
@@ -73,6 +93,12 @@ public class GetNanopub extends CliRunner {
             description = "Simulate an unreliable connection for testing purposes")
     private boolean simUnrelConn;
 
+    @com.beust.jcommander.Parameter(names = "--disk-cache", description = "Keep retrieved nanopubs in the cache directory ~/.nanopub/cache and use them from there")
+    private boolean useDiskCache;
+
+    @com.beust.jcommander.Parameter(names = "--hedged", description = "Send a second request to another registry if the first one is slower than usual")
+    private boolean useHedgedRequests;
+
     /**
      * Main method to run the GetNanopub command line tool.
      *
@@ -82,6 +108,10 @@ public class GetNanopub extends CliRunner {
         try {
             GetNanopub obj = CliRunner.initJc(new GetNanopub(), args);
             simulateUnreliableConnection = obj.simUnrelConn;
+            if (obj.useDiskCache) {
+                setCache(new NanopubCache(NanopubCache.DEFAULT_MAXIMUM_SIZE, NanopubCache.getDefaultDirectory()));
+            }
+            setHedgedRequests(obj.useHedgedRequests);
             obj.run();
         } catch (ParameterException ex) {
             System.exit(1);
@@ -93,6 +123,52 @@ public class GetNanopub extends CliRunner {
 
     private static boolean simulateUnreliableConnection = false;
 
+    private static volatile NanopubCache cache = new NanopubCache();
+
+    /**
+     * Returns the cache used when getting nanopubs from the registries. By default, this is an in-memory cache with
+     * {@link NanopubCache#DEFAULT_MAXIMUM_SIZE} nanopubs; the disk store is only used if set explicitly.
+     *
+     * @return the cache, or null if caching is disabled
+     */
+    public static NanopubCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache used when getting nanopubs from the registries.
+     *
+     * @param nanopubCache the cache, or null to disable caching
+     */
+    public static void setCache(NanopubCache nanopubCache) {
+        cache = nanopubCache;
+    }
+
+    private static volatile boolean hedgedRequests = false;
+
+    private static final ExecutorService hedgedRequestExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("nanopub-hedged-get-%d").build());
+
+    /**
+     * Returns whether nanopubs are retrieved with hedged requests, see
+     * {@link #getHedged(String, List, HttpClient, RegistryLatencyTracker)}.
+     *
+     * @return true if hedged requests are used
+     */
+    public static boolean isHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Sets whether {@link #get(String)} and the other methods that try several registries use hedged requests
+     * instead of trying the registries one after the other.
+     *
+     * @param enabled true to use hedged requests
+     */
+    public static void setHedgedRequests(boolean enabled) {
+        hedgedRequests = enabled;
+    }
+
     /**
      * Get a nanopub from the server using its URI or artifact code.
      *
@@ -134,10 +210,20 @@ public class GetNanopub extends CliRunner {
         if (!ac.getModule().getModuleId().equals(RdfModule.MODULE_ID)) {
             throw new IllegalArgumentException("Not a trusty URI of type " + RdfModule.MODULE_ID);
         }
+        NanopubCache c = cache;
+        if (c != null) {
+            Nanopub cached = c.get(ac.toString());
+            if (cached != null) return cached;
+        }
+        if (hedgedRequests) {
+            List<RegistryInfo> registries = new ArrayList<>();
+            serverIterator.forEachRemaining(registries::add);
+            return fetchHedged(ac.toString(), registries, httpClient, RegistryLatencyTracker.getDefault());
+        }
         while (serverIterator.hasNext()) {
             RegistryInfo registryInfo = serverIterator.next();
             try {
-                Nanopub np = get(ac.toString(), registryInfo, httpClient);
+                Nanopub np = fetch(createRequest(ac.toString(), registryInfo), registryInfo, httpClient, RegistryLatencyTracker.getDefault());
                 if (np != null) {
                     return np;
                 }
@@ -192,6 +278,134 @@ public class GetNanopub extends CliRunner {
      */
     public static Nanopub get(String artifactCode, RegistryInfo registryInfo, HttpClient httpClient)
             throws IOException, RDF4JException, MalformedNanopubException {
+        NanopubCache c = cache;
+        if (c != null) {
+            Nanopub cached = c.get(artifactCode);
+            if (cached != null) return cached;
+        }
+        return fetch(createRequest(artifactCode, registryInfo), registryInfo, httpClient, RegistryLatencyTracker.getDefault());
+    }
+
+    /**
+     * Get a nanopub with hedged requests: the registries are tried in the order of their expected latency, and if the
+     * current registry has not answered within its usual time (by default the 95th latency percentile, see
+     * {@link RegistryLatencyTracker#getHedgeDelay(String)}), the request to the next registry is sent without
+     * cancelling the first one. The first valid trusty nanopub is returned and the other requests are aborted. A
+     * failed request is followed by a request to the next registry right away.
+     *
+     * @param uriOrArtifactCode the URI or artifact code of the nanopub
+     * @param registries        the registries to try
+     * @param httpClient        the HttpClient to use for the requests
+     * @param latencyTracker    the latency statistics to order the registries and to compute the delays, which are
+     *                          updated with the outcome of the requests
+     * @return the Nanopub object, or null if not found
+     */
+    public static Nanopub getHedged(String uriOrArtifactCode, List<RegistryInfo> registries, HttpClient httpClient,
+                                    RegistryLatencyTracker latencyTracker) {
+        ArtifactCode ac = getArtifactCode(uriOrArtifactCode);
+        if (!ac.getModule().getModuleId().equals(RdfModule.MODULE_ID)) {
+            throw new IllegalArgumentException("Not a trusty URI of type " + RdfModule.MODULE_ID);
+        }
+        NanopubCache c = cache;
+        if (c != null) {
+            Nanopub cached = c.get(ac.toString());
+            if (cached != null) return cached;
+        }
+        return fetchHedged(ac.toString(), registries, httpClient, latencyTracker);
+    }
+
+    /**
+     * Get many nanopubs concurrently, see {@link NanopubBatchFetcher}. The registries are discovered once for the
+     * whole batch, and at most {@link FetchIndex#maxParallelRequestsPerServer} requests run at the same time per
+     * registry.
+     *
+     * @param uriOrArtifactCodes the URIs or artifact codes of the nanopubs
+     * @return a map from the given URIs or artifact codes to the nanopubs, in the order of the input; nanopubs that
+     * were not found are missing
+     * @throws java.lang.IllegalArgumentException if one of the IDs is not a trusty URI or artifact code of an RDF
+     *                                            nanopub
+     */
+    public static Map<String, Nanopub> getAll(Collection<String> uriOrArtifactCodes) {
+        Map<String, Nanopub> found = new HashMap<>();
+        try {
+            getAll(uriOrArtifactCodes, new NanopubBatchFetcher.Handler() {
+
+                @Override
+                public void handleNanopub(String id, Nanopub np) {
+                    found.put(id, np);
+                }
+
+                @Override
+                public void handleMissing(String id) {
+                }
+
+            });
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        Map<String, Nanopub> result = new LinkedHashMap<>();
+        for (String id : uriOrArtifactCodes) {
+            if (found.containsKey(id)) {
+                result.put(id, found.get(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get many nanopubs concurrently and pass each result to the handler as soon as it arrives, see
+     * {@link NanopubBatchFetcher}.
+     *
+     * @param uriOrArtifactCodes the URIs or artifact codes of the nanopubs
+     * @param handler            the handler to pass the results to
+     * @throws java.lang.IllegalArgumentException if one of the IDs is not a trusty URI or artifact code of an RDF
+     *                                            nanopub
+     * @throws java.lang.InterruptedException     if the thread is interrupted while waiting
+     */
+    public static void getAll(Collection<String> uriOrArtifactCodes, NanopubBatchFetcher.Handler handler) throws InterruptedException {
+        List<RegistryInfo> registries = new ArrayList<>();
+        new ServerIterator().forEachRemaining(registries::add);
+        new NanopubBatchFetcher(registries, NanopubUtils.getHttpClient(), FetchIndex.maxParallelRequestsPerServer).fetch(uriOrArtifactCodes, handler);
+    }
+
+    private static Nanopub fetchHedged(String artifactCode, List<RegistryInfo> registries, HttpClient httpClient,
+                                       RegistryLatencyTracker latencyTracker) {
+        HedgedGet hedged = new HedgedGet(artifactCode, latencyTracker.sortByExpectedLatency(registries), httpClient, latencyTracker);
+        try {
+            hedged.sendNext();
+            while (hedged.running > 0) {
+                long delay = hedged.hasRemaining() ? latencyTracker.getHedgeDelay(hedged.lastRegistry.getUrl()) : Long.MAX_VALUE;
+                Future<Nanopub> done = hedged.completionService.poll(delay, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    logger.debug("No response for {} from {} within {} ms; sending a hedged request", artifactCode, hedged.lastRegistry.getUrl(), delay);
+                    hedged.sendNext();
+                    continue;
+                }
+                hedged.running--;
+                try {
+                    return done.get();
+                } catch (ExecutionException ex) {
+                    logger.debug("Hedged request for {} failed; trying the next registry", artifactCode, ex.getCause());
+                    hedged.sendNext();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            // Aborting the requests that are already done has no effect:
+            hedged.requests.forEach(HttpGet::abort);
+        }
+        logger.warn("Could not get {} from any of the available registries", artifactCode);
+        return null;
+    }
+
+    static Nanopub fetch(String artifactCode, RegistryInfo registryInfo, HttpClient httpClient, RegistryLatencyTracker latencyTracker)
+            throws IOException, RDF4JException, MalformedNanopubException {
+        return fetch(createRequest(artifactCode, registryInfo), registryInfo, httpClient, latencyTracker);
+    }
+
+    private static HttpGet createRequest(String artifactCode, RegistryInfo registryInfo) throws IOException {
         HttpGet get = null;
         try {
             get = new HttpGet(registryInfo.getCollectionUrl() + artifactCode);
@@ -199,11 +413,23 @@ public class GetNanopub extends CliRunner {
             throw new IOException("invalid URL: " + registryInfo.getCollectionUrl() + artifactCode);
         }
         get.setHeader("Accept", "application/trig");
+        return get;
+    }
+
+    private static Nanopub fetch(HttpGet get, RegistryInfo registryInfo, HttpClient httpClient, RegistryLatencyTracker latencyTracker)
+            throws IOException, RDF4JException, MalformedNanopubException {
+        long startTime = System.nanoTime();
         InputStream in = null;
+        boolean answered = false;
         try {
             HttpResponse resp = httpClient.execute(get);
             if (!wasSuccessful(resp)) {
                 EntityUtils.consumeQuietly(resp.getEntity());
+                if (resp.getStatusLine().getStatusCode() < 500) {
+                    // E.g. 404 if the registry does not have the nanopub, which says nothing about its health:
+                    latencyTracker.recordSuccess(registryInfo.getUrl(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                    answered = true;
+                }
                 throw new IOException(resp.getStatusLine().toString());
             }
             if (!NanopubServerUtils.isReadyRegistryStatus(resp)) {
@@ -217,11 +443,23 @@ public class GetNanopub extends CliRunner {
             if (simulateUnreliableConnection) {
                 in = new UnreliableInputStream(in);
             }
-            Nanopub nanopub = new NanopubImpl(in, RDFFormat.TRIG);
-            if (!TrustyNanopubUtils.isValidTrustyNanopub(nanopub)) {
+            NanopubImpl nanopub = new NanopubImpl(in, RDFFormat.TRIG);
+            // The result is kept by the nanopub, so cache hits do not compute the hash again:
+            if (!nanopub.isValidAndTrusty()) {
                 throw new MalformedNanopubException("Nanopub is not trusty");
             }
+            latencyTracker.recordSuccess(registryInfo.getUrl(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            NanopubCache c = cache;
+            if (c != null) {
+                c.put(nanopub);
+            }
             return nanopub;
+        } catch (IOException | RDF4JException | MalformedNanopubException ex) {
+            // Aborted hedged requests say nothing about the registry:
+            if (!answered && !get.isAborted()) {
+                latencyTracker.recordFailure(registryInfo.getUrl());
+            }
+            throw ex;
         } finally {
             if (in != null) {
                 in.close();
@@ -265,6 +503,12 @@ public class GetNanopub extends CliRunner {
         if (showReport) {
             exceptions = new ArrayList<>();
         }
+        if (checkpointFile != null && (!(getIndex || getIndexContent) || mongoDbHost != null || idsFile != null || nanopubIds.size() != 1)) {
+            throw new ParameterException("--checkpoint can only be used when fetching a single index from the registries");
+        }
+        if (resume && (checkpointFile == null || outputFile == null)) {
+            throw new ParameterException("--resume needs --checkpoint and an output file");
+        }
         if (outputFile == null) {
             if (format == null) {
                 format = "trig";
@@ -272,7 +516,10 @@ public class GetNanopub extends CliRunner {
             rdfFormat = Rio.getParserFormatForFileName("file." + format).orElse(RDFFormat.TRIG);
         } else {
             rdfFormat = Rio.getParserFormatForFileName(outputFile.getName()).orElse(RDFFormat.TRIG);
-            if (outputFile.getName().endsWith(".gz")) {
+            if (checkpointFile != null) {
+                // Can be cut back to the last checkpoint on resume:
+                outputStream = new CheckpointOutputStream(outputFile, outputFile.getName().endsWith(".gz"), resume);
+            } else if (outputFile.getName().endsWith(".gz")) {
                 outputStream = new GZIPOutputStream(new FileOutputStream(outputFile));
             } else {
                 outputStream = new FileOutputStream(outputFile);
@@ -282,16 +529,45 @@ public class GetNanopub extends CliRunner {
             errorStream = new PrintStream(errorFile);
         }
         if (mongoDbHost != null) {
-            db = new NanopubDb(mongoDbHost, mongoDbPort, mongoDbName, mongoDbUsername, mongoDbPassword);
+            // The traversal thread and each worker of FetchIndexFromDb use their own connection:
+            db = new NanopubDb(mongoDbHost, mongoDbPort, mongoDbName, mongoDbUsername, mongoDbPassword, mongoDbThreads + 1);
+        }
+        List<String> ids = new ArrayList<>(nanopubIds);
+        if (idsFile != null) {
+            for (String line : Files.readAllLines(idsFile.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                ids.add(line);
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new ParameterException("No nanopub URIs or artifact codes given");
         }
         FetchIndex fetchIndex = null;
         try {
-            for (String nanopubId : nanopubIds) {
+            if (!getIndex && !getIndexContent && db == null && ids.size() > 1) {
+                // Many single nanopubs are fetched concurrently, and written in the order of the input:
+                try {
+                    getAll(ids, new InputOrderHandler(ids));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while fetching nanopubs");
+                }
+                ids.clear();
+            }
+            for (String nanopubId : ids) {
                 if (getIndex || getIndexContent) {
                     if (db == null) {
                         fetchIndex = new FetchIndex(nanopubId, outputStream, rdfFormat, getIndex, getIndexContent, localServer);
+                        fetchIndex.setJellyOutput(jellyOutput);
+                        fetchIndex.setMaxBufferedBytes(maxBufferMb * 1024 * 1024);
+                        if (checkpointFile != null) {
+                            fetchIndex.setCheckpointFile(checkpointFile, resume);
+                        }
                     } else {
-                        fetchIndex = new FetchIndexFromDb(nanopubId, db, outputStream, rdfFormat, getIndex, getIndexContent);
+                        FetchIndexFromDb fetchIndexFromDb = new FetchIndexFromDb(nanopubId, db, outputStream, rdfFormat, getIndex, getIndexContent);
+                        fetchIndexFromDb.setThreads(mongoDbThreads);
+                        fetchIndex = fetchIndexFromDb;
                     }
                     fetchIndex.setProgressListener(new FetchIndex.Listener() {
 
@@ -374,4 +650,89 @@ public class GetNanopub extends CliRunner {
         return c >= 200 && c < 300;
     }
 
+    /**
+     * Writes the nanopubs of a batch in the order of the given IDs: the nanopubs that arrive early are kept until all
+     * nanopubs before them are written.
+     */
+    private class InputOrderHandler implements NanopubBatchFetcher.Handler {
+
+        private final List<String> ids;
+        private final Map<String, Integer> remainingOccurrences = new HashMap<>();
+        // The results that are not written yet, with null for missing nanopubs:
+        private final Map<String, Nanopub> results = new HashMap<>();
+        private int next = 0;
+
+        InputOrderHandler(List<String> ids) {
+            this.ids = ids;
+            for (String id : ids) {
+                remainingOccurrences.merge(id, 1, Integer::sum);
+            }
+        }
+
+        @Override
+        public void handleNanopub(String id, Nanopub np) {
+            results.put(id, np);
+            writeReadyNanopubs();
+        }
+
+        @Override
+        public void handleMissing(String id) {
+            results.put(id, null);
+            writeReadyNanopubs();
+        }
+
+        private void writeReadyNanopubs() {
+            while (next < ids.size() && results.containsKey(ids.get(next))) {
+                String id = ids.get(next);
+                outputNanopub(id, results.get(id));
+                // Duplicate IDs are fetched once, so the result is kept for their later occurrences:
+                if (remainingOccurrences.merge(id, -1, Integer::sum) == 0) {
+                    results.remove(id);
+                }
+                next++;
+            }
+        }
+
+    }
+
+    private static class HedgedGet {
+
+        private final String artifactCode;
+        private final Iterator<RegistryInfo> remaining;
+        private final HttpClient httpClient;
+        private final RegistryLatencyTracker latencyTracker;
+        private final CompletionService<Nanopub> completionService = new ExecutorCompletionService<>(hedgedRequestExecutor);
+        private final List<HttpGet> requests = new ArrayList<>();
+        private RegistryInfo lastRegistry;
+        private int running = 0;
+
+        HedgedGet(String artifactCode, List<RegistryInfo> registries, HttpClient httpClient, RegistryLatencyTracker latencyTracker) {
+            this.artifactCode = artifactCode;
+            this.remaining = registries.iterator();
+            this.httpClient = httpClient;
+            this.latencyTracker = latencyTracker;
+        }
+
+        boolean hasRemaining() {
+            return remaining.hasNext();
+        }
+
+        void sendNext() {
+            while (remaining.hasNext()) {
+                RegistryInfo registryInfo = remaining.next();
+                try {
+                    HttpGet request = createRequest(artifactCode, registryInfo);
+                    requests.add(request);
+                    completionService.submit(() -> fetch(request, registryInfo, httpClient, latencyTracker));
+                    lastRegistry = registryInfo;
+                    running++;
+                    return;
+                } catch (IOException ex) {
+                    logger.debug("Skipping registry {}", registryInfo.getUrl(), ex);
+                }
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,208 @@
+package org.nanopub.extra.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.trustyuri.ArtifactCode;
+import net.trustyuri.rdf.RdfModule;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.eclipse.rdf4j.common.exception.RDF4JException;
+import org.nanopub.MalformedNanopubException;
+import org.nanopub.Nanopub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fetches many nanopubs concurrently from a fixed list of registries.
+ * <p>
+ * Each nanopub is requested from the registry with the lowest expected latency (see
+ * {@link RegistryLatencyTracker#sortByExpectedLatency(List)}) that has not been tried for it yet and that has fewer
+ * than the maximum number of requests running. If a registry does not have the nanopub or fails, the next one is
+ * tried. If a {@link GetNanopub#setCache(NanopubCache) cache} is set, the nanopubs in it are returned without any
+ * request. The results are passed to a {@link Handler} as soon as they arrive, so they are not in the order of the
+ * request.
+ */
+public class NanopubBatchFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NanopubBatchFetcher.class);
+
+    // A registry whose connection pool times out this often for the same nanopub counts as tried:
+    private static final int MAX_POOL_TIMEOUTS = 3;
+
+    // Waiting time after the first pool timeout, doubled after each further one:
+    private static final long POOL_TIMEOUT_BACKOFF_MILLIS = 50;
+
+    private final List<RegistryInfo> registries;
+    private final HttpClient httpClient;
+    private final int maxParallelRequestsPerRegistry;
+    private final RegistryLatencyTracker latencyTracker;
+
+    // Number of running requests per registry, guarded by this:
+    private final int[] load;
+
+    /**
+     * Creates a fetcher with the default latency tracker.
+     *
+     * @param registries                     the registries to fetch from
+     * @param httpClient                     the HttpClient to use for the requests
+     * @param maxParallelRequestsPerRegistry the maximum number of requests running at the same time per registry
+     */
+    public NanopubBatchFetcher(List<RegistryInfo> registries, HttpClient httpClient, int maxParallelRequestsPerRegistry) {
+        this(registries, httpClient, maxParallelRequestsPerRegistry, RegistryLatencyTracker.getDefault());
+    }
+
+    /**
+     * Creates a fetcher.
+     *
+     * @param registries                     the registries to fetch from
+     * @param httpClient                     the HttpClient to use for the requests
+     * @param maxParallelRequestsPerRegistry the maximum number of requests running at the same time per registry
+     * @param latencyTracker                 the latency statistics used to order the registries
+     */
+    public NanopubBatchFetcher(List<RegistryInfo> registries, HttpClient httpClient, int maxParallelRequestsPerRegistry,
+                               RegistryLatencyTracker latencyTracker) {
+        if (maxParallelRequestsPerRegistry < 1) {
+            throw new IllegalArgumentException("At least one request per registry is needed: " + maxParallelRequestsPerRegistry);
+        }
+        this.registries = latencyTracker.sortByExpectedLatency(registries);
+        this.httpClient = httpClient;
+        this.maxParallelRequestsPerRegistry = maxParallelRequestsPerRegistry;
+        this.latencyTracker = latencyTracker;
+        this.load = new int[registries.size()];
+    }
+
+    /**
+     * Fetches the given nanopubs and blocks until all of them are found or were tried at all registries. The handler
+     * is called from several threads, but never concurrently, so it does not need to be thread-safe. Duplicate IDs
+     * are fetched once.
+     *
+     * @param uriOrArtifactCodes the URIs or artifact codes of the nanopubs
+     * @param handler            the handler to pass the results to
+     * @throws java.lang.IllegalArgumentException if one of the IDs is not a trusty URI or artifact code of an RDF
+     *                                            nanopub; this is checked before fetching anything
+     * @throws java.lang.InterruptedException     if the thread is interrupted while waiting
+     */
+    public void fetch(Collection<String> uriOrArtifactCodes, Handler handler) throws InterruptedException {
+        Map<String, ArtifactCode> artifactCodes = new LinkedHashMap<>();
+        for (String id : uriOrArtifactCodes) {
+            ArtifactCode ac = GetNanopub.getArtifactCode(id);
+            if (!ac.getModule().getModuleId().equals(RdfModule.MODULE_ID)) {
+                throw new IllegalArgumentException("Not a trusty URI of type " + RdfModule.MODULE_ID + ": " + id);
+            }
+            artifactCodes.put(id, ac);
+        }
+        if (artifactCodes.isEmpty()) return;
+
+        // Each thread has at most one request running, so more threads than request slots would only wait:
+        int threads = Math.max(1, Math.min(artifactCodes.size(), registries.size() * maxParallelRequestsPerRegistry));
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("nanopub-batch-get-%d").build());
+        try {
+            List<Future<?>> futures = new ArrayList<>(artifactCodes.size());
+            for (Map.Entry<String, ArtifactCode> e : artifactCodes.entrySet()) {
+                futures.add(executor.submit(() -> {
+                    fetchOne(e.getKey(), e.getValue().toString(), handler);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            if (ex.getCause() instanceof InterruptedException ie) throw ie;
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void fetchOne(String id, String artifactCode, Handler handler) throws InterruptedException {
+        NanopubCache cache = GetNanopub.getCache();
+        Nanopub np = cache == null ? null : cache.get(artifactCode);
+        boolean[] tried = new boolean[registries.size()];
+        int[] poolTimeouts = new int[registries.size()];
+        int triedCount = 0;
+        while (np == null && triedCount < tried.length) {
+            int r = acquireRegistry(tried);
+            RegistryInfo registryInfo = registries.get(r);
+            long backoffMillis = 0;
+            try {
+                np = GetNanopub.fetch(artifactCode, registryInfo, httpClient, latencyTracker);
+            } catch (ConnectionPoolTimeoutException ex) {
+                // too many connection attempts; try again later, but not forever
+                poolTimeouts[r]++;
+                if (poolTimeouts[r] < MAX_POOL_TIMEOUTS) {
+                    backoffMillis = POOL_TIMEOUT_BACKOFF_MILLIS << (poolTimeouts[r] - 1);
+                } else {
+                    logger.debug("Connection pool for registry {} timed out {} times for {}; trying the next one", registryInfo.getUrl(), poolTimeouts[r], artifactCode);
+                    tried[r] = true;
+                    triedCount++;
+                }
+            } catch (IOException | RDF4JException | MalformedNanopubException ex) {
+                logger.debug("Could not get {} from registry {}; trying the next one", artifactCode, registryInfo.getUrl(), ex);
+                tried[r] = true;
+                triedCount++;
+            } finally {
+                releaseRegistry(r);
+            }
+            if (backoffMillis > 0) {
+                Thread.sleep(backoffMillis);
+            }
+        }
+        synchronized (handler) {
+            if (np == null) {
+                handler.handleMissing(id);
+            } else {
+                handler.handleNanopub(id, np);
+            }
+        }
+    }
+
+    private synchronized int acquireRegistry(boolean[] tried) throws InterruptedException {
+        while (true) {
+            for (int r = 0; r < load.length; r++) {
+                if (!tried[r] && load[r] < maxParallelRequestsPerRegistry) {
+                    load[r]++;
+                    return r;
+                }
+            }
+            wait();
+        }
+    }
+
+    private synchronized void releaseRegistry(int r) {
+        load[r]--;
+        notifyAll();
+    }
+
+    /**
+     * Handler for the results of a batch fetch.
+     */
+    public interface Handler {
+
+        /**
+         * Called when a nanopub was found.
+         *
+         * @param id the URI or artifact code as given to {@link #fetch(Collection, Handler)}
+         * @param np the nanopub
+         */
+        void handleNanopub(String id, Nanopub np);
+
+        /**
+         * Called when a nanopub was not found at any of the registries.
+         *
+         * @param id the URI or artifact code as given to {@link #fetch(Collection, Handler)}
+         */
+        void handleMissing(String id);
+
+    }
+
+}
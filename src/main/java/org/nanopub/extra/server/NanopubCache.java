@@ -0,0 +1,244 @@
+package org.nanopub.extra.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.trustyuri.TrustyUriUtils;
+import org.nanopub.MalformedNanopubException;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
+import org.nanopub.jelly.JellyUtils;
+import org.nanopub.trusty.TrustyNanopubUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache for trusty nanopubs keyed by their artifact code. As the artifact code is a hash of the content, a cached
+ * nanopub never becomes stale.
+ * <p>
+ * The first tier is a size-bounded in-memory cache with least-recently-used eviction. The optional second tier
+ * stores the nanopubs as Jelly files in a directory (by default {@code ~/.nanopub/cache}), so they survive restarts
+ * and can be shared by several processes. Only nanopubs that were verified to be valid trusty nanopubs should be
+ * added; they are then returned from memory without computing their hash again. Entries from the disk store can
+ * have been changed by other processes, so their hash is checked when they are read, and entries that are not valid
+ * trusty nanopubs with the requested artifact code are deleted.
+ * <p>
+ * The cache keeps its own copy of each nanopub and returns a new copy on each lookup, so callers can change the
+ * nanopubs they get, e.g. with {@link org.nanopub.NanopubWithNs#removeUnusedPrefixes()}, without affecting others.
+ * The copies share the statements, which cannot be changed.
+ */
+public class NanopubCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NanopubCache.class);
+
+    /**
+     * Default maximum number of nanopubs kept in memory.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final Cache<String, Nanopub> memoryCache;
+    private final File directory;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an in-memory cache with the default maximum size.
+     */
+    public NanopubCache() {
+        this(DEFAULT_MAXIMUM_SIZE, null);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize the maximum number of nanopubs kept in memory
+     * @param directory   the directory of the disk store, or null for an in-memory cache only
+     */
+    public NanopubCache(long maximumSize, File directory) {
+        this.memoryCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the default directory of the disk store, {@code ~/.nanopub/cache}.
+     *
+     * @return the directory
+     */
+    public static File getDefaultDirectory() {
+        return new File(System.getProperty("user.home") + "/.nanopub/cache");
+    }
+
+    /**
+     * Returns the nanopub with the given artifact code, looking first into memory and then into the disk store.
+     * Nanopubs found on disk are added to the memory cache.
+     *
+     * @param artifactCode the artifact code
+     * @return the nanopub, or null if it is not cached
+     */
+    public Nanopub get(String artifactCode) {
+        Nanopub np = memoryCache.getIfPresent(artifactCode);
+        if (np != null) {
+            memoryHits.increment();
+            return copy(np);
+        }
+        np = readFromDisk(artifactCode);
+        if (np != null) {
+            diskHits.increment();
+            memoryCache.put(artifactCode, np);
+            return copy(np);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Adds a nanopub that was verified to be a valid trusty nanopub.
+     *
+     * @param np the nanopub
+     * @throws java.lang.IllegalArgumentException if the nanopub URI has no artifact code
+     */
+    public void put(Nanopub np) {
+        String artifactCode = TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+        if (artifactCode == null) {
+            throw new IllegalArgumentException("Not a trusty nanopub: " + np.getUri());
+        }
+        memoryCache.put(artifactCode, copy(np));
+        writeToDisk(artifactCode, np);
+    }
+
+    /**
+     * Removes all nanopubs from the memory cache. The disk store is not changed.
+     */
+    public void invalidateMemory() {
+        memoryCache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of lookups answered from memory.
+     *
+     * @return the memory hit count
+     */
+    public long getMemoryHitCount() {
+        return memoryHits.sum();
+    }
+
+    /**
+     * Returns the number of lookups answered from the disk store.
+     *
+     * @return the disk hit count
+     */
+    public long getDiskHitCount() {
+        return diskHits.sum();
+    }
+
+    /**
+     * Returns the number of lookups answered from memory or from the disk store.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return getMemoryHitCount() + getDiskHitCount();
+    }
+
+    /**
+     * Returns the number of lookups that found no cached nanopub.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of lookups that found a cached nanopub, or 1.0 if there were no lookups yet.
+     *
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of nanopubs in memory.
+     *
+     * @return the approximate number of nanopubs in memory
+     */
+    public long getMemorySize() {
+        return memoryCache.size();
+    }
+
+    private static Nanopub copy(Nanopub np) {
+        return np instanceof NanopubImpl npImpl ? new NanopubImpl(npImpl) : np;
+    }
+
+    private Path getFile(String artifactCode) {
+        // Two characters of the hash part spread the files over subdirectories:
+        return directory.toPath().resolve(artifactCode.substring(2, 4)).resolve(artifactCode + ".jelly");
+    }
+
+    private Nanopub readFromDisk(String artifactCode) {
+        if (directory == null || artifactCode.length() < 4) return null;
+        Path file = getFile(artifactCode);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            Nanopub np = JellyUtils.readFromDB(Files.readAllBytes(file));
+            if (!artifactCode.equals(TrustyUriUtils.getArtifactCode(np.getUri().stringValue()))) {
+                logger.warn("Cached file {} does not contain nanopub {}; deleting it", file, artifactCode);
+                deleteFromDisk(file);
+                return null;
+            }
+            boolean valid = np instanceof NanopubImpl npImpl ? npImpl.isValidAndTrusty() : TrustyNanopubUtils.isValidTrustyNanopub(np);
+            if (!valid) {
+                logger.warn("Cached file {} does not contain a valid trusty nanopub; deleting it", file);
+                deleteFromDisk(file);
+                return null;
+            }
+            return np;
+        } catch (MalformedNanopubException ex) {
+            logger.warn("Cached file {} does not contain a valid nanopub; deleting it", file, ex);
+            deleteFromDisk(file);
+            return null;
+        } catch (IOException ex) {
+            logger.warn("Could not read cached nanopub {} from {}", artifactCode, file, ex);
+            return null;
+        }
+    }
+
+    private void deleteFromDisk(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.warn("Could not delete cached file {}", file, ex);
+        }
+    }
+
+    private void writeToDisk(String artifactCode, Nanopub np) {
+        if (directory == null || artifactCode.length() < 4) return;
+        Path file = getFile(artifactCode);
+        if (Files.exists(file)) return;
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a temporary file first so other processes never see a partial entry:
+            Path tempFile = Files.createTempFile(file.getParent(), artifactCode, ".tmp");
+            try {
+                Files.write(tempFile, JellyUtils.writeNanopubForDB(np));
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not write nanopub {} to the cache directory {}", artifactCode, directory, ex);
+        }
+    }
+
+}
@@ -1,30 +1,67 @@
 package org.nanopub.extra.server;
 
-import com.mongodb.*;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoCredential;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
 import org.eclipse.rdf4j.common.exception.RDF4JException;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.Nanopub;
 import org.nanopub.NanopubImpl;
+import org.nanopub.jelly.JellyUtils;
+import org.nanopub.jelly.NanopubStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class to manage a Nanopublication database.
+ * <p>
+ * Nanopubs are read from the binary Jelly serialization in the "jelly" field of the stored documents if present, as
+ * this is much faster to decode than the TriG serialization in the "nanopub" field, which is used otherwise. Lookups
+ * of many nanopubs are done with one query per batch of artifact codes, and the queries only fetch the fields that
+ * are needed.
  */
 // This code is partly copied from ch.tkuhn.nanopub.server.NanopubDb
 public class NanopubDb {
 
+    /**
+     * Default number of documents per cursor batch and of artifact codes per query.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Default maximum number of connections to the database.
+     */
+    public static final int DEFAULT_MAX_POOL_SIZE = 20;
+
     // Use trig internally to keep namespaces:
     private static RDFFormat internalFormat = RDFFormat.TRIG;
 
+    private static final Bson idProjection = Projections.include("_id");
+    private static final Bson jellyProjection = Projections.include("jelly");
+    private static final Bson trigProjection = Projections.include("nanopub");
+
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private MongoClient mongo;
-    private DB db;
+    private MongoDatabase db;
+    private int batchSize = DEFAULT_BATCH_SIZE;
 
     /**
-     * Constructor to initialize the NanopubDb with MongoDB connection parameters.
+     * Constructor to initialize the NanopubDb with MongoDB connection parameters and the default pool size.
      *
      * @param mongoDbHost     the host of the MongoDB server
      * @param mongoDbPort     the port of the MongoDB server
@@ -33,32 +70,93 @@ public class NanopubDb {
      * @param mongoDbPw       the password for MongoDB authentication (can be null)
      */
     public NanopubDb(String mongoDbHost, int mongoDbPort, String mongoDbName, String mongoDbUsername, String mongoDbPw) {
+        this(mongoDbHost, mongoDbPort, mongoDbName, mongoDbUsername, mongoDbPw, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Constructor to initialize the NanopubDb with MongoDB connection parameters.
+     *
+     * @param mongoDbHost     the host of the MongoDB server
+     * @param mongoDbPort     the port of the MongoDB server
+     * @param mongoDbName     the name of the MongoDB database
+     * @param mongoDbUsername the username for MongoDB authentication (can be null)
+     * @param mongoDbPw       the password for MongoDB authentication (can be null)
+     * @param maxPoolSize     the maximum number of connections to the database, which should be at least the number
+     *                        of threads using this object at the same time
+     */
+    public NanopubDb(String mongoDbHost, int mongoDbPort, String mongoDbName, String mongoDbUsername, String mongoDbPw, int maxPoolSize) {
         logger.debug("Initializing nanopub DB for mongodb://{}:{}/{}", mongoDbHost, mongoDbPort, mongoDbName);
         ServerAddress serverAddress = new ServerAddress(mongoDbHost, mongoDbPort);
-
+        MongoClientOptions options = MongoClientOptions.builder()
+                .connectionsPerHost(maxPoolSize)
+                .maxWaitTime((int) TimeUnit.MINUTES.toMillis(2))
+                .maxConnectionIdleTime((int) TimeUnit.MINUTES.toMillis(1))
+                .build();
         if (mongoDbUsername != null) {
             MongoCredential credential = MongoCredential.createCredential(
                     mongoDbUsername,
                     mongoDbName,
                     mongoDbPw.toCharArray());
-            mongo = new MongoClient(serverAddress, credential, MongoClientOptions.builder().build());
+            mongo = new MongoClient(serverAddress, credential, options);
         } else {
-            mongo = new MongoClient(serverAddress);
+            mongo = new MongoClient(serverAddress, options);
         }
-        db = mongo.getDB(mongoDbName);
+        db = mongo.getDatabase(mongoDbName);
     }
 
+    /**
+     * Constructor to use a database of an existing MongoDB client, e.g. one that is shared with other components.
+     *
+     * @param db the MongoDB database
+     */
+    public NanopubDb(MongoDatabase db) {
+        this.db = db;
+    }
 
     /**
      * Returns the MongoDB client object.
      *
-     * @return the MongoDB client object
+     * @return the MongoDB client object, or null if this object was created for an existing database
+     * @deprecated use {@link #getDatabase()}, which also works for objects created for an existing database
      */
+    @Deprecated
     public MongoClient getMongoClient() {
         return mongo;
     }
 
-    private static DBObject pingCommand = new BasicDBObject("ping", "1");
+    /**
+     * Returns the MongoDB database that holds the nanopubs.
+     *
+     * @return the MongoDB database
+     */
+    public MongoDatabase getDatabase() {
+        return db;
+    }
+
+    /**
+     * Sets the number of documents fetched per cursor batch, which is also the maximum number of artifact codes
+     * looked up with a single query.
+     *
+     * @param batchSize the batch size
+     * @throws java.lang.IllegalArgumentException if the batch size is less than one
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of documents fetched per cursor batch.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private static Bson pingCommand = new Document("ping", 1);
 
     /**
      * Checks if the database is accessible.
@@ -69,14 +167,14 @@ public class NanopubDb {
      */
     public boolean isAccessible() {
         try {
-            db.command(pingCommand);
+            db.runCommand(pingCommand);
         } catch (MongoException ex) {
             return false;
         }
         return true;
     }
 
-    private DBCollection getNanopubCollection() {
+    private MongoCollection<Document> getNanopubCollection() {
         return db.getCollection("nanopubs");
     }
 
@@ -87,21 +185,79 @@ public class NanopubDb {
      * @return the Nanopub object, or null if no nanopub with the given artifact code exists
      */
     public Nanopub getNanopub(String artifactCode) {
-        BasicDBObject query = new BasicDBObject("_id", artifactCode);
-        DBCursor cursor = getNanopubCollection().find(query);
-        if (!cursor.hasNext()) {
-            return null;
+        return getNanopubs(List.of(artifactCode)).get(artifactCode);
+    }
+
+    /**
+     * Returns the nanopubs for the given artifact codes, looking them up with one query per batch. Only the Jelly
+     * serialization is fetched, except for the documents that do not have one. The stored nanopubs are parsed on the
+     * calling thread, so several threads can call this method concurrently to spread the parsing over several cores.
+     *
+     * @param artifactCodes the artifact codes of the nanopubs to retrieve
+     * @return a map from the artifact codes to the nanopubs; artifact codes without a nanopub in the database are
+     * missing from the map
+     */
+    public Map<String, Nanopub> getNanopubs(Collection<String> artifactCodes) {
+        Map<String, Nanopub> nanopubs = new HashMap<>();
+        for (List<String> batch : batches(artifactCodes)) {
+            List<String> withoutJelly = new ArrayList<>();
+            try (MongoCursor<Document> cursor = find(batch, jellyProjection)) {
+                while (cursor.hasNext()) {
+                    Document doc = cursor.next();
+                    if (doc.get("jelly") == null) {
+                        withoutJelly.add(doc.getString("_id"));
+                    } else {
+                        nanopubs.put(doc.getString("_id"), parseNanopub(doc));
+                    }
+                }
+            }
+            if (withoutJelly.isEmpty()) continue;
+            try (MongoCursor<Document> cursor = find(withoutJelly, trigProjection)) {
+                while (cursor.hasNext()) {
+                    Document doc = cursor.next();
+                    nanopubs.put(doc.getString("_id"), parseNanopub(doc));
+                }
+            }
         }
-        String nanopubString = cursor.next().get("nanopub").toString();
-        Nanopub np = null;
+        return nanopubs;
+    }
+
+    /**
+     * Returns a stream of the nanopubs matching the given filter, in the order in which the database returns them.
+     * The nanopubs are read from their Jelly serialization, so documents without the "jelly" field are skipped. The
+     * stream is lazy and reads the documents only while it is consumed; it has to be consumed completely to release
+     * the database cursor.
+     *
+     * @param filter the filter for the documents of the nanopub collection, e.g. {@code Filters.in("_id", codes)}
+     * @return the stream of the matching nanopubs
+     */
+    public NanopubStream streamNanopubs(Bson filter) {
+        return NanopubStream.fromMongoCursor(getNanopubCollection().find(Filters.and(filter, Filters.exists("jelly")))
+                .projection(jellyProjection)
+                .batchSize(batchSize)
+                .iterator());
+    }
+
+    /**
+     * Parses a stored nanopub document, preferring the Jelly serialization over the TriG one.
+     *
+     * @param doc the stored document
+     * @return the nanopub
+     */
+    static Nanopub parseNanopub(Document doc) {
+        Object jelly = doc.get("jelly");
         try {
-            np = new NanopubImpl(nanopubString, internalFormat);
+            if (jelly instanceof Binary binary) {
+                return JellyUtils.readFromDB(binary.getData());
+            } else if (jelly instanceof byte[] bytes) {
+                return JellyUtils.readFromDB(bytes);
+            }
+            return new NanopubImpl(doc.get("nanopub").toString(), internalFormat);
         } catch (MalformedNanopubException ex) {
             throw new RuntimeException("Stored nanopub is not well-formed (this shouldn't happen)", ex);
         } catch (RDF4JException ex) {
             throw new RuntimeException("Stored nanopub is corrupted (this shouldn't happen)", ex);
         }
-        return np;
     }
 
     /**
@@ -111,8 +267,45 @@ public class NanopubDb {
      * @return true if a nanopub with the given artifact code exists, false otherwise
      */
     public boolean hasNanopub(String artifactCode) {
-        BasicDBObject query = new BasicDBObject("_id", artifactCode);
-        return getNanopubCollection().find(query).hasNext();
+        return getNanopubCollection().find(Filters.eq("_id", artifactCode))
+                .projection(idProjection)
+                .limit(1)
+                .first() != null;
+    }
+
+    /**
+     * Checks which of the given artifact codes have a nanopub in the database, with one query per batch that only
+     * fetches the IDs of the documents.
+     *
+     * @param artifactCodes the artifact codes of the nanopubs to check
+     * @return the artifact codes that have a nanopub in the database
+     */
+    public Set<String> hasNanopubs(Collection<String> artifactCodes) {
+        Set<String> found = new HashSet<>();
+        for (List<String> batch : batches(artifactCodes)) {
+            try (MongoCursor<Document> cursor = find(batch, idProjection)) {
+                while (cursor.hasNext()) {
+                    found.add(cursor.next().getString("_id"));
+                }
+            }
+        }
+        return found;
+    }
+
+    private MongoCursor<Document> find(List<String> artifactCodes, Bson projection) {
+        return getNanopubCollection().find(Filters.in("_id", artifactCodes))
+                .projection(projection)
+                .batchSize(batchSize)
+                .iterator();
+    }
+
+    private List<List<String>> batches(Collection<String> artifactCodes) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(artifactCodes));
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += batchSize) {
+            batches.add(distinct.subList(i, Math.min(distinct.size(), i + batchSize)));
+        }
+        return batches;
     }
 
 }
@@ -0,0 +1,457 @@
+package org.nanopub.extra.server;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.trustyuri.TrustyUriUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.rdf4j.common.exception.RDF4JException;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Publishes many nanopubs concurrently.
+ * <p>
+ * All nanopubs are sent to the current registry, with at most the given number of POST requests running at the same
+ * time. Requests that fail with a server error (5xx) or an I/O error such as a timeout are retried with exponential
+ * backoff. If they keep failing, the registry is given up for all further nanopubs and the next one of the registry
+ * iterator is used. A nanopub that a registry rejects with another status code is tried at the next registry without
+ * giving up the current one. {@link #submit(Nanopub)} blocks while too many nanopubs are waiting, so a fast producer
+ * such as a parser of a large file does not fill the memory.
+ * <p>
+ * With {@link #setSkipPublished(boolean)}, each nanopub is first looked up at the registry with a HEAD request and
+ * only uploaded if the registry does not have it yet. A Bloom filter of artifact codes that are known to be published
+ * can be given to skip these requests for nanopubs that are certainly new.
+ */
+public class NanopubPublisher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NanopubPublisher.class);
+
+    private final Iterator<RegistryInfo> registryIterator;
+    private final HttpClient httpClient;
+    private final Handler handler;
+    private final ExecutorService executor;
+    private final Semaphore queuePermits;
+    private final RegistryLatencyTracker latencyTracker = new RegistryLatencyTracker();
+    private final long startTime = System.nanoTime();
+    private long endTime = -1;
+    private int maxRetries = 3;
+    private long retryBackoffMillis = 500;
+    private boolean skipPublished;
+    private BloomFilter<CharSequence> knownArtifactCodes;
+
+    // Registries taken from the iterator so far, the index of the one currently used, and the statistics per
+    // registry URL, guarded by this:
+    private final List<RegistryInfo> registries = new ArrayList<>();
+    private int currentRegistry = 0;
+    private final Map<String, RegistryReport> reports = new LinkedHashMap<>();
+
+    /**
+     * Creates a publisher.
+     *
+     * @param registryIterator    the registries to publish to, in the order in which they are used; typically a
+     *                            {@link ServerIterator}
+     * @param httpClient          the HttpClient to use for the requests, which needs a connection pool of at least
+     *                            the given number of parallel requests
+     * @param maxParallelRequests the maximum number of POST requests running at the same time
+     * @param handler             the handler for the results
+     */
+    public NanopubPublisher(Iterator<RegistryInfo> registryIterator, HttpClient httpClient, int maxParallelRequests, Handler handler) {
+        if (maxParallelRequests < 1) {
+            throw new IllegalArgumentException("At least one parallel request is needed: " + maxParallelRequests);
+        }
+        this.registryIterator = registryIterator;
+        this.httpClient = httpClient;
+        this.handler = handler;
+        this.executor = Executors.newFixedThreadPool(maxParallelRequests,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("nanopub-publish-%d").build());
+        // Nanopubs waiting for a free thread, on top of the ones being published:
+        this.queuePermits = new Semaphore(maxParallelRequests * 4);
+    }
+
+    /**
+     * Sets how often a request failing with a server or I/O error is retried at the same registry before giving it
+     * up. The default is 3.
+     *
+     * @param maxRetries the maximum number of retries
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Sets the time to wait before the first retry, which is doubled for each further retry. The default is 500 ms.
+     *
+     * @param retryBackoffMillis the initial backoff in milliseconds
+     */
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    /**
+     * Sets whether nanopubs that the registry already has are skipped instead of uploaded again. The default is false.
+     *
+     * @param skipPublished whether to check for each nanopub whether it is published already
+     */
+    public void setSkipPublished(boolean skipPublished) {
+        this.skipPublished = skipPublished;
+    }
+
+    /**
+     * Sets a Bloom filter of artifact codes of nanopubs that might be published already, e.g. from earlier runs.
+     * With {@link #setSkipPublished(boolean)}, only the nanopubs that might be in the filter are looked up at the
+     * registry, and all others are uploaded directly.
+     *
+     * @param knownArtifactCodes the Bloom filter, or null to look up all nanopubs
+     */
+    public void setKnownArtifactCodes(BloomFilter<CharSequence> knownArtifactCodes) {
+        this.knownArtifactCodes = knownArtifactCodes;
+    }
+
+    /**
+     * Submits a nanopub to be published, waiting if too many nanopubs are waiting already. Nanopubs are expected to
+     * be submitted from a single thread.
+     *
+     * @param np the nanopub, which has to have a trusty URI
+     * @throws java.lang.InterruptedException if interrupted while waiting
+     */
+    public void submit(Nanopub np) throws InterruptedException {
+        queuePermits.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    publish(np);
+                } finally {
+                    queuePermits.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            queuePermits.release();
+            throw new IllegalStateException("Publisher is already finished", ex);
+        }
+    }
+
+    /**
+     * Waits until all submitted nanopubs are published or failed, and shuts down the worker threads.
+     *
+     * @throws java.lang.InterruptedException if interrupted while waiting
+     */
+    public void finish() throws InterruptedException {
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            logger.debug("Still waiting for nanopubs to be published");
+        }
+        synchronized (this) {
+            if (endTime < 0) endTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops the worker threads without waiting for the nanopubs that are not published yet. This has no effect after
+     * {@link #finish()}.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the statistics of the registries that nanopubs were sent to, in the order in which they were used.
+     * Throughputs are computed over the time from the creation of this publisher until {@link #finish()}, or until
+     * now if it is not finished yet.
+     *
+     * @return the statistics per registry
+     */
+    public synchronized List<RegistryReport> getReport() {
+        double seconds = ((endTime < 0 ? System.nanoTime() : endTime) - startTime) / 1e9;
+        List<RegistryReport> list = new ArrayList<>();
+        for (RegistryReport r : reports.values()) {
+            RegistryReport copy = new RegistryReport(r.url);
+            copy.publishedCount = r.publishedCount;
+            copy.skippedCount = r.skippedCount;
+            copy.retryCount = r.retryCount;
+            copy.rejectedCount = r.rejectedCount;
+            copy.throughput = seconds > 0 ? r.publishedCount / seconds : 0;
+            copy.medianLatencyMillis = latencyTracker.getPercentile(r.url, 0.5);
+            copy.p95LatencyMillis = latencyTracker.getPercentile(r.url, 0.95);
+            list.add(copy);
+        }
+        return list;
+    }
+
+    private void publish(Nanopub np) {
+        String artifactCode = TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+        String body = null;
+        Exception lastError = null;
+        int r = getCurrentRegistry();
+        RegistryInfo registry = getRegistry(r);
+        while (registry != null) {
+            if (skipPublished && isPublished(registry, artifactCode)) {
+                recordSkipped(registry.getUrl());
+                handleAlreadyPublished(np, registry.getCollectionUrl() + artifactCode);
+                return;
+            }
+            if (body == null) {
+                try {
+                    body = NanopubUtils.writeToString(np, RDFFormat.TRIG);
+                } catch (IOException | RDF4JException ex) {
+                    handleFailed(np, ex);
+                    return;
+                }
+            }
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    int code = post(registry.getUrl(), body);
+                    if (code >= 200 && code < 300) {
+                        recordPublished(registry.getUrl());
+                        handlePublished(np, registry.getCollectionUrl() + artifactCode);
+                        return;
+                    }
+                    lastError = new IOException("Registry " + registry.getUrl() + " answered HTTP " + code);
+                    if (code < 500) {
+                        logger.warn("Registry {} rejected {} with HTTP {}; trying the next registry", registry.getUrl(), artifactCode, code);
+                        recordRejected(registry.getUrl());
+                        break;
+                    }
+                } catch (IOException ex) {
+                    lastError = ex;
+                }
+                if (attempt >= maxRetries) {
+                    logger.warn("Publishing {} to {} failed {} times, giving up this registry: {}", artifactCode, registry.getUrl(), attempt + 1, lastError.getMessage());
+                    giveUpRegistry(r);
+                    break;
+                }
+                recordRetry(registry.getUrl());
+                try {
+                    Thread.sleep(retryBackoffMillis << attempt);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    handleFailed(np, ex);
+                    return;
+                }
+            }
+            r = Math.max(r + 1, getCurrentRegistry());
+            registry = getRegistry(r);
+        }
+        handleFailed(np, lastError == null ? new IOException("No registry available") : lastError);
+    }
+
+    private boolean isPublished(RegistryInfo registry, String artifactCode) {
+        if (knownArtifactCodes != null && !knownArtifactCodes.mightContain(artifactCode)) {
+            return false;
+        }
+        try {
+            HttpResponse response = httpClient.execute(new HttpHead(registry.getCollectionUrl() + artifactCode));
+            EntityUtils.consumeQuietly(response.getEntity());
+            return response.getStatusLine().getStatusCode() == 200;
+        } catch (IOException | IllegalArgumentException ex) {
+            // Uploading a nanopub that turns out to be there already does no harm:
+            logger.debug("Could not check whether {} has {}", registry.getUrl(), artifactCode, ex);
+            return false;
+        }
+    }
+
+    private int post(String url, String body) throws IOException {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new StringEntity(body, "UTF-8"));
+        post.setHeader("Content-Type", RDFFormat.TRIG.getDefaultMIMEType());
+        long start = System.nanoTime();
+        try {
+            HttpResponse response = httpClient.execute(post);
+            EntityUtils.consumeQuietly(response.getEntity());
+            int code = response.getStatusLine().getStatusCode();
+            if (code >= 200 && code < 300) {
+                latencyTracker.recordSuccess(url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } else {
+                latencyTracker.recordFailure(url);
+            }
+            return code;
+        } catch (IOException ex) {
+            latencyTracker.recordFailure(url);
+            throw ex;
+        }
+    }
+
+    private synchronized int getCurrentRegistry() {
+        return currentRegistry;
+    }
+
+    private synchronized RegistryInfo getRegistry(int index) {
+        while (registries.size() <= index && registryIterator.hasNext()) {
+            RegistryInfo registry = registryIterator.next();
+            if (registry != null) registries.add(registry);
+        }
+        return index < registries.size() ? registries.get(index) : null;
+    }
+
+    private synchronized void giveUpRegistry(int index) {
+        currentRegistry = Math.max(currentRegistry, index + 1);
+    }
+
+    private synchronized void recordPublished(String url) {
+        reports.computeIfAbsent(url, RegistryReport::new).publishedCount++;
+    }
+
+    private synchronized void recordRetry(String url) {
+        reports.computeIfAbsent(url, RegistryReport::new).retryCount++;
+    }
+
+    private synchronized void recordRejected(String url) {
+        reports.computeIfAbsent(url, RegistryReport::new).rejectedCount++;
+    }
+
+    private synchronized void recordSkipped(String url) {
+        reports.computeIfAbsent(url, RegistryReport::new).skippedCount++;
+    }
+
+    private void handlePublished(Nanopub np, String nanopubUrl) {
+        synchronized (handler) {
+            handler.handlePublished(np, nanopubUrl);
+        }
+    }
+
+    private void handleAlreadyPublished(Nanopub np, String nanopubUrl) {
+        synchronized (handler) {
+            handler.handleAlreadyPublished(np, nanopubUrl);
+        }
+    }
+
+    private void handleFailed(Nanopub np, Exception ex) {
+        synchronized (handler) {
+            handler.handleFailed(np, ex);
+        }
+    }
+
+    /**
+     * Statistics of the requests sent to a registry.
+     */
+    public static class RegistryReport {
+
+        private final String url;
+        private int publishedCount, skippedCount, retryCount, rejectedCount;
+        private double throughput;
+        private long medianLatencyMillis, p95LatencyMillis;
+
+        private RegistryReport(String url) {
+            this.url = url;
+        }
+
+        /**
+         * Returns the URL of the registry.
+         *
+         * @return the registry URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the number of nanopubs published at the registry.
+         *
+         * @return the number of published nanopubs
+         */
+        public int getPublishedCount() {
+            return publishedCount;
+        }
+
+        /**
+         * Returns the number of nanopubs that were not uploaded because the registry had them already.
+         *
+         * @return the number of skipped nanopubs
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        /**
+         * Returns the number of requests that were retried after a server or I/O error.
+         *
+         * @return the number of retries
+         */
+        public int getRetryCount() {
+            return retryCount;
+        }
+
+        /**
+         * Returns the number of nanopubs the registry rejected.
+         *
+         * @return the number of rejected nanopubs
+         */
+        public int getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * Returns the number of nanopubs published at the registry per second.
+         *
+         * @return the throughput
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        /**
+         * Returns the median latency of the successful requests.
+         *
+         * @return the latency in milliseconds, or -1 if there are too few successful requests
+         */
+        public long getMedianLatencyMillis() {
+            return medianLatencyMillis;
+        }
+
+        /**
+         * Returns the 95th percentile of the latency of the successful requests.
+         *
+         * @return the latency in milliseconds, or -1 if there are too few successful requests
+         */
+        public long getP95LatencyMillis() {
+            return p95LatencyMillis;
+        }
+
+    }
+
+    /**
+     * Handler for the results of the publisher. It is called from the worker threads, but never concurrently.
+     */
+    public interface Handler {
+
+        /**
+         * Called when a nanopub was published.
+         *
+         * @param np         the nanopub
+         * @param nanopubUrl the URL of the nanopub at the registry that accepted it
+         */
+        void handlePublished(Nanopub np, String nanopubUrl);
+
+        /**
+         * Called when a nanopub was not uploaded because the registry has it already. This only happens with
+         * {@link NanopubPublisher#setSkipPublished(boolean)}. The default implementation does nothing.
+         *
+         * @param np         the nanopub
+         * @param nanopubUrl the URL of the nanopub at the registry
+         */
+        default void handleAlreadyPublished(Nanopub np, String nanopubUrl) {
+        }
+
+        /**
+         * Called when a nanopub could not be published at any registry.
+         *
+         * @param np the nanopub
+         * @param ex the last error
+         */
+        void handleFailed(Nanopub np, Exception ex);
+
+    }
+
+}
@@ -2,10 +2,8 @@ package org.nanopub.extra.server;
 
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
-import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.vocabulary.XSD;
-import org.jspecify.annotations.NonNull;
 import org.nanopub.Nanopub;
 import org.nanopub.NanopubImpl;
 import org.nanopub.NanopubUtils;
@@ -19,8 +17,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
-import static org.nanopub.vocabulary.NPX.EXAMPLE_NANOPUB;
-
 /**
  * Verifies if a technically fine nanopublication meets some standards or best practices.
  */
@@ -30,9 +26,21 @@ public class NanopubVerifier {
 
     private final List<String> issues = new ArrayList<>();
     private final Nanopub nanopub;
+    private final UriRuleSet uriRules;
 
     public NanopubVerifier(Nanopub nanopub) {
+        this(nanopub, UriRuleSet.getDefault());
+    }
+
+    /**
+     * Creates a verifier that checks the URIs of the nanopub against the given rules instead of the default ones.
+     *
+     * @param nanopub  the nanopub to verify
+     * @param uriRules the URI rules, e.g. the default rules with some added house rules
+     */
+    public NanopubVerifier(Nanopub nanopub, UriRuleSet uriRules) {
         this.nanopub = nanopub;
+        this.uriRules = uriRules;
     }
 
     public List<String> getIssues() {
@@ -51,9 +59,7 @@ public class NanopubVerifier {
         checkGraph();
         checkTripleCount();
         checkByteCount();
-        checkUriProtocol();
-        checkExample();
-        checkBlacklist();
+        checkUris();
         checkLiteralDatatypes();
 
         if (issues.isEmpty()) {
@@ -64,44 +70,6 @@ public class NanopubVerifier {
         return issues.isEmpty();
     }
 
-    /**
-     * Check that no uri start with:
-     * - https://schema.org
-     * - http://orcid.org
-     */
-    private void checkBlacklist() {
-        Set<Statement> allStatements = getAllStatements();
-
-        for (Statement st : allStatements) {
-            if (uriIsOnBlacklist(st.getSubject())) {
-                issues.add("Unallowed uri: " + st.getSubject().stringValue());
-            }
-            if (uriIsOnBlacklist(st.getPredicate())) {
-                issues.add("Unallowed uri: " + st.getPredicate().stringValue());
-            }
-            if (st.getObject() instanceof IRI) {
-                if (uriIsOnBlacklist(((IRI) st.getObject()))) {
-                    issues.add("Unallowed uri: " + st.getObject().stringValue());
-                }
-            }
-        }
-    }
-
-    private boolean uriIsOnBlacklist(Resource uri) {
-        final List<String> BLACKLIST = Arrays.asList(
-                "https://schema.org",
-                "http://orcid.org",
-                "https://www.wikidata.org/entity/",
-                "https://www.wikidata.org/wiki/",
-                "http://www.wikidata.org/wiki/");
-        for (String forbiddenUrl : BLACKLIST) {
-            if (uri.stringValue().startsWith(forbiddenUrl)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Check that the value of each literal is valid for the datatype it declares. Such nanopubs are
      * refused by the signing step, but ones published before that check exist in the wild: they are
@@ -113,50 +81,6 @@ public class NanopubVerifier {
         }
     }
 
-    /**
-     * Check that only a nanopub of type example contains an example.com url.
-     */
-    private void checkExample() {
-        boolean isExample = checkIsExampleNanopub();
-
-        if (!isExample) {
-            Set<Statement> allStatements = getAllStatements();
-
-            for (Statement st : allStatements) {
-                if (uriContainsExample(st.getSubject())) {
-                    issues.add("Only Nanopubs of type 'example' should contain example uri: " + st.getSubject().stringValue());
-                }
-                if (uriContainsExample(st.getPredicate())) {
-                    issues.add("Only Nanopubs of type 'example' should contain example uri: " + st.getPredicate().stringValue());
-                }
-                if (st.getObject() instanceof IRI) {
-                    if (uriContainsExample(((IRI) st.getObject()))) {
-                        issues.add("Only Nanopubs of type 'example' should contain example uri: " + st.getObject().stringValue());
-                    }
-                }
-            }
-        }
-    }
-
-    private boolean uriContainsExample(Resource uri) {
-        if (uri.stringValue().startsWith("https://www.example.")) {
-            return true;
-        }
-        if (uri.stringValue().contains("https://www.example.")) {
-            return true;
-        }
-        return false;
-    }
-
-    private boolean checkIsExampleNanopub() {
-        for (IRI npType: NanopubUtils.getTypes(nanopub)) {
-            if (npType.equals(EXAMPLE_NANOPUB)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Check if the triple size is not greater than 1200
      */
@@ -166,33 +90,12 @@ public class NanopubVerifier {
         }
     }
 
-    private void checkUriProtocol() {
-        for (Statement st : getAllStatements()) {
-            if (!isHttpOrHttps(st.getSubject())) {
-                issues.add("Invalid URI protocol: " + st.getSubject().stringValue());
-            }
-            if (!isHttpOrHttps(st.getPredicate())) {
-                issues.add("Invalid URI protocol: " + st.getPredicate().stringValue());
-            }
-            if (st.getObject() instanceof IRI) {
-                if (!isHttpOrHttps(((IRI) st.getObject()))) {
-                    issues.add("Invalid URI protocol: " + st.getObject().stringValue());
-                }
-            }
-        }
-    }
-
-    private @NonNull Set<Statement> getAllStatements() {
-        Set<Statement> allStatements = new HashSet<>();
-        allStatements.addAll(nanopub.getHead());
-        allStatements.addAll(nanopub.getAssertion());
-        allStatements.addAll(nanopub.getProvenance());
-        allStatements.addAll(nanopub.getPubinfo());
-        return allStatements;
-    }
-
-    private boolean isHttpOrHttps(Resource uri) {
-        return uri.stringValue().startsWith("https://") || uri.stringValue().startsWith("http://");
+    /**
+     * Check the URIs of all statements against the URI rules, e.g. that they use HTTP(S) and no blacklisted
+     * namespaces. All rules are checked in a single pass over the statements.
+     */
+    private void checkUris() {
+        issues.addAll(uriRules.check(nanopub));
     }
 
     /**
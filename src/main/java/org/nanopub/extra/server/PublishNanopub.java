@@ -1,6 +1,8 @@
 package org.nanopub.extra.server;
 
 import com.beust.jcommander.ParameterException;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
 import net.trustyuri.ArtifactCode;
 import net.trustyuri.TrustyUriUtils;
 import org.apache.http.HttpResponse;
@@ -15,8 +17,16 @@ import org.nanopub.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -47,6 +57,18 @@ public class PublishNanopub extends CliRunner {
     @com.beust.jcommander.Parameter(names = "-s", description = "Get nanopubs to be published from given SPARQL endpoint")
     private String sparqlEndpointUrl;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of nanopubs to publish at the same time (default: one after the other)")
+    private int threads = 1;
+
+    @com.beust.jcommander.Parameter(names = "--retries", description = "Number of retries at the same registry after a server error or timeout when publishing with --threads")
+    private int retries = 3;
+
+    @com.beust.jcommander.Parameter(names = "--skip-published", description = "Check for each nanopub whether the registry has it already, and only upload the missing ones")
+    private boolean skipPublished;
+
+    @com.beust.jcommander.Parameter(names = "--published-log", description = "File with the artifact codes of published nanopubs, which is extended after publishing; with --skip-published, only the nanopubs in this file are checked at the registry")
+    private File publishedLog;
+
     /**
      * Main method to run the PublishNanopub command line tool.
      *
@@ -108,7 +130,9 @@ public class PublishNanopub extends CliRunner {
     private RegistryInfo registryInfo = null;
     private Map<String, Integer> usedServers = new HashMap<>();
     private int count;
-    private boolean failed;
+    private volatile boolean failed;
+    private NanopubPublisher publisher;
+    private Writer publishedLogWriter;
     private SPARQLRepository sparqlRepo;
     private ArtifactCode artifactCode;
 
@@ -149,6 +173,39 @@ public class PublishNanopub extends CliRunner {
 
     private void run() throws IOException {
         failed = false;
+        if ((threads > 1 || skipPublished || publishedLog != null) && !dryRun) {
+            publisher = new NanopubPublisher(createServerIterator(null), NanopubUtils.getHttpClient(), threads, new NanopubPublisher.Handler() {
+
+                @Override
+                public void handlePublished(Nanopub np, String nanopubUrl) {
+                    reportProgress("Published: " + nanopubUrl);
+                    logPublished(np);
+                }
+
+                @Override
+                public void handleAlreadyPublished(Nanopub np, String nanopubUrl) {
+                    reportProgress("Already published: " + nanopubUrl);
+                    logPublished(np);
+                }
+
+                @Override
+                public void handleFailed(Nanopub np, Exception ex) {
+                    logger.error("Failed to publish nanopub {}", np.getUri(), ex);
+                    if (verbose) {
+                        System.err.println(ex.getClass().getName() + ": " + ex.getMessage());
+                        System.err.println("---");
+                    }
+                    failed = true;
+                }
+
+            });
+            publisher.setMaxRetries(retries);
+            publisher.setSkipPublished(skipPublished);
+            if (publishedLog != null) {
+                publisher.setKnownArtifactCodes(readPublishedLog());
+                publishedLogWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(publishedLog, true), StandardCharsets.UTF_8));
+            }
+        }
         for (String s : nanopubs) {
             count = 0;
             try {
@@ -187,6 +244,31 @@ public class PublishNanopub extends CliRunner {
                 break;
             }
         }
+        if (publisher != null) {
+            // A failure noticed while reading has been reported above already:
+            boolean failureReported = failed;
+            try {
+                publisher.finish();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while publishing nanopubs");
+            } finally {
+                publisher.close();
+                if (publishedLogWriter != null) {
+                    publishedLogWriter.close();
+                }
+            }
+            if (failed && !failureReported) {
+                logger.error("Failed to publish nanopubs");
+                System.err.println("FAILED TO PUBLISH NANOPUBS");
+            }
+            for (NanopubPublisher.RegistryReport r : publisher.getReport()) {
+                int c = r.getPublishedCount();
+                System.out.println(c + " nanopub" + (c == 1 ? "" : "s") + " published at " + r.getUrl() +
+                                   String.format(" (%.1f/s, median latency %d ms, p95 latency %d ms, %d retries, %d rejected, %d already published)",
+                                           r.getThroughput(), r.getMedianLatencyMillis(), r.getP95LatencyMillis(), r.getRetryCount(), r.getRejectedCount(), r.getSkippedCount()));
+            }
+        }
         for (String s : usedServers.keySet()) {
             int c = usedServers.get(s);
             System.out.println(c + " nanopub" + (c == 1 ? "" : "s") + " published at " + s);
@@ -205,6 +287,20 @@ public class PublishNanopub extends CliRunner {
         if (count % 100 == 0) {
             System.err.print(count + " nanopubs...\r"); // TODO handle System.err with logging in a similar way to System.out with logOrSysout --> logAndSysERR ??
         }
+        if (publisher != null) {
+            // Only the requests run in parallel, the nanopubs are verified while reading:
+            if (!verify(nanopub)) return;
+            if (NanopubServerUtils.isProtectedNanopub(nanopub)) {
+                throw new RuntimeException("Can't publish protected nanopublication: " + nanopub.getUri());
+            }
+            try {
+                publisher.submit(nanopub);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failed = true;
+            }
+            return;
+        }
         try {
             publishNanopub(nanopub);
         } catch (IOException ex) {
@@ -237,25 +333,12 @@ public class PublishNanopub extends CliRunner {
      * @throws java.io.IOException if an error occurs during publishing
      */
     public String publishNanopub(Nanopub nanopub, String serverUrl) throws IOException {
-        NanopubVerifier verifier = new NanopubVerifier(nanopub);
-        if (verifier.verify()) {
-            logger.debug("Verification of nanopub {} done, no issues", nanopub.getUri());
-        } else {
-            logger.warn("Verification of nanopub {} shows some issues: {}", nanopub.getUri(), verifier.getIssues());
-            if (strict) {
-                logger.warn("Strict mode: nanopub {} is not published", nanopub.getUri());
-                return null;
-            }
+        if (!verify(nanopub)) {
+            return null;
         }
 
         if (registryInfo == null) {
-            if (serverUrl != null) {
-                serverIterator = new ServerIterator(serverUrl);
-            } else if (serverUrls == null || serverUrls.isEmpty()) {
-                serverIterator = new ServerIterator();
-            } else {
-                serverIterator = new ServerIterator(serverUrls);
-            }
+            serverIterator = createServerIterator(serverUrl);
             registryInfo = serverIterator.next();
         }
         artifactCode = ArtifactCode.of(TrustyUriUtils.getArtifactCode(nanopub.getUri().toString()));
@@ -295,6 +378,64 @@ public class PublishNanopub extends CliRunner {
         }
     }
 
+    /**
+     * Verifies the nanopub and logs the issues.
+     *
+     * @return false if the nanopub has issues and must not be published in strict mode
+     */
+    private boolean verify(Nanopub nanopub) {
+        NanopubVerifier verifier = new NanopubVerifier(nanopub);
+        if (verifier.verify()) {
+            logger.debug("Verification of nanopub {} done, no issues", nanopub.getUri());
+        } else {
+            logger.warn("Verification of nanopub {} shows some issues: {}", nanopub.getUri(), verifier.getIssues());
+            if (strict) {
+                logger.warn("Strict mode: nanopub {} is not published", nanopub.getUri());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BloomFilter<CharSequence> readPublishedLog() throws IOException {
+        long count = 0;
+        if (publishedLog.exists()) {
+            try (var lines = Files.lines(publishedLog.toPath(), StandardCharsets.UTF_8)) {
+                count = lines.count();
+            }
+        }
+        BloomFilter<CharSequence> filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(1000, count), 0.01);
+        if (count > 0) {
+            try (BufferedReader reader = Files.newBufferedReader(publishedLog.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty()) filter.put(line);
+                }
+            }
+        }
+        return filter;
+    }
+
+    private void logPublished(Nanopub np) {
+        if (publishedLogWriter == null) return;
+        try {
+            publishedLogWriter.write(TrustyUriUtils.getArtifactCode(np.getUri().stringValue()) + "\n");
+        } catch (IOException ex) {
+            logger.warn("Could not write to {}", publishedLog, ex);
+        }
+    }
+
+    private ServerIterator createServerIterator(String serverUrl) {
+        if (serverUrl != null) {
+            return new ServerIterator(serverUrl);
+        } else if (serverUrls == null || serverUrls.isEmpty()) {
+            return new ServerIterator();
+        } else {
+            return new ServerIterator(serverUrls);
+        }
+    }
+
     private HttpPost preparePost(Nanopub nanopub) throws IOException {
         HttpPost post = new HttpPost(registryInfo.getUrl());
         String nanopubString = NanopubUtils.writeToString(nanopub, RDFFormat.TRIG);
@@ -0,0 +1,198 @@
+package org.nanopub.extra.server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps latency histograms of the requests to the nanopub registries. They are used to try the registries that are
+ * expected to answer fastest first, and to decide how long to wait for a registry before sending a hedged request to
+ * the next one.
+ * <p>
+ * The histograms have logarithmic buckets from 1 ms to about a minute, each about 19% wider than the previous one,
+ * so percentiles are reported with that precision. Old measurements fade out: once a registry has many of them, all
+ * counts are halved.
+ */
+public class RegistryLatencyTracker {
+
+    private static final RegistryLatencyTracker defaultTracker = new RegistryLatencyTracker();
+
+    private static final int BUCKET_COUNT = 64;
+    private static final double BUCKET_FACTOR = Math.pow(2, 0.25);
+    private static final int MAX_SAMPLES = 1000;
+    private static final int MIN_SAMPLES = 5;
+    private static final long FAILURE_PENALTY_MILLIS = 10000;
+
+    private final double percentile;
+    private final long defaultDelayMillis;
+    private final long minDelayMillis;
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tracker that uses the 95th percentile as hedge delay, with a default of one second for registries
+     * with too few measurements.
+     */
+    public RegistryLatencyTracker() {
+        this(0.95, 1000, 20);
+    }
+
+    /**
+     * Creates a tracker.
+     *
+     * @param percentile         the latency percentile to use as hedge delay, e.g. 0.95
+     * @param defaultDelayMillis the hedge delay for registries with too few measurements
+     * @param minDelayMillis     the lower bound of the hedge delay
+     */
+    public RegistryLatencyTracker(double percentile, long defaultDelayMillis, long minDelayMillis) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be in (0, 1]: " + percentile);
+        }
+        this.percentile = percentile;
+        this.defaultDelayMillis = defaultDelayMillis;
+        this.minDelayMillis = minDelayMillis;
+    }
+
+    /**
+     * Returns the tracker shared by all requests of this JVM.
+     *
+     * @return the default tracker
+     */
+    public static RegistryLatencyTracker getDefault() {
+        return defaultTracker;
+    }
+
+    /**
+     * Records the latency of a request that the registry answered properly. This includes client errors like 404
+     * for a nanopub that the registry does not have.
+     *
+     * @param registryUrl   the registry URL
+     * @param latencyMillis the time until the response was read, in milliseconds
+     */
+    public void recordSuccess(String registryUrl, long latencyMillis) {
+        getHistogram(registryUrl).addSuccess(latencyMillis);
+    }
+
+    /**
+     * Records a failed request (server error, timeout, invalid nanopub, ...).
+     *
+     * @param registryUrl the registry URL
+     */
+    public void recordFailure(String registryUrl) {
+        getHistogram(registryUrl).addFailure();
+    }
+
+    /**
+     * Returns the given latency percentile of a registry.
+     *
+     * @param registryUrl the registry URL
+     * @param p           the percentile, e.g. 0.5 for the median
+     * @return the latency in milliseconds, or -1 if there are too few measurements
+     */
+    public long getPercentile(String registryUrl, double p) {
+        Histogram h = histograms.get(registryUrl);
+        return h == null ? -1 : h.getPercentile(p);
+    }
+
+    /**
+     * Returns how long to wait for a response of a registry before sending a hedged request to another registry.
+     *
+     * @param registryUrl the registry URL
+     * @return the delay in milliseconds
+     */
+    public long getHedgeDelay(String registryUrl) {
+        long delay = getPercentile(registryUrl, percentile);
+        if (delay < 0) return defaultDelayMillis;
+        return Math.max(minDelayMillis, delay);
+    }
+
+    /**
+     * Returns the registries sorted by their expected latency, which is the median latency plus a penalty for the
+     * share of failed requests. Registries with too few measurements are expected to take the default delay. The
+     * sort is stable, so registries that cannot be told apart keep their order.
+     *
+     * @param registries the registries
+     * @return a new sorted list
+     */
+    public List<RegistryInfo> sortByExpectedLatency(List<RegistryInfo> registries) {
+        List<RegistryInfo> sorted = new ArrayList<>(registries);
+        sorted.sort(Comparator.comparingDouble(r -> getExpectedLatency(r.getUrl())));
+        return sorted;
+    }
+
+    /**
+     * Returns the expected latency of a registry, as used by {@link #sortByExpectedLatency(List)}.
+     *
+     * @param registryUrl the registry URL
+     * @return the expected latency in milliseconds
+     */
+    public double getExpectedLatency(String registryUrl) {
+        Histogram h = histograms.get(registryUrl);
+        if (h == null) return defaultDelayMillis;
+        return h.getExpectedLatency(defaultDelayMillis);
+    }
+
+    private Histogram getHistogram(String registryUrl) {
+        return histograms.computeIfAbsent(registryUrl, url -> new Histogram());
+    }
+
+    private static int getBucket(long millis) {
+        if (millis <= 1) return 0;
+        int bucket = (int) (Math.log(millis) / Math.log(BUCKET_FACTOR));
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private static long getBucketUpperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(BUCKET_FACTOR, bucket + 1));
+    }
+
+    private static class Histogram {
+
+        private final long[] counts = new long[BUCKET_COUNT];
+        private long successes;
+        private long failures;
+
+        synchronized void addSuccess(long millis) {
+            counts[getBucket(millis)]++;
+            successes++;
+            decayIfFull();
+        }
+
+        synchronized void addFailure() {
+            failures++;
+            decayIfFull();
+        }
+
+        private void decayIfFull() {
+            if (successes + failures < MAX_SAMPLES) return;
+            successes = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] /= 2;
+                successes += counts[i];
+            }
+            failures /= 2;
+        }
+
+        synchronized long getPercentile(double p) {
+            if (successes < MIN_SAMPLES) return -1;
+            long rank = (long) Math.ceil(p * successes);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) return getBucketUpperBound(i);
+            }
+            return getBucketUpperBound(BUCKET_COUNT - 1);
+        }
+
+        synchronized double getExpectedLatency(long defaultMillis) {
+            long total = successes + failures;
+            if (total == 0) return defaultMillis;
+            long median = getPercentile(0.5);
+            if (median < 0) median = defaultMillis;
+            return median + FAILURE_PENALTY_MILLIS * (double) failures / total;
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.nanopub.extra.server;
+
+import org.nanopub.Nanopub;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A rule on the URIs used in a nanopub: the subjects, predicates and URI objects of all its statements. A rule is
+ * defined by a set of patterns, which either must not occur in any URI (e.g. a blacklist of prefixes) or of which one
+ * must occur in each URI (e.g. the allowed protocols). Rules are combined in a {@link UriRuleSet}, which checks all
+ * of them in a single pass over the statements. Instances are immutable.
+ */
+public class UriRule {
+
+    private final String issue;
+    private final List<String> prefixes;
+    private final List<String> substrings;
+    private final boolean required;
+    private final Predicate<Nanopub> condition;
+
+    private UriRule(String issue, List<String> prefixes, List<String> substrings, boolean required, Predicate<Nanopub> condition) {
+        if (prefixes.isEmpty() && substrings.isEmpty()) {
+            throw new IllegalArgumentException("URI rule without patterns: " + issue);
+        }
+        for (String pattern : prefixes) {
+            if (pattern.isEmpty()) throw new IllegalArgumentException("Empty pattern in URI rule: " + issue);
+        }
+        for (String pattern : substrings) {
+            if (pattern.isEmpty()) throw new IllegalArgumentException("Empty pattern in URI rule: " + issue);
+        }
+        this.issue = issue;
+        this.prefixes = prefixes;
+        this.substrings = substrings;
+        this.required = required;
+        this.condition = condition;
+    }
+
+    /**
+     * Creates a rule that reports each URI starting with one of the given prefixes.
+     *
+     * @param issue    the issue reported for a matching URI, followed by a colon and the URI
+     * @param prefixes the forbidden prefixes
+     * @return the rule
+     */
+    public static UriRule forbidPrefixes(String issue, String... prefixes) {
+        return new UriRule(issue, List.of(prefixes), List.of(), false, null);
+    }
+
+    /**
+     * Creates a rule that reports each URI containing one of the given strings.
+     *
+     * @param issue      the issue reported for a matching URI, followed by a colon and the URI
+     * @param substrings the forbidden strings
+     * @return the rule
+     */
+    public static UriRule forbidSubstrings(String issue, String... substrings) {
+        return new UriRule(issue, List.of(), List.of(substrings), false, null);
+    }
+
+    /**
+     * Creates a rule that reports each URI that does not start with one of the given prefixes.
+     *
+     * @param issue    the issue reported for a URI that does not match, followed by a colon and the URI
+     * @param prefixes the allowed prefixes
+     * @return the rule
+     */
+    public static UriRule requirePrefixes(String issue, String... prefixes) {
+        return new UriRule(issue, List.of(prefixes), List.of(), true, null);
+    }
+
+    /**
+     * Returns a copy of this rule that is only applied to the nanopubs that satisfy the given condition.
+     *
+     * @param condition the condition, which is evaluated once per nanopub before its URIs are checked
+     * @return the new rule
+     */
+    public UriRule onlyIf(Predicate<Nanopub> condition) {
+        return new UriRule(issue, prefixes, substrings, required, condition);
+    }
+
+    /**
+     * Returns the issue reported by this rule, without the URI.
+     *
+     * @return the issue
+     */
+    public String getIssue() {
+        return issue;
+    }
+
+    /**
+     * Returns the prefixes of this rule.
+     *
+     * @return the prefixes
+     */
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    /**
+     * Returns the patterns of this rule that can occur anywhere in a URI.
+     *
+     * @return the substrings
+     */
+    public List<String> getSubstrings() {
+        return substrings;
+    }
+
+    /**
+     * Returns whether each URI has to match one of the patterns, rather than none of them.
+     *
+     * @return true if a match is required, false if matches are forbidden
+     */
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * Checks if this rule applies to the given nanopub.
+     *
+     * @param nanopub the nanopub
+     * @return true if the rule applies, false otherwise
+     */
+    public boolean appliesTo(Nanopub nanopub) {
+        return condition == null || condition.test(nanopub);
+    }
+
+}
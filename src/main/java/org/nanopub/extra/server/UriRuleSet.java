@@ -0,0 +1,279 @@
+package org.nanopub.extra.server;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+
+import java.util.*;
+
+import static org.nanopub.vocabulary.NPX.EXAMPLE_NANOPUB;
+
+/**
+ * A set of {@link UriRule}s compiled into a single Aho-Corasick automaton. Checking a nanopub scans each URI of its
+ * statements once for the patterns of all rules, instead of checking each rule and pattern separately, so adding
+ * rules does not add passes over the statements. Instances are immutable and thread-safe.
+ */
+public class UriRuleSet {
+
+    /**
+     * Reports URIs that use another protocol than HTTP or HTTPS.
+     */
+    public static final UriRule HTTP_PROTOCOL = UriRule.requirePrefixes("Invalid URI protocol", "https://", "http://");
+
+    /**
+     * Reports example.* URIs in nanopubs that are not of type {@code npx:ExampleNanopub}.
+     */
+    public static final UriRule EXAMPLE_URIS = UriRule.forbidSubstrings("Only Nanopubs of type 'example' should contain example uri",
+            "https://www.example.").onlyIf(np -> !NanopubUtils.getTypes(np).contains(EXAMPLE_NANOPUB));
+
+    /**
+     * Reports URIs of namespaces that should not be used in nanopubs.
+     */
+    public static final UriRule BLACKLIST = UriRule.forbidPrefixes("Unallowed uri",
+            "https://schema.org",
+            "http://orcid.org",
+            "https://www.wikidata.org/entity/",
+            "https://www.wikidata.org/wiki/",
+            "http://www.wikidata.org/wiki/");
+
+    private static final UriRuleSet defaultRuleSet = new UriRuleSet(List.of(HTTP_PROTOCOL, EXAMPLE_URIS, BLACKLIST));
+
+    private final List<UriRule> rules;
+
+    // The automaton as a table of transitions, indexed by state and character class:
+    private final int[] asciiClasses = new int[128];
+    private final char[] otherChars;
+    private final int classCount;
+    private final int[] transitions;
+    private final int[][] stateOutputs;
+
+    // Per pattern:
+    private final int[] patternRules;
+    private final int[] patternLengths;
+    private final boolean[] patternAnchored;
+
+    // Without substring patterns, only the beginning of a URI needs to be scanned:
+    private final int scanLength;
+
+    /**
+     * Compiles a rule set.
+     *
+     * @param rules the rules; their issues are reported in this order
+     */
+    public UriRuleSet(List<UriRule> rules) {
+        this.rules = List.copyOf(rules);
+
+        List<String> patterns = new ArrayList<>();
+        List<Integer> rulesOfPatterns = new ArrayList<>();
+        List<Boolean> anchored = new ArrayList<>();
+        for (int r = 0; r < this.rules.size(); r++) {
+            for (String prefix : this.rules.get(r).getPrefixes()) {
+                patterns.add(prefix);
+                rulesOfPatterns.add(r);
+                anchored.add(true);
+            }
+            for (String substring : this.rules.get(r).getSubstrings()) {
+                patterns.add(substring);
+                rulesOfPatterns.add(r);
+                anchored.add(false);
+            }
+        }
+        patternRules = new int[patterns.size()];
+        patternLengths = new int[patterns.size()];
+        patternAnchored = new boolean[patterns.size()];
+        int maxPrefixLength = 0;
+        boolean hasSubstrings = false;
+        for (int p = 0; p < patterns.size(); p++) {
+            patternRules[p] = rulesOfPatterns.get(p);
+            patternLengths[p] = patterns.get(p).length();
+            patternAnchored[p] = anchored.get(p);
+            if (patternAnchored[p]) {
+                maxPrefixLength = Math.max(maxPrefixLength, patternLengths[p]);
+            } else {
+                hasSubstrings = true;
+            }
+        }
+        scanLength = hasSubstrings ? Integer.MAX_VALUE : maxPrefixLength;
+
+        // Character class 0 stands for all characters that occur in no pattern:
+        SortedSet<Character> others = new TreeSet<>();
+        int classes = 1;
+        for (String pattern : patterns) {
+            for (char c : pattern.toCharArray()) {
+                if (c < 128) {
+                    if (asciiClasses[c] == 0) asciiClasses[c] = classes++;
+                } else {
+                    others.add(c);
+                }
+            }
+        }
+        otherChars = new char[others.size()];
+        int i = 0;
+        for (char c : others) {
+            otherChars[i++] = c;
+        }
+        classCount = classes + otherChars.length;
+
+        // Trie of all patterns:
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        children.add(newRow());
+        outputs.add(new ArrayList<>());
+        for (int p = 0; p < patterns.size(); p++) {
+            int state = 0;
+            for (char c : patterns.get(p).toCharArray()) {
+                int cls = getCharClass(c);
+                if (children.get(state)[cls] == 0) {
+                    children.get(state)[cls] = children.size();
+                    children.add(newRow());
+                    outputs.add(new ArrayList<>());
+                }
+                state = children.get(state)[cls];
+            }
+            outputs.get(state).add(p);
+        }
+
+        // Failure links, resolved into a complete transition table in breadth-first order:
+        int states = children.size();
+        transitions = new int[states * classCount];
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < classCount; cls++) {
+            int child = children.get(0)[cls];
+            transitions[cls] = child;
+            if (child != 0) queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs.get(state).addAll(outputs.get(failure[state]));
+            for (int cls = 0; cls < classCount; cls++) {
+                int child = children.get(state)[cls];
+                if (child != 0) {
+                    failure[child] = transitions[failure[state] * classCount + cls];
+                    transitions[state * classCount + cls] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * classCount + cls] = transitions[failure[state] * classCount + cls];
+                }
+            }
+        }
+        stateOutputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            stateOutputs[s] = outputs.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Returns the rule set with the default rules {@link #HTTP_PROTOCOL}, {@link #EXAMPLE_URIS} and
+     * {@link #BLACKLIST}.
+     *
+     * @return the default rule set
+     */
+    public static UriRuleSet getDefault() {
+        return defaultRuleSet;
+    }
+
+    /**
+     * Compiles a new rule set with the rules of this one and the given additional rules.
+     *
+     * @param additionalRules the rules to add
+     * @return the new rule set
+     */
+    public UriRuleSet with(UriRule... additionalRules) {
+        List<UriRule> combined = new ArrayList<>(rules);
+        combined.addAll(Arrays.asList(additionalRules));
+        return new UriRuleSet(combined);
+    }
+
+    /**
+     * Returns the rules of this rule set.
+     *
+     * @return the unmodifiable list of rules
+     */
+    public List<UriRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Checks the URIs of all statements of a nanopub against the rules that apply to it.
+     *
+     * @param nanopub the nanopub
+     * @return the issues, grouped by rule in the order of the rules
+     */
+    public List<String> check(Nanopub nanopub) {
+        Evaluation evaluation = new Evaluation(nanopub);
+        if (evaluation.hasActiveRules) {
+            for (Set<Statement> graph : List.of(nanopub.getHead(), nanopub.getAssertion(), nanopub.getProvenance(), nanopub.getPubinfo())) {
+                for (Statement st : graph) {
+                    evaluation.check(st.getSubject().stringValue());
+                    evaluation.check(st.getPredicate().stringValue());
+                    if (st.getObject() instanceof IRI) {
+                        evaluation.check(st.getObject().stringValue());
+                    }
+                }
+            }
+        }
+        List<String> issues = new ArrayList<>();
+        for (List<String> ruleIssues : evaluation.issues) {
+            issues.addAll(ruleIssues);
+        }
+        return issues;
+    }
+
+    private int[] newRow() {
+        return new int[classCount];
+    }
+
+    private int getCharClass(char c) {
+        if (c < 128) return asciiClasses[c];
+        int i = Arrays.binarySearch(otherChars, c);
+        return i < 0 ? 0 : classCount - otherChars.length + i;
+    }
+
+    /**
+     * The state of checking the URIs of one nanopub.
+     */
+    private class Evaluation {
+
+        private final boolean[] active = new boolean[rules.size()];
+        private final List<List<String>> issues = new ArrayList<>();
+        private boolean hasActiveRules = false;
+
+        // The number of the URI for which each rule matched last, which saves resetting the matches for each URI:
+        private final int[] matchedUri = new int[rules.size()];
+        private int uriCount = 0;
+
+        private Evaluation(Nanopub nanopub) {
+            for (int r = 0; r < rules.size(); r++) {
+                active[r] = rules.get(r).appliesTo(nanopub);
+                hasActiveRules |= active[r];
+                issues.add(new ArrayList<>());
+            }
+        }
+
+        private void check(String uri) {
+            uriCount++;
+            int state = 0;
+            int length = Math.min(uri.length(), scanLength);
+            for (int i = 0; i < length; i++) {
+                state = transitions[state * classCount + getCharClass(uri.charAt(i))];
+                for (int p : stateOutputs[state]) {
+                    // Prefixes only count if they start at the beginning of the URI:
+                    if (patternAnchored[p] && i + 1 != patternLengths[p]) continue;
+                    matchedUri[patternRules[p]] = uriCount;
+                }
+            }
+            for (int r = 0; r < rules.size(); r++) {
+                if (!active[r]) continue;
+                UriRule rule = rules.get(r);
+                boolean matched = matchedUri[r] == uriCount;
+                if (matched != rule.isRequired()) {
+                    issues.get(r).add(rule.getIssue() + ": " + uri);
+                }
+            }
+        }
+
+    }
+
+}
@@ -17,6 +17,7 @@ import org.nanopub.MalformedNanopubException;
 import org.nanopub.Nanopub;
 import org.nanopub.NanopubImpl;
 import org.nanopub.NanopubUtils;
+import org.nanopub.NanopubValueFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -132,6 +133,8 @@ public class JellyUtils {
             ArrayList<Pair<String, String>> namespaces
     ) {
         final var quadMaker = Rdf4jConverterFactory.getInstance().decoderConverter();
+        // The decoder creates its own IRIs, so the ones that occur in many nanopubs are replaced by shared instances:
+        final var valueFactory = NanopubValueFactory.getInstance();
         final var handler = new RdfHandler.QuadHandler<Value>() {
             @Override
             public void handleNamespace(String prefix, Value namespace) {
@@ -140,7 +143,8 @@ public class JellyUtils {
 
             @Override
             public void handleQuad(Value subject, Value predicate, Value object, Value graph) {
-                statements.add(quadMaker.makeQuad(subject, predicate, object, graph));
+                statements.add(quadMaker.makeQuad(valueFactory.intern(subject), valueFactory.intern(predicate),
+                        valueFactory.intern(object), valueFactory.intern(graph)));
             }
         };
 
@@ -12,6 +12,7 @@ import org.nanopub.CliRunner;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.MultiNanopubRdfHandler;
 import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
 
 import java.io.*;
 import java.util.*;
@@ -40,6 +41,9 @@ public class Aggregate extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--in-format", description = "Format of the input nanopubs: trig, nq, trix, trig.gz, ...")
     private String inFormat;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for parsing the input nanopubs")
+    private int threads = 1;
+
     /**
      * Main method to run the Aggregate operation.
      *
@@ -100,7 +104,7 @@ public class Aggregate extends CliRunner {
                 rdfInFormat = Rio.getParserFormatForFileName(inputFile.toString()).orElse(null);
             }
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, np -> {
+            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.EAGER, threads, true, np -> {
                 try {
                     process(np);
                 } catch (RDFHandlerException | IOException ex) {
@@ -10,6 +10,7 @@ import org.nanopub.CliRunner;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.MultiNanopubRdfHandler;
 import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -32,6 +33,9 @@ public class Count extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--in-format", description = "Format of the input nanopubs: trig, nq, trix, trig.gz, ...")
     private String inFormat;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for parsing the input nanopubs")
+    private int threads = 1;
+
     /**
      * Main method to run the Count utility.
      *
@@ -92,7 +96,7 @@ public class Count extends CliRunner {
                 rdfInFormat = Rio.getParserFormatForFileName(inputFile.toString()).orElse(null);
             }
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, this::countTriples);
+            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.SKIP, threads, true, this::countTriples);
             if (tableFile == null) {
                 System.out.println("Nanopublications: " + npCount);
                 System.out.println("Head triples: " + headCount + " (average: " + ((((float) headCount)) / npCount) + ")");
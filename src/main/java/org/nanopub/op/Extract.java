@@ -9,6 +9,7 @@ import org.nanopub.CliRunner;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.MultiNanopubRdfHandler;
 import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -45,6 +46,9 @@ public class Extract extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--in-format", description = "Format of the input nanopubs: trig, nq, trix, trig.gz, ...")
     private String inFormat;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for parsing the input nanopubs (output order is preserved)")
+    private int threads = 1;
+
     @com.beust.jcommander.Parameter(names = "--out-format", description = "Format of the output nanopubs: trig, nq, trix, trig.gz, ...")
     private String outFormat;
 
@@ -94,7 +98,7 @@ public class Extract extends CliRunner {
             writer = Rio.createWriter(rdfOutFormat, new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
             writer.startRDF();
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, np -> {
+            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.EAGER, threads, true, np -> {
                 try {
                     process(np);
                 } catch (RDFHandlerException ex) {
@@ -15,6 +15,7 @@ import org.nanopub.*;
 import org.nanopub.vocabulary.NPX;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -54,6 +55,9 @@ public class Filter extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--out-format", description = "Format of the output nanopubs: trig, nq, trix, trig.gz, ...")
     private String outFormat;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for filtering and serializing (output order is preserved)")
+    private int threads = 1;
+
     /**
      * Main method to run the filter command-line utility.
      *
@@ -126,13 +130,19 @@ public class Filter extends CliRunner {
                 }
             }
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, np -> {
-                try {
-                    process(np);
-                } catch (RDFHandlerException ex) {
-                    throw new RuntimeException(ex);
-                }
-            });
+            if (threads > 1) {
+                MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.SKIP, threads,
+                        np -> matchesFilter(np) ? NanopubUtils.writeToString(np, rdfOutFormat) : null,
+                        s -> outputStream.write(s.getBytes(StandardCharsets.UTF_8)));
+            } else {
+                MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.SKIP, np -> {
+                    try {
+                        process(np);
+                    } catch (RDFHandlerException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+            }
 
             outputStream.flush();
             if (outputStream != System.out) {
@@ -10,6 +10,7 @@ import org.nanopub.CliRunner;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.MultiNanopubRdfHandler;
 import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
 import org.nanopub.op.fingerprint.DefaultFingerprints;
 import org.nanopub.op.fingerprint.FingerprintHandler;
 
@@ -32,6 +33,9 @@ public class Fingerprint extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--in-format", description = "Format of the input nanopubs: trig, nq, trix, trig.gz, ...")
     private String inFormat;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for parsing the input nanopubs and computing their fingerprints (output order is preserved)")
+    private int threads = 1;
+
     @com.beust.jcommander.Parameter(names = "--ignore-head", description = "Ignore the head graph for fingerprint calculation")
     private boolean ignoreHead;
 
@@ -132,13 +136,9 @@ public class Fingerprint extends CliRunner {
 
             writer = new BufferedWriter(new OutputStreamWriter(outputStream));
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, np -> {
-                try {
-                    writer.write(np.getUri() + " " + getFingerprint(np) + "\n");
-                } catch (RDFHandlerException | IOException ex) {
-                    throw new RuntimeException(ex);
-                }
-            });
+            // The fingerprints are computed on the worker threads, and written in input order:
+            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.EAGER, threads,
+                    np -> np.getUri() + " " + getFingerprint(np) + "\n", line -> writer.write(line));
 
             writer.flush();
             if (outputStream != System.out) {
@@ -3,6 +3,7 @@ package org.nanopub.op;
 import com.beust.jcommander.ParameterException;
 import net.trustyuri.TrustyUriException;
 import net.trustyuri.TrustyUriUtils;
+import org.apache.commons.lang3.tuple.Triple;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
@@ -66,6 +67,9 @@ public class Reuse extends CliRunner {
     @com.beust.jcommander.Parameter(names = "-t", description = "Topic options")
     private String topicOptions;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for computing fingerprints and topics of the input nanopubs")
+    private int threads = 1;
+
     /**
      * Main method to run the Reuse command-line utility.
      *
@@ -218,13 +222,11 @@ public class Reuse extends CliRunner {
                 }
             }
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, np -> {
-                try {
-                    process(np);
-                } catch (Exception ex) {
-                    throw new RuntimeException(ex);
-                }
-            });
+            // Fingerprints and topics are computed on the worker threads; the matching against the reusable
+            // nanopubs and the output happen in input order:
+            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.LAZY, threads,
+                    np -> Triple.of(np, fingerprint.getFingerprint(np), addSupersedesBacklinks ? topic.getTopic(np) : null),
+                    r -> process(r.getLeft(), r.getMiddle(), r.getRight()));
 
             outputStream.flush();
             if (outputStream != System.out) {
@@ -271,13 +273,8 @@ public class Reuse extends CliRunner {
         }
     }
 
-    private void process(Nanopub np) throws IOException, RDFHandlerException, MalformedNanopubException, TrustyUriException {
+    private void process(Nanopub np, String fp, String t) throws IOException, RDFHandlerException, MalformedNanopubException, TrustyUriException {
         inputCount++;
-        String fp = fingerprint.getFingerprint(np);
-        String t = null;
-        if (addSupersedesBacklinks) {
-            t = topic.getTopic(np);
-        }
         String uri = np.getUri().toString();
         if (reusableNanopubs.containsKey(fp)) {
             reuseCount++;
@@ -10,6 +10,7 @@ import org.nanopub.CliRunner;
 import org.nanopub.MalformedNanopubException;
 import org.nanopub.MultiNanopubRdfHandler;
 import org.nanopub.Nanopub;
+import org.nanopub.NanopubImpl;
 import org.nanopub.op.topic.DefaultTopics;
 
 import java.io.*;
@@ -31,6 +32,9 @@ public class Topic extends CliRunner {
     @com.beust.jcommander.Parameter(names = "--in-format", description = "Format of the input nanopubs: trig, nq, trix, trig.gz, ...")
     private String inFormat;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for parsing the input nanopubs and computing their topics (output order is preserved)")
+    private int threads = 1;
+
     @com.beust.jcommander.Parameter(names = "-i", description = "Property URIs to ignore, separated by '|' (has no effect if -d is set)")
     private String ignoreProperties;
 
@@ -122,13 +126,9 @@ public class Topic extends CliRunner {
 
             writer = new BufferedWriter(new OutputStreamWriter(outputStream));
 
-            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, np -> {
-                try {
-                    writer.write(np.getUri() + " " + getTopic(np) + "\n");
-                } catch (IOException ex) {
-                    throw new RuntimeException(ex);
-                }
-            });
+            // The topics are computed on the worker threads, and written in input order:
+            MultiNanopubRdfHandler.process(rdfInFormat, inputFile, NanopubImpl.TrustyCheck.SKIP, threads,
+                    np -> np.getUri() + " " + getTopic(np) + "\n", line -> writer.write(line));
 
             writer.flush();
             if (outputStream != System.out) {
@@ -0,0 +1,189 @@
+package org.nanopub.trusty;
+
+import net.trustyuri.ArtifactCode;
+import net.trustyuri.TrustyUriUtils;
+import net.trustyuri.rdf.RdfHasher;
+import net.trustyuri.rdf.RdfModule;
+import net.trustyuri.rdf.RdfPreprocessor;
+import net.trustyuri.rdf.StatementComparator;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+import org.nanopub.vocabulary.NPX;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The canonical form of a nanopub: its statements after the preprocessing for the trusty URI, in the sorted order in
+ * which they are hashed. Checking a signed trusty nanopub needs this form twice, as the artifact code is computed from
+ * all statements and the signature from the same statements without the signature itself. This class computes the
+ * form once and derives both hash inputs from it.
+ * <p>
+ * The preprocessing numbers blank nodes in the order in which it sees them, and signatures are computed from the
+ * statements in graph order, whereas the artifact code is computed from the sorted statements. The signature input is
+ * therefore only derived from the canonical form if the nanopub has no blank nodes.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class CanonicalNanopub {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanonicalNanopub.class);
+
+    private final Nanopub nanopub;
+    private final String artifactCode;
+
+    private boolean hasBlankNodes;
+    private List<Statement> statements;
+    private Boolean validTrusty;
+
+    /**
+     * Creates the canonicalization context for a nanopub. The statements are only preprocessed and sorted when they
+     * are needed for the first time.
+     *
+     * @param nanopub the nanopub
+     */
+    public CanonicalNanopub(Nanopub nanopub) {
+        this.nanopub = nanopub;
+        this.artifactCode = TrustyUriUtils.getArtifactCode(nanopub.getUri().toString());
+    }
+
+    /**
+     * Returns the nanopub.
+     *
+     * @return the nanopub
+     */
+    public Nanopub getNanopub() {
+        return nanopub;
+    }
+
+    /**
+     * Returns the artifact code of the nanopub URI.
+     *
+     * @return the artifact code, or null if the nanopub URI is not a trusty URI
+     */
+    public String getArtifactCode() {
+        return artifactCode;
+    }
+
+    /**
+     * Returns the preprocessed statements of the nanopub in canonical order, without duplicates.
+     *
+     * @return the unmodifiable list of statements
+     * @throws java.lang.IllegalStateException if the nanopub URI is not a trusty URI
+     */
+    public List<Statement> getStatements() {
+        if (statements == null) {
+            if (artifactCode == null) {
+                throw new IllegalStateException("Nanopub URI carries no artifact code: " + nanopub.getUri());
+            }
+            List<Statement> preprocessed = RdfPreprocessor.run(getStatementsForHashing(), artifactCode);
+            statements = Collections.unmodifiableList(StreamingRdfHasher.sort(preprocessed));
+        }
+        return statements;
+    }
+
+    /**
+     * Checks if the nanopub is a valid trusty nanopub, like {@link TrustyNanopubUtils#isValidTrustyNanopub(Nanopub)}.
+     * The result is remembered.
+     *
+     * @return true if the nanopub is valid, false otherwise
+     */
+    public boolean isValidTrusty() {
+        if (validTrusty == null) {
+            validTrusty = checkTrusty();
+        }
+        return validTrusty;
+    }
+
+    private boolean checkTrusty() {
+        IRI nanopubUri = nanopub.getUri();
+        for (IRI uri : nanopub.getGraphUris()) {
+            if (!uri.stringValue().startsWith(nanopubUri.stringValue())) {
+                logger.debug("Nanopub {} is not trusty: graph URI {} is not under the nanopub URI", nanopubUri, uri);
+                return false;
+            }
+        }
+        if (artifactCode == null) {
+            logger.debug("Nanopub {} is not trusty: its URI carries no artifact code", nanopubUri);
+            return false;
+        }
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Trusty input for {}:\n{}", nanopubUri, RdfHasher.getDigestString(getStatements()));
+        }
+
+        byte[] digest = StreamingRdfHasher.digestSorted(getStatements());
+        ArtifactCode ac = ArtifactCode.of(RdfModule.MODULE_ID + TrustyUriUtils.getBase64(digest));
+        if (!ac.toString().equals(artifactCode)) {
+            logger.debug("Nanopub {} is not trusty: artifact code in the URI is {} but the content hashes to {}", nanopubUri, artifactCode, ac);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the preprocessed input of the signature with the given signature element in canonical order, which are
+     * all statements except the {@code npx:hasSignature} statements of the signature element. They can be fed into a
+     * signature with {@link StreamingRdfHasher#updateSorted(List, java.security.Signature)}.
+     *
+     * @param signatureElementUri the URI of the signature element
+     * @return the statements, or null if the signature input cannot be derived from the canonical form because the
+     * nanopub URI is not a trusty URI or the nanopub has blank nodes
+     */
+    public List<Statement> getSignatureStatements(IRI signatureElementUri) {
+        if (artifactCode == null) return null;
+        List<Statement> all = getStatements();
+        if (hasBlankNodes) return null;
+
+        List<Statement> signatureStatements = new ArrayList<>();
+        for (Statement st : nanopub.getPubinfo()) {
+            if (st.getSubject().equals(signatureElementUri) && st.getPredicate().equals(NPX.HAS_SIGNATURE)) {
+                signatureStatements.add(st);
+            }
+        }
+        if (signatureStatements.isEmpty()) return all;
+        // Without blank nodes, each statement is preprocessed on its own:
+        List<Statement> excluded = RdfPreprocessor.run(signatureStatements, artifactCode);
+
+        StatementComparator comparator = new StatementComparator();
+        List<Statement> target = new ArrayList<>(all.size());
+        for (Statement st : all) {
+            if (!contains(excluded, st, comparator)) target.add(st);
+        }
+        return target;
+    }
+
+    private static boolean contains(List<Statement> statements, Statement st, StatementComparator comparator) {
+        for (Statement s : statements) {
+            if (comparator.compare(s, st) == 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the statements of the nanopub as input for the preprocessing. The hash does not depend on their order,
+     * but the numbering of blank nodes by the preprocessing does, so the statements only need to be in the sorted
+     * order of {@link NanopubUtils#getStatements(Nanopub)} if there are blank nodes.
+     */
+    private List<Statement> getStatementsForHashing() {
+        List<Statement> all = new ArrayList<>();
+        all.addAll(nanopub.getHead());
+        all.addAll(nanopub.getAssertion());
+        all.addAll(nanopub.getProvenance());
+        all.addAll(nanopub.getPubinfo());
+        for (Statement st : all) {
+            if (st.getSubject() instanceof BNode || st.getObject() instanceof BNode) {
+                hasBlankNodes = true;
+                return NanopubUtils.getStatements(nanopub);
+            }
+        }
+        return all;
+    }
+
+}
@@ -8,6 +8,7 @@ import net.trustyuri.rdf.RdfFileContent;
 import net.trustyuri.rdf.TransformRdf;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.rio.*;
 import org.nanopub.*;
 import org.slf4j.Logger;
@@ -16,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -40,6 +42,9 @@ public class MakeTrustyNanopub extends CliRunner {
     @com.beust.jcommander.Parameter(names = "-v", description = "Verbose")
     private boolean verbose = false;
 
+    @com.beust.jcommander.Parameter(names = "--threads", description = "Number of threads for transforming nanopubs (default: one after the other)")
+    private int threads = 1;
+
     /**
      * Main method to run the command-line tool.
      *
@@ -60,12 +65,13 @@ public class MakeTrustyNanopub extends CliRunner {
     private void run() throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException, TrustyUriException {
         final Map<Resource, IRI> tempRefMap;
         final Map<String, String> tempPrefixMap;
+        // Concurrent maps, as independent nanopubs can be transformed in parallel:
         if (resolveCrossRefsPrefixBased) {
-            tempPrefixMap = new HashMap<>();
-            tempRefMap = new HashMap<>();
+            tempPrefixMap = new ConcurrentHashMap<>();
+            tempRefMap = new ConcurrentHashMap<>();
         } else if (resolveCrossRefs) {
             tempPrefixMap = null;
-            tempRefMap = new HashMap<>();
+            tempRefMap = new ConcurrentHashMap<>();
         } else {
             tempPrefixMap = null;
             tempRefMap = null;
@@ -96,16 +102,29 @@ public class MakeTrustyNanopub extends CliRunner {
             }
             final RDFFormat inFormat = new TrustyUriResource(inputFile).getFormat(RDFFormat.TRIG);
             final RDFFormat outFormat = new TrustyUriResource(outputFile).getFormat(RDFFormat.TRIG);
-            MultiNanopubRdfHandler.process(inFormat, inputFile, np -> {
-                try {
-                    np = writeAsTrustyNanopub(np, outFormat, out, tempRefMap, tempPrefixMap);
-                    if (verbose) {
-                        System.out.println("Nanopub URI: " + np.getUri());
-                    }
-                } catch (RDFHandlerException | TrustyUriException ex) {
-                    throw new RuntimeException(ex);
+            if (threads > 1) {
+                try (ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(threads, tempRefMap != null,
+                        np -> transform(np, tempRefMap, tempPrefixMap),
+                        np -> {
+                            write(np, outFormat, out);
+                            if (verbose) {
+                                System.out.println("Nanopub URI: " + np.getUri());
+                            }
+                        })) {
+                    transformer.process(inFormat, inputFile);
                 }
-            });
+            } else {
+                MultiNanopubRdfHandler.process(inFormat, inputFile, np -> {
+                    try {
+                        np = writeAsTrustyNanopub(np, outFormat, out, tempRefMap, tempPrefixMap);
+                        if (verbose) {
+                            System.out.println("Nanopub URI: " + np.getUri());
+                        }
+                    } catch (RDFHandlerException | TrustyUriException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+            }
             if (singleOutputFile == null) {
                 out.close();
             }
@@ -157,15 +176,25 @@ public class MakeTrustyNanopub extends CliRunner {
                 if (tempRefMap == null) {
                     tempRefMap = new HashMap<>();
                 }
-                mergeTransformMaps(tempRefMap, tempUriReplacerMap);
                 RdfFileContent r2 = new RdfFileContent(RDFFormat.TRIG);
                 r.propagate(new CrossRefResolver(tempRefMap, tempPrefixMap, r2));
                 r = r2;
             }
-            NanopubRdfHandler h = new NanopubRdfHandler();
+            NanopubRdfHandler h = new NanopubRdfHandler(NanopubImpl.TrustyCheck.LAZY);
             Map<Resource, IRI> transformMap = TransformRdf.transformAndGetMap(r, h, npUri, TrustyNanopubUtils.transformRdfSetting);
-            np = h.getNanopub();
-            mergeTransformMaps(tempRefMap, transformMap);
+            IRI trustyUri = transformMap.get(SimpleValueFactory.getInstance().createIRI(npUri));
+            np = h.getNanopub(trustyUri == null ? null : TrustyUriUtils.getArtifactCode(trustyUri.stringValue()));
+            // All nanopubs with temporary URIs share the same placeholder URIs. The temporary URIs are therefore
+            // mapped to their trusty URIs locally, and only these final entries are added to the shared map, so
+            // that nanopubs transformed at the same time cannot pick up each other's mappings:
+            Map<Resource, IRI> localRefMap = new HashMap<>();
+            if (tempUriReplacerMap != null) {
+                localRefMap.putAll(tempUriReplacerMap);
+            }
+            mergeTransformMaps(localRefMap, transformMap);
+            if (tempRefMap != null) {
+                tempRefMap.putAll(localRefMap);
+            }
             mergePrefixTransformMaps(tempPrefixMap, transformMap);
         } catch (RDFHandlerException | MalformedNanopubException ex) {
             throw new TrustyUriException(ex);
@@ -258,6 +287,35 @@ public class MakeTrustyNanopub extends CliRunner {
         }
     }
 
+    /**
+     * Transform a multi-nanopub input stream into Trusty Nanopubs on several threads, writing them to the specified
+     * output stream in input order. When cross-nanopub references are resolved, only nanopubs that refer to earlier
+     * ones wait for them to be transformed, as described for {@link ParallelNanopubTransformer}.
+     *
+     * @param format           the RDF format of the input stream
+     * @param in               the input stream containing multiple nanopubs
+     * @param out              the output stream to write the transformed nanopubs
+     * @param resolveCrossRefs whether to resolve cross-nanopub references
+     * @param threads          the number of threads; with less than two, the nanopubs are transformed one after the
+     *                         other
+     * @throws java.io.IOException                       if an I/O error occurs
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   if there is an error parsing the RDF data
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException if there is an error handling the RDF data
+     * @throws org.nanopub.MalformedNanopubException     if a nanopub is malformed
+     */
+    public static void transformMultiNanopub(final RDFFormat format, InputStream in, final OutputStream out, boolean resolveCrossRefs, int threads) throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        if (threads < 2) {
+            transformMultiNanopub(format, in, out, resolveCrossRefs);
+            return;
+        }
+        final Map<Resource, IRI> tempRefMap = resolveCrossRefs ? new ConcurrentHashMap<>() : null;
+        try (in; out; ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(threads, resolveCrossRefs,
+                np -> transform(np, tempRefMap, null),
+                np -> write(np, format, out))) {
+            transformer.process(format, in);
+        }
+    }
+
     /**
      * Write a Nanopub as a Trusty Nanopub to the specified output stream in the given RDF format.
      *
@@ -272,9 +330,13 @@ public class MakeTrustyNanopub extends CliRunner {
      */
     public static Nanopub writeAsTrustyNanopub(Nanopub np, RDFFormat format, OutputStream out, Map<Resource, IRI> tempRefMap, Map<String, String> tempPrefixMap) throws RDFHandlerException, TrustyUriException {
         np = MakeTrustyNanopub.transform(np, tempRefMap, tempPrefixMap);
+        write(np, format, out);
+        return np;
+    }
+
+    private static void write(Nanopub np, RDFFormat format, OutputStream out) throws RDFHandlerException {
         RDFWriter w = Rio.createWriter(format, new OutputStreamWriter(out, StandardCharsets.UTF_8));
         NanopubUtils.propagateToHandler(np, w);
-        return np;
     }
 
     static void mergeTransformMaps(Map<Resource, IRI> mainMap, Map<Resource, IRI> mapToMerge) {
@@ -0,0 +1,264 @@
+package org.nanopub.trusty;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.nanopub.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Transforms a sequence of nanopubs (e.g. into trusty or signed nanopubs) on several threads, and hands the results
+ * to a result handler in input order.
+ * <p>
+ * When cross-nanopub references are resolved, a nanopub can only be transformed once all earlier nanopubs it refers
+ * to are transformed, because their trusty URIs are taken from the shared reference maps. Conversely, a nanopub that
+ * is referred to by an earlier one is only transformed once the earlier one is, so the earlier one never sees its
+ * trusty URI, just like in the sequential transformation. A nanopub is considered to refer to another one if one of
+ * its IRIs or namespaces starts with the URI of the other nanopub, which is the case for all IRIs that the resolution
+ * of cross-references can replace. Only such chains are transformed one after the other, while independent nanopubs
+ * are transformed in parallel, and the result does not depend on the timing of the threads. The reference maps
+ * have to be thread-safe.
+ */
+public class ParallelNanopubTransformer implements AutoCloseable {
+
+    private static final long DEPENDENCY_POLL_MILLIS = 100;
+
+    private final ParallelTaskRunner<Nanopub> runner;
+    private final Transformation transformation;
+    private final boolean resolveCrossRefs;
+
+    // Only accessed by the submitting thread:
+    private final Map<String, CompletableFuture<Void>> transformedByUri = new HashMap<>();
+    private final TreeSet<Integer> uriLengths = new TreeSet<>();
+    private int dependentCount = 0;
+
+    // The IRIs of the nanopubs that may not be transformed yet, so later nanopubs they refer to can wait for them:
+    private final NavigableMap<String, Set<CompletableFuture<Void>>> pendingIris = new TreeMap<>();
+    private final Deque<PendingNanopub> pendingNanopubs = new ArrayDeque<>();
+
+    /**
+     * Creates a new parallel transformer.
+     *
+     * @param threads          the number of worker threads
+     * @param resolveCrossRefs whether the transformation resolves cross-nanopub references, so nanopubs that refer to
+     *                         earlier ones have to wait for them
+     * @param transformation   the transformation, which has to be thread-safe
+     * @param resultHandler    the handler for the transformed nanopubs, called one at a time in input order
+     * @throws java.lang.IllegalArgumentException if the number of threads is less than one
+     */
+    public ParallelNanopubTransformer(int threads, boolean resolveCrossRefs, Transformation transformation, ParallelTaskRunner.ResultHandler<Nanopub> resultHandler) {
+        this.runner = new ParallelTaskRunner<>(threads, threads * 4, true, resultHandler);
+        this.resolveCrossRefs = resolveCrossRefs;
+        this.transformation = transformation;
+    }
+
+    /**
+     * Parses a stream of nanopubs and transforms them. The stream is parsed on the calling thread.
+     *
+     * @param format the RDF format of the nanopubs
+     * @param in     the input stream containing the nanopubs
+     * @throws java.io.IOException                       if an I/O error occurs
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   if an error occurs while parsing the RDF data
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException if an error occurs while handling the RDF data
+     * @throws org.nanopub.MalformedNanopubException     if a nanopub is malformed
+     */
+    public void process(RDFFormat format, InputStream in) throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, in, null);
+    }
+
+    /**
+     * Parses a file of nanopubs and transforms them. The file is parsed on the calling thread.
+     *
+     * @param format the RDF format of the nanopubs
+     * @param file   the file containing the nanopubs
+     * @throws java.io.IOException                       if an I/O error occurs
+     * @throws org.eclipse.rdf4j.rio.RDFParseException   if an error occurs while parsing the RDF data
+     * @throws org.eclipse.rdf4j.rio.RDFHandlerException if an error occurs while handling the RDF data
+     * @throws org.nanopub.MalformedNanopubException     if a nanopub is malformed
+     */
+    public void process(RDFFormat format, File file) throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        process(format, null, file);
+    }
+
+    private void process(RDFFormat format, InputStream in, File file) throws IOException, RDFParseException, RDFHandlerException, MalformedNanopubException {
+        MultiNanopubRdfHandler.NanopubHandler handler = np -> {
+            try {
+                submit(np);
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new RuntimeException(ex);
+            }
+        };
+        try {
+            try {
+                if (in != null) {
+                    MultiNanopubRdfHandler.process(format, in, handler);
+                } else {
+                    MultiNanopubRdfHandler.process(format, file, handler);
+                }
+            } catch (RuntimeException ex) {
+                // If a worker failed, the parsing was stopped because of that; the worker's error is reported below
+                if (runner.getError() == null) throw ex;
+            }
+            runner.finish();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while transforming nanopubs", ex);
+        }
+    }
+
+    private void submit(Nanopub np) throws InterruptedException, ExecutionException {
+        if (!resolveCrossRefs) {
+            runner.submit(() -> transformation.transform(np));
+            return;
+        }
+        removeTransformedIris();
+        Set<String> iris = getIris(np);
+        String uri = np.getUri().stringValue();
+        Set<CompletableFuture<Void>> dependencySet = new LinkedHashSet<>();
+        for (String iri : iris) {
+            addDependency(iri, dependencySet);
+        }
+        addReverseDependencies(uri, dependencySet);
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>(dependencySet);
+        if (!dependencies.isEmpty()) dependentCount++;
+        CompletableFuture<Void> transformed = new CompletableFuture<>();
+        transformedByUri.put(uri, transformed);
+        uriLengths.add(uri.length());
+        for (String iri : iris) {
+            pendingIris.computeIfAbsent(iri, k -> new HashSet<>()).add(transformed);
+        }
+        pendingNanopubs.addLast(new PendingNanopub(transformed, iris));
+        runner.submit(() -> {
+            try {
+                for (CompletableFuture<Void> d : dependencies) {
+                    await(d);
+                }
+                return transformation.transform(np);
+            } finally {
+                transformed.complete(null);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of nanopubs that refer to earlier ones or are referred to by earlier ones, and therefore had
+     * to wait for them.
+     *
+     * @return the number of dependent nanopubs
+     */
+    public int getDependentCount() {
+        return dependentCount;
+    }
+
+    /**
+     * Stops the worker threads without waiting for pending nanopubs. This has no effect after the nanopubs are
+     * processed.
+     */
+    @Override
+    public void close() {
+        runner.close();
+    }
+
+    private static Set<String> getIris(Nanopub np) {
+        Set<String> iris = new HashSet<>();
+        for (Statement st : NanopubUtils.getStatements(np)) {
+            addIri(st.getSubject(), iris);
+            addIri(st.getPredicate(), iris);
+            addIri(st.getObject(), iris);
+            addIri(st.getContext(), iris);
+        }
+        if (np instanceof NanopubWithNs npWithNs) {
+            for (String prefix : npWithNs.getNsPrefixes()) {
+                iris.add(npWithNs.getNamespace(prefix));
+            }
+        }
+        return iris;
+    }
+
+    private static void addIri(Value v, Set<String> iris) {
+        if (v instanceof IRI) iris.add(v.stringValue());
+    }
+
+    private void addReverseDependencies(String uri, Set<CompletableFuture<Void>> dependencies) {
+        // All IRIs that start with the given URI:
+        for (Set<CompletableFuture<Void>> referring : pendingIris.subMap(uri, true, uri + Character.MAX_VALUE, false).values()) {
+            dependencies.addAll(referring);
+        }
+    }
+
+    private void removeTransformedIris() {
+        // Nanopubs are mostly transformed in input order, so it suffices to look at the oldest ones:
+        while (!pendingNanopubs.isEmpty() && pendingNanopubs.peekFirst().transformed.isDone()) {
+            PendingNanopub done = pendingNanopubs.removeFirst();
+            for (String iri : done.iris) {
+                Set<CompletableFuture<Void>> futures = pendingIris.get(iri);
+                futures.remove(done.transformed);
+                if (futures.isEmpty()) pendingIris.remove(iri);
+            }
+        }
+    }
+
+    private void addDependency(String iri, Set<CompletableFuture<Void>> dependencies) {
+        // There are usually only a few distinct lengths of nanopub URIs, so checking each of them is cheap:
+        for (int length : uriLengths.headSet(iri.length(), true)) {
+            CompletableFuture<Void> f = transformedByUri.get(iri.substring(0, length));
+            if (f != null) dependencies.add(f);
+        }
+    }
+
+    private void await(CompletableFuture<Void> dependency) throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                dependency.get(DEPENDENCY_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException ex) {
+                // A dependency that is skipped after a failure never completes:
+                if (runner.getError() != null) {
+                    throw new CancellationException("Stopped after an earlier failure");
+                }
+            }
+        }
+    }
+
+    private static class PendingNanopub {
+
+        final CompletableFuture<Void> transformed;
+        final Set<String> iris;
+
+        PendingNanopub(CompletableFuture<Void> transformed, Set<String> iris) {
+            this.transformed = transformed;
+            this.iris = iris;
+        }
+
+    }
+
+    /**
+     * A transformation of a single nanopub.
+     */
+    public interface Transformation {
+
+        /**
+         * Transforms a nanopub.
+         *
+         * @param np the nanopub
+         * @return the transformed nanopub
+         * @throws java.lang.Exception if the nanopub cannot be transformed, which stops the processing
+         */
+        Nanopub transform(Nanopub np) throws Exception;
+
+    }
+
+}
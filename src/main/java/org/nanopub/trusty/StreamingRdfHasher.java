@@ -0,0 +1,221 @@
+package org.nanopub.trusty;
+
+import net.trustyuri.ArtifactCode;
+import net.trustyuri.TrustyUriUtils;
+import net.trustyuri.rdf.RdfModule;
+import net.trustyuri.rdf.StatementComparator;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the same digests as {@link net.trustyuri.rdf.RdfHasher}, but feeds the canonical serialization of the
+ * statements directly into a {@link MessageDigest} or {@link Signature} through a small reusable byte buffer, instead
+ * of building the serialization as one string and then encoding it as a whole. This matters for large nanopubs, where
+ * that string is several hundred kilobytes for each check.
+ * <p>
+ * As with {@code RdfHasher}, the statements have to be preprocessed with {@link net.trustyuri.rdf.RdfPreprocessor}
+ * first, so they contain no blank nodes.
+ */
+public class StreamingRdfHasher {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length = 0;
+
+    private StreamingRdfHasher() {
+    }
+
+    /**
+     * Computes the SHA-256 hash of the canonical serialization of the given statements.
+     *
+     * @param statements the preprocessed statements, which are not changed
+     * @return the hash
+     */
+    public static byte[] digest(List<Statement> statements) {
+        MessageDigest md = getDigest();
+        update(statements, md);
+        return md.digest();
+    }
+
+    /**
+     * Computes the artifact code for the given statements, like {@link net.trustyuri.rdf.RdfHasher#makeArtifactCode(List)}.
+     *
+     * @param statements the preprocessed statements, which are not changed
+     * @return the artifact code
+     */
+    public static ArtifactCode makeArtifactCode(List<Statement> statements) {
+        return ArtifactCode.of(RdfModule.MODULE_ID + TrustyUriUtils.getBase64(digest(statements)));
+    }
+
+    /**
+     * Feeds the canonical serialization of the given statements into a message digest.
+     *
+     * @param statements the preprocessed statements, which are not changed
+     * @param md         the message digest
+     */
+    public static void update(List<Statement> statements, MessageDigest md) {
+        new StreamingRdfHasher().write(sort(statements), md::update);
+    }
+
+    /**
+     * Feeds the canonical serialization of the given statements into a signature, which is the same as updating it
+     * with the UTF-8 bytes of {@link net.trustyuri.rdf.RdfHasher#getDigestString(List)}.
+     *
+     * @param statements the preprocessed statements, which are not changed
+     * @param signature  the signature, initialized for signing or verification
+     * @throws java.security.SignatureException if the signature is not initialized
+     */
+    public static void update(List<Statement> statements, Signature signature) throws SignatureException {
+        new StreamingRdfHasher().write(sort(statements), signature::update);
+    }
+
+    /**
+     * Returns the given statements in the order in which they are hashed, without duplicates. The result can be
+     * hashed several times with {@link #digestSorted(List)} and {@link #updateSorted(List, Signature)}, which do not
+     * sort again.
+     *
+     * @param statements the preprocessed statements, which are not changed
+     * @return a new list with the sorted statements
+     */
+    public static List<Statement> sort(List<Statement> statements) {
+        List<Statement> sorted = new ArrayList<>(statements);
+        StatementComparator comparator = new StatementComparator();
+        sorted.sort(comparator);
+        List<Statement> distinct = new ArrayList<>(sorted.size());
+        Statement previous = null;
+        for (Statement st : sorted) {
+            // Duplicates are skipped, as they are by RdfHasher:
+            if (previous != null && comparator.compare(st, previous) == 0) continue;
+            distinct.add(st);
+            previous = st;
+        }
+        return distinct;
+    }
+
+    /**
+     * Computes the SHA-256 hash of the canonical serialization of statements that are already sorted.
+     *
+     * @param sorted the statements as returned by {@link #sort(List)}, or some of them in the same order
+     * @return the hash
+     */
+    public static byte[] digestSorted(List<Statement> sorted) {
+        MessageDigest md = getDigest();
+        new StreamingRdfHasher().write(sorted, md::update);
+        return md.digest();
+    }
+
+    /**
+     * Feeds the canonical serialization of statements that are already sorted into a signature.
+     *
+     * @param sorted    the statements as returned by {@link #sort(List)}, or some of them in the same order
+     * @param signature the signature, initialized for signing or verification
+     * @throws java.security.SignatureException if the signature is not initialized
+     */
+    public static void updateSorted(List<Statement> sorted, Signature signature) throws SignatureException {
+        new StreamingRdfHasher().write(sorted, signature::update);
+    }
+
+    private <E extends Exception> void write(List<Statement> sorted, Sink<E> sink) throws E {
+        for (Statement st : sorted) {
+            writeValue(st.getContext(), sink);
+            writeValue(st.getSubject(), sink);
+            writeValue(st.getPredicate(), sink);
+            writeValue(st.getObject(), sink);
+        }
+        flush(sink);
+    }
+
+    private <E extends Exception> void writeValue(Value v, Sink<E> sink) throws E {
+        if (v instanceof IRI) {
+            writeString(v.stringValue(), false, sink);
+        } else if (v instanceof Literal l) {
+            if (l.getLanguage().isPresent()) {
+                writeByte('@', sink);
+                writeString(l.getLanguage().get().toLowerCase(), false, sink);
+            } else {
+                writeByte('^', sink);
+                writeString(l.getDatatype().stringValue(), false, sink);
+            }
+            writeByte(' ', sink);
+            writeString(l.stringValue(), true, sink);
+        } else if (v != null) {
+            throw new RuntimeException("Unexpected blank node");
+        }
+        writeByte('\n', sink);
+    }
+
+    /**
+     * Writes the UTF-8 encoding of a string, optionally escaping backslashes and line breaks like RdfHasher does for
+     * literals.
+     */
+    private <E extends Exception> void writeString(String s, boolean escape, Sink<E> sink) throws E {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            // Make room for the longest encoding of a character:
+            if (length > BUFFER_SIZE - 4) flush(sink);
+            char c = s.charAt(i);
+            if (escape && c == '\\') {
+                buffer[length++] = '\\';
+                buffer[length++] = '\\';
+            } else if (escape && c == '\n') {
+                buffer[length++] = '\\';
+                buffer[length++] = 'n';
+            } else if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (cp >> 18));
+                buffer[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced like String.getBytes(UTF_8) does:
+                buffer[length++] = '?';
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private <E extends Exception> void writeByte(char c, Sink<E> sink) throws E {
+        if (length == BUFFER_SIZE) flush(sink);
+        buffer[length++] = (byte) c;
+    }
+
+    private <E extends Exception> void flush(Sink<E> sink) throws E {
+        if (length > 0) {
+            sink.update(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private interface Sink<E extends Exception> {
+
+        void update(byte[] bytes, int offset, int length) throws E;
+
+    }
+
+}
@@ -1,11 +1,9 @@
 package org.nanopub.trusty;
 
-import net.trustyuri.ArtifactCode;
 import net.trustyuri.TrustyUriUtils;
 import net.trustyuri.rdf.RdfHasher;
 import net.trustyuri.rdf.RdfPreprocessor;
 import net.trustyuri.rdf.TransformRdfSetting;
-import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.vocabulary.*;
 import org.eclipse.rdf4j.rio.RDFFormat;
@@ -17,23 +15,18 @@ import org.nanopub.NanopubUtils;
 import org.nanopub.vocabulary.NP;
 import org.nanopub.vocabulary.PAV;
 import org.nanopub.vocabulary.RDFG;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Utility class for handling Trusty Nanopubs.
  */
 public class TrustyNanopubUtils {
 
-    private static final Logger logger = LoggerFactory.getLogger(TrustyNanopubUtils.class);
-
     /**
      * The RDF format for serialized Trusty Nanopubs.
      */
@@ -89,33 +82,7 @@ public class TrustyNanopubUtils {
      * @return true if the Nanopub is valid, false otherwise
      */
     public static boolean isValidTrustyNanopub(Nanopub nanopub) {
-        Set<IRI> graphUris = nanopub.getGraphUris();
-        IRI nanopubUri = nanopub.getUri();
-        for (IRI uri : graphUris) {
-            if (!uri.stringValue().startsWith(nanopubUri.stringValue())) {
-                logger.debug("Nanopub {} is not trusty: graph URI {} is not under the nanopub URI", nanopubUri, uri);
-                return false;
-            }
-        }
-
-        String artifactCode = TrustyUriUtils.getArtifactCode(nanopub.getUri().toString());
-        if (artifactCode == null) {
-            logger.debug("Nanopub {} is not trusty: its URI carries no artifact code", nanopubUri);
-            return false;
-        }
-        List<Statement> statements = NanopubUtils.getStatements(nanopub);
-        statements = RdfPreprocessor.run(statements, artifactCode);
-
-        if (logger.isTraceEnabled()) {
-            logger.trace("Trusty input for {}:\n{}", nanopubUri, RdfHasher.getDigestString(statements));
-        }
-
-        ArtifactCode ac = RdfHasher.makeArtifactCode(statements);
-        if (!ac.toString().equals(artifactCode)) {
-            logger.debug("Nanopub {} is not trusty: artifact code in the URI is {} but the content hashes to {}", nanopubUri, artifactCode, ac);
-            return false;
-        }
-        return true;
+        return new CanonicalNanopub(nanopub).isValidTrusty();
     }
 
     /**
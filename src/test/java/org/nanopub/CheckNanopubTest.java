@@ -1,5 +1,7 @@
 package org.nanopub;
 
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.eclipse.rdf4j.model.vocabulary.XSD;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.junit.jupiter.api.BeforeEach;
@@ -182,6 +184,49 @@ public class CheckNanopubTest {
         assertTrue(log.toString(StandardCharsets.UTF_8).contains("100 nanopubs..."), log.toString());
     }
 
+    @Test
+    void check_withThreads_printsTheSameOutputInInputOrder(@TempDir Path tmp) throws Exception {
+        StringBuilder manyNanopubs = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            manyNanopubs.append(TestUtils.createNanopub("https://example.org/np" + i + "#").writeToString(RDFFormat.TRIG));
+        }
+        File file = tmp.resolve("many.trig").toFile();
+        Files.writeString(file.toPath(), manyNanopubs.toString());
+
+        CheckNanopub sequential = new CheckNanopub(List.of(file.getAbsolutePath()));
+        sequential.setVerbose(true);
+        String expected = captureStandardOutput(() -> assertDoesNotThrow(sequential::check));
+        CheckNanopub parallel = new CheckNanopub(List.of(file.getAbsolutePath()));
+        parallel.setVerbose(true);
+        parallel.setThreads(4);
+        CheckNanopub.Report[] report = new CheckNanopub.Report[1];
+        String printed = captureStandardOutput(() -> report[0] = assertDoesNotThrow(parallel::check));
+
+        assertEquals(expected, printed);
+        assertEquals(50, report[0].getNotTrustyCount());
+        assertEquals(file.length(), report[0].getInputBytes());
+        assertTrue(report[0].getElapsedNanos() > 0);
+    }
+
+    @Test
+    void report_hasAMachineReadableSummary(@TempDir Path tmp) throws IOException {
+        File file = tmp.resolve("summary.trig").toFile();
+        Files.writeString(file.toPath(), PLAIN_NANOPUB.replace("@OBJECT@", "\"2\"^^xsd:integer"));
+        CheckNanopub checker = new CheckNanopub(List.of(file.getAbsolutePath()));
+        checker.setThreads(2);
+
+        JsonObject json = JsonParser.parseString(checker.check().getJsonSummary()).getAsJsonObject();
+
+        assertEquals(1, json.get("nanopubs").getAsInt());
+        assertEquals(1, json.getAsJsonObject("counts").get("notTrusty").getAsInt());
+        assertEquals(2, json.get("threads").getAsInt());
+        assertTrue(json.has("nanopubsPerSecond"));
+        assertTrue(json.has("megabytesPerSecond"));
+        for (CheckNanopub.Phase phase : CheckNanopub.Phase.values()) {
+            assertTrue(json.getAsJsonObject("cpuSeconds").get(phase.name().toLowerCase()).getAsDouble() >= 0);
+        }
+    }
+
     @Test
     void check_withAnUnreachableSparqlEndpoint_recordsProblem() throws IOException {
         // nothing listens on port 1, so the lookup fails immediately
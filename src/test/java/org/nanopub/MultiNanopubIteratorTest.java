@@ -0,0 +1,170 @@
+package org.nanopub;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.nanopub.jelly.MaybeNanopub;
+import org.nanopub.utils.TestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiNanopubIteratorTest {
+
+    private static final String NOT_A_NANOPUB = """
+            @prefix ex: <https://example.org/> .
+            ex:graph { ex:subject ex:predicate ex:object . }
+            """;
+
+    private static String nanopub(int i) {
+        try {
+            return TestUtils.createNanopub("https://example.org/np" + i + "#").writeToString(RDFFormat.TRIG);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void iteratesOverTheNanopubsInInputOrder() {
+        try (Stream<MaybeNanopub> stream = MultiNanopubIterator.stream(RDFFormat.TRIG, toStream(nanopub(1) + nanopub(2) + nanopub(3)))) {
+            List<String> uris = stream.map(item -> item.getNanopub().getUri().stringValue()).toList();
+            assertEquals(List.of("https://example.org/np1#", "https://example.org/np2#", "https://example.org/np3#"), uris);
+        }
+    }
+
+    @Test
+    void iteratesOverAnEmptyStream() {
+        try (MultiNanopubIterator iterator = new MultiNanopubIterator(RDFFormat.TRIG, toStream(""))) {
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    void reportsMalformedNanopubsAndContinues() {
+        try (Stream<MaybeNanopub> stream = MultiNanopubIterator.stream(RDFFormat.TRIG, toStream(nanopub(1) + NOT_A_NANOPUB + nanopub(2)))) {
+            List<MaybeNanopub> items = stream.toList();
+
+            assertEquals(3, items.size());
+            assertTrue(items.get(0).isSuccess());
+            assertInstanceOf(MalformedNanopubException.class, items.get(1).getException());
+            assertEquals("https://example.org/np2#", items.get(2).getNanopub().getUri().stringValue());
+        }
+    }
+
+    @Test
+    void reportsParseErrorsAsTheLastItem() {
+        try (Stream<MaybeNanopub> stream = MultiNanopubIterator.stream(RDFFormat.TRIG, toStream(nanopub(1) + "this is not TriG at all"))) {
+            List<MaybeNanopub> items = stream.toList();
+
+            assertTrue(items.getLast().isFailure());
+            assertInstanceOf(RDFParseException.class, items.getLast().getException());
+        }
+    }
+
+    @Test
+    void throwsTheFirstErrorWhenStreamingNanopubs() {
+        try (MultiNanopubIterator iterator = new MultiNanopubIterator(RDFFormat.TRIG, toStream(nanopub(1) + NOT_A_NANOPUB))) {
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> iterator.nanopubs().toList());
+            assertInstanceOf(MalformedNanopubException.class, ex.getCause());
+        }
+    }
+
+    @Test
+    void readsAFile(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "nanopubs.trig");
+        Files.writeString(file.toPath(), nanopub(1) + nanopub(2), StandardCharsets.UTF_8);
+
+        try (Stream<MaybeNanopub> stream = MultiNanopubIterator.stream(RDFFormat.TRIG, file)) {
+            assertEquals(2, stream.filter(MaybeNanopub::isSuccess).count());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void stopsEarlyOnAnEndlessInput() {
+        AtomicInteger generated = new AtomicInteger();
+        InputStream endless = new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return true;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return toStream(nanopub(generated.incrementAndGet()));
+            }
+        });
+
+        try (Stream<MaybeNanopub> stream = MultiNanopubIterator.stream(RDFFormat.TRIG, endless)) {
+            assertEquals(5, stream.limit(5).filter(MaybeNanopub::isSuccess).count());
+        }
+        // the parser is only ahead by the queue capacity and the read buffers
+        assertTrue(generated.get() < 1000);
+    }
+
+    @Test
+    void reportsErrorsThatStopTheParser() {
+        InputStream failing = new SequenceInputStream(toStream(nanopub(1)), new InputStream() {
+            @Override
+            public int read() {
+                throw new StackOverflowError();
+            }
+        });
+
+        try (Stream<MaybeNanopub> stream = MultiNanopubIterator.stream(RDFFormat.TRIG, failing)) {
+            List<MaybeNanopub> items = stream.toList();
+
+            assertTrue(items.getLast().isFailure());
+            assertInstanceOf(StackOverflowError.class, items.getLast().getException().getCause());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void closingWakesUpAConsumerOnAnotherThread() throws Exception {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        InputStream blocking = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                try {
+                    neverReleased.await();
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+                return -1;
+            }
+        };
+        MultiNanopubIterator iterator = new MultiNanopubIterator(RDFFormat.TRIG, blocking);
+        AtomicBoolean hasNext = new AtomicBoolean(true);
+        Thread consumer = new Thread(() -> hasNext.set(iterator.hasNext()));
+        consumer.start();
+        while (consumer.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(10);
+        }
+
+        iterator.close();
+        consumer.join();
+
+        assertFalse(hasNext.get());
+    }
+
+}
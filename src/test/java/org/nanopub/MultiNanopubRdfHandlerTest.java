@@ -14,7 +14,10 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -164,4 +167,118 @@ class MultiNanopubRdfHandlerTest {
         assertEquals("https://example.org/", ((NanopubWithNs) collected.getFirst()).getNamespace("ex"));
     }
 
+    @Test
+    void passesTheTrustyCheckModeToTheNanopubs() throws Exception {
+        NanopubCreator creator = TestUtils.getNanopubCreator("https://example.org/np1#");
+        creator.addAssertionStatement(anyIri, anyIri, anyIri);
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        String trig = creator.finalizeTrustyNanopub().writeToString(RDFFormat.TRIG);
+
+        List<Nanopub> checked = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                NanopubImpl.TrustyCheck.LAZY, checked::add);
+        List<Nanopub> skipped = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                NanopubImpl.TrustyCheck.SKIP, skipped::add);
+
+        assertTrue(((NanopubImpl) checked.getFirst()).isValidAndTrusty());
+        assertFalse(((NanopubImpl) skipped.getFirst()).isValidAndTrusty());
+    }
+
+    private static String manyNanopubs(int count) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(TestUtils.createNanopub("https://example.org/np" + i + "#").writeToString(RDFFormat.TRIG));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> uris(List<Nanopub> nanopubs) {
+        return nanopubs.stream().map(np -> np.getUri().stringValue()).collect(Collectors.toList());
+    }
+
+    @Test
+    void processesNanopubsInParallelInInputOrder() throws Exception {
+        String trig = manyNanopubs(50);
+
+        List<Nanopub> collected = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                NanopubImpl.TrustyCheck.SKIP, 4, true, collected::add);
+
+        List<String> expected = IntStream.range(0, 50).mapToObj(i -> "https://example.org/np" + i + "#").toList();
+        assertEquals(expected, uris(collected));
+    }
+
+    @Test
+    void processesNanopubsInParallelWithoutOrder() throws Exception {
+        String trig = manyNanopubs(50);
+
+        List<Nanopub> collected = Collections.synchronizedList(new ArrayList<>());
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                NanopubImpl.TrustyCheck.SKIP, 4, false, collected::add);
+
+        List<String> expected = IntStream.range(0, 50).mapToObj(i -> "https://example.org/np" + i + "#").sorted().toList();
+        assertEquals(expected, uris(collected).stream().sorted().toList());
+    }
+
+    @Test
+    void mapsNanopubsInParallelAndSkipsNullResults() throws Exception {
+        String trig = manyNanopubs(20);
+
+        List<String> collected = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                NanopubImpl.TrustyCheck.SKIP, 3, np -> {
+                    String uri = np.getUri().stringValue();
+                    return uri.matches(".*np[0-9]*[02468]#") ? uri : null;
+                }, collected::add);
+
+        List<String> expected = IntStream.range(0, 20).filter(i -> i % 2 == 0)
+                .mapToObj(i -> "https://example.org/np" + i + "#").toList();
+        assertEquals(expected, collected);
+    }
+
+    @Test
+    void reportsMalformedNanopubsWhenProcessingInParallel() throws Exception {
+        String trig = manyNanopubs(10) + """
+                @prefix ex: <https://example.org/> .
+                ex:graph { ex:subject ex:predicate ex:object . }
+                """;
+
+        assertThrows(MalformedNanopubException.class,
+                () -> MultiNanopubRdfHandler.process(RDFFormat.TRIG,
+                        new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                        NanopubImpl.TrustyCheck.SKIP, 4, true, np -> {
+                        }));
+    }
+
+    @Test
+    void propagatesHandlerExceptionsWhenProcessingInParallel() throws Exception {
+        IllegalStateException thrownByHandler = new IllegalStateException("handler failed");
+        String trig = manyNanopubs(10);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> MultiNanopubRdfHandler.process(RDFFormat.TRIG,
+                        new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)),
+                        NanopubImpl.TrustyCheck.SKIP, 4, true, np -> {
+                            throw thrownByHandler;
+                        }));
+        assertSame(thrownByHandler, ex);
+    }
+
+    @Test
+    void splitsNquadsFilesWhenProcessingInParallel(@TempDir File tempDir) throws Exception {
+        StringBuilder nquads = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            nquads.append(TestUtils.createNanopub("https://example.org/np" + i + "#").writeToString(RDFFormat.NQUADS));
+        }
+        File file = write(tempDir, "nanopubs.nq", nquads.toString());
+
+        List<Nanopub> collected = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.NQUADS, file, NanopubImpl.TrustyCheck.SKIP, 4, true, collected::add);
+
+        List<String> expected = IntStream.range(0, 30).mapToObj(i -> "https://example.org/np" + i + "#").toList();
+        assertEquals(expected, uris(collected));
+    }
+
 }
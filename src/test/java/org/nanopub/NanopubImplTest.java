@@ -16,6 +16,7 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +70,8 @@ import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import org.nanopub.testsuite.NanopubTestSuite;
 import org.nanopub.testsuite.TestSuiteCategory;
@@ -391,6 +394,24 @@ class NanopubImplTest {
         assertEquals("Malformed URI: " + malformed, malformedNanopubMessage(statements));
     }
 
+    @Test
+    void reportsTheFirstOfMalformedUriAndDisconnectedGraph() {
+        String malformed = NP_URI + "with a space";
+        IRI disconnected = vf.createIRI(NP_URI + "g9");
+        Statement malformedStatement = vf.createStatement(ASSERTION, RDFS.SEEALSO, vf.createIRI(malformed), ASSERTION);
+        Statement disconnectedStatement = vf.createStatement(NP_ID, RDFS.LABEL, vf.createLiteral("x"), disconnected);
+
+        List<Statement> malformedFirst = validStatements();
+        malformedFirst.add(malformedStatement);
+        malformedFirst.add(disconnectedStatement);
+        assertEquals("Malformed URI: " + malformed, malformedNanopubMessage(malformedFirst));
+
+        List<Statement> disconnectedFirst = validStatements();
+        disconnectedFirst.add(disconnectedStatement);
+        disconnectedFirst.add(malformedStatement);
+        assertEquals("Disconnected graph: " + disconnected, malformedNanopubMessage(disconnectedFirst));
+    }
+
     @Test
     void rejectsProvenanceThatDoesNotReferToTheAssertion() {
         List<Statement> statements = headStatements();
@@ -872,4 +893,67 @@ class NanopubImplTest {
         assertEquals(Objects.hash(nanopub.getUri()), nanopub.hashCode());
     }
 
+    // ------------------------------------------------- trusty check modes
+    private static String trustyNanopubTrig() throws Exception {
+        NanopubCreator creator = new NanopubCreator(TestUtils.NANOPUB_URI);
+        creator.addAssertionStatement(TestUtils.anyIri, TestUtils.anyIri, TestUtils.anyIri);
+        creator.addProvenanceStatement(TestUtils.anyIri, TestUtils.anyIri);
+        creator.addPubinfoStatement(TestUtils.anyIri, TestUtils.anyIri);
+        return NanopubUtils.writeToString(creator.finalizeTrustyNanopub(), RDFFormat.TRIG);
+    }
+
+    @Test
+    void lazyTrustyCheckIsDeferredAndMemoized() throws Exception {
+        String trig = trustyNanopubTrig();
+        try (MockedStatic<TrustyNanopubUtils> utils = mockStatic(TrustyNanopubUtils.class, CALLS_REAL_METHODS)) {
+            NanopubImpl nanopub = new NanopubImpl(new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)), RDFFormat.TRIG, NanopubImpl.TrustyCheck.LAZY);
+            utils.verify(() -> TrustyNanopubUtils.isValidTrustyNanopub(any()), never());
+
+            assertTrue(nanopub.isValidAndTrusty());
+            assertTrue(nanopub.isValidAndTrusty());
+            assertEquals(Objects.hash(nanopub.getUri()), nanopub.hashCode());
+            utils.verify(() -> TrustyNanopubUtils.isValidTrustyNanopub(any()), times(1));
+        }
+    }
+
+    @Test
+    void eagerTrustyCheckRunsAtConstruction() throws Exception {
+        String trig = trustyNanopubTrig();
+        try (MockedStatic<TrustyNanopubUtils> utils = mockStatic(TrustyNanopubUtils.class, CALLS_REAL_METHODS)) {
+            NanopubImpl nanopub = new NanopubImpl(new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)), RDFFormat.TRIG, NanopubImpl.TrustyCheck.EAGER);
+            utils.verify(() -> TrustyNanopubUtils.isValidTrustyNanopub(any()), times(1));
+
+            assertTrue(nanopub.isValidAndTrusty());
+            utils.verify(() -> TrustyNanopubUtils.isValidTrustyNanopub(any()), times(1));
+        }
+    }
+
+    @Test
+    void skippedTrustyCheckTreatsNanopubAsNotTrusty() throws Exception {
+        String trig = trustyNanopubTrig();
+        try (MockedStatic<TrustyNanopubUtils> utils = mockStatic(TrustyNanopubUtils.class, CALLS_REAL_METHODS)) {
+            NanopubImpl nanopub = new NanopubImpl(new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)), RDFFormat.TRIG, NanopubImpl.TrustyCheck.SKIP);
+            NanopubImpl same = new NanopubImpl(new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)), RDFFormat.TRIG, NanopubImpl.TrustyCheck.SKIP);
+
+            assertFalse(nanopub.isValidAndTrusty());
+            assertEquals(nanopub, same);
+            assertEquals(nanopub.hashCode(), same.hashCode());
+            utils.verify(() -> TrustyNanopubUtils.isValidTrustyNanopub(any()), never());
+        }
+    }
+
+    @Test
+    void equalityDoesNotDependOnTheTrustyCheckMode() throws Exception {
+        String trig = trustyNanopubTrig();
+        NanopubImpl skipped = new NanopubImpl(new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)), RDFFormat.TRIG, NanopubImpl.TrustyCheck.SKIP);
+        NanopubImpl checked = new NanopubImpl(new ByteArrayInputStream(trig.getBytes(StandardCharsets.UTF_8)), RDFFormat.TRIG);
+
+        assertFalse(skipped.isValidAndTrusty());
+        assertTrue(checked.isValidAndTrusty());
+        assertEquals(skipped, checked);
+        assertEquals(checked, skipped);
+        assertEquals(skipped.hashCode(), checked.hashCode());
+        assertEquals(1, new HashSet<>(List.of(skipped, checked)).size());
+    }
+
 }
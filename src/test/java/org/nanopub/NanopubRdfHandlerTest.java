@@ -48,4 +48,16 @@ class NanopubRdfHandlerTest {
         assertEquals("No complete RDF document received", ex.getMessage());
     }
 
+    @Test
+    void checksTheNanopubIfTheComputedArtifactCodeDoesNotMatch() throws Exception {
+        NanopubRdfHandler handler = new NanopubRdfHandler();
+        RDFParser parser = NanopubUtils.getParser(RDFFormat.TRIG);
+        parser.setRDFHandler(handler);
+        parser.parse(new StringReader(NANOPUB_TRIG));
+
+        Nanopub nanopub = handler.getNanopub("RAWruhiSmyzgZhVRs8QY8YQPAgHzTfl7anxII1de-yaCs");
+
+        assertFalse(((NanopubImpl) nanopub).isValidAndTrusty());
+    }
+
 }
@@ -0,0 +1,92 @@
+package org.nanopub;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.vocabulary.DCTERMS;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.junit.jupiter.api.Test;
+import org.nanopub.vocabulary.NP;
+import org.nanopub.vocabulary.NPX;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.vf;
+
+class NanopubValueFactoryTest {
+
+    private static final String ORCID = "https://orcid.org/0000-0000-0000-0001";
+
+    @Test
+    void returnsTheVocabularyIris() {
+        NanopubValueFactory factory = new NanopubValueFactory(10);
+
+        assertSame(NP.HAS_ASSERTION, factory.createIRI(NP.HAS_ASSERTION.stringValue()));
+        assertSame(NPX.HAS_SIGNATURE, factory.createIRI(NPX.NAMESPACE, "hasSignature"));
+        assertSame(RDF.TYPE, factory.createIRI(RDF.TYPE.stringValue()));
+        assertSame(DCTERMS.CREATED, factory.intern(vf.createIRI(DCTERMS.CREATED.stringValue())));
+        assertEquals(0, factory.getCachedIriCount());
+    }
+
+    @Test
+    void sharesIrisOfFrequentNamespaces() {
+        NanopubValueFactory factory = new NanopubValueFactory(10);
+
+        IRI orcid = factory.createIRI(ORCID);
+        assertSame(orcid, factory.createIRI(ORCID));
+        assertSame(orcid, factory.intern(vf.createIRI(ORCID)));
+        // not a term of the vocabulary class, but in its namespace:
+        IRI npxTerm = factory.createIRI(NPX.NAMESPACE + "someNewTerm");
+        assertSame(npxTerm, factory.createIRI(NPX.NAMESPACE + "someNewTerm"));
+        assertEquals(2, factory.getCachedIriCount());
+    }
+
+    @Test
+    void createsOtherIrisAsUsual() {
+        NanopubValueFactory factory = new NanopubValueFactory(10);
+        String iri = "https://example.org/np/RA1234#assertion";
+
+        assertEquals(vf.createIRI(iri), factory.createIRI(iri));
+        assertNotSame(factory.createIRI(iri), factory.createIRI(iri));
+        assertNotSame(factory.createIRI("https://orcid.org/"), factory.createIRI("https://orcid.org/"));
+        assertEquals(0, factory.getCachedIriCount());
+    }
+
+    @Test
+    void boundsTheCache() {
+        NanopubValueFactory factory = new NanopubValueFactory(2);
+
+        for (int i = 0; i < 10; i++) {
+            factory.createIRI("https://orcid.org/0000-0000-0000-000" + i);
+        }
+
+        assertTrue(factory.getCachedIriCount() <= 2);
+    }
+
+    @Test
+    void parsedNanopubsShareIris() throws Exception {
+        List<Nanopub> nanopubs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            NanopubCreator creator = new NanopubCreator("https://example.org/np" + i + "/");
+            creator.addAssertionStatement(vf.createIRI(ORCID), RDF.TYPE, vf.createIRI("https://example.org/Person"));
+            creator.addProvenanceStatement(vf.createIRI(ORCID), vf.createIRI(ORCID));
+            creator.addPubinfoStatement(DCTERMS.CREATOR, vf.createIRI(ORCID));
+            String trig = NanopubUtils.writeToString(creator.finalizeNanopub(), RDFFormat.TRIG);
+
+            RDFParser parser = NanopubUtils.getParser(RDFFormat.TRIG);
+            parser.setRDFHandler(new MultiNanopubRdfHandler(nanopubs::add));
+            parser.parse(new StringReader(trig), "");
+        }
+
+        Statement first = nanopubs.get(0).getAssertion().iterator().next();
+        Statement second = nanopubs.get(1).getAssertion().iterator().next();
+        assertSame(RDF.TYPE, first.getPredicate());
+        assertSame(first.getSubject(), second.getSubject());
+        assertNotSame(first.getObject(), second.getObject());
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.nanopub;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nanopub.utils.TestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.vf;
+
+class NquadsNanopubSplitterTest {
+
+    private static String nquads(Nanopub np) throws Exception {
+        return np.writeToString(RDFFormat.NQUADS);
+    }
+
+    private static File write(File directory, String content) throws Exception {
+        File file = new File(directory, "nanopubs.nq");
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<Nanopub> split(File file) throws Exception {
+        NquadsNanopubSplitter splitter = new NquadsNanopubSplitter(file);
+        List<Nanopub> nanopubs = new ArrayList<>();
+        NquadsNanopubSplitter.Range range;
+        while ((range = splitter.nextRange()) != null) {
+            nanopubs.add(new NanopubImpl(new ByteArrayInputStream(splitter.read(range)), RDFFormat.NQUADS));
+        }
+        return nanopubs;
+    }
+
+    private static void assertSameNanopubs(List<Nanopub> expected, List<Nanopub> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(new HashSet<>(NanopubUtils.getStatements(expected.get(i))),
+                    new HashSet<>(NanopubUtils.getStatements(actual.get(i))));
+        }
+    }
+
+    @Test
+    void splitsAFileIntoNanopubs(@TempDir File tempDir) throws Exception {
+        Nanopub np1 = TestUtils.createNanopub("https://example.org/np1#");
+        Nanopub np2 = TestUtils.createNanopub("https://example.org/np2#");
+        Nanopub np3 = TestUtils.createNanopub("https://example.org/np3#");
+        File file = write(tempDir, nquads(np1) + nquads(np2) + nquads(np3));
+
+        List<Nanopub> nanopubs = split(file);
+
+        assertSameNanopubs(List.of(np1, np2, np3), nanopubs);
+    }
+
+    @Test
+    void findsTheGraphAfterLiteralsThatLookLikeTerms(@TempDir File tempDir) throws Exception {
+        NanopubCreator creator = TestUtils.getNanopubCreator("https://example.org/np1#");
+        creator.addAssertionStatement(anyIri, anyIri, vf.createLiteral("a \"quoted\" <https://example.org/x> . <g> .\ttab"));
+        creator.addAssertionStatement(anyIri, anyIri, vf.createLiteral("tagged", "en-GB"));
+        creator.addAssertionStatement(anyIri, anyIri, vf.createLiteral(42));
+        creator.addAssertionStatement(vf.createBNode("b1"), anyIri, vf.createBNode("b2"));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        Nanopub np1 = creator.finalizeNanopub();
+        Nanopub np2 = TestUtils.createNanopub("https://example.org/np2#");
+        File file = write(tempDir, nquads(np1) + nquads(np2));
+
+        List<Nanopub> nanopubs = split(file);
+
+        assertEquals(2, nanopubs.size());
+        assertEquals(np1.getAssertion().size(), nanopubs.get(0).getAssertion().size());
+        assertSameNanopubs(List.of(np2), nanopubs.subList(1, 2));
+    }
+
+    @Test
+    void skipsCommentsAndBlankLines(@TempDir File tempDir) throws Exception {
+        Nanopub np1 = TestUtils.createNanopub("https://example.org/np1#");
+        Nanopub np2 = TestUtils.createNanopub("https://example.org/np2#");
+        File file = write(tempDir, "# a comment\n\n" + nquads(np1) + "\n   \n# <https://example.org/x> .\n" + nquads(np2));
+
+        assertSameNanopubs(List.of(np1, np2), split(file));
+    }
+
+    @Test
+    void returnsNoRangeForAnEmptyFile(@TempDir File tempDir) throws Exception {
+        assertNull(new NquadsNanopubSplitter(write(tempDir, "")).nextRange());
+    }
+
+    @Test
+    void reportsLinesThatAreNotStatements(@TempDir File tempDir) throws Exception {
+        File file = write(tempDir, nquads(TestUtils.createNanopub("https://example.org/np1#")) + "this is not N-Quads\n");
+        NquadsNanopubSplitter splitter = new NquadsNanopubSplitter(file);
+
+        assertThrows(RDFParseException.class, () -> {
+            while (splitter.nextRange() != null) {
+                // keep splitting
+            }
+        });
+    }
+
+}
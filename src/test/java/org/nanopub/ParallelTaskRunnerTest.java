@@ -0,0 +1,105 @@
+package org.nanopub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTaskRunnerTest {
+
+    private static int sleepAndReturn(int i) throws InterruptedException {
+        Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+        return i;
+    }
+
+    @Test
+    void handlesResultsInSubmissionOrder() throws Exception {
+        List<Integer> results = new ArrayList<>();
+        try (ParallelTaskRunner<Integer> runner = new ParallelTaskRunner<>(4, 8, true, results::add)) {
+            for (int i = 0; i < 100; i++) {
+                int n = i;
+                runner.submit(() -> sleepAndReturn(n));
+            }
+            runner.finish();
+        }
+
+        assertEquals(IntStream.range(0, 100).boxed().toList(), results);
+    }
+
+    @Test
+    void handlesAllResultsInUnorderedMode() throws Exception {
+        List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        try (ParallelTaskRunner<Integer> runner = new ParallelTaskRunner<>(4, 8, false, results::add)) {
+            for (int i = 0; i < 100; i++) {
+                int n = i;
+                runner.submit(() -> sleepAndReturn(n));
+            }
+            runner.finish();
+        }
+
+        assertEquals(IntStream.range(0, 100).boxed().toList(), results.stream().sorted().toList());
+    }
+
+    @Test
+    void skipsNullResults() throws Exception {
+        List<Integer> results = new ArrayList<>();
+        try (ParallelTaskRunner<Integer> runner = new ParallelTaskRunner<>(2, 4, true, results::add)) {
+            for (int i = 0; i < 10; i++) {
+                int n = i;
+                runner.submit(() -> n % 2 == 0 ? n : null);
+            }
+            runner.finish();
+        }
+
+        assertEquals(List.of(0, 2, 4, 6, 8), results);
+    }
+
+    @Test
+    void reportsTheFirstTaskError() throws Exception {
+        IllegalStateException failure = new IllegalStateException("task failed");
+        AtomicInteger handled = new AtomicInteger();
+        try (ParallelTaskRunner<Integer> runner = new ParallelTaskRunner<>(2, 4, true, r -> handled.incrementAndGet())) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+                runner.submit(() -> {
+                    throw failure;
+                });
+                for (int i = 0; i < 100; i++) {
+                    runner.submit(() -> sleepAndReturn(1));
+                }
+                runner.finish();
+            });
+            assertSame(failure, ex.getCause());
+            assertSame(failure, runner.getError());
+        }
+        // the failed task is the first one in line, so no result is handled after it
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void reportsResultHandlerErrors() throws Exception {
+        Exception failure = new Exception("handler failed");
+        try (ParallelTaskRunner<Integer> runner = new ParallelTaskRunner<>(2, 4, true, r -> {
+            throw failure;
+        })) {
+            runner.submit(() -> 1);
+            ExecutionException ex = assertThrows(ExecutionException.class, runner::finish);
+            assertSame(failure, ex.getCause());
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelTaskRunner<Integer>(0, 4, true, r -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelTaskRunner<Integer>(4, 2, true, r -> {
+        }));
+    }
+
+}
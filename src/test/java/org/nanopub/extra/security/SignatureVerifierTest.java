@@ -0,0 +1,107 @@
+package org.nanopub.extra.security;
+
+import net.trustyuri.rdf.RdfPreprocessor;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.trusty.CanonicalNanopub;
+import org.nanopub.trusty.StreamingRdfHasher;
+import org.nanopub.testsuite.NanopubTestSuite;
+import org.nanopub.testsuite.SigningKeyPair;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.vf;
+
+class SignatureVerifierTest {
+
+    private static TransformContext transformContext() throws Exception {
+        SigningKeyPair keyPair = NanopubTestSuite.getLatest().getSigningKey("rsa-key1");
+        KeyPair key = SignNanopub.loadKey(keyPair.getPrivateKeyFile().getPath(), SignatureAlgorithm.RSA);
+        return new TransformContext(SignatureAlgorithm.RSA, key,
+                vf.createIRI("https://orcid.org/0000-0000-0000-0000"), false, false, false);
+    }
+
+    private static Nanopub signedNanopub(TransformContext c, String label) throws Exception {
+        NanopubCreator creator = new NanopubCreator(true);
+        creator.addAssertionStatement(anyIri, RDFS.LABEL, vf.createLiteral(label));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        return SignNanopub.signAndTransform(creator.finalizeNanopub(), c);
+    }
+
+    private static NanopubSignatureElement tampered(Nanopub signed) throws Exception {
+        NanopubSignatureElement se = SignatureUtils.getSignatureElement(signed);
+        se.addTargetStatement(vf.createStatement(anyIri, RDFS.LABEL, vf.createLiteral("added later"), signed.getAssertionUri()));
+        return se;
+    }
+
+    @Test
+    void decodesEachPublicKeyOnce() throws Exception {
+        TransformContext c = transformContext();
+        SignatureVerifier verifier = new SignatureVerifier();
+
+        assertTrue(verifier.verify(SignatureUtils.getSignatureElement(signedNanopub(c, "a"))));
+        assertTrue(verifier.verify(SignatureUtils.getSignatureElement(signedNanopub(c, "b"))));
+
+        assertEquals(1, verifier.getKeyCacheMissCount());
+        assertEquals(1, verifier.getKeyCacheHitCount());
+    }
+
+    @Test
+    void detectsInvalidSignatures() throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier();
+
+        assertFalse(verifier.verify(tampered(signedNanopub(transformContext(), "a"))));
+    }
+
+    @Test
+    void derivesTheSignatureInputFromTheCanonicalForm() throws Exception {
+        Nanopub signed = signedNanopub(transformContext(), "a");
+        NanopubSignatureElement se = SignatureUtils.getSignatureElement(signed);
+        CanonicalNanopub canonical = new CanonicalNanopub(signed);
+        SignatureVerifier verifier = new SignatureVerifier();
+
+        assertTrue(canonical.isValidTrusty());
+        List<Statement> target = RdfPreprocessor.run(se.getTargetStatements(), canonical.getArtifactCode());
+        assertEquals(StreamingRdfHasher.sort(target), canonical.getSignatureStatements(se.getUri()));
+        assertTrue(verifier.verify(se, canonical));
+        // a signature element that does not match the nanopub is checked on its own:
+        assertFalse(verifier.verify(tampered(signed), canonical));
+    }
+
+    @Test
+    void verifiesBatchesInOrder() throws Exception {
+        TransformContext c = transformContext();
+        List<NanopubSignatureElement> elements = new ArrayList<>();
+        List<Boolean> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Nanopub signed = signedNanopub(c, "np" + i);
+            boolean valid = i % 3 != 0;
+            elements.add(valid ? SignatureUtils.getSignatureElement(signed) : tampered(signed));
+            expected.add(valid);
+        }
+        SignatureVerifier verifier = new SignatureVerifier();
+
+        assertEquals(expected, verifier.verifyAll(elements, 1));
+        assertEquals(expected, verifier.verifyAll(elements, 4));
+        // the key was decoded by the sequential run, so the threads only take it from the cache:
+        assertEquals(1, verifier.getKeyCacheMissCount());
+    }
+
+    @Test
+    void rejectsUndecodablePublicKeys() {
+        SignatureVerifier verifier = new SignatureVerifier();
+
+        assertThrows(GeneralSecurityException.class, () -> verifier.getPublicKey(SignatureAlgorithm.RSA, "bm90IGEga2V5"));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verifyAll(List.of(), 0));
+    }
+
+}
@@ -132,6 +132,25 @@ class TransformContextTest {
         assertEquals(TRUSTY, context.getTempRefMap().get(TEMP));
     }
 
+    @Test
+    void mergeTransformMapAddsOnlyTheFinalReferencesOfATempNanopub() throws Exception {
+        TransformContext context = context(true, false);
+        IRI placeholder = vf.createIRI("https://w3id.org/np/ARTIFACTCODE-PLACEHOLDER/");
+        IRI otherTemp = vf.createIRI("http://purl.org/nanopub/temp/5678/");
+        IRI otherTrusty = vf.createIRI("https://w3id.org/np/RAWruhiSmyzgZhVRs8QY8YQPAgHzTfl7anxII1de-yaCs");
+        context.getTempRefMap().put(otherTemp, otherTrusty);
+
+        Map<Resource, IRI> tempUriReplacerMap = new HashMap<>();
+        tempUriReplacerMap.put(TEMP, placeholder);
+        Map<Resource, IRI> map = new HashMap<>();
+        map.put(placeholder, TRUSTY);
+        context.mergeTransformMap(tempUriReplacerMap, map);
+
+        assertEquals(TRUSTY, context.getTempRefMap().get(TEMP));
+        assertEquals(otherTrusty, context.getTempRefMap().get(otherTemp));
+        assertEquals(2, context.getTempRefMap().size());
+    }
+
     @Test
     void mergeTransformMapKeepsOnlyTrustyTargetsInThePrefixMap() throws Exception {
         TransformContext context = context(false, true);
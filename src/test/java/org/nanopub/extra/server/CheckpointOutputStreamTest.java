@@ -0,0 +1,72 @@
+package org.nanopub.extra.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointOutputStreamTest {
+
+    private static String readCompressed(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void cutsThePlainOutputBackToACheckpoint(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "output.trig");
+        try (CheckpointOutputStream out = new CheckpointOutputStream(file, false, false)) {
+            out.write("first\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(6, out.checkpoint());
+            out.write("partial".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (CheckpointOutputStream out = new CheckpointOutputStream(file, false, true)) {
+            out.truncate(6);
+            out.write("second\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals("first\nsecond\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void endsAGzipMemberAtEachCheckpoint(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "output.trig.gz");
+        long length;
+        try (CheckpointOutputStream out = new CheckpointOutputStream(file, true, false)) {
+            out.write("first\n".getBytes(StandardCharsets.UTF_8));
+            length = out.checkpoint();
+            assertEquals(length, file.length());
+            // the file can be read up to the checkpoint while the stream is still open:
+            assertEquals("first\n", readCompressed(file));
+            out.write("partial".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (CheckpointOutputStream out = new CheckpointOutputStream(file, true, true)) {
+            out.truncate(length);
+            out.write("second\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals("first\nsecond\n", readCompressed(file));
+    }
+
+    @Test
+    void refusesToTruncateBeyondTheEndOfTheFile(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "output.trig");
+        try (CheckpointOutputStream out = new CheckpointOutputStream(file, false, false)) {
+            out.write("first\n".getBytes(StandardCharsets.UTF_8));
+
+            assertThrows(IOException.class, () -> out.truncate(100));
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.nanopub.extra.server;
+
+import net.trustyuri.TrustyUriUtils;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.Test;
+import org.nanopub.MultiNanopubRdfHandler;
+import org.nanopub.Nanopub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.nanopub.utils.TestUtils.createIndexWithSubIndex;
+
+class FetchIndexFromDbTest {
+
+    private static String artifactCode(Nanopub np) {
+        return TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+    }
+
+    /**
+     * Creates a database mock that contains the given nanopubs.
+     */
+    private static NanopubDb mockDb(Collection<? extends Nanopub> nanopubs) {
+        Map<String, Nanopub> content = new HashMap<>();
+        for (Nanopub np : nanopubs) {
+            content.put(artifactCode(np), np);
+        }
+        NanopubDb db = mock(NanopubDb.class);
+        when(db.getNanopub(anyString())).thenAnswer(invocation -> content.get(invocation.<String>getArgument(0)));
+        when(db.getNanopubs(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Nanopub> found = new HashMap<>();
+            for (String ac : invocation.<Collection<String>>getArgument(0)) {
+                if (content.containsKey(ac)) found.put(ac, content.get(ac));
+            }
+            return found;
+        });
+        return db;
+    }
+
+    private static List<IRI> readUris(byte[] trig) throws Exception {
+        List<IRI> uris = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig), np -> uris.add(np.getUri()));
+        return uris;
+    }
+
+    @Test
+    void writesTheSameOutputWithSeveralThreads() throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(250);
+        String indexUri = all.getLast().getUri().stringValue();
+
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        FetchIndexFromDb sequential = new FetchIndexFromDb(indexUri, mockDb(all), out1, RDFFormat.TRIG, true, true);
+        sequential.run();
+        NanopubDb db = mockDb(all);
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        FetchIndexFromDb concurrent = new FetchIndexFromDb(indexUri, db, out2, RDFFormat.TRIG, true, true);
+        concurrent.setThreads(4);
+        concurrent.run();
+
+        List<IRI> uris = readUris(out1.toByteArray());
+        assertEquals(all.size(), uris.size());
+        assertEquals(uris, readUris(out2.toByteArray()));
+        assertEquals(sequential.getNanopubCount(), concurrent.getNanopubCount());
+        // 250 elements of the index in three batches, and the 5 elements of the sub-index in one:
+        verify(db, times(4)).getNanopubs(anyCollection());
+    }
+
+    @Test
+    void failsOnMissingContent() throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(250);
+        String indexUri = all.getLast().getUri().stringValue();
+        List<Nanopub> withoutFirstElement = all.subList(1, all.size());
+
+        FetchIndexFromDb fetchIndex = new FetchIndexFromDb(indexUri, mockDb(withoutFirstElement), new ByteArrayOutputStream(), RDFFormat.TRIG, true, true);
+        fetchIndex.setThreads(2);
+
+        assertThrows(RuntimeException.class, fetchIndex::run);
+    }
+
+    @Test
+    void rejectsInvalidThreadCounts() {
+        FetchIndexFromDb fetchIndex = new FetchIndexFromDb("https://example.org/index/RA1234", mock(NanopubDb.class), new ByteArrayOutputStream(), RDFFormat.TRIG, true, true);
+
+        assertThrows(IllegalArgumentException.class, () -> fetchIndex.setThreads(0));
+    }
+
+}
@@ -0,0 +1,277 @@
+package org.nanopub.extra.server;
+
+import com.sun.net.httpserver.HttpServer;
+import net.trustyuri.TrustyUriUtils;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.nanopub.MultiNanopubRdfHandler;
+import org.nanopub.Nanopub;
+import org.nanopub.extra.index.NanopubIndex;
+import org.nanopub.jelly.NanopubStream;
+import org.nanopub.utils.CollectingIndexCreator;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.createIndexWithSubIndex;
+import static org.nanopub.utils.TestUtils.createTrustyNanopub;
+
+class FetchIndexTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private NanopubCache cache;
+
+    @BeforeEach
+    void disableCache() {
+        cache = GetNanopub.getCache();
+        GetNanopub.setCache(null);
+    }
+
+    @AfterEach
+    void stopServers() {
+        GetNanopub.setCache(cache);
+        servers.forEach(s -> s.stop(0));
+    }
+
+    private RegistryInfo startRegistry(Collection<? extends Nanopub> nanopubs) throws Exception {
+        Map<String, byte[]> content = new ConcurrentHashMap<>();
+        for (Nanopub np : nanopubs) {
+            content.put(TrustyUriUtils.getArtifactCode(np.getUri().stringValue()),
+                    np.writeToString(RDFFormat.TRIG).getBytes(StandardCharsets.UTF_8));
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/np/", exchange -> {
+            byte[] body = content.get(exchange.getRequestURI().getPath().substring(4));
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        RegistryInfo registryInfo = new RegistryInfo();
+        registryInfo.url = "http://localhost:" + server.getAddress().getPort() + "/";
+        return registryInfo;
+    }
+
+    private static List<IRI> readUris(byte[] trig) throws Exception {
+        List<IRI> uris = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig), np -> uris.add(np.getUri()));
+        return uris;
+    }
+
+    @Test
+    void fetchesTheIndexWithSubIndexesAndContent() throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(30);
+        NanopubIndex index = (NanopubIndex) all.getLast();
+
+        RegistryInfo empty = startRegistry(List.of());
+        RegistryInfo full = startRegistry(all);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FetchIndex fetchIndex = new FetchIndex(index.getUri().stringValue(), out, RDFFormat.TRIG, false, true, List.of(empty, full));
+        fetchIndex.run();
+
+        List<IRI> uris = readUris(out.toByteArray());
+        assertEquals(35, fetchIndex.getNanopubCount());
+        // the elements of the index come first, then the ones of the sub-index:
+        assertEquals(index.getElements(), new HashSet<>(uris.subList(0, 30)));
+        assertEquals(all.subList(0, 5).stream().map(Nanopub::getUri).collect(Collectors.toSet()), new HashSet<>(uris.subList(30, 35)));
+        assertEquals(0, fetchIndex.getServerUsage(empty));
+        assertEquals(37, fetchIndex.getServerUsage(full));
+    }
+
+    @Test
+    void writesInIndexOrderWithATinyBuffer() throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(30);
+        NanopubIndex index = (NanopubIndex) all.getLast();
+        List<RegistryInfo> registries = List.of(startRegistry(all), startRegistry(all));
+
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        new FetchIndex(index.getUri().stringValue(), out1, RDFFormat.TRIG, true, true, registries).run();
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        FetchIndex fetchIndex = new FetchIndex(index.getUri().stringValue(), out2, RDFFormat.TRIG, true, true, registries);
+        fetchIndex.setMaxBufferedBytes(1);
+        fetchIndex.run();
+
+        assertEquals(37, readUris(out1.toByteArray()).size());
+        assertEquals(index.getUri(), readUris(out1.toByteArray()).getFirst());
+        assertEquals(readUris(out1.toByteArray()), readUris(out2.toByteArray()));
+    }
+
+    @Test
+    void writesJellyFrames() throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(30);
+        NanopubIndex index = (NanopubIndex) all.getLast();
+        List<RegistryInfo> registries = List.of(startRegistry(all));
+
+        ByteArrayOutputStream trig = new ByteArrayOutputStream();
+        new FetchIndex(index.getUri().stringValue(), trig, RDFFormat.TRIG, false, true, registries).run();
+        ByteArrayOutputStream jelly = new ByteArrayOutputStream();
+        FetchIndex fetchIndex = new FetchIndex(index.getUri().stringValue(), jelly, RDFFormat.TRIG, false, true, registries);
+        fetchIndex.setJellyOutput(true);
+        fetchIndex.run();
+
+        List<IRI> uris = NanopubStream.fromByteStream(new ByteArrayInputStream(jelly.toByteArray())).getAsNanopubs()
+                .map(maybeNanopub -> maybeNanopub.getNanopub().getUri())
+                .toList();
+        assertEquals(readUris(trig.toByteArray()), uris);
+    }
+
+    @Test
+    void writesOnlyTheIndexes() throws Exception {
+        CollectingIndexCreator creator = new CollectingIndexCreator();
+        List<Nanopub> all = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Nanopub np = createTrustyNanopub("np" + i);
+            all.add(np);
+            creator.addElement(np);
+        }
+        creator.finalizeNanopub();
+        all.addAll(creator.indexes);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FetchIndex fetchIndex = new FetchIndex(creator.complete.getUri().stringValue(), out, RDFFormat.TRIG, true, false, List.of(startRegistry(all)));
+        fetchIndex.run();
+
+        assertEquals(List.of(creator.complete.getUri()), readUris(out.toByteArray()));
+    }
+
+    @Test
+    void givesUpOnNanopubsThatNoRegistryHas() throws Exception {
+        CollectingIndexCreator creator = new CollectingIndexCreator();
+        creator.addElement(createTrustyNanopub("missing"));
+        creator.finalizeNanopub();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FetchIndex fetchIndex = new FetchIndex(creator.complete.getUri().stringValue(), out, RDFFormat.TRIG, true, true,
+                List.of(startRegistry(creator.indexes), startRegistry(creator.indexes)));
+        fetchIndex.run();
+
+        assertEquals(1, fetchIndex.getNanopubCount());
+    }
+
+    private static void writeCheckpoint(File file, String... lines) throws Exception {
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                w.write(line + "\n");
+            }
+        }
+    }
+
+    @Test
+    void resumesFromACheckpoint(@TempDir File tempDir) throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(30);
+        NanopubIndex subIndex = (NanopubIndex) all.get(35);
+        NanopubIndex index = (NanopubIndex) all.getLast();
+        Nanopub element = all.get(5);
+        File checkpoint = new File(tempDir, "checkpoint.gz");
+        writeCheckpoint(checkpoint,
+                "index " + index.getUri(),
+                "count 29",
+                "c " + element.getUri(),
+                "i " + subIndex.getUri());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FetchIndex fetchIndex = new FetchIndex(index.getUri().stringValue(), out, RDFFormat.TRIG, false, true, List.of(startRegistry(all)));
+        fetchIndex.setCheckpointFile(checkpoint, true);
+        fetchIndex.run();
+
+        List<IRI> expected = new ArrayList<>();
+        expected.add(element.getUri());
+        all.subList(0, 5).forEach(np -> expected.add(np.getUri()));
+        List<IRI> uris = readUris(out.toByteArray());
+        assertEquals(element.getUri(), uris.getFirst());
+        assertEquals(new HashSet<>(expected), new HashSet<>(uris));
+        assertEquals(35, fetchIndex.getNanopubCount());
+        assertFalse(checkpoint.exists());
+    }
+
+    @ParameterizedTest(name = "compressed: {0}")
+    @ValueSource(booleans = {false, true})
+    void resumesAfterBeingKilledWithoutCorruptingTheOutput(boolean compressed, @TempDir File tempDir) throws Exception {
+        List<Nanopub> all = createIndexWithSubIndex(30);
+        NanopubIndex subIndex = (NanopubIndex) all.get(35);
+        NanopubIndex index = (NanopubIndex) all.getLast();
+        Nanopub element = all.get(5);
+        File outputFile = new File(tempDir, compressed ? "output.trig.gz" : "output.trig");
+        File checkpoint = new File(tempDir, "checkpoint.gz");
+
+        // The first run writes 29 nanopubs and saves a checkpoint:
+        long outputLength;
+        try (CheckpointOutputStream out = new CheckpointOutputStream(outputFile, compressed, false)) {
+            for (Nanopub np : all.subList(6, 35)) {
+                out.write(np.writeToString(RDFFormat.TRIG).getBytes(StandardCharsets.UTF_8));
+            }
+            outputLength = out.checkpoint();
+        }
+        writeCheckpoint(checkpoint,
+                "index " + index.getUri(),
+                "count 29",
+                "output " + outputLength,
+                "c " + element.getUri(),
+                "i " + subIndex.getUri());
+        // Then it is killed while writing the next nanopub:
+        byte[] next = element.writeToString(RDFFormat.TRIG).getBytes(StandardCharsets.UTF_8);
+        if (compressed) {
+            ByteArrayOutputStream member = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(member)) {
+                gzipOut.write(next);
+            }
+            next = member.toByteArray();
+        }
+        try (OutputStream out = new FileOutputStream(outputFile, true)) {
+            out.write(next, 0, next.length / 2);
+        }
+
+        FetchIndex fetchIndex;
+        try (CheckpointOutputStream out = new CheckpointOutputStream(outputFile, compressed, true)) {
+            fetchIndex = new FetchIndex(index.getUri().stringValue(), out, RDFFormat.TRIG, false, true, List.of(startRegistry(all)));
+            fetchIndex.setCheckpointFile(checkpoint, true);
+            fetchIndex.run();
+        }
+
+        byte[] output = Files.readAllBytes(outputFile.toPath());
+        if (compressed) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(output))) {
+                output = in.readAllBytes();
+            }
+        }
+        List<IRI> uris = readUris(output);
+        assertEquals(35, uris.size());
+        assertEquals(all.subList(0, 35).stream().map(Nanopub::getUri).collect(Collectors.toSet()), new HashSet<>(uris));
+        assertEquals(element.getUri(), uris.get(29));
+        assertEquals(35, fetchIndex.getNanopubCount());
+        assertFalse(checkpoint.exists());
+    }
+
+    @Test
+    void rejectsTheCheckpointOfAnotherIndex(@TempDir File tempDir) throws Exception {
+        File checkpoint = new File(tempDir, "checkpoint.gz");
+        writeCheckpoint(checkpoint, "index https://example.org/index/other", "count 0");
+        FetchIndex fetchIndex = new FetchIndex("https://example.org/index/RA1234", new ByteArrayOutputStream(), RDFFormat.TRIG, false, true, List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> fetchIndex.setCheckpointFile(checkpoint, true));
+    }
+
+}
@@ -1,20 +1,42 @@
 package org.nanopub.extra.server;
 
+import com.sun.net.httpserver.HttpServer;
 import net.trustyuri.ArtifactCode;
+import net.trustyuri.TrustyUriUtils;
+import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 import org.nanopub.CliRunner;
+import org.nanopub.MultiNanopubRdfHandler;
 import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
 import org.nanopub.NanopubImpl;
+import org.nanopub.NanopubUtils;
 import org.nanopub.testsuite.NanopubTestSuite;
 import org.nanopub.testsuite.TestSuiteEntry;
+import org.nanopub.utils.TestUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.mockStatic;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.createTrustyNanopub;
 
 public class GetNanopubTest {
 
@@ -48,4 +70,132 @@ public class GetNanopubTest {
         }
     }
 
+    @Test
+    void writesSeveralNanopubsInTheOrderOfTheInput(@TempDir File tempDir) throws Exception {
+        List<Nanopub> nanopubs = List.of(createTrustyNanopub("a"), createTrustyNanopub("b"), createTrustyNanopub("c"));
+        List<String> ids = nanopubs.stream().map(np -> np.getUri().stringValue()).toList();
+        File outFile = new File(tempDir, "out.trig");
+
+        try (MockedStatic<GetNanopub> mockedStatic = mockStatic(GetNanopub.class)) {
+            mockedStatic.when(() -> GetNanopub.getAll(anyCollection(), any(NanopubBatchFetcher.Handler.class))).thenAnswer(invocation -> {
+                NanopubBatchFetcher.Handler handler = invocation.getArgument(1);
+                // the nanopubs arrive in reverse order:
+                for (int i = nanopubs.size() - 1; i >= 0; i--) {
+                    handler.handleNanopub(ids.get(i), nanopubs.get(i));
+                }
+                return null;
+            });
+
+            GetNanopub c = CliRunner.initJc(new GetNanopub(), new String[]{
+                    ids.get(0), ids.get(1), ids.get(2), ids.get(0),
+                    "-o", outFile.getPath()});
+            c.run();
+        }
+
+        List<IRI> uris = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, outFile, np -> uris.add(np.getUri()));
+        assertEquals(List.of(nanopubs.get(0).getUri(), nanopubs.get(1).getUri(), nanopubs.get(2).getUri(), nanopubs.get(0).getUri()), uris);
+    }
+
+    /**
+     * Starts a registry stub that serves the given nanopub once the latch is released (right away if it is null), and
+     * counts the responses it sends.
+     */
+    private static HttpServer startRegistry(String artifactCode, byte[] trig, CountDownLatch release, AtomicInteger responses) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/np/" + artifactCode, exchange -> {
+            try {
+                if (release != null) release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            responses.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "application/trig");
+            exchange.sendResponseHeaders(200, trig.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(trig);
+            } catch (Exception ex) {
+                // the client may have aborted the request
+            }
+        });
+        // Handle the requests outside of the dispatcher thread, so a slow response does not block stopping the server:
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static RegistryInfo registryInfo(HttpServer server) {
+        RegistryInfo registryInfo = new RegistryInfo();
+        registryInfo.url = "http://localhost:" + server.getAddress().getPort() + "/";
+        return registryInfo;
+    }
+
+    @Test
+    void hedgedRequestTakesTheFirstValidResponse() throws Exception {
+        NanopubCreator creator = TestUtils.getNanopubCreator("http://purl.org/nanopub/temp/hedged/");
+        creator.addAssertionStatement(anyIri, anyIri, anyIri);
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        Nanopub np = creator.finalizeTrustyNanopub();
+        String artifactCode = TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+        byte[] trig = np.writeToString(RDFFormat.TRIG).getBytes(StandardCharsets.UTF_8);
+
+        // The slow registry only answers at the end of the test, so the nanopub can only come from the fast one:
+        CountDownLatch releaseSlowRegistry = new CountDownLatch(1);
+        AtomicInteger slowResponses = new AtomicInteger();
+        AtomicInteger fastResponses = new AtomicInteger();
+        HttpServer slowRegistry = startRegistry(artifactCode, trig, releaseSlowRegistry, slowResponses);
+        HttpServer fastRegistry = startRegistry(artifactCode, trig, null, fastResponses);
+        NanopubCache cache = GetNanopub.getCache();
+        GetNanopub.setCache(null);
+        try {
+            RegistryLatencyTracker tracker = new RegistryLatencyTracker(0.95, 100, 10);
+            Nanopub result = GetNanopub.getHedged(artifactCode,
+                    List.of(registryInfo(slowRegistry), registryInfo(fastRegistry)), NanopubUtils.getHttpClient(), tracker);
+
+            assertNotNull(result);
+            assertEquals(np.getUri(), result.getUri());
+            assertEquals(0, slowResponses.get());
+            assertEquals(1, fastResponses.get());
+        } finally {
+            releaseSlowRegistry.countDown();
+            GetNanopub.setCache(cache);
+            slowRegistry.stop(0);
+            fastRegistry.stop(0);
+        }
+    }
+
+    private static HttpServer startRegistryWithStatus(int status) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/np/", exchange -> {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    void onlyServerErrorsCountAsRegistryFailures() throws Exception {
+        String artifactCode = "RA1234567890123456789012345678901234567890123";
+        HttpServer missingRegistry = startRegistryWithStatus(404);
+        HttpServer failingRegistry = startRegistryWithStatus(503);
+        try {
+            RegistryLatencyTracker tracker = new RegistryLatencyTracker(0.95, 100, 10);
+            RegistryInfo missing = registryInfo(missingRegistry);
+            RegistryInfo failing = registryInfo(failingRegistry);
+            for (int i = 0; i < 5; i++) {
+                assertThrows(IOException.class, () -> GetNanopub.fetch(artifactCode, missing, NanopubUtils.getHttpClient(), tracker));
+                assertThrows(IOException.class, () -> GetNanopub.fetch(artifactCode, failing, NanopubUtils.getHttpClient(), tracker));
+            }
+
+            // the failure penalty is ten seconds:
+            assertTrue(tracker.getExpectedLatency(missing.getUrl()) < 1000);
+            assertTrue(tracker.getExpectedLatency(failing.getUrl()) > 10000);
+        } finally {
+            missingRegistry.stop(0);
+            failingRegistry.stop(0);
+        }
+    }
+
 }
@@ -0,0 +1,188 @@
+package org.nanopub.extra.server;
+
+import com.sun.net.httpserver.HttpServer;
+import net.trustyuri.TrustyUriUtils;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.nanopub.utils.TestUtils.createTrustyNanopub;
+
+class NanopubBatchFetcherTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private NanopubCache cache;
+
+    @BeforeEach
+    void disableCache() {
+        cache = GetNanopub.getCache();
+        GetNanopub.setCache(null);
+    }
+
+    @AfterEach
+    void stopServers() {
+        GetNanopub.setCache(cache);
+        servers.forEach(s -> s.stop(0));
+    }
+
+    private static String artifactCode(Nanopub np) {
+        return TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+    }
+
+    /**
+     * Starts a registry stub that serves the given nanopubs and counts the maximum number of concurrent requests.
+     */
+    private RegistryInfo startRegistry(AtomicInteger maxConcurrent, Nanopub... nanopubs) throws Exception {
+        Map<String, byte[]> content = new HashMap<>();
+        for (Nanopub np : nanopubs) {
+            content.put(artifactCode(np), np.writeToString(RDFFormat.TRIG).getBytes(StandardCharsets.UTF_8));
+        }
+        AtomicInteger concurrent = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/np/", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                byte[] body = content.get(exchange.getRequestURI().getPath().substring(4));
+                if (body == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        RegistryInfo registryInfo = new RegistryInfo();
+        registryInfo.url = "http://localhost:" + server.getAddress().getPort() + "/";
+        return registryInfo;
+    }
+
+    @Test
+    void failsOverToRegistriesThatHaveTheNanopub() throws Exception {
+        Nanopub np1 = createTrustyNanopub("a");
+        Nanopub np2 = createTrustyNanopub("b");
+        Nanopub np3 = createTrustyNanopub("c");
+        RegistryInfo r1 = startRegistry(new AtomicInteger(), np1);
+        RegistryInfo r2 = startRegistry(new AtomicInteger(), np1, np2);
+
+        Map<String, Nanopub> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        new NanopubBatchFetcher(List.of(r1, r2), NanopubUtils.getHttpClient(), 2, new RegistryLatencyTracker())
+                .fetch(List.of(artifactCode(np1), np2.getUri().stringValue(), artifactCode(np3)), new NanopubBatchFetcher.Handler() {
+
+                    @Override
+                    public void handleNanopub(String id, Nanopub np) {
+                        found.put(id, np);
+                    }
+
+                    @Override
+                    public void handleMissing(String id) {
+                        missing.add(id);
+                    }
+
+                });
+
+        assertEquals(2, found.size());
+        assertEquals(np1.getUri(), found.get(artifactCode(np1)).getUri());
+        assertEquals(np2.getUri(), found.get(np2.getUri().stringValue()).getUri());
+        assertEquals(List.of(artifactCode(np3)), missing);
+    }
+
+    @Test
+    void limitsTheRequestsPerRegistry() throws Exception {
+        List<Nanopub> nanopubs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            nanopubs.add(createTrustyNanopub("np" + i));
+        }
+        AtomicInteger maxConcurrent1 = new AtomicInteger();
+        AtomicInteger maxConcurrent2 = new AtomicInteger();
+        RegistryInfo r1 = startRegistry(maxConcurrent1, nanopubs.toArray(new Nanopub[0]));
+        RegistryInfo r2 = startRegistry(maxConcurrent2, nanopubs.toArray(new Nanopub[0]));
+
+        List<String> found = Collections.synchronizedList(new ArrayList<>());
+        new NanopubBatchFetcher(List.of(r1, r2), NanopubUtils.getHttpClient(), 3, new RegistryLatencyTracker())
+                .fetch(nanopubs.stream().map(NanopubBatchFetcherTest::artifactCode).toList(), new NanopubBatchFetcher.Handler() {
+
+                    @Override
+                    public void handleNanopub(String id, Nanopub np) {
+                        found.add(id);
+                    }
+
+                    @Override
+                    public void handleMissing(String id) {
+                        fail("Not found: " + id);
+                    }
+
+                });
+
+        assertEquals(20, found.size());
+        assertTrue(maxConcurrent1.get() <= 3);
+        assertTrue(maxConcurrent2.get() <= 3);
+    }
+
+    @Test
+    void givesUpOnRegistriesWhoseConnectionPoolKeepsTimingOut() throws Exception {
+        HttpClient httpClient = mock(HttpClient.class);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenThrow(new ConnectionPoolTimeoutException("Timeout waiting for connection from pool"));
+        List<RegistryInfo> registries = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            RegistryInfo registryInfo = new RegistryInfo();
+            registryInfo.url = "http://registry" + i + ".example.org/";
+            registries.add(registryInfo);
+        }
+        String artifactCode = artifactCode(createTrustyNanopub("np"));
+
+        List<String> missing = new ArrayList<>();
+        new NanopubBatchFetcher(registries, httpClient, 1, new RegistryLatencyTracker())
+                .fetch(List.of(artifactCode), new NanopubBatchFetcher.Handler() {
+
+                    @Override
+                    public void handleNanopub(String id, Nanopub np) {
+                        fail("Unexpected nanopub: " + id);
+                    }
+
+                    @Override
+                    public void handleMissing(String id) {
+                        missing.add(id);
+                    }
+
+                });
+
+        assertEquals(List.of(artifactCode), missing);
+        verify(httpClient, times(6)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    void rejectsInvalidIdsBeforeFetching() {
+        NanopubBatchFetcher fetcher = new NanopubBatchFetcher(List.of(), NanopubUtils.getHttpClient(), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> fetcher.fetch(List.of("not an artifact code"), null));
+    }
+
+}
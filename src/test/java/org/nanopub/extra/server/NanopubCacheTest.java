@@ -0,0 +1,125 @@
+package org.nanopub.extra.server;
+
+import net.trustyuri.TrustyUriUtils;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.NanopubImpl;
+import org.nanopub.NanopubUtils;
+import org.nanopub.NanopubWithNs;
+import org.nanopub.jelly.JellyUtils;
+import org.nanopub.utils.TestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.createTrustyNanopub;
+
+class NanopubCacheTest {
+
+    private static String artifactCode(Nanopub np) {
+        return TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+    }
+
+    @Test
+    void returnsCachedNanopubsFromMemory() throws Exception {
+        NanopubCache cache = new NanopubCache();
+        Nanopub np = createTrustyNanopub("a");
+
+        assertNull(cache.get(artifactCode(np)));
+        cache.put(np);
+
+        assertEquals(np, cache.get(artifactCode(np)));
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void evictsNanopubsBeyondTheMaximumSize() throws Exception {
+        NanopubCache cache = new NanopubCache(1, null);
+        Nanopub np1 = createTrustyNanopub("a");
+        Nanopub np2 = createTrustyNanopub("b");
+
+        cache.put(np1);
+        cache.put(np2);
+
+        assertEquals(1, cache.getMemorySize());
+        assertEquals(np2, cache.get(artifactCode(np2)));
+        assertNull(cache.get(artifactCode(np1)));
+    }
+
+    @Test
+    void readsNanopubsFromTheDiskStore(@TempDir File tempDir) throws Exception {
+        Nanopub np = createTrustyNanopub("a");
+        new NanopubCache(10, tempDir).put(np);
+
+        NanopubCache cache = new NanopubCache(10, tempDir);
+        Nanopub cached = cache.get(artifactCode(np));
+
+        assertNotNull(cached);
+        assertEquals(np.getUri(), cached.getUri());
+        assertEquals(np.getAssertion(), cached.getAssertion());
+        assertEquals(1, cache.getDiskHitCount());
+
+        // the nanopub read from disk is now kept in memory:
+        assertEquals(cached, cache.get(artifactCode(np)));
+        assertEquals(1, cache.getMemoryHitCount());
+    }
+
+    @Test
+    void deletesTamperedNanopubsFromTheDiskStore(@TempDir File tempDir) throws Exception {
+        Nanopub np = createTrustyNanopub("a");
+        String artifactCode = artifactCode(np);
+        new NanopubCache(10, tempDir).put(np);
+        NanopubCreator creator = new NanopubCreator(np.getUri());
+        creator.addAssertionStatement(anyIri, anyIri, TestUtils.vf.createLiteral("tampered"));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        Path file = tempDir.toPath().resolve(artifactCode.substring(2, 4)).resolve(artifactCode + ".jelly");
+        Files.write(file, JellyUtils.writeNanopubForDB(creator.finalizeNanopub()));
+
+        NanopubCache cache = new NanopubCache(10, tempDir);
+
+        assertNull(cache.get(artifactCode));
+        assertFalse(Files.exists(file));
+        assertEquals(0, cache.getMemorySize());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void returnsCopiesThatCanBeChangedIndependently() throws Exception {
+        NanopubCache cache = new NanopubCache();
+        String trig = "@prefix unused: <https://example.org/unused#> .\n" + NanopubUtils.writeToString(createTrustyNanopub("a"), RDFFormat.TRIG);
+        NanopubImpl np = new NanopubImpl(trig, RDFFormat.TRIG);
+        cache.put(np);
+
+        NanopubWithNs first = (NanopubWithNs) cache.get(artifactCode(np));
+        NanopubWithNs second = (NanopubWithNs) cache.get(artifactCode(np));
+        assertNotSame(first, second);
+        first.removeUnusedPrefixes();
+        np.removeUnusedPrefixes();
+
+        assertNull(first.getNamespace("unused"));
+        assertEquals("https://example.org/unused#", second.getNamespace("unused"));
+        assertEquals("https://example.org/unused#", ((NanopubWithNs) cache.get(artifactCode(np))).getNamespace("unused"));
+    }
+
+    @Test
+    void isUsedInMemoryByGetNanopubByDefault() {
+        assertNotNull(GetNanopub.getCache());
+    }
+
+    @Test
+    void rejectsNanopubsWithoutArtifactCode() throws Exception {
+        NanopubCache cache = new NanopubCache();
+
+        assertThrows(IllegalArgumentException.class, () -> cache.put(TestUtils.createNanopub("https://example.org/np1#")));
+    }
+
+}
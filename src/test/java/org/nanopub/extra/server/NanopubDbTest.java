@@ -0,0 +1,218 @@
+package org.nanopub.extra.server;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.jelly.JellyUtils;
+import org.nanopub.utils.TestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NanopubDbTest {
+
+    /**
+     * Stand-in for the nanopub collection that understands the queries of {@link NanopubDb}: filters on "_id" with
+     * a single value or "$in", and projections that include fields. It records the executed queries.
+     */
+    private static class NanopubCollectionStandIn {
+
+        final Map<String, Document> documents = new LinkedHashMap<>();
+        final List<BsonDocument> filters = new ArrayList<>();
+        final List<BsonDocument> projections = new ArrayList<>();
+
+        void add(String id, Document doc) {
+            documents.put(id, doc.append("_id", id));
+        }
+
+        @SuppressWarnings("unchecked")
+        NanopubDb createDb() {
+            MongoCollection<Document> collection = mock(MongoCollection.class);
+            when(collection.find(any(Bson.class))).thenAnswer(invocation -> findIterable(invocation.getArgument(0)));
+            MongoDatabase database = mock(MongoDatabase.class);
+            when(database.getCollection("nanopubs")).thenReturn(collection);
+            return new NanopubDb(database);
+        }
+
+        @SuppressWarnings("unchecked")
+        private FindIterable<Document> findIterable(Bson filter) {
+            BsonDocument filterDoc = render(filter);
+            filters.add(filterDoc);
+            BsonDocument[] projection = {null};
+            FindIterable<Document> iterable = mock(FindIterable.class, RETURNS_SELF);
+            when(iterable.projection(any())).thenAnswer(invocation -> {
+                projection[0] = render(invocation.getArgument(0));
+                projections.add(projection[0]);
+                return iterable;
+            });
+            when(iterable.first()).thenAnswer(invocation -> {
+                List<Document> result = query(filterDoc, projection[0]);
+                return result.isEmpty() ? null : result.getFirst();
+            });
+            when(iterable.iterator()).thenAnswer(invocation -> cursorOver(query(filterDoc, projection[0])));
+            return iterable;
+        }
+
+        private List<Document> query(BsonDocument filter, BsonDocument projection) {
+            BsonValue id = filter.get("_id");
+            List<String> ids = new ArrayList<>();
+            if (id.isString()) {
+                ids.add(id.asString().getValue());
+            } else {
+                id.asDocument().getArray("$in").forEach(v -> ids.add(v.asString().getValue()));
+            }
+            List<Document> result = new ArrayList<>();
+            for (String i : ids) {
+                Document doc = documents.get(i);
+                if (doc == null) continue;
+                Document projected = new Document("_id", i);
+                for (String field : projection.keySet()) {
+                    if (doc.containsKey(field)) projected.append(field, doc.get(field));
+                }
+                result.add(projected);
+            }
+            return result;
+        }
+
+        private static BsonDocument render(Bson bson) {
+            return bson.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry());
+        }
+
+        @SuppressWarnings("unchecked")
+        private static MongoCursor<Document> cursorOver(List<Document> documents) {
+            Iterator<Document> iterator = documents.iterator();
+            MongoCursor<Document> cursor = mock(MongoCursor.class);
+            when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+            when(cursor.next()).thenAnswer(invocation -> iterator.next());
+            return cursor;
+        }
+
+    }
+
+    private static Document jellyDocument(Nanopub np) throws Exception {
+        return new Document("jelly", new Binary(JellyUtils.writeNanopubForDB(np)))
+                .append("nanopub", np.writeToString(RDFFormat.TRIG));
+    }
+
+    @Test
+    void readsNanopubsInBatchesWithTheJellyProjection() throws Exception {
+        NanopubCollectionStandIn standIn = new NanopubCollectionStandIn();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            standIn.add("RA" + i, jellyDocument(TestUtils.createNanopub("https://example.org/np" + i + "#")));
+            ids.add("RA" + i);
+        }
+        ids.add("RAmissing");
+        NanopubDb db = standIn.createDb();
+        db.setBatchSize(2);
+
+        Map<String, Nanopub> nanopubs = db.getNanopubs(ids);
+
+        assertEquals(5, nanopubs.size());
+        assertEquals("https://example.org/np3#", nanopubs.get("RA3").getUri().stringValue());
+        assertEquals(3, standIn.filters.size());
+        for (BsonDocument projection : standIn.projections) {
+            assertEquals(Set.of("jelly"), projection.keySet());
+        }
+    }
+
+    @Test
+    void fallsBackToTrigForDocumentsWithoutJelly() throws Exception {
+        NanopubCollectionStandIn standIn = new NanopubCollectionStandIn();
+        Nanopub np1 = TestUtils.createNanopub("https://example.org/np1#");
+        Nanopub np2 = TestUtils.createNanopub("https://example.org/np2#");
+        standIn.add("RA1", jellyDocument(np1));
+        standIn.add("RA2", new Document("nanopub", np2.writeToString(RDFFormat.TRIG)));
+        NanopubDb db = standIn.createDb();
+
+        Map<String, Nanopub> nanopubs = db.getNanopubs(List.of("RA1", "RA2"));
+
+        assertEquals(np1.getUri(), nanopubs.get("RA1").getUri());
+        assertEquals(np2.getUri(), nanopubs.get("RA2").getUri());
+        assertEquals(np2.getTripleCount(), nanopubs.get("RA2").getTripleCount());
+        // the second query only asks for the TriG of the document without Jelly:
+        assertEquals(2, standIn.filters.size());
+        assertEquals(1, standIn.filters.get(1).getDocument("_id").getArray("$in").size());
+        assertEquals(Set.of("nanopub"), standIn.projections.get(1).keySet());
+        assertNull(db.getNanopub("RAmissing"));
+    }
+
+    @Test
+    void checksExistenceWithIdsOnly() throws Exception {
+        NanopubCollectionStandIn standIn = new NanopubCollectionStandIn();
+        for (int i = 0; i < 3; i++) {
+            standIn.add("RA" + i, jellyDocument(TestUtils.createNanopub("https://example.org/np" + i + "#")));
+        }
+        NanopubDb db = standIn.createDb();
+        db.setBatchSize(2);
+
+        assertEquals(Set.of("RA0", "RA2"), db.hasNanopubs(List.of("RA0", "RA2", "RA2", "RA3")));
+        assertTrue(db.hasNanopub("RA1"));
+        assertFalse(db.hasNanopub("RA3"));
+        // duplicates are looked up once, so three distinct codes make two batches:
+        assertEquals(4, standIn.filters.size());
+        for (BsonDocument projection : standIn.projections) {
+            assertEquals(Set.of("_id"), projection.keySet());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void returnsTheDatabaseItWasCreatedFor() {
+        MongoDatabase database = mock(MongoDatabase.class);
+        NanopubDb db = new NanopubDb(database);
+
+        assertSame(database, db.getDatabase());
+        assertNull(db.getMongoClient());
+    }
+
+    @Test
+    void rejectsInvalidBatchSizes() {
+        NanopubDb db = new NanopubDb(mock(MongoDatabase.class));
+
+        assertThrows(IllegalArgumentException.class, () -> db.setBatchSize(0));
+    }
+
+    @Test
+    void prefersTheJellyField() throws Exception {
+        Nanopub np = TestUtils.createNanopub("https://example.org/np1#");
+        // The TriG field is broken on purpose, so the nanopub can only come from the Jelly field:
+        Document doc = new Document("_id", "RA1234")
+                .append("nanopub", "not TriG")
+                .append("jelly", new Binary(JellyUtils.writeNanopubForDB(np)));
+
+        Nanopub parsed = NanopubDb.parseNanopub(doc);
+
+        assertEquals(np.getUri(), parsed.getUri());
+        assertEquals(np.getTripleCount(), parsed.getTripleCount());
+    }
+
+    @Test
+    void readsJellyStoredAsPlainBytes() throws Exception {
+        Nanopub np = TestUtils.createNanopub("https://example.org/np1#");
+        Document doc = new Document("_id", "RA1234").append("jelly", JellyUtils.writeNanopubForDB(np));
+
+        assertEquals(np.getUri(), NanopubDb.parseNanopub(doc).getUri());
+    }
+
+    @Test
+    void reportsCorruptedNanopubs() {
+        Document doc = new Document("_id", "RA1234").append("jelly", new Binary(new byte[]{1, 2, 3}));
+
+        assertThrows(RuntimeException.class, () -> NanopubDb.parseNanopub(doc));
+    }
+
+}
@@ -0,0 +1,257 @@
+package org.nanopub.extra.server;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.sun.net.httpserver.HttpServer;
+import net.trustyuri.TrustyUriUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.createTrustyNanopub;
+
+class NanopubPublisherTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(s -> s.stop(0));
+    }
+
+    private static List<Nanopub> createTrustyNanopubs(int count) throws Exception {
+        List<Nanopub> nanopubs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nanopubs.add(createTrustyNanopub("np" + i));
+        }
+        return nanopubs;
+    }
+
+    /**
+     * Starts a registry stub that answers each POST after the given delay with the status code from the supplier,
+     * and counts the maximum number of concurrent requests.
+     */
+    private RegistryInfo startRegistry(long delayMillis, IntSupplier status, AtomicInteger maxConcurrent) throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(delayMillis);
+                exchange.sendResponseHeaders(status.getAsInt(), -1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        RegistryInfo registryInfo = new RegistryInfo();
+        registryInfo.url = "http://localhost:" + server.getAddress().getPort() + "/";
+        return registryInfo;
+    }
+
+    /**
+     * Starts a registry stub that has the nanopubs with the given artifact codes, and counts the POST and HEAD
+     * requests.
+     */
+    private RegistryInfo startRegistry(Set<String> artifactCodes, AtomicInteger posts, AtomicInteger heads) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            posts.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+        });
+        server.createContext("/np/", exchange -> {
+            heads.incrementAndGet();
+            boolean found = artifactCodes.contains(exchange.getRequestURI().getPath().substring(4));
+            exchange.sendResponseHeaders(found ? 200 : 404, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        RegistryInfo registryInfo = new RegistryInfo();
+        registryInfo.url = "http://localhost:" + server.getAddress().getPort() + "/";
+        return registryInfo;
+    }
+
+    private static String artifactCode(Nanopub np) {
+        return TrustyUriUtils.getArtifactCode(np.getUri().stringValue());
+    }
+
+    /**
+     * Collects the results of a publisher.
+     */
+    private static class CollectingHandler implements NanopubPublisher.Handler {
+
+        final Map<Nanopub, String> published = new HashMap<>();
+        final List<Nanopub> failed = new ArrayList<>();
+        final List<Nanopub> skipped = new ArrayList<>();
+
+        @Override
+        public void handlePublished(Nanopub np, String nanopubUrl) {
+            published.put(np, nanopubUrl);
+        }
+
+        @Override
+        public void handleAlreadyPublished(Nanopub np, String nanopubUrl) {
+            skipped.add(np);
+        }
+
+        @Override
+        public void handleFailed(Nanopub np, Exception ex) {
+            failed.add(np);
+        }
+
+    }
+
+    private static void publish(List<Nanopub> nanopubs, List<RegistryInfo> registries, int threads, CollectingHandler handler) throws Exception {
+        try (NanopubPublisher publisher = new NanopubPublisher(registries.iterator(), NanopubUtils.getHttpClient(), threads, handler)) {
+            publisher.setRetryBackoffMillis(1);
+            for (Nanopub np : nanopubs) {
+                publisher.submit(np);
+            }
+            publisher.finish();
+        }
+    }
+
+    @Test
+    void publishesConcurrently() throws Exception {
+        List<Nanopub> nanopubs = createTrustyNanopubs(32);
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        RegistryInfo registry = startRegistry(50, () -> 201, maxConcurrent);
+
+        CollectingHandler sequentialHandler = new CollectingHandler();
+        publish(nanopubs, List.of(registry), 1, sequentialHandler);
+        assertEquals(1, maxConcurrent.get());
+        CollectingHandler parallelHandler = new CollectingHandler();
+        publish(nanopubs, List.of(registry), 8, parallelHandler);
+
+        assertEquals(32, sequentialHandler.published.size());
+        assertEquals(32, parallelHandler.published.size());
+        assertTrue(parallelHandler.failed.isEmpty());
+        assertTrue(maxConcurrent.get() > 1 && maxConcurrent.get() <= 8, "max concurrent requests: " + maxConcurrent.get());
+    }
+
+    @Test
+    void retriesServerErrors() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        RegistryInfo registry = startRegistry(0, () -> requests.incrementAndGet() <= 2 ? 503 : 201, new AtomicInteger());
+        Nanopub np = createTrustyNanopub("a");
+
+        CollectingHandler handler = new CollectingHandler();
+        NanopubPublisher publisher = new NanopubPublisher(List.of(registry).iterator(), NanopubUtils.getHttpClient(), 1, handler);
+        publisher.setRetryBackoffMillis(1);
+        publisher.submit(np);
+        publisher.finish();
+
+        assertEquals(registry.getCollectionUrl() + artifactCode(np), handler.published.get(np));
+        NanopubPublisher.RegistryReport report = publisher.getReport().getFirst();
+        assertEquals(1, report.getPublishedCount());
+        assertEquals(2, report.getRetryCount());
+    }
+
+    @Test
+    void failsOverToTheNextRegistry() throws Exception {
+        RegistryInfo failing = startRegistry(0, () -> 500, new AtomicInteger());
+        RegistryInfo working = startRegistry(0, () -> 201, new AtomicInteger());
+        List<Nanopub> nanopubs = createTrustyNanopubs(5);
+
+        CollectingHandler handler = new CollectingHandler();
+        publish(nanopubs, List.of(failing, working), 2, handler);
+
+        assertEquals(5, handler.published.size());
+        for (String url : handler.published.values()) {
+            assertTrue(url.startsWith(working.getCollectionUrl()), url);
+        }
+    }
+
+    @Test
+    void reportsNanopubsThatNoRegistryAccepts() throws Exception {
+        AtomicInteger rejectingRequests = new AtomicInteger();
+        RegistryInfo rejecting = startRegistry(0, () -> {
+            rejectingRequests.incrementAndGet();
+            return 400;
+        }, new AtomicInteger());
+        List<Nanopub> nanopubs = createTrustyNanopubs(3);
+
+        CollectingHandler handler = new CollectingHandler();
+        publish(nanopubs, List.of(rejecting), 2, handler);
+
+        assertTrue(handler.published.isEmpty());
+        assertEquals(3, handler.failed.size());
+        // rejections are not retried:
+        assertEquals(3, rejectingRequests.get());
+    }
+
+    @Test
+    void skipsPublishedNanopubs() throws Exception {
+        List<Nanopub> nanopubs = createTrustyNanopubs(10);
+        Set<String> published = new HashSet<>();
+        for (Nanopub np : nanopubs.subList(0, 8)) {
+            published.add(artifactCode(np));
+        }
+        AtomicInteger posts = new AtomicInteger();
+        AtomicInteger heads = new AtomicInteger();
+        RegistryInfo registry = startRegistry(published, posts, heads);
+
+        CollectingHandler handler = new CollectingHandler();
+        NanopubPublisher publisher = new NanopubPublisher(List.of(registry).iterator(), NanopubUtils.getHttpClient(), 4, handler);
+        publisher.setSkipPublished(true);
+        for (Nanopub np : nanopubs) {
+            publisher.submit(np);
+        }
+        publisher.finish();
+
+        assertEquals(new HashSet<>(nanopubs.subList(0, 8)), new HashSet<>(handler.skipped));
+        assertEquals(Set.of(nanopubs.get(8), nanopubs.get(9)), handler.published.keySet());
+        assertEquals(10, heads.get());
+        assertEquals(2, posts.get());
+        assertEquals(8, publisher.getReport().getFirst().getSkippedCount());
+    }
+
+    @Test
+    void onlyChecksNanopubsInTheBloomFilter() throws Exception {
+        List<Nanopub> nanopubs = createTrustyNanopubs(10);
+        BloomFilter<CharSequence> known = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), 1000, 0.0001);
+        Set<String> published = new HashSet<>();
+        for (Nanopub np : nanopubs.subList(0, 8)) {
+            published.add(artifactCode(np));
+            known.put(artifactCode(np));
+        }
+        AtomicInteger posts = new AtomicInteger();
+        AtomicInteger heads = new AtomicInteger();
+        RegistryInfo registry = startRegistry(published, posts, heads);
+
+        CollectingHandler handler = new CollectingHandler();
+        NanopubPublisher publisher = new NanopubPublisher(List.of(registry).iterator(), NanopubUtils.getHttpClient(), 4, handler);
+        publisher.setSkipPublished(true);
+        publisher.setKnownArtifactCodes(known);
+        for (Nanopub np : nanopubs) {
+            publisher.submit(np);
+        }
+        publisher.finish();
+
+        assertEquals(8, handler.skipped.size());
+        assertEquals(2, handler.published.size());
+        // the two new nanopubs are not in the filter, so they are uploaded without asking first:
+        assertEquals(8, heads.get());
+        assertEquals(2, posts.get());
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.nanopub.extra.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryLatencyTrackerTest {
+
+    private static RegistryInfo registryInfo(String url) {
+        RegistryInfo registryInfo = new RegistryInfo();
+        registryInfo.url = url;
+        return registryInfo;
+    }
+
+    @Test
+    void usesTheDefaultDelayWithTooFewMeasurements() {
+        RegistryLatencyTracker tracker = new RegistryLatencyTracker(0.95, 1000, 20);
+        tracker.recordSuccess("https://a.example.org/", 50);
+
+        assertEquals(-1, tracker.getPercentile("https://a.example.org/", 0.5));
+        assertEquals(1000, tracker.getHedgeDelay("https://a.example.org/"));
+        assertEquals(1000, tracker.getHedgeDelay("https://b.example.org/"));
+    }
+
+    @Test
+    void computesPercentilesWithinTheBucketPrecision() {
+        RegistryLatencyTracker tracker = new RegistryLatencyTracker(0.95, 1000, 20);
+        for (int i = 1; i <= 100; i++) {
+            tracker.recordSuccess("https://a.example.org/", i < 95 ? 100 : 2000);
+        }
+
+        long median = tracker.getPercentile("https://a.example.org/", 0.5);
+        assertTrue(median >= 100 && median <= 120, "median was " + median);
+        long p95 = tracker.getHedgeDelay("https://a.example.org/");
+        assertTrue(p95 >= 2000 && p95 <= 2400, "p95 was " + p95);
+    }
+
+    @Test
+    void appliesTheMinimumDelay() {
+        RegistryLatencyTracker tracker = new RegistryLatencyTracker(0.95, 1000, 20);
+        for (int i = 0; i < 10; i++) {
+            tracker.recordSuccess("https://a.example.org/", 1);
+        }
+
+        assertEquals(20, tracker.getHedgeDelay("https://a.example.org/"));
+    }
+
+    @Test
+    void sortsRegistriesByExpectedLatency() {
+        RegistryLatencyTracker tracker = new RegistryLatencyTracker(0.95, 1000, 20);
+        RegistryInfo slow = registryInfo("https://slow.example.org/");
+        RegistryInfo fast = registryInfo("https://fast.example.org/");
+        RegistryInfo failing = registryInfo("https://failing.example.org/");
+        RegistryInfo unknown = registryInfo("https://unknown.example.org/");
+        for (int i = 0; i < 10; i++) {
+            tracker.recordSuccess(slow.getUrl(), 1500);
+            tracker.recordSuccess(fast.getUrl(), 50);
+            tracker.recordSuccess(failing.getUrl(), 10);
+            tracker.recordFailure(failing.getUrl());
+        }
+
+        List<RegistryInfo> sorted = tracker.sortByExpectedLatency(List.of(failing, unknown, slow, fast));
+
+        assertEquals(List.of(fast, unknown, slow, failing), sorted);
+    }
+
+    @Test
+    void rejectsInvalidPercentiles() {
+        assertThrows(IllegalArgumentException.class, () -> new RegistryLatencyTracker(0, 1000, 20));
+        assertThrows(IllegalArgumentException.class, () -> new RegistryLatencyTracker(1.5, 1000, 20));
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.nanopub.extra.server;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.vocabulary.NPX;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.*;
+
+class UriRuleSetTest {
+
+    private static Nanopub nanopubWithObjects(IRI... objects) throws Exception {
+        NanopubCreator c = new NanopubCreator(vf.createIRI(NANOPUB_URI));
+        for (IRI object : objects) {
+            c.addAssertionStatement(anyIri, anyIri, object);
+        }
+        c.addProvenanceStatement(anyIri, anyIri);
+        c.addPubinfoStatement(anyIri, anyIri);
+        return c.finalizeNanopub();
+    }
+
+    @Test
+    void checksTheDefaultRules() throws Exception {
+        Nanopub np = nanopubWithObjects(
+                vf.createIRI("urn:uuid:1234"),
+                vf.createIRI("https://schema.org/Person"),
+                vf.createIRI("https://example.org/path?ref=https://www.example.com/"),
+                vf.createIRI("https://example.org/https://schema.org/"));
+
+        List<String> issues = UriRuleSet.getDefault().check(np);
+
+        // grouped in the order of the rules:
+        assertEquals(List.of(
+                "Invalid URI protocol: urn:uuid:1234",
+                "Only Nanopubs of type 'example' should contain example uri: https://example.org/path?ref=https://www.example.com/",
+                "Unallowed uri: https://schema.org/Person"), issues);
+    }
+
+    @Test
+    void allowsExampleUrisInExampleNanopubs() throws Exception {
+        NanopubCreator c = new NanopubCreator(vf.createIRI(NANOPUB_URI));
+        c.addAssertionStatement(anyIri, anyIri, vf.createIRI("https://www.example.com/thing"));
+        c.addProvenanceStatement(anyIri, anyIri);
+        c.addPubinfoStatement(RDF.TYPE, NPX.EXAMPLE_NANOPUB);
+
+        assertEquals(List.of(), UriRuleSet.getDefault().check(c.finalizeNanopub()));
+    }
+
+    @Test
+    void checksAdditionalRulesInTheSamePass() throws Exception {
+        UriRuleSet rules = UriRuleSet.getDefault().with(
+                UriRule.forbidPrefixes("Internal uri", "https://intranet."),
+                UriRule.forbidSubstrings("Non-ASCII uri", "ä", "→"));
+        Nanopub np = nanopubWithObjects(
+                vf.createIRI("https://intranet.example.org/a"),
+                vf.createIRI("https://example.org/intranet.a"),
+                vf.createIRI("https://example.org/ä"),
+                vf.createIRI("https://example.org/a→b"));
+
+        List<String> issues = rules.check(np);
+
+        assertEquals(5, rules.getRules().size());
+        assertEquals(3, issues.size());
+        assertEquals("Internal uri: https://intranet.example.org/a", issues.get(0));
+        assertTrue(issues.containsAll(List.of("Non-ASCII uri: https://example.org/ä", "Non-ASCII uri: https://example.org/a→b")), issues.toString());
+    }
+
+    @Test
+    void matchesOverlappingPatterns() throws Exception {
+        UriRuleSet rules = new UriRuleSet(List.of(
+                UriRule.forbidSubstrings("Contains abab", "abab"),
+                UriRule.forbidSubstrings("Contains bac", "bac"),
+                UriRule.requirePrefixes("Not https", "https://")));
+        Nanopub np = nanopubWithObjects(vf.createIRI("https://x.org/ababac"));
+
+        List<String> issues = rules.check(np);
+
+        assertEquals(List.of("Contains abab: https://x.org/ababac", "Contains bac: https://x.org/ababac"), issues);
+    }
+
+    @Test
+    void rejectsRulesWithoutPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> UriRule.forbidPrefixes("No patterns"));
+        assertThrows(IllegalArgumentException.class, () -> UriRule.forbidSubstrings("Empty pattern", ""));
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.nanopub.op;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.nanopub.utils.TestUtils.createTrustyNanopub;
+
+class FingerprintTest {
+
+    private static List<String> runFingerprint(File inputFile, File outputFile, int threads) throws Exception {
+        Fingerprint.getInstance("-o " + outputFile + " --threads " + threads + " " + inputFile).run();
+        return Files.readAllLines(outputFile.toPath());
+    }
+
+    @Test
+    void writesTheSameLinesInInputOrderWithSeveralThreads(@TempDir File tempDir) throws Exception {
+        // Uncompressed N-Quads are split into nanopubs without a full parse when several threads are used:
+        File inputFile = new File(tempDir, "input.nq");
+        List<Nanopub> nanopubs = new ArrayList<>();
+        StringBuilder nquads = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            Nanopub np = createTrustyNanopub("np" + i);
+            nanopubs.add(np);
+            nquads.append(NanopubUtils.writeToString(np, RDFFormat.NQUADS));
+        }
+        Files.writeString(inputFile.toPath(), nquads);
+
+        List<String> sequential = runFingerprint(inputFile, new File(tempDir, "sequential.txt"), 1);
+        List<String> parallel = runFingerprint(inputFile, new File(tempDir, "parallel.txt"), 4);
+
+        assertEquals(20, sequential.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(nanopubs.get(i).getUri().stringValue(), sequential.get(i).split(" ")[0]);
+        }
+        assertEquals(sequential, parallel);
+    }
+
+}
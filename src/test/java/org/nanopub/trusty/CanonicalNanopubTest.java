@@ -0,0 +1,65 @@
+package org.nanopub.trusty;
+
+import net.trustyuri.rdf.RdfPreprocessor;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.NanopubUtils;
+import org.nanopub.utils.TestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.vf;
+
+class CanonicalNanopubTest {
+
+    private static Nanopub trustyNanopub() throws Exception {
+        NanopubCreator creator = TestUtils.getNanopubCreator(TempUriReplacer.tempUri + "np/");
+        creator.addAssertionStatement(anyIri, RDFS.LABEL, vf.createLiteral("label"));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        return MakeTrustyNanopub.transform(creator.finalizeNanopub());
+    }
+
+    @Test
+    void sortsThePreprocessedStatementsOnce() throws Exception {
+        Nanopub trusty = trustyNanopub();
+        CanonicalNanopub canonical = new CanonicalNanopub(trusty);
+
+        assertTrue(canonical.isValidTrusty());
+        assertEquals(StreamingRdfHasher.sort(RdfPreprocessor.run(NanopubUtils.getStatements(trusty), canonical.getArtifactCode())),
+                canonical.getStatements());
+        assertSame(canonical.getStatements(), canonical.getStatements());
+        // there is no signature to leave out:
+        assertSame(canonical.getStatements(), canonical.getSignatureStatements(anyIri));
+    }
+
+    @Test
+    void derivesNoSignatureInputWithBlankNodes() throws Exception {
+        // The transformation replaces blank nodes, so they are added to a nanopub with a trusty URI afterwards:
+        NanopubCreator creator = TestUtils.getNanopubCreator(trustyNanopub().getUri().stringValue());
+        BNode bnode = vf.createBNode();
+        creator.addAssertionStatement(anyIri, RDFS.SEEALSO, bnode);
+        creator.addAssertionStatement(bnode, RDFS.LABEL, vf.createLiteral("blank"));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        CanonicalNanopub canonical = new CanonicalNanopub(creator.finalizeNanopub());
+
+        assertNotNull(canonical.getArtifactCode());
+        assertFalse(canonical.isValidTrusty());
+        assertNull(canonical.getSignatureStatements(anyIri));
+    }
+
+    @Test
+    void rejectsNanopubsWithoutArtifactCode() throws Exception {
+        CanonicalNanopub canonical = new CanonicalNanopub(TestUtils.createNanopub());
+
+        assertNull(canonical.getArtifactCode());
+        assertFalse(canonical.isValidTrusty());
+        assertNull(canonical.getSignatureStatements(anyIri));
+        assertThrows(IllegalStateException.class, canonical::getStatements);
+    }
+
+}
@@ -7,6 +7,7 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
 import org.nanopub.*;
 import org.nanopub.utils.TestUtils;
 
@@ -21,8 +22,8 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 import static org.nanopub.utils.TestUtils.anyIri;
 import static org.nanopub.utils.TestUtils.vf;
 
@@ -73,6 +74,19 @@ class MakeTrustyNanopubTest {
         assertTrue(TrustyNanopubUtils.isValidTrustyNanopub(trusty));
     }
 
+    @Test
+    void transformDoesNotHashTheTrustyNanopubAgain() throws Exception {
+        Nanopub plain = plainNanopub();
+        Nanopub trusty;
+        try (MockedStatic<TrustyNanopubUtils> utils = mockStatic(TrustyNanopubUtils.class, CALLS_REAL_METHODS)) {
+            trusty = MakeTrustyNanopub.transform(plain);
+
+            assertTrue(((NanopubImpl) trusty).isValidAndTrusty());
+            utils.verify(() -> TrustyNanopubUtils.isValidTrustyNanopub(any()), never());
+        }
+        assertTrue(TrustyNanopubUtils.isValidTrustyNanopub(trusty));
+    }
+
     @Test
     void transformResolvesTemporaryUris() throws Exception {
         Nanopub temp = tempUriNanopub();
@@ -0,0 +1,170 @@
+package org.nanopub.trusty;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.jupiter.api.Test;
+import org.nanopub.MultiNanopubRdfHandler;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.NanopubUtils;
+import org.nanopub.utils.TestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.vf;
+
+class ParallelNanopubTransformerTest {
+
+    private static String tempUri(int i) {
+        return TempUriReplacer.tempUri + "np" + i + "/";
+    }
+
+    /**
+     * Creates a nanopub with a temporary URI, whose assertion refers to the nanopub with the given number, or to
+     * nothing if it is negative.
+     */
+    private static Nanopub createTempNanopub(int i, int referredTo) throws Exception {
+        NanopubCreator creator = TestUtils.getNanopubCreator(tempUri(i));
+        IRI object = referredTo < 0 ? anyIri : vf.createIRI(tempUri(referredTo) + "thing");
+        creator.addAssertionStatement(vf.createIRI(tempUri(i) + "thing"), anyIri, object);
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        return creator.finalizeNanopub();
+    }
+
+    /**
+     * Creates 20 nanopubs, where each fifth one refers to the one before, which makes 4 chains of two nanopubs.
+     */
+    private static byte[] createInput() throws Exception {
+        StringBuilder trig = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            trig.append(NanopubUtils.writeToString(createTempNanopub(i, i % 5 == 4 ? i - 1 : -1), RDFFormat.TRIG));
+            trig.append("\n");
+        }
+        return trig.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Nanopub> read(byte[] trig) throws Exception {
+        List<Nanopub> nanopubs = new ArrayList<>();
+        MultiNanopubRdfHandler.process(RDFFormat.TRIG, new ByteArrayInputStream(trig), nanopubs::add);
+        return nanopubs;
+    }
+
+    private static List<IRI> uris(List<Nanopub> nanopubs) {
+        return nanopubs.stream().map(Nanopub::getUri).toList();
+    }
+
+    @Test
+    void transformsInInputOrder() throws Exception {
+        byte[] input = createInput();
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        MakeTrustyNanopub.transformMultiNanopub(RDFFormat.TRIG, new ByteArrayInputStream(input), sequential, false);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        MakeTrustyNanopub.transformMultiNanopub(RDFFormat.TRIG, new ByteArrayInputStream(input), parallel, false, 4);
+
+        List<Nanopub> expected = read(sequential.toByteArray());
+        assertEquals(20, expected.size());
+        assertEquals(uris(expected), uris(read(parallel.toByteArray())));
+    }
+
+    @Test
+    void resolvesCrossReferencesLikeTheSequentialTransformation() throws Exception {
+        byte[] input = createInput();
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        MakeTrustyNanopub.transformMultiNanopub(RDFFormat.TRIG, new ByteArrayInputStream(input), sequential, true);
+        Map<Resource, IRI> tempRefMap = new ConcurrentHashMap<>();
+        List<Nanopub> parallel = new ArrayList<>();
+        try (ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(4, true,
+                np -> MakeTrustyNanopub.transform(np, tempRefMap, null), parallel::add)) {
+            transformer.process(RDFFormat.TRIG, new ByteArrayInputStream(input));
+            assertEquals(4, transformer.getDependentCount());
+        }
+
+        List<Nanopub> expected = read(sequential.toByteArray());
+        assertEquals(uris(expected), uris(parallel));
+        // the references to the temporary URIs of earlier nanopubs are replaced by their trusty URIs:
+        Nanopub referring = parallel.get(4);
+        for (Statement st : referring.getAssertion()) {
+            assertTrue(st.getObject().stringValue().startsWith(parallel.get(3).getUri().stringValue()), st.getObject().stringValue());
+        }
+    }
+
+    @Test
+    void leavesReferencesToLaterNanopubsLikeTheSequentialTransformation() throws Exception {
+        // Each fifth nanopub refers to the one after it:
+        StringBuilder trig = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            trig.append(NanopubUtils.writeToString(createTempNanopub(i, i % 5 == 0 ? i + 1 : -1), RDFFormat.TRIG));
+            trig.append("\n");
+        }
+        byte[] input = trig.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        MakeTrustyNanopub.transformMultiNanopub(RDFFormat.TRIG, new ByteArrayInputStream(input), sequential, true);
+        Map<Resource, IRI> tempRefMap = new ConcurrentHashMap<>();
+        List<Nanopub> parallel = new ArrayList<>();
+        try (ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(4, true,
+                np -> MakeTrustyNanopub.transform(np, tempRefMap, null), parallel::add)) {
+            transformer.process(RDFFormat.TRIG, new ByteArrayInputStream(input));
+            assertEquals(4, transformer.getDependentCount());
+        }
+
+        List<Nanopub> expected = read(sequential.toByteArray());
+        assertEquals(uris(expected), uris(parallel));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected.get(i).getAssertion(), parallel.get(i).getAssertion());
+        }
+        // the references to later nanopubs keep their temporary URIs:
+        for (Statement st : parallel.get(0).getAssertion()) {
+            assertEquals(tempUri(1) + "thing", st.getObject().stringValue());
+        }
+    }
+
+    @Test
+    void keepsTheReferencesOfNanopubsTransformedAtTheSameTimeApart() throws Exception {
+        // Independent nanopubs are transformed at the same time, and each fifth one refers to the one before:
+        byte[] input = createInput();
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        MakeTrustyNanopub.transformMultiNanopub(RDFFormat.TRIG, new ByteArrayInputStream(input), sequential, true);
+        List<Nanopub> expected = read(sequential.toByteArray());
+
+        for (int run = 0; run < 50; run++) {
+            Map<Resource, IRI> tempRefMap = new ConcurrentHashMap<>();
+            List<Nanopub> parallel = new ArrayList<>();
+            try (ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(8, true,
+                    np -> MakeTrustyNanopub.transform(np, tempRefMap, null), parallel::add)) {
+                transformer.process(RDFFormat.TRIG, new ByteArrayInputStream(input));
+            }
+
+            assertEquals(uris(expected), uris(parallel));
+            for (int i = 0; i < 20; i++) {
+                assertEquals(expected.get(i).getAssertion(), parallel.get(i).getAssertion());
+                assertEquals(parallel.get(i).getUri(), tempRefMap.get(vf.createIRI(tempUri(i))));
+            }
+        }
+    }
+
+    @Test
+    void reportsFailedTransformations() throws Exception {
+        byte[] input = createInput();
+
+        try (ParallelNanopubTransformer transformer = new ParallelNanopubTransformer(4, true, np -> {
+            throw new IllegalStateException("failed to transform " + np.getUri());
+        }, np -> fail("no nanopub expected"))) {
+            assertThrows(IllegalStateException.class, () -> transformer.process(RDFFormat.TRIG, new ByteArrayInputStream(input)));
+        }
+    }
+
+}
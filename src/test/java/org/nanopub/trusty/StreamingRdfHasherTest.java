@@ -0,0 +1,118 @@
+package org.nanopub.trusty;
+
+import net.trustyuri.rdf.RdfHasher;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.junit.jupiter.api.Test;
+import org.nanopub.Nanopub;
+import org.nanopub.NanopubCreator;
+import org.nanopub.utils.TestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.nanopub.utils.TestUtils.anyIri;
+import static org.nanopub.utils.TestUtils.vf;
+
+class StreamingRdfHasherTest {
+
+    // Characters that are escaped, need several bytes in UTF-8, or are surrogates (also unpaired ones):
+    private static final String[] STRING_PARTS = {"a", "xyz", " ", "\\", "\n", "\r", "\t", "\"", "é", "Ω", "€", "中文",
+            "\uD83D\uDE00", "\uD800", "\uDC00", "@", "^"};
+
+    private static String randomString(Random random, int maxParts) {
+        StringBuilder sb = new StringBuilder();
+        int parts = random.nextInt(maxParts + 1);
+        for (int i = 0; i < parts; i++) {
+            sb.append(STRING_PARTS[random.nextInt(STRING_PARTS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static IRI randomIri(Random random) {
+        return vf.createIRI("https://example.org/" + random.nextInt(5) + "/" + randomString(random, 3).replaceAll("[\\s\\\\\"^]", "_"));
+    }
+
+    private static Value randomObject(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> randomIri(random);
+            case 1 -> vf.createLiteral(randomString(random, 8));
+            case 2 -> vf.createLiteral(randomString(random, 8), random.nextBoolean() ? "en" : "de-CH");
+            default -> vf.createLiteral(randomString(random, 3), random.nextBoolean() ? XSD.INTEGER : randomIri(random));
+        };
+    }
+
+    private static List<Statement> randomStatements(Random random, int count) {
+        List<Statement> statements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Statement st = vf.createStatement(randomIri(random), randomIri(random), randomObject(random), randomIri(random));
+            statements.add(st);
+            // some duplicates, which are only hashed once:
+            if (random.nextInt(10) == 0) statements.add(st);
+        }
+        return statements;
+    }
+
+    private static byte[] rdfHasherDigest(List<Statement> statements) throws Exception {
+        String digestString = RdfHasher.getDigestString(new ArrayList<>(statements));
+        return MessageDigest.getInstance("SHA-256").digest(digestString.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void hashesLikeRdfHasher() throws Exception {
+        for (int seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            List<Statement> statements = randomStatements(random, random.nextInt(60));
+
+            assertArrayEquals(rdfHasherDigest(statements), StreamingRdfHasher.digest(statements), "seed " + seed);
+        }
+    }
+
+    @Test
+    void makesTheSameArtifactCodeAsRdfHasher() throws Exception {
+        for (int seed = 0; seed < 50; seed++) {
+            List<Statement> statements = randomStatements(new Random(seed), 20);
+
+            assertEquals(RdfHasher.makeArtifactCode(new ArrayList<>(statements)).toString(),
+                    StreamingRdfHasher.makeArtifactCode(statements).toString(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void hashesLongLiteralsAcrossBufferBoundaries() throws Exception {
+        String longValue = "\\é\n€\uD83D\uDE00".repeat(5000);
+        List<Statement> statements = List.of(vf.createStatement(anyIri, anyIri, vf.createLiteral(longValue), anyIri));
+
+        assertArrayEquals(rdfHasherDigest(statements), StreamingRdfHasher.digest(statements));
+    }
+
+    @Test
+    void doesNotChangeTheStatements() {
+        List<Statement> statements = randomStatements(new Random(1), 30);
+        List<Statement> copy = new ArrayList<>(statements);
+
+        StreamingRdfHasher.digest(statements);
+
+        assertEquals(copy, statements);
+    }
+
+    @Test
+    void checksTrustyNanopubsWithAndWithoutBlankNodes() throws Exception {
+        NanopubCreator creator = TestUtils.getNanopubCreator("http://purl.org/nanopub/temp/bnodes/");
+        creator.addAssertionStatement(anyIri, anyIri, vf.createBNode("b1"));
+        creator.addAssertionStatement(vf.createBNode("b1"), anyIri, vf.createLiteral("with a blank node"));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        Nanopub withBlankNodes = creator.finalizeTrustyNanopub();
+
+        assertTrue(TrustyNanopubUtils.isValidTrustyNanopub(withBlankNodes));
+        assertTrue(TrustyNanopubUtils.isValidTrustyNanopub(MakeTrustyNanopub.transform(TestUtils.createNanopub())));
+    }
+
+}
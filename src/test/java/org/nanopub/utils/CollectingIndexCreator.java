@@ -0,0 +1,33 @@
+package org.nanopub.utils;
+
+import org.nanopub.extra.index.NanopubIndex;
+import org.nanopub.extra.index.SimpleIndexCreator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index creator that collects the indexes it hands back.
+ */
+public class CollectingIndexCreator extends SimpleIndexCreator {
+
+    public final List<NanopubIndex> indexes = new ArrayList<>();
+    public NanopubIndex complete;
+
+    public CollectingIndexCreator() {
+        super(true);
+        setBaseUri("https://example.org/index/");
+    }
+
+    @Override
+    public void handleIncompleteIndex(NanopubIndex npi) {
+        indexes.add(npi);
+    }
+
+    @Override
+    public void handleCompleteIndex(NanopubIndex npi) {
+        indexes.add(npi);
+        complete = npi;
+    }
+
+}
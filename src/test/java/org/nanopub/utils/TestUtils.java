@@ -9,6 +9,9 @@ import org.nanopub.Nanopub;
 import org.nanopub.NanopubAlreadyFinalizedException;
 import org.nanopub.NanopubCreator;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TestUtils {
 
     public final static String NANOPUB_URI = "https://knowledgepixels.com/nanopubIri#title";
@@ -44,4 +47,38 @@ public class TestUtils {
         return creator.finalizeNanopub();
     }
 
+    public static Nanopub createTrustyNanopub(String name) throws Exception {
+        NanopubCreator creator = getNanopubCreator("http://purl.org/nanopub/temp/" + name + "/");
+        creator.addAssertionStatement(anyIri, anyIri, vf.createLiteral(name));
+        creator.addProvenanceStatement(anyIri, anyIri);
+        creator.addPubinfoStatement(anyIri, anyIri);
+        return creator.finalizeTrustyNanopub();
+    }
+
+    /**
+     * Creates an index with the given number of elements and a sub-index with 5 elements, and returns all nanopubs
+     * including the indexes. The complete index is the last one.
+     */
+    public static List<Nanopub> createIndexWithSubIndex(int elementCount) throws Exception {
+        List<Nanopub> all = new ArrayList<>();
+        CollectingIndexCreator subCreator = new CollectingIndexCreator();
+        for (int i = 0; i < 5; i++) {
+            Nanopub np = createTrustyNanopub("sub" + i);
+            all.add(np);
+            subCreator.addElement(np);
+        }
+        subCreator.finalizeNanopub();
+        CollectingIndexCreator creator = new CollectingIndexCreator();
+        for (int i = 0; i < elementCount; i++) {
+            Nanopub np = createTrustyNanopub("np" + i);
+            all.add(np);
+            creator.addElement(np);
+        }
+        creator.addSubIndex(subCreator.complete);
+        creator.finalizeNanopub();
+        all.addAll(subCreator.indexes);
+        all.addAll(creator.indexes);
+        return all;
+    }
+
 }